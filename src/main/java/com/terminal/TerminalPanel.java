@@ -9,6 +9,7 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -27,6 +28,7 @@ import javax.swing.text.StyleConstants;
 import javax.swing.text.StyleContext;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.commands.AbstractCommand;
 import com.terminal.commands.CatCommand;
 import com.terminal.commands.CdCommand;
 import com.terminal.commands.ClearCommand;
@@ -61,6 +63,8 @@ import com.terminal.commands.WebCommand;
 import com.terminal.commands.WifiScanCommand;
 import com.terminal.commands.ZipCommand;
 import com.terminal.sdk.AbstractAsyncCommand;
+import com.terminal.sdk.completion.CompletionEngine;
+import com.terminal.sdk.completion.DirectoryIndexCache;
 import com.terminal.sdk.core.AsyncCommand;
 import com.terminal.sdk.core.AsyncTaskManager;
 import com.terminal.sdk.core.Command;
@@ -68,15 +72,21 @@ import com.terminal.sdk.core.CommandCategory;
 import com.terminal.sdk.core.CommandContext;
 import com.terminal.sdk.core.CommandFacade;
 import com.terminal.sdk.core.CommandInfo;
+import com.terminal.sdk.core.CommandLane;
+import com.terminal.sdk.core.CommandScheduler;
 import com.terminal.sdk.core.handlers.LoggingCommandHandler;
 import com.terminal.sdk.events.EventType;
 import com.terminal.sdk.events.TerminalEvent;
+import com.terminal.sdk.output.BufferedOutputSink;
+import com.terminal.sdk.output.ScrollbackDocument;
+import com.terminal.sdk.output.ScrollbackSpill;
 import com.terminal.sdk.services.IEventManager;
 import com.terminal.sdk.services.IPluginManager;
 import com.terminal.sdk.services.IThemeManager;
 import com.terminal.sdk.services.ServiceLocator;
 import com.terminal.sdk.services.TerminalService;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.BannerGenerator;
 import com.terminal.utils.InputCallback;
 import com.terminal.utils.PluginManager;
@@ -93,6 +103,7 @@ public class TerminalPanel extends JPanel {
     private Color suggestionColor = new Color(139, 148, 158);
     private Color promptColor = new Color(126, 231, 135);
     private static final int LEFT_PADDING = 10;
+    private static final int DEFAULT_SCROLLBACK_LINES = 10000;
     private final JTextPane textPane = new JTextPane();
     private Style defaultStyle;
     private Style usernameStyle;
@@ -130,10 +141,16 @@ public class TerminalPanel extends JPanel {
     private static int nextId = 0;
     private final int terminalId;
     private CommandFacade commandFacade;
+    private BufferedOutputSink outputSink;
+    private ScrollbackDocument scrollbackDocument;
+    private final CommandLane commandLane;
+    private int activeRunId;
+    private final CompletionEngine completionEngine = new CompletionEngine();
 
     public TerminalPanel(TerminalFrame frame, String version) {
         this.frame = frame;
         this.terminalId = nextId++;
+        this.commandLane = CommandScheduler.getInstance().getLane(terminalId);
         
         ServiceLocator locator = ServiceLocator.getInstance();
         this.eventManager = locator.resolve(IEventManager.class);
@@ -201,7 +218,24 @@ public class TerminalPanel extends JPanel {
         
         textPane.setBackground(backgroundColor);
         textPane.setCaretColor(defaultTextColor);
-        
+        initializeScrollback();
+        outputSink = BufferedOutputSink.install(textPane.getStyledDocument());
+        // Поздний вывод прерванной команды и ее fork/join подзадач отбрасывается,
+        // пока ее поток не вернется в пул
+        commandLane.setCancelListener(new CommandLane.CancelListener() {
+            @Override
+            public void onCancel(Thread runner) {
+                outputSink.suppressThread(runner);
+                outputSink.suppressWorkers();
+            }
+
+            @Override
+            public void onFinished(Thread runner) {
+                outputSink.releaseThread(runner);
+                outputSink.releaseWorkers();
+            }
+        });
+
         textPane.putClientProperty("JTextPane.w3cLength", Boolean.FALSE);
         textPane.putClientProperty("JTextPane.honorDisplayProperties", Boolean.TRUE);
         
@@ -297,6 +331,9 @@ public class TerminalPanel extends JPanel {
         eventManager.subscribe(EventType.THEME_CHANGED, this::handleThemeChanged);
         
         commands.putAll(pluginManager.getPluginCommands());
+        for (Map.Entry<String, CommandInfo> plugin : pluginManager.getPluginCommands().entrySet()) {
+            completionEngine.registerCommand(plugin.getKey(), plugin.getValue().getCommand());
+        }
 
         textPane.addMouseListener(new MouseListener() {
             @Override
@@ -318,6 +355,20 @@ public class TerminalPanel extends JPanel {
         });
     }
 
+    private void initializeScrollback() {
+        UserSettings settings = UserSettings.getInstance();
+        int maxLines = settings.getInt("scrollback-lines", DEFAULT_SCROLLBACK_LINES);
+        ScrollbackSpill spill = null;
+        if (settings.getBoolean("scrollback-spill", false)) {
+            spill = new ScrollbackSpill(new File("content/data/scrollback"),
+                String.format("terminal-%d-%d", System.currentTimeMillis(), terminalId));
+        }
+        scrollbackDocument = new ScrollbackDocument(maxLines, spill);
+        scrollbackDocument.addEvictionListener(removed ->
+            userInputStart = Math.max(0, userInputStart - removed));
+        textPane.setStyledDocument(scrollbackDocument);
+    }
+
     private void initializeStyles() {
         // Implementation of initializeStyles method
     }
@@ -341,7 +392,7 @@ public class TerminalPanel extends JPanel {
         registerCommand("rm", new RmCommand(doc, defaultStyle, pathHolder), CommandCategory.FILE_OPERATIONS);
         
         // Сетевые команды
-        registerCommand("ping", new PingCommand(doc, defaultStyle), CommandCategory.NETWORK);
+        registerCommand("ping", new PingCommand(doc, defaultStyle, pathHolder), CommandCategory.NETWORK);
         registerCommand("netstat", new NetstatCommand(doc, defaultStyle, promptStyle), CommandCategory.NETWORK);
         registerCommand("trace", new TraceCommand(doc, defaultStyle, promptStyle), CommandCategory.NETWORK);
         registerCommand("dns", new DnsCommand(doc, defaultStyle, pathHolder), CommandCategory.NETWORK);
@@ -376,15 +427,17 @@ public class TerminalPanel extends JPanel {
     private void registerCommand(String name, Command command, CommandCategory category) {
         CommandInfo info = new CommandInfo(name, command.getDescription(), category.name(), command);
         commands.put(name, info);
+        completionEngine.registerCommand(name, command);
         // Больше не регистрируем команду в CommandFacade, так как будем использовать прямое выполнение
     }
 
     private void displayPrompt() {
         try {
+            outputSink.flush();
             StyledDocument doc = textPane.getStyledDocument();
-            String currentText = doc.getText(0, doc.getLength());
-            if (!currentText.endsWith("\n")) {
-                doc.insertString(doc.getLength(), "\n", defaultStyle);
+            int length = doc.getLength();
+            if (length == 0 || !"\n".equals(doc.getText(length - 1, 1))) {
+                doc.insertString(length, "\n", defaultStyle);
             }
             
             if (isInputMode) {
@@ -401,18 +454,15 @@ public class TerminalPanel extends JPanel {
             
             userInputStart = textPane.getDocument().getLength();
             textPane.setCaretPosition(userInputStart);
+            DirectoryIndexCache.getInstance().prefetch(getCurrentPath());
         } catch (BadLocationException e) {
             e.printStackTrace();
         }
     }
 
     private void appendString(String str, Style style) {
-        StyledDocument doc = textPane.getStyledDocument();
-        try {
-            doc.insertString(doc.getLength(), str, style);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        outputSink.append(str, style);
+        outputSink.flush();
     }
 
     private void executeCommand(String input) {
@@ -435,6 +485,7 @@ public class TerminalPanel extends JPanel {
                 System.arraycopy(parts, 1, args, 0, args.length);
                 
                 currentCommand = commandInfo.getCommand();
+                completionEngine.recordUse(commandName, args);
                 
                 if (!commandHistory.contains(input.trim())) {
                     commandHistory.add(input.trim());
@@ -443,13 +494,29 @@ public class TerminalPanel extends JPanel {
                     sidebarManager.addToHistory(input.trim());
                 }
                 
-                // Выполняем команду напрямую
                 Command command = commandInfo.getCommand();
-                command.execute(new CommandContext(commandName, args, textPane.getStyledDocument(), defaultStyle, pathHolder));
+                CommandContext context = new CommandContext(commandName, args, textPane.getStyledDocument(), defaultStyle, pathHolder);
                 
-                // Добавляем перенос строки после выполнения команды
-                appendString("\n", defaultStyle);
-                displayPrompt();
+                if (command.runsOnEventThread()) {
+                    command.execute(context);
+                    appendString("\n", defaultStyle);
+                    displayPrompt();
+                    return;
+                }
+                
+                // Выполняем команду в очереди панели, не блокируя EDT
+                int runId = ++activeRunId;
+                lock();
+                commandLane.submit(() -> {
+                    try {
+                        command.execute(context);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        BufferedOutputSink.write(context.getDoc(), "Ошибка: " + e.getMessage() + "\n", errorStyle);
+                    } finally {
+                        SwingUtilities.invokeLater(() -> finishCommand(runId));
+                    }
+                }, command.getPool());
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -459,6 +526,16 @@ public class TerminalPanel extends JPanel {
         }
     }
 
+    private void finishCommand(int runId) {
+        if (runId != activeRunId) {
+            return;
+        }
+        currentCommand = null;
+        appendString("\n", defaultStyle);
+        unlock();
+        displayPrompt();
+    }
+
     private void handleCtrlC() {
         if (currentCommand instanceof AbstractAsyncCommand) {
             AbstractAsyncCommand asyncCommand = (AbstractAsyncCommand) currentCommand;
@@ -476,7 +553,23 @@ public class TerminalPanel extends JPanel {
                 userInputStart = textPane.getDocument().getLength();
                 displayPrompt();
             });
+            return;
         }
+        
+        if (!commandLane.isBusy()) {
+            return;
+        }
+        
+        // Прерываем синхронную команду: ее поток получает interrupt, поздний вывод отбрасывается
+        commandLane.cancelCurrent();
+        if (currentCommand instanceof AbstractCommand) {
+            ((AbstractCommand) currentCommand).interrupt();
+        }
+        activeRunId++;
+        currentCommand = null;
+        appendString("\n^C\n", errorStyle);
+        unlock();
+        displayPrompt();
     }
 
     private void showPreviousCommand() {
@@ -609,52 +702,21 @@ public class TerminalPanel extends JPanel {
                 String[] parts = currentInput.split("\\s+");
                 String commandPart = parts[0].toLowerCase();
                 
-                CommandInfo commandInfo = commands.get(commandPart);
-                if (commandInfo != null) {
-                    String[] suggestions = commandInfo.getCommand().getSuggestions(
-                        Arrays.copyOfRange(parts, 1, parts.length)
-                    );
-                    
-                    if (suggestions.length > 0) {
-                        String lastPart = parts[parts.length - 1];
-                        String suggestion = suggestions[0];
-                        
-                        if (suggestion.toLowerCase().startsWith(lastPart.toLowerCase()) && 
-                            !suggestion.equalsIgnoreCase(lastPart)) {
-                            String newSuggestion = suggestion.substring(Math.min(lastPart.length(), suggestion.length()));
-                            if (!newSuggestion.isEmpty() && !newSuggestion.equals(currentSuggestion)) {
-                                int caretPosition = textPane.getCaretPosition();
-                                removeSuggestion();
-                                currentSuggestion = newSuggestion;
-                                StyledDocument doc = textPane.getStyledDocument();
-                                doc.insertString(doc.getLength(), newSuggestion, suggestionStyle);
-                                textPane.setCaretPosition(caretPosition);
-                            }
-                        } else {
-                            removeSuggestion();
-                        }
-                    } else {
-                        removeSuggestion();
-                    }
+                if (parts.length == 1) {
+                    showSuggestion(commandPart, completionEngine.completeCommand(commandPart));
                     return;
                 }
 
-                if (parts.length == 1) {
-                    String bestMatch = findBestMatch(commandPart);
-                    if (!bestMatch.isEmpty() && !bestMatch.equals(commandPart) && 
-                        !bestMatch.equalsIgnoreCase(commandPart)) {
-                        String newSuggestion = bestMatch.substring(Math.min(commandPart.length(), bestMatch.length()));
-                        if (!newSuggestion.isEmpty() && !newSuggestion.equals(currentSuggestion)) {
-                            int caretPosition = textPane.getCaretPosition();
-                            removeSuggestion();
-                            currentSuggestion = newSuggestion;
-                            StyledDocument doc = textPane.getStyledDocument();
-                            doc.insertString(doc.getLength(), newSuggestion, suggestionStyle);
-                            textPane.setCaretPosition(caretPosition);
-                        }
-                    } else {
-                        removeSuggestion();
+                CommandInfo commandInfo = commands.get(commandPart);
+                if (commandInfo != null) {
+                    String lastPart = parts[parts.length - 1];
+                    String suggestion = parts.length == 2
+                        ? completionEngine.completeSubCommand(commandPart, lastPart) : "";
+                    if (suggestion.isEmpty()) {
+                        suggestion = firstMatch(commandInfo.getCommand().getSuggestions(
+                            Arrays.copyOfRange(parts, 1, parts.length)), lastPart);
                     }
+                    showSuggestion(lastPart, suggestion);
                 } else {
                     removeSuggestion();
                 }
@@ -666,11 +728,34 @@ public class TerminalPanel extends JPanel {
         });
     }
 
-    private String findBestMatch(String prefix) {
-        return commands.keySet().stream()
-            .filter(cmd -> cmd.startsWith(prefix.toLowerCase()))
-            .findFirst()
-            .orElse("");
+    private void showSuggestion(String typed, String suggestion) throws BadLocationException {
+        if (suggestion.isEmpty() || suggestion.equalsIgnoreCase(typed)
+                || !suggestion.toLowerCase().startsWith(typed.toLowerCase())) {
+            removeSuggestion();
+            return;
+        }
+        String newSuggestion = suggestion.substring(typed.length());
+        if (!newSuggestion.equals(currentSuggestion)) {
+            int caretPosition = textPane.getCaretPosition();
+            removeSuggestion();
+            currentSuggestion = newSuggestion;
+            StyledDocument doc = textPane.getStyledDocument();
+            doc.insertString(doc.getLength(), newSuggestion, suggestionStyle);
+            textPane.setCaretPosition(caretPosition);
+        }
+    }
+
+    private String firstMatch(String[] suggestions, String prefix) {
+        if (suggestions == null) {
+            return "";
+        }
+        String lowerPrefix = prefix.toLowerCase();
+        for (String suggestion : suggestions) {
+            if (suggestion.toLowerCase().startsWith(lowerPrefix) && !suggestion.equalsIgnoreCase(prefix)) {
+                return suggestion;
+            }
+        }
+        return "";
     }
 
     private void completeSuggestion() {
@@ -806,6 +891,10 @@ public class TerminalPanel extends JPanel {
         eventManager.unsubscribe(EventType.OUTPUT_UPDATED, this::handleOutputUpdated);
         eventManager.unsubscribe(EventType.THEME_CHANGED, this::handleThemeChanged);
         
+        CommandScheduler.getInstance().releaseLane(terminalId);
+        AsyncTaskManager.getInstance().releaseTerminal(terminalId);
+        outputSink.dispose();
+        scrollbackDocument.close();
         pluginManager.shutdown();
         
         eventManager.clear();
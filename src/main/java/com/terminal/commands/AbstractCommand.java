@@ -3,9 +3,11 @@ package com.terminal.commands;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
@@ -14,6 +16,7 @@ import com.terminal.sdk.core.Command;
 import com.terminal.sdk.core.CommandContext;
 import com.terminal.sdk.core.CommandInfo;
 import com.terminal.sdk.formatting.DefaultBeautifulFormatter;
+import com.terminal.sdk.output.BufferedOutputSink;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
@@ -117,6 +120,13 @@ public abstract class AbstractCommand extends Command {
         this.subCommands.put(name, new SubCommand(name, description, subCommands));
     }
 
+    /**
+     * Возвращает имена подкоманд для индекса автодополнения
+     */
+    public Set<String> getSubCommandNames() {
+        return Collections.unmodifiableSet(subCommands.keySet());
+    }
+
     @Override
     public String[] getSuggestions(String[] args) {
         List<String> suggestions = new ArrayList<>(subCommands.keySet());
@@ -157,6 +167,21 @@ public abstract class AbstractCommand extends Command {
         return isLongRunning;
     }
 
+    /**
+     * Вызывается при нажатии Ctrl+C во время выполнения команды.
+     * Поток команды к этому моменту уже прерван; команды, удерживающие
+     * собственные ресурсы, освобождают их здесь.
+     */
+    public void interrupt() {
+    }
+
+    /**
+     * Проверяет, была ли команда прервана пользователем
+     */
+    protected boolean isCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+
     protected void printError(String message) {
         try {
             formatter.printMessage(doc, style, "Ошибка: " + message);
@@ -217,22 +242,14 @@ public abstract class AbstractCommand extends Command {
      * Добавляет текст в документ с указанным стилем.
      */
     protected void appendString(String str) {
-        try {
-            doc.insertString(doc.getLength(), str, style);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        BufferedOutputSink.write(doc, str, style);
     }
 
     /**
      * Добавляет текст с новой строки.
      */
     protected void appendLine(String text) {
-        try {
-            doc.insertString(doc.getLength(), text + "\n", style);
-        } catch (Exception e) {
-            System.err.println("Ошибка при выводе строки: " + e.getMessage());
-        }
+        BufferedOutputSink.write(doc, text + "\n", style);
     }
 
     /**
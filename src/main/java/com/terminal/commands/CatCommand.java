@@ -1,9 +1,6 @@
 package com.terminal.commands;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,12 +14,18 @@ import java.util.Map;
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.completion.DirectoryIndex;
+import com.terminal.sdk.completion.DirectoryIndexCache;
 import com.terminal.sdk.core.Command;
 import com.terminal.sdk.core.CommandInfo;
+import com.terminal.sdk.io.FileStreamer;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class CatCommand extends AbstractCommand {
+    private static final int MAX_FILE_SUGGESTIONS = 32;
+    private static final int DEFAULT_CAPTURE_CHARS = 8 * 1024 * 1024;
     private final CurrentPathHolder pathHolder;
     private final Map<String, CommandInfo> commands;
 
@@ -32,6 +35,14 @@ public class CatCommand extends AbstractCommand {
         this.commands = commands;
     }
 
+    /**
+     * Окно вывода файла в байтах: [from, to)
+     */
+    private static final class Window {
+        long from;
+        long to = Long.MAX_VALUE;
+    }
+
     @Override
     public void executeCommand(String... args) {
         try {
@@ -55,7 +66,7 @@ public class CatCommand extends AbstractCommand {
                 }
             }
 
-            CommandInfo commandInfo = commands.get(commandArgs[0]);
+            CommandInfo commandInfo = commandArgs.length > 0 ? commands.get(commandArgs[0]) : null;
             if (commandInfo != null) {
                 final Command command = commandInfo.getCommand();
                 
@@ -81,39 +92,45 @@ public class CatCommand extends AbstractCommand {
                 return;
             }
 
-            File file = new File(pathHolder.getCurrentPath(), args[0]);
-            if (!file.exists()) {
-                formatter.printMessage(doc, style, "Файл не найден: " + args[0]);
+            String[] fileArgs = new String[1];
+            String error = parseOptions(commandArgs, fileArgs);
+            if (error != null) {
+                formatter.printMessage(doc, style, error);
+                return;
+            }
+            if (fileArgs[0] == null) {
+                showUsage();
                 return;
             }
 
-            if (file.isDirectory()) {
-                formatter.printMessage(doc, style, "Это директория: " + args[0]);
+            Path file = Paths.get(pathHolder.getCurrentPath(), fileArgs[0]);
+            if (!Files.exists(file)) {
+                formatter.printMessage(doc, style, "Файл не найден: " + fileArgs[0]);
                 return;
             }
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-                String line;
-                StringBuilder content = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-                
-                String output = content.toString();
-                if (outputFile != null) {
-                    Path path = Paths.get(pathHolder.getCurrentPath(), outputFile);
-                    if (appendMode) {
-                        Files.write(path, output.getBytes(StandardCharsets.UTF_8), 
-                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                    } else {
-                        Files.write(path, output.getBytes(StandardCharsets.UTF_8));
-                    }
-                    formatter.printMessage(doc, style, "Вывод сохранен в файл: " + outputFile);
-                } else {
-                    formatter.printMessage(doc, style, output);
+            if (Files.isDirectory(file)) {
+                formatter.printMessage(doc, style, "Это директория: " + fileArgs[0]);
+                return;
+            }
+
+            Window window = resolveWindow(commandArgs, file);
+            if (outputFile != null) {
+                Path target = Paths.get(pathHolder.getCurrentPath(), outputFile);
+                if (Files.exists(target) && Files.isSameFile(file, target)) {
+                    formatter.printMessage(doc, style, "Входной и выходной файл совпадают: " + outputFile);
+                    return;
                 }
+                FileStreamer.transfer(file, window.from, window.to, target, appendMode);
+                formatter.printMessage(doc, style, "Вывод сохранен в файл: " + outputFile);
+            } else {
+                FileStreamer.stream(file, window.from, window.to, StandardCharsets.UTF_8, chunk -> {
+                    OutputFormatter.appendText(doc, chunk, style);
+                    return !isCancelled();
+                });
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             formatter.printMessage(doc, style, "Ошибка: " + e.getMessage());
         }
@@ -123,39 +140,122 @@ public class CatCommand extends AbstractCommand {
     public String executeAndGetOutput(String... args) {
         try {
             if (args.length < 1) {
-                return "Использование: cat <файл или команда> [> файл_для_записи]\n";
+                return "Использование: cat [-head N | -tail N | -n ОТ:ДО] <файл или команда> [> файл_для_записи]\n";
             }
 
-            File file = new File(pathHolder.getCurrentPath(), args[0]);
-            if (!file.exists()) {
-                return "Файл не найден: " + args[0] + "\n";
+            String[] fileArgs = new String[1];
+            String error = parseOptions(args, fileArgs);
+            if (error != null) {
+                return error + "\n";
+            }
+            if (fileArgs[0] == null) {
+                return "Не указан файл\n";
             }
 
-            if (file.isDirectory()) {
-                return "Это директория: " + args[0] + "\n";
+            Path file = Paths.get(pathHolder.getCurrentPath(), fileArgs[0]);
+            if (!Files.exists(file)) {
+                return "Файл не найден: " + fileArgs[0] + "\n";
             }
 
+            if (Files.isDirectory(file)) {
+                return "Это директория: " + fileArgs[0] + "\n";
+            }
+
+            Window window = resolveWindow(args, file);
+            int limit = UserSettings.getInstance().getInt("cat-capture-max-chars", DEFAULT_CAPTURE_CHARS);
             StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
+            FileStreamer.stream(file, window.from, window.to, StandardCharsets.UTF_8, chunk -> {
+                if (content.length() + chunk.length() > limit) {
+                    content.append(chunk, 0, limit - content.length());
+                    content.append("\n... вывод обрезан до ").append(limit).append(" символов\n");
+                    return false;
                 }
-            }
+                content.append(chunk);
+                return true;
+            });
             return content.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
         } catch (Exception e) {
             return "Ошибка: " + e.getMessage() + "\n";
         }
     }
 
+    /**
+     * Проверяет опции окна и находит имя файла
+     *
+     * @return текст ошибки или null
+     */
+    private static String parseOptions(String[] args, String[] fileArgs) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-head") || arg.equals("-tail") || arg.equals("-n")) {
+                if (i + 1 >= args.length) {
+                    return "Отсутствует значение для опции " + arg;
+                }
+                String value = args[++i];
+                try {
+                    long[] range = parseRange(arg, value);
+                    if (range[0] < 1 || range[1] < range[0]) {
+                        return "Неверный диапазон строк: " + value;
+                    }
+                } catch (NumberFormatException e) {
+                    return "Неверное число строк: " + value;
+                }
+            } else if (fileArgs[0] == null) {
+                fileArgs[0] = arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Переводит опции -head/-tail/-n в смещения байт файла
+     */
+    private static Window resolveWindow(String[] args, Path file) throws IOException, InterruptedException {
+        Window window = new Window();
+        for (int i = 0; i + 1 < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-tail")) {
+                window.from = FileStreamer.tailOffset(file, Long.parseLong(args[++i]));
+                window.to = Long.MAX_VALUE;
+            } else if (arg.equals("-head") || arg.equals("-n")) {
+                long[] range = parseRange(arg, args[++i]);
+                window.from = FileStreamer.lineOffset(file, range[0]);
+                window.to = range[1] == Long.MAX_VALUE ? Long.MAX_VALUE : FileStreamer.lineOffset(file, range[1] + 1);
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Возвращает номера первой и последней строки (с 1) для опции
+     */
+    private static long[] parseRange(String option, String value) {
+        if (option.equals("-head") || option.equals("-tail")) {
+            long count = Long.parseLong(value);
+            return new long[] {1, count};
+        }
+        int colon = value.indexOf(':');
+        if (colon < 0) {
+            return new long[] {1, Long.parseLong(value)};
+        }
+        long from = Long.parseLong(value.substring(0, colon));
+        String to = value.substring(colon + 1);
+        return new long[] {from, to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to)};
+    }
+
     private void showUsage() throws Exception {
-        formatter.printMessage(doc, style, "Использование: cat <файл или команда> [> файл_для_записи]\n");
+        formatter.printMessage(doc, style, "Использование: cat [-head N | -tail N | -n ОТ:ДО] <файл или команда> [> файл_для_записи]\n");
         formatter.printMessage(doc, style, "Примеры:\n");
         formatter.printMessage(doc, style, "  cat file.txt         - вывести содержимое файла\n");
         formatter.printMessage(doc, style, "  cat sys             - вывести результат команды sys\n");
         formatter.printMessage(doc, style, "  cat file.txt > out.txt   - записать в файл\n");
         formatter.printMessage(doc, style, "  cat file.txt >> out.txt  - дописать в файл\n");
+        formatter.printMessage(doc, style, "  cat -head 20 log.txt     - первые 20 строк\n");
+        formatter.printMessage(doc, style, "  cat -tail 50 log.txt     - последние 50 строк\n");
+        formatter.printMessage(doc, style, "  cat -n 100:200 log.txt   - строки со 100 по 200\n");
     }
 
     private Command findCommand(String name) {
@@ -181,30 +281,16 @@ public class CatCommand extends AbstractCommand {
                 }
             }
             
-            File currentDir = new File(pathHolder.getCurrentPath());
-            File[] files = currentDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile() && (prefix.isEmpty() || file.getName().toLowerCase().startsWith(prefix))) {
-                        suggestions.add(file.getName());
-                    }
-                }
-            }
+            DirectoryIndex index = DirectoryIndexCache.getInstance().get(pathHolder.getCurrentPath());
+            suggestions.addAll(index.completeFiles(prefix, MAX_FILE_SUGGESTIONS));
             
             return suggestions.toArray(new String[0]);
         }
         
         if (args.length == 2 && (args[0].equals(">") || args[0].equals(">>"))) {
             String prefix = args[1].toLowerCase();
-            File currentDir = new File(pathHolder.getCurrentPath());
-            File[] files = currentDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (prefix.isEmpty() || file.getName().toLowerCase().startsWith(prefix)) {
-                        suggestions.add(file.getName());
-                    }
-                }
-            }
+            DirectoryIndex index = DirectoryIndexCache.getInstance().get(pathHolder.getCurrentPath());
+            suggestions.addAll(index.completeEntries(prefix, MAX_FILE_SUGGESTIONS));
             return suggestions.toArray(new String[0]);
         }
         
@@ -4,6 +4,7 @@ import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.output.BufferedOutputSink;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
@@ -16,7 +17,12 @@ public class ClearCommand extends AbstractCommand {
     @Override
     public void execute(CommandContext context) {
         try {
-            context.getDoc().remove(0, context.getDoc().getLength());
+            BufferedOutputSink sink = BufferedOutputSink.forDocument(context.getDoc());
+            if (sink != null) {
+                sink.clear();
+            } else {
+                context.getDoc().remove(0, context.getDoc().getLength());
+            }
             OutputFormatter.appendText(context.getDoc(), "\n", context.getStyle());
         } catch (Exception e) {
             try {
@@ -20,6 +20,8 @@ import javax.swing.text.StyledDocument;
 
 import com.terminal.sdk.AbstractAsyncCommand;
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.core.CommandExecutors;
+import com.terminal.sdk.network.DnsEngine;
 import com.terminal.sdk.services.TerminalService;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
@@ -58,7 +60,7 @@ public class ConCommand extends AbstractAsyncCommand {
         });
         
         CompletableFuture<Void> future = new CompletableFuture<>();
-        CompletableFuture.runAsync(() -> {
+        CommandExecutors.getInstance().forCommand(this).runAsync(() -> {
             try {
                 scanNetworkAsync();
                 if (!future.isDone()) {
@@ -91,7 +93,7 @@ public class ConCommand extends AbstractAsyncCommand {
                 networkExecutor.shutdownNow();
                 
                 // Ждем завершения в отдельном потоке
-                CompletableFuture.runAsync(() -> {
+                CommandExecutors.getInstance().forCommand(this).runAsync(() -> {
                     try {
                         cleanupResources();
                     } catch (Exception e) {
@@ -327,11 +329,11 @@ public class ConCommand extends AbstractAsyncCommand {
         try {
             boolean isReachable = address.isReachable(SCAN_TIMEOUT);
             if (isReachable) {
-                String hostname = address.getCanonicalHostName();
+                String hostname = DnsEngine.getInstance().reverse(address);
                 return new String[]{
                     address.getHostAddress(),
-                    hostname.equals(address.getHostAddress()) ? "неизвестно" : hostname,
-                    address.getHostName(),
+                    hostname == null ? "неизвестно" : hostname,
+                    hostname == null ? address.getHostAddress() : hostname,
                     "да",
                     address.isLoopbackAddress() ? "да" : "нет",
                     address.isSiteLocalAddress() ? "да" : "нет",
@@ -3,7 +3,6 @@ package com.terminal.commands;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.security.SecureRandom;
 import java.security.Security;
 import java.util.Base64;
 
@@ -17,7 +16,10 @@ import javax.swing.text.StyledDocument;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
+import com.terminal.sdk.core.CommandPool;
+import com.terminal.sdk.crypto.SegmentedCipher;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class CryptoCommand extends AbstractCommand {
@@ -47,11 +49,17 @@ public class CryptoCommand extends AbstractCommand {
         }
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     protected void initializeSubCommands() {
         addSubCommand("genkey", "сгенерировать ключ");
         addSubCommand("encrypt", "зашифровать файл");
         addSubCommand("decrypt", "расшифровать файл");
+        addSubCommand("verify", "проверить целостность зашифрованного файла");
     }
 
     @Override
@@ -63,6 +71,7 @@ public class CryptoCommand extends AbstractCommand {
                 OutputFormatter.printBoxedLine(doc, style, "  genkey           сгенерировать ключ");
                 OutputFormatter.printBoxedLine(doc, style, "  encrypt <файл>   зашифровать файл (требуется ключ)");
                 OutputFormatter.printBoxedLine(doc, style, "  decrypt <файл>   расшифровать файл (требуется ключ)");
+                OutputFormatter.printBoxedLine(doc, style, "  verify <файл>    проверить сегменты без расшифровки на диск");
                 OutputFormatter.printBoxedLine(doc, style, "");
                 OutputFormatter.printBoxedLine(doc, style, "Примеры:");
                 OutputFormatter.printBoxedLine(doc, style, "  1. Сгенерировать ключ:");
@@ -75,6 +84,9 @@ public class CryptoCommand extends AbstractCommand {
                 OutputFormatter.printBoxedLine(doc, style, "  3. Расшифровать файл:");
                 OutputFormatter.printBoxedLine(doc, style, "     crypto decrypt secret.txt.encrypted <ключ>");
                 OutputFormatter.printBoxedLine(doc, style, "     (создаст файл secret.txt.decrypted)");
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "Файл шифруется AES-GCM сегментами (crypto-segment-kb, по умолчанию 1024 КБ),");
+                OutputFormatter.printBoxedLine(doc, style, "каждый сегмент со своим тегом; сегменты обрабатываются параллельно");
                 OutputFormatter.printBoxedFooter(doc, style);
                 return;
             }
@@ -107,6 +119,14 @@ public class CryptoCommand extends AbstractCommand {
                     decryptFile(inputFileDecrypt, args[2]);
                     break;
                     
+                case "verify":
+                    if (args.length < 3) {
+                        OutputFormatter.printError(doc, style, "Укажите файл и ключ для проверки");
+                        return;
+                    }
+                    verifyFile(new File(pathHolder.getCurrentPath(), args[1]), args[2]);
+                    break;
+                    
                 case "genkey":
                     generateKey();
                     break;
@@ -155,11 +175,6 @@ public class CryptoCommand extends AbstractCommand {
             return;
         }
 
-        if (inputFile.length() == 0) {
-            OutputFormatter.printError(doc, style, "Файл пуст");
-            return;
-        }
-
         File outputFile = new File(inputFile.getParent(), inputFile.getName() + ".encrypted");
         
         try {
@@ -172,46 +187,25 @@ public class CryptoCommand extends AbstractCommand {
             }
             
             SecretKey secretKey = new SecretKeySpec(decodedKey, "AES");
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            byte[] iv = generateIV();
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
-
-            try (FileInputStream fis = new FileInputStream(inputFile);
-                 FileOutputStream fos = new FileOutputStream(outputFile)) {
-                
-                OutputFormatter.printBoxedLine(doc, style, "Статус: Начало шифрования...");
-                
-                fos.write(iv);
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytesRead = 0;
-                long fileSize = inputFile.length();
-                
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    byte[] output = cipher.update(buffer, 0, bytesRead);
-                    if (output != null) {
-                        fos.write(output);
-                    }
-                    totalBytesRead += bytesRead;
-                    int progress = (int)((totalBytesRead * 100) / fileSize);
-                    OutputFormatter.printBoxedLine(doc, style, String.format("Прогресс: %d%%", progress));
-                }
-                
-                byte[] outputBytes = cipher.doFinal();
-                if (outputBytes != null) {
-                    fos.write(outputBytes);
-                }
-                
-                OutputFormatter.printBoxedLine(doc, style, "");
-                OutputFormatter.printBoxedLine(doc, style, "Статус: Шифрование завершено");
-                OutputFormatter.printBoxedLine(doc, style, "Зашифрованный файл: " + outputFile.getName());
-                OutputFormatter.printBoxedFooter(doc, style);
-            }
+            SegmentedCipher cipher = new SegmentedCipher(secretKey, segmentSize());
+
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Начало шифрования...");
+            long start = System.nanoTime();
+            long segments = cipher.encrypt(inputFile.toPath(), outputFile.toPath(), new ProgressListener());
+
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Шифрование завершено");
+            OutputFormatter.printBoxedLine(doc, style, String.format("Сегментов: %d, %s", segments,
+                throughput(inputFile.length(), start)));
+            OutputFormatter.printBoxedLine(doc, style, "Зашифрованный файл: " + outputFile.getName());
+            OutputFormatter.printBoxedFooter(doc, style);
         } catch (IllegalArgumentException e) {
             OutputFormatter.printError(doc, style, "Неверный формат ключа");
             OutputFormatter.printBoxedLine(doc, style, "Убедитесь, что ключ в формате Base64");
             OutputFormatter.printBoxedLine(doc, style, "Используйте команду 'crypto genkey' для генерации ключа");
+        } catch (InterruptedException e) {
+            outputFile.delete();
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             OutputFormatter.printError(doc, style, "Ошибка при шифровании: " + e.getMessage());
             if (outputFile.exists()) {
@@ -243,42 +237,27 @@ public class CryptoCommand extends AbstractCommand {
         try {
             byte[] decodedKey = Base64.getDecoder().decode(key);
             SecretKey secretKey = new SecretKeySpec(decodedKey, "AES");
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-
-            try (FileInputStream fis = new FileInputStream(inputFile);
-                 FileOutputStream fos = new FileOutputStream(outputFile)) {
-                
-                OutputFormatter.printBoxedLine(doc, style, "Статус: Начало расшифровки...");
-                
-                byte[] iv = new byte[16];
-                fis.read(iv);
-                cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytesRead = 0;
-                long fileSize = inputFile.length() - 16; // Subtract IV size
-                
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    byte[] output = cipher.update(buffer, 0, bytesRead);
-                    if (output != null) {
-                        fos.write(output);
-                    }
-                    totalBytesRead += bytesRead;
-                    int progress = (int)((totalBytesRead * 100) / fileSize);
-                    OutputFormatter.printBoxedLine(doc, style, String.format("Прогресс: %d%%", progress));
-                }
-                
-                byte[] outputBytes = cipher.doFinal();
-                if (outputBytes != null) {
-                    fos.write(outputBytes);
-                }
-                
-                OutputFormatter.printBoxedLine(doc, style, "");
-                OutputFormatter.printBoxedLine(doc, style, "Статус: Расшифровка завершена");
-                OutputFormatter.printBoxedLine(doc, style, "Расшифрованный файл: " + outputFile.getName());
-                OutputFormatter.printBoxedFooter(doc, style);
+            if (!SegmentedCipher.isContainer(inputFile.toPath())) {
+                decryptLegacy(inputFile, outputFile, secretKey);
+                return;
             }
+
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Начало расшифровки...");
+            long start = System.nanoTime();
+            SegmentedCipher cipher = new SegmentedCipher(secretKey, SegmentedCipher.DEFAULT_SEGMENT_SIZE);
+            long corrupt = cipher.decrypt(inputFile.toPath(), outputFile.toPath(), new ProgressListener());
+            if (corrupt > 0) {
+                outputFile.delete();
+                OutputFormatter.printError(doc, style, String.format(
+                    "Повреждено сегментов: %d (или неверный ключ), файл не сохранен", corrupt));
+                return;
+            }
+
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Расшифровка завершена");
+            OutputFormatter.printBoxedLine(doc, style, throughput(outputFile.length(), start));
+            OutputFormatter.printBoxedLine(doc, style, "Расшифрованный файл: " + outputFile.getName());
+            OutputFormatter.printBoxedFooter(doc, style);
         } catch (IllegalArgumentException e) {
             OutputFormatter.printError(doc, style, "Неверный формат ключа");
             OutputFormatter.printBoxedLine(doc, style, "Убедитесь, что ключ в формате Base64");
@@ -286,6 +265,9 @@ public class CryptoCommand extends AbstractCommand {
             if (outputFile.exists()) {
                 outputFile.delete();
             }
+        } catch (InterruptedException e) {
+            outputFile.delete();
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             OutputFormatter.printError(doc, style, "Ошибка при расшифровке: " + e.getMessage());
             if (outputFile.exists()) {
@@ -294,11 +276,124 @@ public class CryptoCommand extends AbstractCommand {
         }
     }
 
-    private byte[] generateIV() {
-        SecureRandom random = new SecureRandom();
-        byte[] iv = new byte[16];
-        random.nextBytes(iv);
-        return iv;
+    /**
+     * Проверяет теги всех сегментов контейнера, не сохраняя расшифрованные данные
+     */
+    private void verifyFile(File inputFile, String key) throws Exception {
+        OutputFormatter.printBoxedHeader(doc, style, "Проверка контейнера");
+        OutputFormatter.printBoxedLine(doc, style, "Файл: " + inputFile.getName());
+
+        if (!inputFile.exists()) {
+            OutputFormatter.printError(doc, style, "Файл не найден");
+            return;
+        }
+
+        try {
+            SecretKey secretKey = new SecretKeySpec(Base64.getDecoder().decode(key), "AES");
+            if (!SegmentedCipher.isContainer(inputFile.toPath())) {
+                OutputFormatter.printError(doc, style, "Файл зашифрован старым форматом без сегментов, проверка невозможна");
+                return;
+            }
+            SegmentedCipher cipher = new SegmentedCipher(secretKey, SegmentedCipher.DEFAULT_SEGMENT_SIZE);
+            long[] checked = new long[1];
+            long corrupt = cipher.decrypt(inputFile.toPath(), null, new SegmentedCipher.Listener() {
+                @Override
+                public void onSegment(long index, long count, long bytes) {
+                    checked[0]++;
+                }
+
+                @Override
+                public void onCorrupt(long index, long count) {
+                    checked[0]++;
+                    OutputFormatter.printBoxedLine(doc, style, String.format("Сегмент %d из %d поврежден", index + 1, count));
+                }
+            });
+            OutputFormatter.printBoxedLine(doc, style, String.format("Проверено сегментов: %d, повреждено: %d", checked[0], corrupt));
+            OutputFormatter.printBoxedLine(doc, style, corrupt == 0 ? "Статус: Контейнер цел" : "Статус: Контейнер поврежден или ключ неверен");
+            OutputFormatter.printBoxedFooter(doc, style);
+        } catch (IllegalArgumentException e) {
+            OutputFormatter.printError(doc, style, "Неверный формат ключа");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            OutputFormatter.printError(doc, style, "Ошибка при проверке: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Расшифровывает файлы старого формата: IV и AES-CBC поток
+     */
+    private void decryptLegacy(File inputFile, File outputFile, SecretKey secretKey) throws Exception {
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+
+        try (FileInputStream fis = new FileInputStream(inputFile);
+             FileOutputStream fos = new FileOutputStream(outputFile)) {
+            
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Начало расшифровки...");
+            
+            byte[] iv = new byte[16];
+            fis.read(iv);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
+            
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            long totalBytesRead = 0;
+            long fileSize = inputFile.length() - 16; // Subtract IV size
+            
+            while ((bytesRead = fis.read(buffer)) != -1) {
+                byte[] output = cipher.update(buffer, 0, bytesRead);
+                if (output != null) {
+                    fos.write(output);
+                }
+                totalBytesRead += bytesRead;
+                int progress = (int)((totalBytesRead * 100) / fileSize);
+                OutputFormatter.printBoxedLine(doc, style, String.format("Прогресс: %d%%", progress));
+            }
+            
+            byte[] outputBytes = cipher.doFinal();
+            if (outputBytes != null) {
+                fos.write(outputBytes);
+            }
+            
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, "Статус: Расшифровка завершена");
+            OutputFormatter.printBoxedLine(doc, style, "Расшифрованный файл: " + outputFile.getName());
+            OutputFormatter.printBoxedFooter(doc, style);
+        }
+    }
+
+    /**
+     * Размер сегмента из настройки crypto-segment-kb
+     */
+    private static int segmentSize() {
+        int kb = UserSettings.getInstance().getInt("crypto-segment-kb", SegmentedCipher.DEFAULT_SEGMENT_SIZE / 1024);
+        return Math.max(4, Math.min(kb, 64 * 1024)) * 1024;
+    }
+
+    private static String throughput(long bytes, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+        return String.format("%.2f с (%.1f МБ/с)", seconds, bytes / (1024.0 * 1024.0) / seconds);
+    }
+
+    /**
+     * Печатает прогресс шагами по 10%, а не на каждый сегмент
+     */
+    private class ProgressListener implements SegmentedCipher.Listener {
+        private int lastPercent = -1;
+
+        @Override
+        public void onSegment(long index, long count, long bytes) {
+            int percent = (int) ((index + 1) * 100 / count);
+            if (percent / 10 != lastPercent / 10 || index + 1 == count) {
+                lastPercent = percent;
+                OutputFormatter.printBoxedLine(doc, style, String.format("Прогресс: %d%%", percent));
+            }
+        }
+
+        @Override
+        public void onCorrupt(long index, long count) {
+            OutputFormatter.printBoxedLine(doc, style, String.format("Сегмент %d из %d поврежден", index + 1, count));
+        }
     }
 
     @Override
@@ -1,25 +1,32 @@
 package com.terminal.commands;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
 import org.xbill.DNS.AAAARecord;
 import org.xbill.DNS.ARecord;
-import org.xbill.DNS.Lookup;
 import org.xbill.DNS.MXRecord;
 import org.xbill.DNS.NSRecord;
-import org.xbill.DNS.Name;
-import org.xbill.DNS.PTRRecord;
-import org.xbill.DNS.ReverseMap;
 import org.xbill.DNS.TXTRecord;
 import org.xbill.DNS.Type;
 
+import com.terminal.sdk.network.DnsEngine;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class DnsCommand extends AbstractCommand {
+    private static final int DEFAULT_BULK_CONCURRENCY = 64;
+    private static final int PAGE_CHARS = 32 * 1024;
     private final CurrentPathHolder pathHolder;
 
     public DnsCommand(StyledDocument doc, Style style, CurrentPathHolder pathHolder) {
@@ -34,6 +41,7 @@ public class DnsCommand extends AbstractCommand {
         addSubCommand("mx", "получить MX-записи");
         addSubCommand("ns", "получить NS-записи");
         addSubCommand("all", "получить все записи");
+        addSubCommand("bulk", "разрешить имена из файла");
     }
 
     @Override
@@ -47,6 +55,7 @@ public class DnsCommand extends AbstractCommand {
                 OutputFormatter.printBoxedLine(doc, style, "  mx          получить MX-записи");
                 OutputFormatter.printBoxedLine(doc, style, "  ns          получить NS-записи");
                 OutputFormatter.printBoxedLine(doc, style, "  all         получить все записи");
+                OutputFormatter.printBoxedLine(doc, style, "  bulk        dns bulk <файл> [A,AAAA,MX,...]");
                 OutputFormatter.printBoxedFooter(doc, style);
                 return;
             }
@@ -70,9 +79,14 @@ public class DnsCommand extends AbstractCommand {
                 case "all":
                     performAllLookups(domain);
                     break;
+                case "bulk":
+                    resolveFile(domain, args.length > 2 ? args[2] : "A");
+                    break;
                 default:
                     OutputFormatter.printError(doc, style, "Неизвестная операция");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -83,23 +97,31 @@ public class DnsCommand extends AbstractCommand {
     }
 
     private void performLookup(String domain) throws Exception {
+        Map<Integer, List<org.xbill.DNS.Record>> records = DnsEngine.getInstance().lookupAll(domain, Type.A, Type.AAAA);
+        printAddresses(domain, records.get(Type.A), records.get(Type.AAAA));
+    }
+
+    private void printAddresses(String domain, List<org.xbill.DNS.Record> aRecords,
+            List<org.xbill.DNS.Record> aaaaRecords) {
         OutputFormatter.printBoxedHeader(doc, style, "DNS записи для " + domain);
-        
-        org.xbill.DNS.Record[] aRecords = new Lookup(domain, Type.A).run();
-        if (aRecords != null && aRecords.length > 0) {
+
+        if (!aRecords.isEmpty()) {
             for (org.xbill.DNS.Record record : aRecords) {
-                ARecord a = (ARecord) record;
-                OutputFormatter.printBoxedLine(doc, style, String.format("IPv4: %s", a.getAddress().getHostAddress()));
+                if (record instanceof ARecord) {
+                    ARecord a = (ARecord) record;
+                    OutputFormatter.printBoxedLine(doc, style, String.format("IPv4: %s", a.getAddress().getHostAddress()));
+                }
             }
         } else {
             OutputFormatter.printBoxedLine(doc, style, "IPv4: записи не найдены");
         }
 
-        org.xbill.DNS.Record[] aaaaRecords = new Lookup(domain, Type.AAAA).run();
-        if (aaaaRecords != null && aaaaRecords.length > 0) {
+        if (!aaaaRecords.isEmpty()) {
             for (org.xbill.DNS.Record record : aaaaRecords) {
-                AAAARecord aaaa = (AAAARecord) record;
-                String ipv6 = aaaa.getAddress().getHostAddress();
+                if (!(record instanceof AAAARecord)) {
+                    continue;
+                }
+                String ipv6 = ((AAAARecord) record).getAddress().getHostAddress();
                 if (ipv6.length() > 41) {
                     ipv6 = ipv6.substring(0, 38) + "...";
                 }
@@ -108,131 +130,180 @@ public class DnsCommand extends AbstractCommand {
         } else {
             OutputFormatter.printBoxedLine(doc, style, "IPv6: записи не найдены");
         }
-        
+
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
     private void performReverseLookup(String ip) throws Exception {
         OutputFormatter.printBoxedHeader(doc, style, "Обратный DNS-запрос для " + ip);
-        
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            Name name = ReverseMap.fromAddress(addr);
-            org.xbill.DNS.Record[] records = new Lookup(name, Type.PTR).run();
-            
-            if (records != null && records.length > 0) {
-                for (org.xbill.DNS.Record record : records) {
-                    PTRRecord ptr = (PTRRecord) record;
-                    String hostname = ptr.getTarget().toString();
-                    if (hostname.length() > 41) {
-                        hostname = hostname.substring(0, 38) + "...";
-                    }
-                    OutputFormatter.printBoxedLine(doc, style, String.format("Имя: %s", hostname));
-                }
-            } else {
-                OutputFormatter.printBoxedLine(doc, style, "Записи не найдены");
+
+        String hostname = DnsEngine.getInstance().reverse(InetAddress.getByName(ip));
+        if (hostname != null) {
+            if (hostname.length() > 41) {
+                hostname = hostname.substring(0, 38) + "...";
             }
-        } catch (Exception e) {
-            OutputFormatter.printError(doc, style, e.getMessage());
+            OutputFormatter.printBoxedLine(doc, style, String.format("Имя: %s", hostname));
+        } else {
+            OutputFormatter.printBoxedLine(doc, style, "Записи не найдены");
         }
-        
+
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
     private void lookupMXRecords(String domain) throws Exception {
+        printMXRecords(domain, DnsEngine.getInstance().lookupAll(domain, Type.MX).get(Type.MX));
+    }
+
+    private void printMXRecords(String domain, List<org.xbill.DNS.Record> records) {
         OutputFormatter.printBoxedHeader(doc, style, "MX записи для " + domain);
         OutputFormatter.printBoxedLine(doc, style, "Приоритет  Почтовый сервер");
         OutputFormatter.printBoxedLine(doc, style, "");
-        
-        try {
-            org.xbill.DNS.Record[] records = new Lookup(domain, Type.MX).run();
-            
-            if (records != null && records.length > 0) {
-                for (org.xbill.DNS.Record record : records) {
-                    MXRecord mx = (MXRecord) record;
-                    String server = mx.getTarget().toString();
-                    if (server.length() > 41) {
-                        server = server.substring(0, 38) + "...";
-                    }
-                    OutputFormatter.printBoxedLine(doc, style, String.format("%-10d %s", mx.getPriority(), server));
+
+        if (!records.isEmpty()) {
+            for (org.xbill.DNS.Record record : records) {
+                MXRecord mx = (MXRecord) record;
+                String server = mx.getTarget().toString();
+                if (server.length() > 41) {
+                    server = server.substring(0, 38) + "...";
                 }
-            } else {
-                OutputFormatter.printBoxedLine(doc, style, "MX записи не найдены");
+                OutputFormatter.printBoxedLine(doc, style, String.format("%-10d %s", mx.getPriority(), server));
             }
-        } catch (Exception e) {
-            OutputFormatter.printError(doc, style, e.getMessage());
+        } else {
+            OutputFormatter.printBoxedLine(doc, style, "MX записи не найдены");
         }
-        
+
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
     private void lookupNSRecords(String domain) throws Exception {
+        printNSRecords(domain, DnsEngine.getInstance().lookupAll(domain, Type.NS).get(Type.NS));
+    }
+
+    private void printNSRecords(String domain, List<org.xbill.DNS.Record> records) {
         OutputFormatter.printBoxedHeader(doc, style, "NS записи для " + domain);
-        
-        try {
-            org.xbill.DNS.Record[] records = new Lookup(domain, Type.NS).run();
-            
-            if (records != null && records.length > 0) {
-                for (org.xbill.DNS.Record record : records) {
-                    NSRecord ns = (NSRecord) record;
-                    String server = ns.getTarget().toString();
-                    if (server.length() > 41) {
-                        server = server.substring(0, 38) + "...";
-                    }
-                    OutputFormatter.printBoxedLine(doc, style, String.format("NS: %s", server));
+
+        if (!records.isEmpty()) {
+            for (org.xbill.DNS.Record record : records) {
+                NSRecord ns = (NSRecord) record;
+                String server = ns.getTarget().toString();
+                if (server.length() > 41) {
+                    server = server.substring(0, 38) + "...";
                 }
-            } else {
-                OutputFormatter.printBoxedLine(doc, style, "NS записи не найдены");
+                OutputFormatter.printBoxedLine(doc, style, String.format("NS: %s", server));
             }
-        } catch (Exception e) {
-            OutputFormatter.printError(doc, style, e.getMessage());
+        } else {
+            OutputFormatter.printBoxedLine(doc, style, "NS записи не найдены");
         }
-        
+
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
+    /**
+     * Все типы записей запрашиваются одновременно, вывод - в прежнем порядке
+     */
     private void performAllLookups(String domain) throws Exception {
+        Map<Integer, List<org.xbill.DNS.Record>> records = DnsEngine.getInstance()
+            .lookupAll(domain, Type.A, Type.AAAA, Type.MX, Type.NS, Type.TXT);
+
         OutputFormatter.printBoxedHeader(doc, style, "Все DNS записи для " + domain);
         OutputFormatter.printBoxedFooter(doc, style);
         OutputFormatter.printBoxedLine(doc, style, "");
-        
-        performLookup(domain);
+
+        printAddresses(domain, records.get(Type.A), records.get(Type.AAAA));
         OutputFormatter.printBoxedLine(doc, style, "");
-        
-        lookupMXRecords(domain);
+
+        printMXRecords(domain, records.get(Type.MX));
         OutputFormatter.printBoxedLine(doc, style, "");
-        
-        lookupNSRecords(domain);
+
+        printNSRecords(domain, records.get(Type.NS));
         OutputFormatter.printBoxedLine(doc, style, "");
-        
+
         OutputFormatter.printBoxedHeader(doc, style, "TXT записи");
-        
-        try {
-            org.xbill.DNS.Record[] txtRecords = new Lookup(domain, Type.TXT).run();
-            if (txtRecords != null && txtRecords.length > 0) {
-                for (org.xbill.DNS.Record record : txtRecords) {
-                    TXTRecord txt = (TXTRecord) record;
-                    String txtRecord = txt.rdataToString();
-                    while (txtRecord.length() > 54) {
-                        OutputFormatter.printBoxedLine(doc, style, txtRecord.substring(0, 54));
-                        txtRecord = txtRecord.substring(54);
-                    }
-                    if (txtRecord.length() > 0) {
-                        OutputFormatter.printBoxedLine(doc, style, txtRecord);
-                    }
+
+        List<org.xbill.DNS.Record> txtRecords = records.get(Type.TXT);
+        if (!txtRecords.isEmpty()) {
+            for (org.xbill.DNS.Record record : txtRecords) {
+                TXTRecord txt = (TXTRecord) record;
+                String txtRecord = txt.rdataToString();
+                while (txtRecord.length() > 54) {
+                    OutputFormatter.printBoxedLine(doc, style, txtRecord.substring(0, 54));
+                    txtRecord = txtRecord.substring(54);
+                }
+                if (txtRecord.length() > 0) {
+                    OutputFormatter.printBoxedLine(doc, style, txtRecord);
                 }
-            } else {
-                OutputFormatter.printBoxedLine(doc, style, "TXT записи не найдены");
             }
-        } catch (Exception e) {
-            OutputFormatter.printError(doc, style, e.getMessage());
+        } else {
+            OutputFormatter.printBoxedLine(doc, style, "TXT записи не найдены");
         }
-        
+
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
+    /**
+     * Пакетное разрешение имен из файла: по имени в строке, строки с # пропускаются
+     */
+    private void resolveFile(String fileName, String typeList) throws Exception {
+        Path path = Paths.get(pathHolder.getCurrentPath()).resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            OutputFormatter.printError(doc, style, "Файл не существует: " + fileName);
+            return;
+        }
+        String[] typeNames = typeList.split(",");
+        int[] types = new int[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            types[i] = Type.value(typeNames[i].trim().toUpperCase());
+            if (types[i] < 0) {
+                OutputFormatter.printError(doc, style, "Неизвестный тип записи: " + typeNames[i]);
+                return;
+            }
+        }
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String name = line.trim();
+            if (!name.isEmpty() && !name.startsWith("#")) {
+                names.add(name);
+            }
+        }
+
+        int concurrency = UserSettings.getInstance().getInt("dns-bulk-concurrency", DEFAULT_BULK_CONCURRENCY);
+        OutputFormatter.printBeautifulSection(doc, style, String.format("Разрешение %d имен (%s), одновременно до %d",
+            names.size(), typeList.toUpperCase(), concurrency));
+
+        StringBuilder page = new StringBuilder();
+        int[] counters = new int[2];
+        long started = System.nanoTime();
+        DnsEngine.getInstance().resolveAll(names, types, concurrency, resolution -> {
+            page.append(resolution.getName());
+            boolean found = false;
+            for (Map.Entry<Integer, List<org.xbill.DNS.Record>> entry : resolution.getRecords().entrySet()) {
+                for (org.xbill.DNS.Record record : entry.getValue()) {
+                    page.append("  ").append(Type.string(record.getType())).append(' ').append(record.rdataToString());
+                    found = true;
+                }
+            }
+            if (resolution.getError() != null) {
+                page.append("  ошибка: ").append(resolution.getError());
+            } else if (!found) {
+                page.append("  записи не найдены");
+            }
+            page.append('\n');
+            counters[found ? 0 : 1]++;
+            if (page.length() >= PAGE_CHARS) {
+                OutputFormatter.appendText(doc, page.toString(), style);
+                page.setLength(0);
+            }
+        });
+        if (page.length() > 0) {
+            OutputFormatter.appendText(doc, page.toString(), style);
+        }
+        OutputFormatter.printBeautifulMessage(doc, style, String.format(
+            "Разрешено: %d, без записей или с ошибкой: %d. Время: %.2f с",
+            counters[0], counters[1], (System.nanoTime() - started) / 1e9));
+    }
+
     @Override
     public String getDescription() {
         return "DNS-запросы";
     }
-} 
\ No newline at end of file
+}
@@ -1,12 +1,15 @@
 package com.terminal.commands;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.search.FileWalker;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
@@ -30,6 +33,10 @@ public class FindCommand extends AbstractCommand {
             String type = null;
             Long minSize = null;
             Long maxSize = null;
+            Long minAgeDays = null;
+            Long maxAgeDays = null;
+            int maxDepth = 0;
+            long limit = 0;
             boolean hasOptions = false;
             
             for (int i = 0; i < args.length; i++) {
@@ -67,6 +74,42 @@ public class FindCommand extends AbstractCommand {
                                 return;
                             }
                             break;
+                        case "-mtime":
+                            try {
+                                if (value.startsWith("+")) {
+                                    minAgeDays = Long.parseLong(value.substring(1)) + 1;
+                                } else if (value.startsWith("-")) {
+                                    maxAgeDays = Long.parseLong(value.substring(1)) - 1;
+                                } else {
+                                    minAgeDays = maxAgeDays = Long.parseLong(value);
+                                }
+                            } catch (NumberFormatException e) {
+                                OutputFormatter.printError(doc, style, "Неверный формат -mtime. Используйте число, +число или -число");
+                                return;
+                            }
+                            break;
+                        case "-maxdepth":
+                            try {
+                                maxDepth = Integer.parseInt(value);
+                            } catch (NumberFormatException e) {
+                                maxDepth = -1;
+                            }
+                            if (maxDepth < 1) {
+                                OutputFormatter.printError(doc, style, "Глубина должна быть положительным числом");
+                                return;
+                            }
+                            break;
+                        case "-limit":
+                            try {
+                                limit = Long.parseLong(value);
+                            } catch (NumberFormatException e) {
+                                limit = -1;
+                            }
+                            if (limit < 1) {
+                                OutputFormatter.printError(doc, style, "Лимит должен быть положительным числом");
+                                return;
+                            }
+                            break;
                         default:
                             OutputFormatter.printError(doc, style, "Неизвестная опция " + arg);
                             return;
@@ -84,7 +127,8 @@ public class FindCommand extends AbstractCommand {
                 }
             }
 
-            if (pattern == null && (type != null || minSize != null || maxSize != null)) {
+            if (pattern == null && (type != null || minSize != null || maxSize != null
+                    || minAgeDays != null || maxAgeDays != null)) {
                 pattern = ".*";
             } else if (pattern == null) {
                 pattern = convertWildcardsToRegex("*");
@@ -108,21 +152,46 @@ public class FindCommand extends AbstractCommand {
                 }
             }
 
-            File startDir = new File(pathHolder.getCurrentPath());
-            List<File> results = new ArrayList<>();
-            findFiles(startDir, pattern, type, minSize, maxSize, results);
+            if (minAgeDays != null && minAgeDays.equals(maxAgeDays)) {
+                OutputFormatter.printBoxedLine(doc, style, "Изменен: " + minAgeDays + " дн. назад");
+            } else {
+                if (minAgeDays != null) {
+                    OutputFormatter.printBoxedLine(doc, style, "Изменен более " + (minAgeDays - 1) + " дн. назад");
+                }
+                if (maxAgeDays != null) {
+                    OutputFormatter.printBoxedLine(doc, style, "Изменен менее " + (maxAgeDays + 1) + " дн. назад");
+                }
+            }
+            if (maxDepth > 0) {
+                OutputFormatter.printBoxedLine(doc, style, "Макс. глубина: " + maxDepth);
+            }
+            if (limit > 0) {
+                OutputFormatter.printBoxedLine(doc, style, "Лимит: " + limit);
+            }
 
-            if (results.isEmpty()) {
+            Path startDir = Paths.get(pathHolder.getCurrentPath());
+            EntryFilter filter = new EntryFilter(pattern, type, minSize, maxSize, minAgeDays, maxAgeDays);
+            FileWalker walker = new FileWalker(maxDepth, limit, filter::matches);
+            long found;
+            try {
+                found = walker.walk(startDir, entry -> {
+                    BasicFileAttributes attrs = entry.getAttributes();
+                    OutputFormatter.printBoxedLine(doc, style,
+                        String.format("%s %-50s %8d байт",
+                            attrs.isDirectory() ? "DIR " : "FILE",
+                            startDir.relativize(entry.getPath()).toString(),
+                            attrs.size()));
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (found == 0) {
                 OutputFormatter.printBoxedLine(doc, style, "Ничего не найдено");
             } else {
-                for (File file : results) {
-                    String relativePath = startDir.toPath().relativize(file.toPath()).toString();
-                    OutputFormatter.printBoxedLine(doc, style, 
-                        String.format("%s %-50s %8d байт",
-                            file.isDirectory() ? "DIR " : "FILE",
-                            relativePath,
-                            file.length()));
-                }
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "Найдено: " + found);
             }
 
             OutputFormatter.printBoxedFooter(doc, style);
@@ -143,6 +212,9 @@ public class FindCommand extends AbstractCommand {
             OutputFormatter.printBoxedLine(doc, style, "  -name <шаблон>  поиск по имени файла");
             OutputFormatter.printBoxedLine(doc, style, "  -type <f|d>     поиск по типу (f - файл, d - директория)");
             OutputFormatter.printBoxedLine(doc, style, "  -size <N>       поиск по размеру (+N, -N, N байт)");
+            OutputFormatter.printBoxedLine(doc, style, "  -mtime <N>      изменен N дней назад (+N - раньше, -N - позже)");
+            OutputFormatter.printBoxedLine(doc, style, "  -maxdepth <N>   не спускаться глубже N уровней");
+            OutputFormatter.printBoxedLine(doc, style, "  -limit <N>      остановиться после N результатов");
             OutputFormatter.printBoxedLine(doc, style, "");
             OutputFormatter.printBoxedLine(doc, style, "Примеры:");
             OutputFormatter.printBoxedLine(doc, style, "  find *.txt                  найти все .txt файлы");
@@ -151,6 +223,8 @@ public class FindCommand extends AbstractCommand {
             OutputFormatter.printBoxedLine(doc, style, "  find -size +1000            файлы больше 1000 байт");
             OutputFormatter.printBoxedLine(doc, style, "  find -size -500             файлы меньше 500 байт");
             OutputFormatter.printBoxedLine(doc, style, "  find -name *.txt -size +1000 .txt больше 1000 байт");
+            OutputFormatter.printBoxedLine(doc, style, "  find -mtime -1 -maxdepth 2  измененные за сутки");
+            OutputFormatter.printBoxedLine(doc, style, "  find -name *.log -limit 10  первые 10 .log файлов");
             OutputFormatter.printBoxedLine(doc, style, "");
             OutputFormatter.printBoxedLine(doc, style, "Шаблоны:");
             OutputFormatter.printBoxedLine(doc, style, "  *        любая последовательность символов");
@@ -163,41 +237,53 @@ public class FindCommand extends AbstractCommand {
         }
     }
 
-    private void findFiles(File dir, String pattern, String type, Long minSize, Long maxSize, List<File> results) {
-        try {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (matchesPattern(file, pattern, type, minSize, maxSize)) {
-                        results.add(file);
-                    }
-                    if (file.isDirectory()) {
-                        findFiles(file, pattern, type, minSize, maxSize, results);
-                    }
-                }
-            }
-        } catch (Exception e) {
-        }
-    }
+    /**
+     * Условие отбора записей; атрибуты передаются обходчиком и повторно не читаются
+     */
+    private static final class EntryFilter {
+        private final Pattern namePattern;
+        private final String type;
+        private final Long minSize;
+        private final Long maxSize;
+        private final Long minAgeDays;
+        private final Long maxAgeDays;
+        private final long now = System.currentTimeMillis();
 
-    private boolean matchesPattern(File file, String pattern, String type, Long minSize, Long maxSize) {
-        if (type != null) {
-            boolean isDirectory = file.isDirectory();
-            if (type.equals("f") && isDirectory) return false;
-            if (type.equals("d") && !isDirectory) return false;
+        EntryFilter(String pattern, String type, Long minSize, Long maxSize, Long minAgeDays, Long maxAgeDays) {
+            this.namePattern = pattern == null || pattern.equals(".*") ? null : Pattern.compile(pattern);
+            this.type = type;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.minAgeDays = minAgeDays;
+            this.maxAgeDays = maxAgeDays;
         }
 
-        if (!file.isDirectory()) {
-            long size = file.length();
-            if (minSize != null && size < minSize) return false;
-            if (maxSize != null && size > maxSize) return false;
-        }
+        boolean matches(Path path, BasicFileAttributes attrs) {
+            boolean isDirectory = attrs.isDirectory();
+            if (type != null) {
+                if (type.equals("f") && isDirectory) return false;
+                if (type.equals("d") && !isDirectory) return false;
+            }
+
+            if (!isDirectory) {
+                long size = attrs.size();
+                if (minSize != null && size < minSize) return false;
+                if (maxSize != null && size > maxSize) return false;
+            }
+
+            if (minAgeDays != null || maxAgeDays != null) {
+                long ageDays = TimeUnit.MILLISECONDS.toDays(now - attrs.lastModifiedTime().toMillis());
+                if (minAgeDays != null && ageDays < minAgeDays) return false;
+                if (maxAgeDays != null && ageDays > maxAgeDays) return false;
+            }
+
+            if (namePattern != null) {
+                Path name = path.getFileName();
+                return name != null && namePattern.matcher(name.toString()).matches();
+            }
 
-        if (pattern != null && !pattern.equals(".*")) {
-            return file.getName().matches(pattern);
+            return true;
         }
-        
-        return true;
     }
 
     private String convertWildcardsToRegex(String pattern) {
@@ -239,6 +325,6 @@ public class FindCommand extends AbstractCommand {
 
     @Override
     public String getDescription() {
-        return "поиск файлов по имени, типу и размеру";
+        return "поиск файлов по имени, типу, размеру и дате изменения";
     }
 } 
\ No newline at end of file
@@ -1,29 +1,45 @@
 package com.terminal.commands;
 
 import java.awt.Color;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.Socket;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.fuzzing.CaseGenerator;
+import com.terminal.sdk.fuzzing.Corpus;
+import com.terminal.sdk.fuzzing.FileFuzzTarget;
+import com.terminal.sdk.fuzzing.FuzzEngine;
+import com.terminal.sdk.fuzzing.FuzzTarget;
+import com.terminal.sdk.fuzzing.HttpFuzzTarget;
+import com.terminal.sdk.fuzzing.MutationGenerator;
+import com.terminal.sdk.fuzzing.Mutator;
+import com.terminal.sdk.fuzzing.Mutators;
+import com.terminal.sdk.fuzzing.TcpFuzzTarget;
+import com.terminal.sdk.network.HttpEngine;
+import com.terminal.sdk.output.LiveRegion;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class FuzzCommand extends AbstractCommand {
     private static final int BUFFER_SIZE = 1024;
     private static final int MAX_MUTATIONS = 100;
+    private static final int DEFAULT_WORKERS = 16;
+    private static final int DEFAULT_QUEUE = 1024;
+    private static final int DEFAULT_TIMEOUT_MS = 1000;
+    private static final long DEFAULT_EXEC_TIMEOUT_MS = 1000;
+    private static final int DEFAULT_RING_FILES = 16;
+    private static final int MAX_REPORTED_FINDINGS = 50;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
     private static final List<String> WEB_PAYLOADS = Arrays.asList(
         "' OR '1'='1", "<script>alert(1)</script>", "../../../etc/passwd",
         "$(cat /etc/passwd)", "{{7*7}}", "${7*7}", "' UNION SELECT NULL--",
@@ -64,13 +80,37 @@ public class FuzzCommand extends AbstractCommand {
                 OutputFormatter.printBoxedHeader(doc, style, "Использование: fuzz <тип> <цель> [опции]");
                 OutputFormatter.printBoxedLine(doc, style, "Типы:");
                 OutputFormatter.printBoxedLine(doc, style, "  file <файл>           фаззинг файла");
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "Опции file:");
+                OutputFormatter.printBoxedLine(doc, style, "  -w <каталог>          дополнительные образцы корпуса");
+                OutputFormatter.printBoxedLine(doc, style, "  -m bitflip,byte,splice,dict");
+                OutputFormatter.printBoxedLine(doc, style, "                        стратегии мутации");
+                OutputFormatter.printBoxedLine(doc, style, "  -d <файл>             словарь токенов для dict");
+                OutputFormatter.printBoxedLine(doc, style, "  -n <число>            число случаев");
+                OutputFormatter.printBoxedLine(doc, style, "  -s <seed> -i <номер>  начать с заданного случая");
+                OutputFormatter.printBoxedLine(doc, style, "  -o <каталог> -k <N>   кольцо из N файлов в каталоге");
+                OutputFormatter.printBoxedLine(doc, style, "  -x <команда ...>      запуск команды на каждый случай,");
+                OutputFormatter.printBoxedLine(doc, style, "                        @@ - путь к файлу, иначе stdin;");
+                OutputFormatter.printBoxedLine(doc, style, "                        должен быть последним");
+                OutputFormatter.printBoxedLine(doc, style, "");
                 OutputFormatter.printBoxedLine(doc, style, "  web <url>             фаззинг веб-параметров");
+                OutputFormatter.printBoxedLine(doc, style, "                        FUZZ в URL заменяется данными");
                 OutputFormatter.printBoxedLine(doc, style, "  net <хост> <порт>     фаззинг сетевого протокола");
                 OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "Опции web и net:");
+                OutputFormatter.printBoxedLine(doc, style, "  -w <файл|каталог>     корпус: строки файла или файлы");
+                OutputFormatter.printBoxedLine(doc, style, "  -n <число>            число случаев");
+                OutputFormatter.printBoxedLine(doc, style, "  -t <число>            число потоков (fuzz-workers)");
+                OutputFormatter.printBoxedLine(doc, style, "  -r <число>            случаев в секунду (fuzz-rate)");
+                OutputFormatter.printBoxedLine(doc, style, "  -s <число>            seed случайных данных для net");
+                OutputFormatter.printBoxedLine(doc, style, "");
                 OutputFormatter.printBoxedLine(doc, style, "Примеры:");
                 OutputFormatter.printBoxedLine(doc, style, "  fuzz file test.txt    фаззинг файла test.txt");
                 OutputFormatter.printBoxedLine(doc, style, "                        создаст 100 мутаций файла");
                 OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "  fuzz file in.png -n 100000 -t 4 -x ./parser @@");
+                OutputFormatter.printBoxedLine(doc, style, "                        100000 запусков парсера");
+                OutputFormatter.printBoxedLine(doc, style, "");
                 OutputFormatter.printBoxedLine(doc, style, "  fuzz web http://example.com");
                 OutputFormatter.printBoxedLine(doc, style, "                        тестирование веб-приложения");
                 OutputFormatter.printBoxedLine(doc, style, "                        на наличие уязвимостей");
@@ -78,6 +118,11 @@ public class FuzzCommand extends AbstractCommand {
                 OutputFormatter.printBoxedLine(doc, style, "  fuzz net 192.168.1.1 80");
                 OutputFormatter.printBoxedLine(doc, style, "                        фаззинг сетевого сервиса");
                 OutputFormatter.printBoxedLine(doc, style, "                        на порту 80");
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "  fuzz web http://localhost:8080/?q=FUZZ -w sqli.txt");
+                OutputFormatter.printBoxedLine(doc, style, "           -n 100000 -t 32");
+                OutputFormatter.printBoxedLine(doc, style, "                        100000 запросов из корпуса");
+                OutputFormatter.printBoxedLine(doc, style, "                        в 32 потока");
                 OutputFormatter.printBoxedFooter(doc, style);
                 return;
             }
@@ -87,21 +132,23 @@ public class FuzzCommand extends AbstractCommand {
 
             switch (type) {
                 case "file":
-                    fuzzFile(target);
+                    fuzzFile(target, args);
                     break;
                 case "web":
-                    fuzzWeb(target);
+                    fuzzWeb(target, args);
                     break;
                 case "net":
                     if (args.length < 3) {
                         OutputFormatter.printError(doc, style, "Требуется указать порт");
                         return;
                     }
-                    fuzzNetwork(target, Integer.parseInt(args[2]));
+                    fuzzNetwork(target, Integer.parseInt(args[2]), args);
                     break;
                 default:
                     OutputFormatter.printError(doc, style, "Неизвестный тип фаззинга");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -111,135 +158,298 @@ public class FuzzCommand extends AbstractCommand {
         }
     }
 
-    private void fuzzFile(String fileName) throws Exception {
-        OutputFormatter.printBoxedHeader(doc, style, "Фаззинг файла");
-        OutputFormatter.printBoxedLine(doc, style, "Файл: " + fileName);
-        OutputFormatter.printBoxedLine(doc, style, "");
-
-        File file = new File(fileName);
-        if (!file.exists()) {
+    private void fuzzFile(String fileName, String[] args) throws Exception {
+        Path file = Paths.get(pathHolder.getCurrentPath()).resolve(fileName);
+        if (!Files.isRegularFile(file)) {
             OutputFormatter.printError(doc, style, "Файл не найден");
             return;
         }
-
-        byte[] original = new byte[BUFFER_SIZE];
-        try (FileInputStream fis = new FileInputStream(file)) {
-            fis.read(original);
+        Corpus seeds = loadCorpus(args, null);
+        if (seeds == null && option(args, "-w") != null) {
+            return;
         }
+        byte[] original = Files.readAllBytes(file);
+        Corpus corpus = seeds != null ? seeds.prepend(original) : Corpus.of(original);
 
-        OutputFormatter.printBoxedLine(doc, style, "Начало фаззинга файла...");
-        Random random = new Random();
-
-        for (int i = 0; i < MAX_MUTATIONS; i++) {
-            byte[] mutated = original.clone();
-            int numMutations = random.nextInt(10) + 1;
-            
-            for (int j = 0; j < numMutations; j++) {
-                int pos = random.nextInt(mutated.length);
-                mutated[pos] = (byte) random.nextInt(256);
+        List<Mutator> mutators = new ArrayList<>();
+        String dictionary = option(args, "-d");
+        String strategies = option(args, "-m");
+        for (String name : (strategies != null ? strategies
+                : "bitflip,byte" + (corpus.size() > 1 ? ",splice" : "") + (dictionary != null ? ",dict" : "")).split(",")) {
+            switch (name.trim().toLowerCase()) {
+                case "bitflip":
+                    mutators.add(Mutators.bitFlip());
+                    break;
+                case "byte":
+                    mutators.add(Mutators.randomByte());
+                    break;
+                case "splice":
+                    mutators.add(Mutators.splice(corpus));
+                    break;
+                case "dict":
+                    if (dictionary == null) {
+                        OutputFormatter.printError(doc, style, "Для стратегии dict нужен словарь: -d <файл>");
+                        return;
+                    }
+                    mutators.add(Mutators.dictionary(
+                        Mutators.loadDictionary(Paths.get(pathHolder.getCurrentPath()).resolve(dictionary))));
+                    break;
+                default:
+                    OutputFormatter.printError(doc, style, "Неизвестная стратегия мутации: " + name);
+                    return;
             }
+        }
 
-            String mutatedFile = fileName + ".fuzz" + i;
-            try (FileOutputStream fos = new FileOutputStream(mutatedFile)) {
-                fos.write(mutated);
-            }
-            OutputFormatter.printBoxedLine(doc, style, "Создан мутированный файл: " + mutatedFile);
+        String count = option(args, "-n");
+        String first = option(args, "-i");
+        String seedOption = option(args, "-s");
+        long total = count != null ? Long.parseLong(count) : MAX_MUTATIONS;
+        long seed = seedOption != null ? Long.parseLong(seedOption) : System.nanoTime();
+        int maxLength = Math.max(BUFFER_SIZE, corpus.getMaxLength() * 2);
+        MutationGenerator generator = new MutationGenerator(corpus, mutators, seed,
+            first != null ? Long.parseLong(first) : 0, total, maxLength);
+
+        List<String> command = commandAfter(args, "-x");
+        String output = option(args, "-o");
+        FuzzTarget.Factory factory;
+        int workers;
+        String mode;
+        if (command != null) {
+            Path directory = output != null ? Paths.get(pathHolder.getCurrentPath()).resolve(output) : scratchDirectory();
+            Files.createDirectories(directory);
+            factory = FileFuzzTarget.command(command, directory,
+                Paths.get(pathHolder.getCurrentPath()).resolve("fuzz-findings"),
+                UserSettings.getInstance().getLong("fuzz-exec-timeout-ms", DEFAULT_EXEC_TIMEOUT_MS));
+            workers = workers(args);
+            mode = String.join(" ", command).contains(FileFuzzTarget.INPUT_MARKER)
+                ? "запуск с файлом в " + directory : "запуск с подачей на stdin";
+        } else if (output != null) {
+            Path directory = Paths.get(pathHolder.getCurrentPath()).resolve(output);
+            Files.createDirectories(directory);
+            String ring = option(args, "-k");
+            int ringSize = ring != null ? Integer.parseInt(ring)
+                : UserSettings.getInstance().getInt("fuzz-ring-files", DEFAULT_RING_FILES);
+            factory = FileFuzzTarget.ring(directory, file.getFileName() + ".fuzz", ringSize);
+            workers = 1;
+            mode = String.format("кольцо из %d файлов в %s", ringSize, directory);
+        } else {
+            // Без -o и -x мутации пишутся рядом с исходным файлом, как file.fuzzN: без -n это
+            // прежние 100 файлов, с -n - кольцо fuzz-ring-files, чтобы не засорять каталог
+            int ringSize = count == null ? MAX_MUTATIONS
+                : UserSettings.getInstance().getInt("fuzz-ring-files", DEFAULT_RING_FILES);
+            factory = FileFuzzTarget.ring(file.toAbsolutePath().getParent(), file.getFileName() + ".fuzz", ringSize);
+            workers = 1;
+            mode = String.format("файлы %s.fuzzN, кольцо из %d", fileName, ringSize);
         }
 
+        OutputFormatter.printBoxedHeader(doc, style, "Фаззинг файла");
+        OutputFormatter.printBoxedLine(doc, style, "Файл: " + fileName + " (" + original.length + " байт)");
+        OutputFormatter.printBoxedLine(doc, style, String.format("Корпус: %d, случаев: %d, seed: %d",
+            corpus.size(), total, seed));
+        StringBuilder names = new StringBuilder();
+        for (Mutator mutator : mutators) {
+            names.append(names.length() > 0 ? "," : "").append(mutator.getName());
+        }
+        OutputFormatter.printBoxedLine(doc, style, "Стратегии: " + names);
+        OutputFormatter.printBoxedLine(doc, style, "Режим: " + mode);
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Начало фаззинга файла...");
         OutputFormatter.printBoxedFooter(doc, style);
+
+        runCampaign(generator, factory, workers, args);
+        OutputFormatter.printBeautifulMessage(doc, style, String.format(
+            "Случай N воспроизводится: fuzz file %s -s %d -i N -n 1 -o <каталог>", fileName, seed));
+    }
+
+    /**
+     * Каталог для файлов случаев: tmpfs /dev/shm, если он есть, иначе временный каталог
+     */
+    private static Path scratchDirectory() {
+        Path shm = Paths.get("/dev/shm");
+        return Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Аргументы после флага до конца строки или null
+     */
+    private static List<String> commandAfter(String[] args, String flag) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (flag.equals(args[i])) {
+                return Arrays.asList(Arrays.copyOfRange(args, i + 1, args.length));
+            }
+        }
+        return null;
     }
 
-    private void fuzzWeb(String url) throws Exception {
+    private void fuzzWeb(String url, String[] args) throws Exception {
+        Corpus corpus = loadCorpus(args, Corpus.of(WEB_PAYLOADS));
+        if (corpus == null) {
+            return;
+        }
+        String count = option(args, "-n");
+        long total = count != null ? Long.parseLong(count) : corpus.size();
+        int workers = workers(args);
+
         OutputFormatter.printBoxedHeader(doc, style, "Фаззинг веб-приложения");
         OutputFormatter.printBoxedLine(doc, style, "URL: " + url);
+        OutputFormatter.printBoxedLine(doc, style, String.format("Корпус: %d, случаев: %d, потоков: %d",
+            corpus.size(), total, workers));
         OutputFormatter.printBoxedLine(doc, style, "");
         OutputFormatter.printBoxedLine(doc, style, "Начало фаззинга веб-приложения...");
+        OutputFormatter.printBoxedFooter(doc, style);
+
+        // Пул соединений расширяется только на время кампании
+        try (HttpEngine.Reservation reservation = HttpEngine.getInstance().reserveConnections(workers)) {
+            runCampaign(corpus.cycle(total), HttpFuzzTarget.prepare(url), workers, args);
+        }
+    }
 
-        URL baseUrl = new URL(url);
+    private void fuzzNetwork(String host, int port, String[] args) throws Exception {
+        Corpus corpus = loadCorpus(args, null);
+        if (corpus == null && option(args, "-w") != null) {
+            return;
+        }
+        String count = option(args, "-n");
+        long total = count != null ? Long.parseLong(count) : MAX_MUTATIONS;
+        String seed = option(args, "-s");
+        int workers = workers(args);
+        int timeout = UserSettings.getInstance().getInt("fuzz-timeout-ms", DEFAULT_TIMEOUT_MS);
+
+        OutputFormatter.printBoxedHeader(doc, style, "Фаззинг сетевого протокола");
+        OutputFormatter.printBoxedLine(doc, style, "Хост: " + host);
+        OutputFormatter.printBoxedLine(doc, style, "Порт: " + port);
+        OutputFormatter.printBoxedLine(doc, style, String.format("Данные: %s, случаев: %d, потоков: %d",
+            corpus != null ? "корпус из " + corpus.size() : "случайные", total, workers));
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Начало фаззинга сетевого протокола...");
+        OutputFormatter.printBoxedFooter(doc, style);
+
+        CaseGenerator generator = corpus != null ? corpus.cycle(total)
+            : Corpus.random(total, BUFFER_SIZE, seed != null ? Long.parseLong(seed) : System.nanoTime());
+        runCampaign(generator, TcpFuzzTarget.factory(new InetSocketAddress(host, port), timeout), workers, args);
+    }
+
+    /**
+     * Запускает кампанию: строка статистики обновляется на месте раз в секунду,
+     * находки выводятся над ней по мере появления
+     */
+    private void runCampaign(CaseGenerator generator, FuzzTarget.Factory factory, int workers, String[] args)
+            throws Exception {
+        UserSettings settings = UserSettings.getInstance();
+        String rate = option(args, "-r");
+        FuzzEngine engine = new FuzzEngine(workers, settings.getInt("fuzz-queue", DEFAULT_QUEUE),
+            rate != null ? Integer.parseInt(rate) : settings.getInt("fuzz-rate", 0));
 
         Style vulnStyle = doc.addStyle("vulnerable", style);
         StyleConstants.setForeground(vulnStyle, new Color(255, 69, 0));
         StyleConstants.setBold(vulnStyle, true);
 
-        for (String payload : WEB_PAYLOADS) {
-            String testUrl = baseUrl.toString();
-            if (testUrl.contains("?")) {
-                testUrl += "&fuzz=" + URLEncoder.encode(payload, "UTF-8");
-            } else {
-                testUrl += "?fuzz=" + URLEncoder.encode(payload, "UTF-8");
-            }
-
-            try {
-                HttpURLConnection conn = (HttpURLConnection) new URL(testUrl).openConnection();
-                conn.setRequestMethod("GET");
-                int responseCode = conn.getResponseCode();
-                
-                OutputFormatter.printBoxedLine(doc, style, String.format("Тест: %s", payload));
-                OutputFormatter.printBoxedLine(doc, style, String.format("Код ответа: %d", responseCode));
-                
-                if (responseCode != 200) {
-                    OutputFormatter.printBoxedLine(doc, vulnStyle, "! Найдена потенциальная уязвимость !");
-                    
-                    for (String[] description : PAYLOAD_DESCRIPTIONS) {
-                        if (description[0].equals(payload)) {
-                            OutputFormatter.printBoxedHeader(doc, vulnStyle, "Инструкция по использованию");
-                            for (String line : description[1].split("\n")) {
-                                OutputFormatter.printBoxedLine(doc, vulnStyle, line);
-                            }
-                            OutputFormatter.printBoxedFooter(doc, vulnStyle);
-                            break;
-                        }
+        int[] reported = new int[1];
+        LiveRegion progressLine = new LiveRegion(doc, style);
+        FuzzEngine.Stats stats;
+        try {
+            stats = engine.run(generator, factory, PROGRESS_INTERVAL_MS, new FuzzEngine.Listener() {
+                @Override
+                public void onFinding(FuzzEngine.Finding finding) {
+                    if (reported[0]++ < MAX_REPORTED_FINDINGS) {
+                        printFinding(finding, vulnStyle);
                     }
                 }
-                OutputFormatter.printBoxedLine(doc, style, "");
-            } catch (Exception e) {
-                OutputFormatter.printError(doc, style, "Ошибка при тестировании " + payload + ": " + e.getMessage());
-            }
+
+                @Override
+                public void onProgress(FuzzEngine.Stats progress) {
+                    progressLine.update(formatStats(progress) + "\n");
+                }
+            });
+            // Итоговая статистика выводится ниже полностью
+            progressLine.update("");
+        } finally {
+            progressLine.close();
         }
 
+        OutputFormatter.printBoxedHeader(doc, style, "Итоги фаззинга");
+        OutputFormatter.printBoxedLine(doc, style, formatStats(stats));
+        if (reported[0] > MAX_REPORTED_FINDINGS) {
+            OutputFormatter.printBoxedLine(doc, style, String.format("Показаны первые %d находок из %d",
+                MAX_REPORTED_FINDINGS, reported[0]));
+        }
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
-    private void fuzzNetwork(String host, int port) throws Exception {
-        OutputFormatter.printBoxedHeader(doc, style, "Фаззинг сетевого протокола");
-        OutputFormatter.printBoxedLine(doc, style, "Хост: " + host);
-        OutputFormatter.printBoxedLine(doc, style, "Порт: " + port);
-        OutputFormatter.printBoxedLine(doc, style, "");
-        OutputFormatter.printBoxedLine(doc, style, "Начало фаззинга сетевого протокола...");
+    private void printFinding(FuzzEngine.Finding finding, Style vulnStyle) {
+        String payload = new String(finding.getPayload(), StandardCharsets.UTF_8);
+        OutputFormatter.printBoxedLine(doc, style, String.format("Тест %d: %s%s", finding.getIndex() + 1,
+            printable(payload), finding.getLength() > finding.getPayload().length ? "..." : ""));
+        OutputFormatter.printBoxedLine(doc, style, "Результат: " + finding.getDetail());
+        if (finding.getOutcome() == FuzzTarget.Outcome.CRASH) {
+            OutputFormatter.printBoxedLine(doc, vulnStyle, "! Цель перестала отвечать !");
+        } else {
+            OutputFormatter.printBoxedLine(doc, vulnStyle, "! Найдена потенциальная уязвимость !");
+        }
 
-        Random random = new Random();
-
-        for (int i = 0; i < MAX_MUTATIONS; i++) {
-            try (Socket socket = new Socket(host, port)) {
-                socket.setSoTimeout(1000);
-                OutputStream out = socket.getOutputStream();
-                
-                byte[] data = new byte[random.nextInt(BUFFER_SIZE)];
-                random.nextBytes(data);
-                
-                out.write(data);
-                out.flush();
-
-                try {
-                    InputStream in = socket.getInputStream();
-                    byte[] response = new byte[BUFFER_SIZE];
-                    int bytesRead = in.read(response);
-                    
-                    if (bytesRead > 0) {
-                        OutputFormatter.printBoxedLine(doc, style, 
-                            String.format("Тест %d: Получен ответ длиной %d байт", i + 1, bytesRead));
-                    }
-                } catch (Exception e) {
-                    OutputFormatter.printBoxedLine(doc, style, 
-                        String.format("Тест %d: Ошибка чтения ответа", i + 1));
+        for (String[] description : PAYLOAD_DESCRIPTIONS) {
+            if (description[0].equals(payload)) {
+                OutputFormatter.printBoxedHeader(doc, vulnStyle, "Инструкция по использованию");
+                for (String line : description[1].split("\n")) {
+                    OutputFormatter.printBoxedLine(doc, vulnStyle, line);
                 }
-            } catch (Exception e) {
-                OutputFormatter.printBoxedLine(doc, style, 
-                    String.format("Тест %d: Ошибка соединения - %s", i + 1, e.getMessage()));
+                OutputFormatter.printBoxedFooter(doc, vulnStyle);
+                break;
             }
         }
+        OutputFormatter.printBoxedLine(doc, style, "");
+    }
 
-        OutputFormatter.printBoxedFooter(doc, style);
+    private static String formatStats(FuzzEngine.Stats stats) {
+        return String.format("[%.1f с] отправлено %d (%.0f/с), ответов %d, без ответа %d, аномалий %d, ошибок %d, падений %d",
+            stats.getElapsedNanos() / 1e9, stats.getSent(), stats.getRate(),
+            stats.getCount(FuzzTarget.Outcome.RESPONSE), stats.getCount(FuzzTarget.Outcome.SILENT),
+            stats.getCount(FuzzTarget.Outcome.ANOMALY), stats.getCount(FuzzTarget.Outcome.ERROR),
+            stats.getCount(FuzzTarget.Outcome.CRASH));
+    }
+
+    private static String printable(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length() && result.length() < 60; i++) {
+            char c = text.charAt(i);
+            result.append(c < 0x20 || c == 0x7F ? '.' : c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Корпус из файла или каталога по флагу -w, иначе fallback.
+     * При ошибке загрузки выводит сообщение и возвращает null.
+     */
+    private Corpus loadCorpus(String[] args, Corpus fallback) throws Exception {
+        String source = option(args, "-w");
+        if (source == null) {
+            return fallback;
+        }
+        Path path = Paths.get(pathHolder.getCurrentPath()).resolve(source);
+        if (!Files.exists(path)) {
+            OutputFormatter.printError(doc, style, "Корпус не найден: " + source);
+            return null;
+        }
+        return Corpus.load(path);
+    }
+
+    private int workers(String[] args) {
+        String threads = option(args, "-t");
+        return Math.max(1, threads != null ? Integer.parseInt(threads)
+            : UserSettings.getInstance().getInt("fuzz-workers", DEFAULT_WORKERS));
+    }
+
+    /**
+     * Значение флага вида "-n 1000" или null; аргументы команды после -x не просматриваются
+     */
+    private static String option(String[] args, String flag) {
+        for (int i = 0; i < args.length - 1 && !"-x".equals(args[i]); i++) {
+            if (flag.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
     }
 
     @Override
@@ -1,38 +1,38 @@
 package com.terminal.commands;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.core.CommandPool;
+import com.terminal.sdk.io.PathGlob;
+import com.terminal.sdk.search.GrepEngine;
+import com.terminal.sdk.search.LineMatcher;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
 public class GrepCommand extends AbstractCommand {
     private final CurrentPathHolder pathHolder;
-    private static final Charset[] CHARSETS = {
-        StandardCharsets.UTF_8,
-        StandardCharsets.UTF_16,
-        StandardCharsets.UTF_16BE,
-        StandardCharsets.UTF_16LE,
-        Charset.forName("windows-1251"),
-        StandardCharsets.ISO_8859_1
-    };
 
     public GrepCommand(StyledDocument doc, Style style, CurrentPathHolder pathHolder) {
         super(doc, style, pathHolder, "grep", "Поиск по содержимому файлов", "SEARCH_AND_PROCESS");
         this.pathHolder = pathHolder;
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     public void executeCommand(String... args) {
         try {
@@ -44,12 +44,14 @@ public class GrepCommand extends AbstractCommand {
             boolean ignoreCase = false;
             boolean showLineNumbers = false;
             boolean invertMatch = false;
+            boolean recursive = false;
+            boolean countOnly = false;
             String pattern = null;
             List<String> files = new ArrayList<>();
 
             for (int i = 0; i < args.length; i++) {
                 String arg = args[i];
-                if (arg.startsWith("-")) {
+                if (arg.startsWith("-") && arg.length() > 1) {
                     for (char flag : arg.substring(1).toCharArray()) {
                         switch (flag) {
                             case 'i':
@@ -61,6 +63,12 @@ public class GrepCommand extends AbstractCommand {
                             case 'v':
                                 invertMatch = true;
                                 break;
+                            case 'r':
+                                recursive = true;
+                                break;
+                            case 'c':
+                                countOnly = true;
+                                break;
                             default:
                                 OutputFormatter.printBoxedLine(doc, style, 
                                     "Предупреждение: Неизвестный флаг '" + flag + "' игнорируется");
@@ -80,9 +88,9 @@ public class GrepCommand extends AbstractCommand {
                 return;
             }
 
-            Pattern regex;
+            LineMatcher matcher;
             try {
-                regex = Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+                matcher = LineMatcher.compile(pattern, ignoreCase);
             } catch (Exception e) {
                 OutputFormatter.printBoxedHeader(doc, style, "Ошибка");
                 OutputFormatter.printBoxedLine(doc, style, "Некорректное регулярное выражение: " + e.getMessage());
@@ -101,68 +109,39 @@ public class GrepCommand extends AbstractCommand {
             if (invertMatch) {
                 OutputFormatter.printBoxedLine(doc, style, "Инвертировать поиск: да");
             }
+            if (recursive) {
+                OutputFormatter.printBoxedLine(doc, style, "Рекурсивный поиск: да");
+            }
 
-            for (String fileName : files) {
-                File file = new File(pathHolder.getCurrentPath(), fileName);
-                if (!file.exists()) {
-                    OutputFormatter.printError(doc, style, "Файл не существует: " + fileName);
-                    continue;
-                }
+            Path base = Paths.get(pathHolder.getCurrentPath());
+            GrepEngine engine = new GrepEngine(matcher, invertMatch, countOnly);
+            boolean multipleFiles = recursive || files.size() > 1 || PathGlob.hasGlob(files);
+            GrepOutput output = new GrepOutput(base, showLineNumbers, countOnly, multipleFiles);
 
-                if (files.size() > 1) {
-                    OutputFormatter.printBoxedLine(doc, style, "Файл: " + fileName);
+            for (String fileName : files) {
+                if (isCancelled()) {
+                    break;
                 }
-
-                boolean fileProcessed = false;
-                for (Charset charset : CHARSETS) {
-                    try (BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(new FileInputStream(file), charset))) {
-                        String line;
-                        int lineNum = 0;
-                        boolean hasValidContent = false;
-
-                        for (int i = 0; i < 5 && (line = reader.readLine()) != null; i++) {
-                            if (isValidString(line)) {
-                                hasValidContent = true;
-                                break;
-                            }
+                for (Path target : PathGlob.expand(base, fileName)) {
+                    if (!Files.exists(target)) {
+                        OutputFormatter.printError(doc, style, "Файл не существует: " + fileName);
+                    } else if (Files.isDirectory(target)) {
+                        if (recursive) {
+                            searchDirectory(engine, target, output);
+                        } else {
+                            OutputFormatter.printError(doc, style, "Это директория (используйте -r): " + fileName);
                         }
-
-                        if (!hasValidContent) {
-                            continue;
-                        }
-
-                        reader.close();
-                        try (BufferedReader validReader = new BufferedReader(
-                                new InputStreamReader(new FileInputStream(file), charset))) {
-                            while ((line = validReader.readLine()) != null) {
-                                lineNum++;
-                                Matcher matcher = regex.matcher(line);
-                                boolean matches = matcher.find();
-                                
-                                if (matches != invertMatch) {
-                                    if (showLineNumbers) {
-                                        OutputFormatter.printBoxedLine(doc, style, 
-                                            String.format("%4d: %s", lineNum, line));
-                                    } else {
-                                        OutputFormatter.printBoxedLine(doc, style, line);
-                                    }
-                                }
-                            }
-                            fileProcessed = true;
-                            break;
-                        }
-                    } catch (Exception e) {
-                        continue;
+                    } else {
+                        searchFile(engine, target, output);
                     }
                 }
-
-                if (!fileProcessed) {
-                    OutputFormatter.printError(doc, style, 
-                        "Не удалось определить кодировку файла: " + fileName);
-                }
             }
 
+            if (multipleFiles && countOnly) {
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, String.format("Всего: %d совпадений в %d файлах",
+                    output.totalMatches, output.filesWithMatches));
+            }
             OutputFormatter.printBoxedFooter(doc, style);
 
         } catch (Exception e) {
@@ -174,30 +153,110 @@ public class GrepCommand extends AbstractCommand {
         }
     }
 
-    private boolean isValidString(String str) {
-        if (str == null || str.isEmpty()) {
-            return false;
+    /**
+     * Вывод результатов поиска в рамку терминала
+     */
+    private class GrepOutput implements GrepEngine.Listener {
+        private final Path base;
+        private final boolean showLineNumbers;
+        private final boolean countOnly;
+        private final boolean multipleFiles;
+        private Path currentFile;
+        long totalMatches;
+        int filesWithMatches;
+
+        GrepOutput(Path base, boolean showLineNumbers, boolean countOnly, boolean multipleFiles) {
+            this.base = base;
+            this.showLineNumbers = showLineNumbers;
+            this.countOnly = countOnly;
+            this.multipleFiles = multipleFiles;
+        }
+
+        @Override
+        public void onMatch(Path file, long lineNumber, String line) {
+            if (multipleFiles && !file.equals(currentFile)) {
+                currentFile = file;
+                OutputFormatter.printBoxedLine(doc, style, "Файл: " + displayName(file));
+            }
+            if (showLineNumbers) {
+                OutputFormatter.printBoxedLine(doc, style, String.format("%4d: %s", lineNumber, line));
+            } else {
+                OutputFormatter.printBoxedLine(doc, style, line);
+            }
         }
-        for (char c : str.toCharArray()) {
-            if (c < 32 && c != '\t' && c != '\n' && c != '\r') {
-                return false;
+
+        @Override
+        public void onFileComplete(Path file, long matches, boolean binary) {
+            totalMatches += matches;
+            if (matches > 0) {
+                filesWithMatches++;
             }
+            if (countOnly) {
+                if (multipleFiles) {
+                    if (matches > 0) {
+                        OutputFormatter.printBoxedLine(doc, style, displayName(file) + ": " + matches);
+                    }
+                } else {
+                    OutputFormatter.printBoxedLine(doc, style, "Совпадений: " + matches);
+                }
+            } else if (binary && matches > 0) {
+                OutputFormatter.printBoxedLine(doc, style, "Двоичный файл " + displayName(file) + " совпадает");
+            }
+        }
+
+        private String displayName(Path file) {
+            return file.startsWith(base) ? base.relativize(file).toString() : file.toString();
+        }
+    }
+
+    private void searchFile(GrepEngine engine, Path file, GrepOutput output) throws InterruptedException {
+        try {
+            engine.search(file, output);
+        } catch (IOException e) {
+            OutputFormatter.printError(doc, style, "Не удалось прочитать файл " + file.getFileName() + ": " + e.getMessage());
         }
-        return true;
+    }
+
+    private void searchDirectory(GrepEngine engine, Path directory, GrepOutput output) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (isCancelled()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (attrs.isRegularFile()) {
+                    try {
+                        searchFile(engine, file, output);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
     }
 
     private void showHelp() {
         try {
-            OutputFormatter.printBoxedHeader(doc, style, "Использование: grep [опции] <шаблон> <файл...>");
+            OutputFormatter.printBoxedHeader(doc, style, "Использование: grep [опции] <шаблон> <файл|директория...>");
             OutputFormatter.printBoxedLine(doc, style, "Опции:");
             OutputFormatter.printBoxedLine(doc, style, "  -i    игнорировать регистр");
             OutputFormatter.printBoxedLine(doc, style, "  -n    показывать номера строк");
             OutputFormatter.printBoxedLine(doc, style, "  -v    показывать строки НЕ содержащие шаблон");
+            OutputFormatter.printBoxedLine(doc, style, "  -r    рекурсивный поиск в директориях");
+            OutputFormatter.printBoxedLine(doc, style, "  -c    выводить только число совпадений");
             OutputFormatter.printBoxedLine(doc, style, "");
             OutputFormatter.printBoxedLine(doc, style, "Примеры:");
             OutputFormatter.printBoxedLine(doc, style, "  grep error log.txt");
             OutputFormatter.printBoxedLine(doc, style, "  grep -i -n error *.log");
             OutputFormatter.printBoxedLine(doc, style, "  grep -v test file1.txt file2.txt");
+            OutputFormatter.printBoxedLine(doc, style, "  grep -rc TODO src");
             OutputFormatter.printBoxedFooter(doc, style);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1,14 +1,30 @@
 package com.terminal.commands;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.core.CommandPool;
+import com.terminal.sdk.hashing.ChecksumManifest;
+import com.terminal.sdk.hashing.HashAlgorithm;
+import com.terminal.sdk.hashing.HashCache;
+import com.terminal.sdk.hashing.HashEngine;
+import com.terminal.sdk.io.PathGlob;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class HashCommand extends AbstractCommand {
@@ -19,38 +35,114 @@ public class HashCommand extends AbstractCommand {
         this.pathHolder = pathHolder;
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     protected void initializeSubCommands() {
         addSubCommand("md5", "MD5 хеш");
         addSubCommand("sha1", "SHA-1 хеш");
         addSubCommand("sha256", "SHA-256 хеш");
         addSubCommand("sha512", "SHA-512 хеш");
+        addSubCommand("-c", "Проверка по файлу контрольных сумм");
     }
 
     @Override
     public void executeCommand(String... args) {
         try {
             if (args.length < 2) {
-                OutputFormatter.printBoxedHeader(doc, style, "Использование: hash <алгоритм> <файл>");
-                OutputFormatter.printBoxedLine(doc, style, "Алгоритмы:");
-                OutputFormatter.printBoxedLine(doc, style, "  md5         MD5 хеш");
-                OutputFormatter.printBoxedLine(doc, style, "  sha1        SHA-1 хеш");
-                OutputFormatter.printBoxedLine(doc, style, "  sha256      SHA-256 хеш");
-                OutputFormatter.printBoxedLine(doc, style, "  sha512      SHA-512 хеш");
-                OutputFormatter.printBoxedFooter(doc, style);
+                showHelp();
                 return;
             }
 
-            String algorithm = args[0].toLowerCase();
-            String input = args[1];
+            boolean useCache = UserSettings.getInstance().getBoolean("hash-cache-enabled", true);
+            if (args[0].equals("-f")) {
+                useCache = false;
+                args = Arrays.copyOfRange(args, 1, args.length);
+                if (args.length < 2) {
+                    showHelp();
+                    return;
+                }
+            }
+            HashCache cache = useCache ? HashCache.getInstance() : null;
+
+            Path base = Paths.get(pathHolder.getCurrentPath());
+            if (args[0].equals("-c")) {
+                verify(base, null, args[1], cache);
+                return;
+            }
 
-            OutputFormatter.printBoxedHeader(doc, style, "Вычисление хеша");
-            OutputFormatter.printBoxedLine(doc, style, "Алгоритм: " + algorithm.toUpperCase());
-            OutputFormatter.printBoxedLine(doc, style, "Входные данные: " + input);
+            List<HashAlgorithm> algorithms = new ArrayList<>();
+            for (String name : args[0].split(",")) {
+                HashAlgorithm algorithm = HashAlgorithm.fromName(name.trim());
+                if (algorithm == null) {
+                    throw new IllegalArgumentException("Неподдерживаемый алгоритм: " + name);
+                }
+                if (!algorithms.contains(algorithm)) {
+                    algorithms.add(algorithm);
+                }
+            }
+
+            if (args[1].equals("-c")) {
+                if (args.length < 3 || algorithms.size() > 1) {
+                    showHelp();
+                    return;
+                }
+                verify(base, algorithms.get(0), args[2], cache);
+                return;
+            }
+
+            List<String> inputs = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                inputs.add(args[i]);
+            }
+            List<Path> files = collectFiles(base, inputs);
+            if (files == null) {
+                return;
+            }
+
+            HashEngine engine = new HashEngine(cache, algorithms.toArray(new HashAlgorithm[0]));
+            if (files.size() == 1 && !Files.isDirectory(base.resolve(inputs.get(0))) && !PathGlob.hasGlob(inputs)) {
+                hashSingle(engine, algorithms, files.get(0), inputs.get(0));
+                return;
+            }
+
+            OutputFormatter.printBoxedHeader(doc, style, "Вычисление хешей");
+            OutputFormatter.printBoxedLine(doc, style, "Алгоритмы: " + algorithmNames(algorithms));
+            OutputFormatter.printBoxedLine(doc, style, "Файлов: " + files.size());
             OutputFormatter.printBoxedLine(doc, style, "");
-            OutputFormatter.printBoxedLine(doc, style, "Результат: " + calculateHash(algorithm, input));
+
+            long start = System.nanoTime();
+            long[] totals = new long[2];
+            engine.hashAll(files, new HashEngine.Listener() {
+                @Override
+                public void onHash(Path file, long size, String[] hashes) {
+                    totals[0]++;
+                    totals[1] += size;
+                    String name = displayName(base, file);
+                    for (int i = 0; i < hashes.length; i++) {
+                        String prefix = algorithms.size() > 1 ? algorithms.get(i).getName().toUpperCase() + " " : "";
+                        OutputFormatter.printBoxedLine(doc, style, prefix + hashes[i] + "  " + name);
+                    }
+                }
+
+                @Override
+                public void onError(Path file, IOException error) {
+                    OutputFormatter.printBoxedLine(doc, style, "Ошибка чтения " + displayName(base, file) + ": " + error.getMessage());
+                }
+            });
+
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, summary(totals[0], totals[1], System.nanoTime() - start));
+            if (engine.getCacheHits() > 0) {
+                OutputFormatter.printBoxedLine(doc, style, "Взято из кеша: " + engine.getCacheHits());
+            }
             OutputFormatter.printBoxedFooter(doc, style);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -60,49 +152,180 @@ public class HashCommand extends AbstractCommand {
         }
     }
 
-    private String calculateHash(String algorithm, String input) throws IOException {
-        String mdAlgorithm;
-        switch (algorithm) {
-            case "md5":
-                mdAlgorithm = "MD5";
-                break;
-            case "sha1":
-                mdAlgorithm = "SHA-1";
-                break;
-            case "sha256":
-                mdAlgorithm = "SHA-256";
-                break;
-            case "sha512":
-                mdAlgorithm = "SHA-512";
-                break;
-            default:
-                throw new IllegalArgumentException("Неподдерживаемый алгоритм: " + algorithm);
+    private void hashSingle(HashEngine engine, List<HashAlgorithm> algorithms, Path file, String input) throws IOException {
+        String[] hashes = engine.hash(file);
+        OutputFormatter.printBoxedHeader(doc, style, "Вычисление хеша");
+        OutputFormatter.printBoxedLine(doc, style, "Алгоритм: " + algorithmNames(algorithms));
+        OutputFormatter.printBoxedLine(doc, style, "Входные данные: " + input);
+        OutputFormatter.printBoxedLine(doc, style, "");
+        if (hashes.length == 1) {
+            OutputFormatter.printBoxedLine(doc, style, "Результат: " + hashes[0]);
+        } else {
+            for (int i = 0; i < hashes.length; i++) {
+                OutputFormatter.printBoxedLine(doc, style, String.format("%-7s %s",
+                    algorithms.get(i).getName().toUpperCase() + ":", hashes[i]));
+            }
         }
+        OutputFormatter.printBoxedFooter(doc, style);
+    }
+
+    /**
+     * Проверяет файлы по файлу контрольных сумм в формате sha256sum
+     */
+    private void verify(Path base, HashAlgorithm algorithm, String manifestName, HashCache cache)
+            throws IOException, InterruptedException {
+        Path manifestPath = base.resolve(manifestName);
+        if (!Files.isRegularFile(manifestPath)) {
+            OutputFormatter.printError(doc, style, "Файл не существует: " + manifestName);
+            return;
+        }
+        ChecksumManifest manifest = ChecksumManifest.read(manifestPath, algorithm);
+
+        Map<HashAlgorithm, List<ChecksumManifest.Entry>> groups = new LinkedHashMap<>();
+        for (ChecksumManifest.Entry entry : manifest.getEntries()) {
+            groups.computeIfAbsent(entry.getAlgorithm(), a -> new ArrayList<>()).add(entry);
+        }
+
+        OutputFormatter.printBoxedHeader(doc, style, "Проверка контрольных сумм");
+        OutputFormatter.printBoxedLine(doc, style, "Файл: " + manifestName);
+        OutputFormatter.printBoxedLine(doc, style, "");
+
+        long start = System.nanoTime();
+        long[] totals = new long[5];
+        for (Map.Entry<HashAlgorithm, List<ChecksumManifest.Entry>> group : groups.entrySet()) {
+            List<ChecksumManifest.Entry> entries = group.getValue();
+            List<Path> files = new ArrayList<>(entries.size());
+            for (ChecksumManifest.Entry entry : entries) {
+                files.add(base.resolve(entry.getFileName()).normalize());
+            }
+            // Результаты приходят в порядке списка, поэтому строка файла определяется по номеру
+            int[] cursor = new int[1];
+            HashEngine engine = new HashEngine(cache, group.getKey());
+            engine.hashAll(files, new HashEngine.Listener() {
+                @Override
+                public void onHash(Path file, long size, String[] hashes) {
+                    ChecksumManifest.Entry entry = entries.get(cursor[0]++);
+                    totals[0]++;
+                    totals[1] += size;
+                    if (entry.getHash().equals(hashes[0])) {
+                        OutputFormatter.printBoxedLine(doc, style, entry.getFileName() + ": OK");
+                    } else {
+                        totals[2]++;
+                        OutputFormatter.printBoxedLine(doc, style, entry.getFileName() + ": НЕ СОВПАДАЕТ");
+                    }
+                }
+
+                @Override
+                public void onError(Path file, IOException error) {
+                    totals[3]++;
+                    OutputFormatter.printBoxedLine(doc, style, entries.get(cursor[0]++).getFileName() + ": НЕ ПРОЧИТАН");
+                }
+            });
+            totals[4] += engine.getCacheHits();
+        }
+
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, summary(totals[0], totals[1], System.nanoTime() - start));
+        if (totals[4] > 0) {
+            OutputFormatter.printBoxedLine(doc, style, "Взято из кеша: " + totals[4]);
+        }
+        if (totals[2] > 0) {
+            OutputFormatter.printBoxedLine(doc, style, "Не совпадают: " + totals[2]);
+        }
+        if (totals[3] > 0) {
+            OutputFormatter.printBoxedLine(doc, style, "Не удалось прочитать: " + totals[3]);
+        }
+        if (manifest.getMalformedLines() > 0) {
+            OutputFormatter.printBoxedLine(doc, style, "Некорректных строк: " + manifest.getMalformedLines());
+        }
+        OutputFormatter.printBoxedFooter(doc, style);
+    }
+
+    /**
+     * Раскрывает шаблоны и директории в отсортированный список файлов
+     *
+     * @return null, если был выведен текст ошибки
+     */
+    private List<Path> collectFiles(Path base, List<String> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String input : inputs) {
+            for (Path target : PathGlob.expand(base, input)) {
+                if (!Files.exists(target)) {
+                    OutputFormatter.printError(doc, style, "Файл не существует: " + input);
+                    return null;
+                }
+                if (Files.isDirectory(target)) {
+                    List<Path> nested = new ArrayList<>();
+                    Files.walkFileTree(target, new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            if (attrs.isRegularFile()) {
+                                nested.add(file);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
 
-        try (FileInputStream fis = new FileInputStream(input)) {
-            MessageDigest digest = MessageDigest.getInstance(mdAlgorithm);
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                digest.update(buffer, 0, bytesRead);
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException e) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+                    Collections.sort(nested);
+                    files.addAll(nested);
+                } else {
+                    files.add(target);
+                }
             }
-            byte[] hashBytes = digest.digest();
-            return bytesToHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IOException("Ошибка при инициализации алгоритма: " + e.getMessage());
         }
+        return files;
+    }
+
+    private static String displayName(Path base, Path file) {
+        return file.startsWith(base) ? base.relativize(file).toString() : file.toString();
     }
 
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+    private static String algorithmNames(List<HashAlgorithm> algorithms) {
+        StringBuilder names = new StringBuilder();
+        for (HashAlgorithm algorithm : algorithms) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(algorithm.getName().toUpperCase());
         }
-        return result.toString();
+        return names.toString();
+    }
+
+    private static String summary(long files, long bytes, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1_000_000_000.0;
+        double megabytes = bytes / (1024.0 * 1024.0);
+        return String.format("Обработано: %d файлов, %.1f МБ за %.2f с (%.1f МБ/с)",
+            files, megabytes, seconds, megabytes / seconds);
+    }
+
+    private void showHelp() {
+        OutputFormatter.printBoxedHeader(doc, style, "Использование: hash <алгоритм[,алгоритм]> <файл|директория|шаблон...>");
+        OutputFormatter.printBoxedLine(doc, style, "Алгоритмы:");
+        OutputFormatter.printBoxedLine(doc, style, "  md5         MD5 хеш");
+        OutputFormatter.printBoxedLine(doc, style, "  sha1        SHA-1 хеш");
+        OutputFormatter.printBoxedLine(doc, style, "  sha256      SHA-256 хеш");
+        OutputFormatter.printBoxedLine(doc, style, "  sha512      SHA-512 хеш");
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Опции:");
+        OutputFormatter.printBoxedLine(doc, style, "  -f          не использовать кеш хешей (hash -f sha256 ...)");
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Проверка:");
+        OutputFormatter.printBoxedLine(doc, style, "  hash -c <файл>          алгоритм по длине хеша");
+        OutputFormatter.printBoxedLine(doc, style, "  hash sha256 -c <файл>   файл в формате sha256sum");
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Примеры:");
+        OutputFormatter.printBoxedLine(doc, style, "  hash sha256 release.zip");
+        OutputFormatter.printBoxedLine(doc, style, "  hash md5,sha256 dist");
+        OutputFormatter.printBoxedLine(doc, style, "  hash sha1 *.jar");
+        OutputFormatter.printBoxedFooter(doc, style);
     }
 
     @Override
     public String getDescription() {
         return "вычисление хешей файлов";
     }
-} 
\ No newline at end of file
+}
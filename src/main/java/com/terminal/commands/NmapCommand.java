@@ -1,22 +1,29 @@
 package com.terminal.commands;
 
-import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.network.DnsEngine;
+import com.terminal.sdk.network.SubnetSweeper;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class NmapCommand extends AbstractCommand {
-    private static final int THREAD_POOL_SIZE = 50;
     private static final int TIMEOUT = 1000;
+    private static final int DEFAULT_CONCURRENCY = 512;
+    private static final int DEFAULT_RATE = 2000;
+    private static final int MIN_PREFIX = 8;
+    private static final int MAX_REVERSE_LOOKUPS = 4096;
+    /** Порты TCP-пинга: хост доступен, если ответил на любом из них */
+    private static final int[] DISCOVERY_PORTS = {80, 443, 22, 445, 139, 3389, 8080};
 
     public NmapCommand(StyledDocument doc, Style style) {
         super(doc, style);
@@ -32,75 +39,62 @@ public class NmapCommand extends AbstractCommand {
 
             String target = args[0];
             boolean scanPorts = args.length > 1 && args[1].equals("-p");
-            
+            SubnetSweeper.Range range = SubnetSweeper.Range.parse(target);
+            if (range.getPrefix() < MIN_PREFIX) {
+                OutputFormatter.printError(doc, style, "Слишком большая подсеть, минимальный префикс /" + MIN_PREFIX);
+                return;
+            }
+            int[] ports = scanPorts ? getCommonPorts() : DISCOVERY_PORTS;
+
             OutputFormatter.printBoxedHeader(doc, style, "Сканирование сети");
             OutputFormatter.printBoxedLine(doc, style, "Цель: " + target);
-
-            if (target.contains("/")) {
-                String[] parts = target.split("/");
-                String baseIP = parts[0].substring(0, parts[0].lastIndexOf(".") + 1);
-                int mask = Integer.parseInt(parts[1]);
-                int hosts = (int) Math.pow(2, 32 - mask);
-
-                OutputFormatter.printBoxedLine(doc, style, String.format("Подсеть: %s0/%d", baseIP, mask));
-                OutputFormatter.printBoxedLine(doc, style, String.format("Количество хостов: %d", hosts));
-                OutputFormatter.printBoxedLine(doc, style, "");
-
-                ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-                List<Future<HostScanResult>> futures = new ArrayList<>();
-
-                for (int i = 1; i < hosts && i < 255; i++) {
-                    String ip = baseIP + i;
-                    futures.add(executor.submit(() -> scanHost(ip, scanPorts)));
+            if (range.getPrefix() < 32) {
+                OutputFormatter.printBoxedLine(doc, style, "Подсеть: " + range);
+                OutputFormatter.printBoxedLine(doc, style, String.format("Количество адресов: %d", range.size()));
+            }
+            OutputFormatter.printBoxedLine(doc, style, "");
+
+            UserSettings settings = UserSettings.getInstance();
+            SubnetSweeper sweeper = new SubnetSweeper(
+                settings.getInt("nmap-concurrency", DEFAULT_CONCURRENCY),
+                settings.getInt("nmap-rate", DEFAULT_RATE),
+                settings.getLong("nmap-timeout-ms", TIMEOUT));
+            DnsEngine dns = DnsEngine.getInstance();
+            List<CompletableFuture<String>> names = new ArrayList<>();
+            SubnetSweeper.Result result = sweeper.sweep(range, ports, (address, openMask) -> {
+                OutputFormatter.printBoxedLine(doc, style, String.format("Хост %s доступен", SubnetSweeper.format(address)));
+                if (names.size() < MAX_REVERSE_LOOKUPS) {
+                    try {
+                        names.add(dns.reverseAsync(SubnetSweeper.toInetAddress(address)).toCompletableFuture());
+                    } catch (UnknownHostException e) {
+                        names.add(CompletableFuture.completedFuture(null));
+                    }
                 }
-
-                executor.shutdown();
-                executor.awaitTermination(30, TimeUnit.SECONDS);
-
-                boolean foundHosts = false;
-                for (Future<HostScanResult> future : futures) {
-                    HostScanResult result = future.get();
-                    if (result.isUp) {
-                        foundHosts = true;
-                        OutputFormatter.printBoxedLine(doc, style, String.format("Хост %s доступен", result.ip));
-                        if (result.hostname != null) {
-                            OutputFormatter.printBoxedLine(doc, style, String.format("  Имя: %s", result.hostname));
-                        }
-                        if (result.openPorts != null && !result.openPorts.isEmpty()) {
-                            OutputFormatter.printBoxedLine(doc, style, "  Открытые порты:");
-                            for (Integer port : result.openPorts) {
-                                OutputFormatter.printBoxedLine(doc, style, String.format("    %d: %s", 
-                                    port, getServiceName(port)));
-                            }
+                if (scanPorts && openMask != 0) {
+                    OutputFormatter.printBoxedLine(doc, style, "  Открытые порты:");
+                    for (int i = 0; i < ports.length; i++) {
+                        if ((openMask & 1L << i) != 0) {
+                            OutputFormatter.printBoxedLine(doc, style, String.format("    %d: %s",
+                                ports[i], getServiceName(ports[i])));
                         }
                     }
                 }
+            });
 
-                if (!foundHosts) {
-                    OutputFormatter.printBoxedLine(doc, style, "Активных хостов не найдено");
-                }
-
+            if (result.getHostCount() == 0) {
+                OutputFormatter.printBoxedLine(doc, style, range.getPrefix() < 32 ? "Активных хостов не найдено" : "Хост недоступен");
             } else {
-                HostScanResult result = scanHost(target, scanPorts);
-                if (result.isUp) {
-                    OutputFormatter.printBoxedLine(doc, style, "Хост доступен");
-                    if (result.hostname != null) {
-                        OutputFormatter.printBoxedLine(doc, style, "Имя: " + result.hostname);
-                    }
-                    if (result.openPorts != null && !result.openPorts.isEmpty()) {
-                        OutputFormatter.printBoxedLine(doc, style, "Открытые порты:");
-                        for (Integer port : result.openPorts) {
-                            OutputFormatter.printBoxedLine(doc, style, String.format("  %d: %s", 
-                                port, getServiceName(port)));
-                        }
-                    }
-                } else {
-                    OutputFormatter.printBoxedLine(doc, style, "Хост недоступен");
-                }
+                printHostNames(result, names, dns.getTimeoutMs() * 2);
             }
-
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, String.format("Доступно хостов: %d, проверок: %d, время: %.2f с",
+                result.getHostCount(), result.getProbes(), result.getElapsedNanos() / 1e9));
             OutputFormatter.printBoxedFooter(doc, style);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (UnknownHostException e) {
+            OutputFormatter.printError(doc, style, "Неизвестный хост: " + e.getMessage());
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -110,35 +104,32 @@ public class NmapCommand extends AbstractCommand {
         }
     }
 
-    private HostScanResult scanHost(String ip, boolean scanPorts) {
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            if (addr.isReachable(TIMEOUT)) {
-                HostScanResult result = new HostScanResult(ip);
-                result.isUp = true;
-                try {
-                    result.hostname = addr.getHostName();
-                } catch (Exception e) {
-                }
-                
-                if (scanPorts) {
-                    result.openPorts = new ArrayList<>();
-                    for (int port : getCommonPorts()) {
-                        try {
-                            java.net.Socket socket = new java.net.Socket();
-                            socket.connect(new java.net.InetSocketAddress(addr, port), TIMEOUT);
-                            socket.close();
-                            result.openPorts.add(port);
-                        } catch (Exception e) {
-                        }
-                    }
-                    Collections.sort(result.openPorts);
-                }
-                return result;
+    /**
+     * Выводит имена хостов: обратные запросы шли параллельно со сканированием,
+     * здесь только дожидаемся оставшихся ответов
+     */
+    private void printHostNames(SubnetSweeper.Result result, List<CompletableFuture<String>> names, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean header = false;
+        for (int i = 0; i < names.size(); i++) {
+            String hostname;
+            try {
+                hostname = names.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                hostname = null;
             }
-        } catch (Exception e) {
+            if (hostname == null) {
+                continue;
+            }
+            if (!header) {
+                OutputFormatter.printBoxedLine(doc, style, "");
+                OutputFormatter.printBoxedLine(doc, style, "Имена хостов:");
+                header = true;
+            }
+            OutputFormatter.printBoxedLine(doc, style, String.format("  %-15s %s",
+                SubnetSweeper.format(result.getHost(i)), hostname));
         }
-        return new HostScanResult(ip);
     }
 
     private int[] getCommonPorts() {
@@ -176,26 +167,16 @@ public class NmapCommand extends AbstractCommand {
         OutputFormatter.printBoxedLine(doc, style, "Параметры:");
         OutputFormatter.printBoxedLine(doc, style, "  цель     IP адрес, имя хоста или подсеть (например: 192.168.1.0/24)");
         OutputFormatter.printBoxedLine(doc, style, "  -p       включить сканирование портов");
+        OutputFormatter.printBoxedLine(doc, style, "Хост считается доступным, если ответил на TCP-подключение");
         OutputFormatter.printBoxedLine(doc, style, "");
         OutputFormatter.printBoxedLine(doc, style, "Примеры:");
         OutputFormatter.printBoxedLine(doc, style, "  nmap localhost           - сканировать локальный хост");
         OutputFormatter.printBoxedLine(doc, style, "  nmap 192.168.1.1 -p     - сканировать хост с проверкой портов");
         OutputFormatter.printBoxedLine(doc, style, "  nmap 192.168.1.0/24     - сканировать всю подсеть");
+        OutputFormatter.printBoxedLine(doc, style, "  nmap 10.0.0.0/16        - подсети любого размера до /8");
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
-    private static class HostScanResult {
-        final String ip;
-        boolean isUp;
-        String hostname;
-        List<Integer> openPorts;
-
-        HostScanResult(String ip) {
-            this.ip = ip;
-            this.isUp = false;
-        }
-    }
-
     @Override
     public String getDescription() {
         return "сканирование сети и хостов";
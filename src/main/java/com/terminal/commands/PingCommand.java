@@ -1,18 +1,39 @@
 package com.terminal.commands;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Type;
+
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.network.DnsEngine;
+import com.terminal.sdk.network.PingEngine;
+import com.terminal.sdk.network.PingStats;
+import com.terminal.sdk.output.LiveRegion;
+import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class PingCommand extends AbstractCommand {
+    private static final int DEFAULT_CONCURRENCY = 256;
+    private static final int DEFAULT_TCP_PORT = 80;
+    private static final int HOST_COLUMN = 28;
     private volatile boolean isRunning = true;
 
-    public PingCommand(StyledDocument doc, Style style) {
-        super(doc, style, null, "ping", "Проверка доступности хоста", "NETWORK");
+    public PingCommand(StyledDocument doc, Style style, CurrentPathHolder pathHolder) {
+        super(doc, style, pathHolder, "ping", "Проверка доступности хоста", "NETWORK");
     }
 
     @Override
@@ -24,71 +45,117 @@ public class PingCommand extends AbstractCommand {
                 return;
             }
 
-            String host = args[0];
+            isRunning = true;
+            String host = null;
+            String hostsFile = null;
             int count = 4;
             int timeout = 1000;
+            long interval = 1000;
+            int port = DEFAULT_TCP_PORT;
+            boolean tcp = false;
 
-            for (int i = 1; i < args.length; i++) {
+            for (int i = 0; i < args.length; i++) {
                 if (args[i].equals("-n") && i + 1 < args.length) {
                     count = Integer.parseInt(args[++i]);
                 } else if (args[i].equals("-w") && i + 1 < args.length) {
                     timeout = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-i") && i + 1 < args.length) {
+                    interval = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-f") && i + 1 < args.length) {
+                    hostsFile = args[++i];
+                } else if (args[i].equals("-p") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                    tcp = true;
+                } else if (args[i].equals("-t")) {
+                    tcp = true;
+                } else if (host == null) {
+                    host = args[i];
                 }
             }
 
-            OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Пинг " + host);
-            
-            InetAddress address = InetAddress.getByName(host);
-            String hostname = address.getHostName();
-            String ip = address.getHostAddress();
-            
-            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), 
-                String.format("Пинг %s [%s] с %d байтами данных:", hostname, ip, 32));
-
-            int successful = 0;
-            long totalTime = 0;
-            long minTime = Long.MAX_VALUE;
-            long maxTime = 0;
-
-            for (int i = 0; i < count && isRunning; i++) {
-                long startTime = System.currentTimeMillis();
-                boolean reachable = address.isReachable(timeout);
-                long endTime = System.currentTimeMillis();
-                long time = endTime - startTime;
-
-                if (reachable) {
-                    successful++;
-                    totalTime += time;
-                    minTime = Math.min(minTime, time);
-                    maxTime = Math.max(maxTime, time);
-                    
-                    OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-                        String.format("Ответ от %s: время=%dмс", ip, time));
-                } else {
-                    OutputFormatter.printError(context.getDoc(), context.getStyle(),
-                        String.format("Превышен интервал ожидания для %s", ip));
+            List<String> names = new ArrayList<>();
+            List<InetAddress> addresses = new ArrayList<>();
+            if (hostsFile != null) {
+                if (!resolveFile(context, hostsFile, names, addresses)) {
+                    return;
                 }
+            } else if (host != null) {
+                InetAddress address = InetAddress.getByName(host);
+                names.add(address.getHostName());
+                addresses.add(address);
+            } else {
+                showUsage(context);
+                return;
+            }
+
+            PingEngine.Mode mode = PingEngine.Mode.TCP;
+            if (!tcp && PingEngine.isIcmpPermitted()) {
+                mode = PingEngine.Mode.ICMP;
+            } else if (!tcp) {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), String.format(
+                    "ICMP требует прав администратора или CAP_NET_RAW, используется TCP-подключение к порту %d",
+                    port));
+            }
+            String method = mode == PingEngine.Mode.ICMP ? "ICMP" : "TCP:" + port;
+
+            OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(),
+                hostsFile != null ? "Пинг хостов из " + hostsFile : "Пинг " + host);
+            if (addresses.size() == 1) {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                    String.format("Пинг %s [%s], %s, интервал %d мс:", names.get(0),
+                        addresses.get(0).getHostAddress(), method, interval));
+            } else {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                    String.format("Пинг %d хостов, %s, интервал %d мс:", addresses.size(), method, interval));
+            }
 
-                if (i < count - 1) Thread.sleep(1000);
+            InetAddress[] hosts = addresses.toArray(new InetAddress[0]);
+            PingStats[] stats = new PingStats[hosts.length];
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] = new PingStats();
+            }
+            PingEngine engine = new PingEngine(mode, port, interval, timeout,
+                UserSettings.getInstance().getInt("ping-concurrency", DEFAULT_CONCURRENCY));
+            LiveRegion table = new LiveRegion(context.getDoc(), context.getStyle());
+            StringBuilder text = new StringBuilder();
+            try {
+                engine.run(hosts, stats, count, round -> {
+                    table.update(renderTable(text, names, hosts, stats));
+                    return isRunning && !isCancelled();
+                });
+            } finally {
+                table.close();
             }
 
-            if (successful > 0) {
-                double avgTime = totalTime / (double) successful;
-                double lossPercent = ((count - successful) / (double) count) * 100;
-                
-                String[][] stats = {
-                    {"Отправлено", String.valueOf(count)},
-                    {"Получено", String.valueOf(successful)},
-                    {"Потеряно", String.format("%.0f%% (%d)", lossPercent, count - successful)},
-                    {"Минимальное время", minTime + " мс"},
-                    {"Максимальное время", maxTime + " мс"},
-                    {"Среднее время", String.format("%.1f мс", avgTime)}
+            if (hosts.length == 1 && stats[0].getReceived() > 0) {
+                PingStats single = stats[0];
+                String[][] summary = {
+                    {"Отправлено", String.valueOf(single.getSent())},
+                    {"Получено", String.valueOf(single.getReceived())},
+                    {"Потеряно", String.format("%.0f%% (%d)", single.getLossPercent(),
+                        single.getSent() - single.getReceived())},
+                    {"Минимальное время", String.format("%.1f мс", millis(single.getMin()))},
+                    {"Максимальное время", String.format("%.1f мс", millis(single.getMax()))},
+                    {"Среднее время", String.format("%.1f мс", millis(single.getAverage()))},
+                    {"Отклонение", String.format("%.1f мс", millis(single.getStdDev()))},
+                    {"Джиттер", String.format("%.1f мс", millis(single.getJitter()))}
                 };
-                
+
                 OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
-                    new String[]{"Параметр", "Значение"}, stats);
+                    new String[]{"Параметр", "Значение"}, summary);
+            } else if (hosts.length > 1) {
+                int alive = 0;
+                for (PingStats hostStats : stats) {
+                    if (hostStats.getReceived() > 0) {
+                        alive++;
+                    }
+                }
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                    String.format("Ответили %d из %d хостов", alive, hosts.length));
             }
-            
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(context.getDoc(), context.getStyle(), "Ошибка: " + e.getMessage());
@@ -98,12 +165,112 @@ public class PingCommand extends AbstractCommand {
         }
     }
 
+    /**
+     * Читает хосты из файла, по одному в строке; имена разрешаются одновременно через общий DNS-кэш.
+     * Порядок хостов в таблице совпадает с порядком в файле, IPv4-адрес предпочитается IPv6.
+     */
+    private boolean resolveFile(CommandContext context, String fileName, List<String> names,
+            List<InetAddress> addresses) throws Exception {
+        Path path = Paths.get(pathHolder.getCurrentPath()).resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл не существует: " + fileName);
+            return false;
+        }
+        List<String> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String name = line.trim();
+            if (!name.isEmpty() && !name.startsWith("#")) {
+                entries.add(name);
+            }
+        }
+        InetAddress[] resolved = new InetAddress[entries.size()];
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String name = entries.get(i);
+            if (name.indexOf(':') >= 0 || name.matches("[0-9.]+")) {
+                resolved[i] = InetAddress.getByName(name);
+            } else {
+                pending.computeIfAbsent(name, key -> new ArrayList<>()).add(i);
+            }
+        }
+        List<String> failed = new ArrayList<>();
+        DnsEngine.getInstance().resolveAll(new ArrayList<>(pending.keySet()), new int[]{Type.A, Type.AAAA},
+            UserSettings.getInstance().getInt("dns-bulk-concurrency", 64), resolution -> {
+                InetAddress address = firstAddress(resolution.getRecords());
+                if (address == null) {
+                    failed.add(resolution.getName());
+                    return;
+                }
+                for (int index : pending.get(resolution.getName())) {
+                    resolved[index] = address;
+                }
+            });
+        for (int i = 0; i < resolved.length; i++) {
+            if (resolved[i] != null) {
+                names.add(entries.get(i));
+                addresses.add(resolved[i]);
+            }
+        }
+        if (!failed.isEmpty()) {
+            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                "Не удалось разрешить: " + String.join(", ", failed));
+        }
+        if (addresses.isEmpty()) {
+            OutputFormatter.printError(context.getDoc(), context.getStyle(), "В файле нет доступных для пинга хостов");
+            return false;
+        }
+        return true;
+    }
+
+    private static InetAddress firstAddress(Map<Integer, List<org.xbill.DNS.Record>> records) {
+        List<org.xbill.DNS.Record> ipv4 = records.get(Type.A);
+        if (ipv4 != null && !ipv4.isEmpty()) {
+            return ((ARecord) ipv4.get(0)).getAddress();
+        }
+        List<org.xbill.DNS.Record> ipv6 = records.get(Type.AAAA);
+        if (ipv6 != null && !ipv6.isEmpty()) {
+            return ((AAAARecord) ipv6.get(0)).getAddress();
+        }
+        return null;
+    }
+
+    private static String renderTable(StringBuilder text, List<String> names, InetAddress[] hosts, PingStats[] stats) {
+        text.setLength(0);
+        text.append(String.format("%-" + HOST_COLUMN + "s %5s %5s %6s %8s %8s %8s %8s %7s %7s%n",
+            "Хост", "Отпр", "Получ", "Потери", "Посл", "Мин", "Сред", "Макс", "Откл", "Джиттер"));
+        for (int i = 0; i < hosts.length; i++) {
+            PingStats host = stats[i];
+            String name = names.get(i);
+            if (!name.equals(hosts[i].getHostAddress())) {
+                name = name + " " + hosts[i].getHostAddress();
+            }
+            if (name.length() > HOST_COLUMN) {
+                name = name.substring(0, HOST_COLUMN - 3) + "...";
+            }
+            text.append(String.format("%-" + HOST_COLUMN + "s %5d %5d %5.0f%% %8s %8.1f %8.1f %8.1f %7.1f %7.1f%n",
+                name, host.getSent(), host.getReceived(), host.getLossPercent(),
+                host.getLast() >= 0 ? String.format("%.1f", millis(host.getLast())) : "---",
+                millis(host.getMin()), millis(host.getAverage()), millis(host.getMax()),
+                millis(host.getStdDev()), millis(host.getJitter())));
+        }
+        return text.toString();
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
     private void showUsage(CommandContext context) throws Exception {
         OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Использование команды ping");
         OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-            "ping <хост> [-n число] [-w таймаут]\n" +
-            "  -n число    количество запросов\n" +
-            "  -w таймаут  таймаут в миллисекундах");
+            "ping <хост> [-n число] [-w таймаут] [-i интервал] [-t] [-p порт]\n" +
+            "ping -f <файл> [опции]\n" +
+            "  -n число    количество запросов, 0 - до прерывания\n" +
+            "  -w таймаут  таймаут в миллисекундах\n" +
+            "  -i интервал интервал между запросами в миллисекундах\n" +
+            "  -f файл     хосты из файла, по одному в строке\n" +
+            "  -t          TCP-подключение вместо ICMP\n" +
+            "  -p порт     порт для TCP-подключения (по умолчанию 80)");
     }
 
     @Override
@@ -112,7 +279,8 @@ public class PingCommand extends AbstractCommand {
         execute(context);
     }
 
+    @Override
     public void interrupt() {
         isRunning = false;
     }
-} 
\ No newline at end of file
+}
@@ -290,6 +290,11 @@ public class PluginsCommand extends AbstractCommand {
         }
     }
 
+    @Override
+    public boolean runsOnEventThread() {
+        return true;
+    }
+
     @Override
     public String[] getSuggestions(String[] args) {
         if (args.length == 1) {
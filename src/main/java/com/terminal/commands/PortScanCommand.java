@@ -1,22 +1,21 @@
 package com.terminal.commands;
 
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.network.PortScanner;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class PortScanCommand extends AbstractCommand {
-    private static final int TIMEOUT = 200;
-    private static final int THREAD_POOL_SIZE = 50;
+    private static final int DEFAULT_CONCURRENCY = 1024;
+    private static final int DEFAULT_RATE = 5000;
+    private static final long DEFAULT_MIN_TIMEOUT_MS = 50;
+    private static final long DEFAULT_TIMEOUT_MS = 1000;
     private final Style promptStyle;
 
     public PortScanCommand(StyledDocument doc, Style style, Style promptStyle) {
@@ -41,42 +40,43 @@ public class PortScanCommand extends AbstractCommand {
                 startPort = Integer.parseInt(ports[0]);
                 endPort = ports.length > 1 ? Integer.parseInt(ports[1]) : startPort;
             }
-
-            OutputFormatter.printBeautifulSection(doc, promptStyle, "СКАНИРОВАНИЕ ПОРТОВ");
-            OutputFormatter.printBeautifulSection(doc, style, "Хост: " + host);
-            
-            String[] headers = {"Порт", "Статус", "Сервис"};
-            List<String[]> dataList = new ArrayList<>();
-
-            ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-            List<Future<PortScanResult>> futures = new ArrayList<>();
-
-            for (int port = startPort; port <= endPort; port++) {
-                final int currentPort = port;
-                futures.add(executor.submit(() -> scanPort(host, currentPort)));
+            if (startPort < 1 || endPort > 65535 || startPort > endPort) {
+                OutputFormatter.printError(doc, style, "Диапазон портов должен быть в пределах 1-65535");
+                return;
             }
 
-            executor.shutdown();
-            executor.awaitTermination(30, TimeUnit.SECONDS);
+            InetAddress address = InetAddress.getByName(host);
+            UserSettings settings = UserSettings.getInstance();
+            PortScanner scanner = new PortScanner(
+                settings.getInt("scan-concurrency", DEFAULT_CONCURRENCY),
+                settings.getInt("scan-rate", DEFAULT_RATE),
+                settings.getLong("scan-min-timeout-ms", DEFAULT_MIN_TIMEOUT_MS),
+                settings.getLong("scan-timeout-ms", DEFAULT_TIMEOUT_MS));
 
-            for (Future<PortScanResult> future : futures) {
-                PortScanResult result = future.get();
-                if (result.isOpen) {
-                    dataList.add(new String[]{
-                        String.valueOf(result.port),
-                        "открыт",
-                        result.service != null ? result.service : "неизвестный сервис"
-                    });
-                }
-            }
+            OutputFormatter.printBeautifulSection(doc, promptStyle, "СКАНИРОВАНИЕ ПОРТОВ");
+            OutputFormatter.printBeautifulSection(doc, style, String.format("Хост: %s (%s), порты %d-%d",
+                host, address.getHostAddress(), startPort, endPort));
+            OutputFormatter.appendText(doc, String.format("%-8s %-8s %-20s %s%n", "Порт", "Статус", "Сервис", "RTT"), style);
 
-            if (dataList.isEmpty()) {
+            PortScanner.Summary summary = scanner.scan(address, startPort, endPort, (port, rttNanos) -> {
+                String service = getServiceName(port);
+                OutputFormatter.appendText(doc, String.format("%-8d %-8s %-20s %.1f мс%n", port, "открыт",
+                    service != null ? service : "неизвестный сервис", rttNanos / 1_000_000.0), style);
+            });
+
+            if (summary.getOpen() == 0) {
                 OutputFormatter.printBeautifulSection(doc, style, "Открытых портов не найдено");
-            } else {
-                String[][] data = dataList.toArray(new String[0][]);
-                OutputFormatter.printBeautifulTable(doc, style, headers, data);
             }
-
+            OutputFormatter.printBeautifulMessage(doc, style, String.format(
+                "Открыто: %d, закрыто: %d, без ответа: %d. Время: %.2f с, таймаут: %d мс",
+                summary.getOpen(), summary.getClosed(), summary.getFiltered(),
+                summary.getElapsedNanos() / 1e9, TimeUnit.NANOSECONDS.toMillis(summary.getTimeoutNanos())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (NumberFormatException e) {
+            OutputFormatter.printError(doc, style, "Неверный диапазон портов: " + e.getMessage());
+        } catch (UnknownHostException e) {
+            OutputFormatter.printError(doc, style, "Неизвестный хост: " + e.getMessage());
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -86,15 +86,6 @@ public class PortScanCommand extends AbstractCommand {
         }
     }
 
-    private PortScanResult scanPort(String host, int port) {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(host, port), TIMEOUT);
-            return new PortScanResult(port, true, getServiceName(port));
-        } catch (Exception e) {
-            return new PortScanResult(port, false, null);
-        }
-    }
-
     private String getServiceName(int port) {
         switch (port) {
             case 21: return "FTP";
@@ -126,21 +117,12 @@ public class PortScanCommand extends AbstractCommand {
         OutputFormatter.printBoxedLine(doc, style, "  portscan localhost");
         OutputFormatter.printBoxedLine(doc, style, "  portscan example.com 80");
         OutputFormatter.printBoxedLine(doc, style, "  portscan 192.168.1.1 20-25");
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, "Настройки: scan-concurrency, scan-rate (в секунду),");
+        OutputFormatter.printBoxedLine(doc, style, "  scan-timeout-ms, scan-min-timeout-ms");
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
-    private static class PortScanResult {
-        final int port;
-        final boolean isOpen;
-        final String service;
-
-        PortScanResult(int port, boolean isOpen, String service) {
-            this.port = port;
-            this.isOpen = isOpen;
-            this.service = service;
-        }
-    }
-
     @Override
     public String getDescription() {
         return "сканирование портов хоста";
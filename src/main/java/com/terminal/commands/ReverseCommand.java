@@ -2,28 +2,42 @@ package com.terminal.commands;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.binary.Disassembler;
+import com.terminal.sdk.binary.DisassemblyCache;
+import com.terminal.sdk.binary.ExecutableImage;
+import com.terminal.sdk.binary.HexFormatter;
+import com.terminal.sdk.binary.MappedFile;
+import com.terminal.sdk.binary.StringScanner;
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.core.CommandPool;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class ReverseCommand extends AbstractCommand {
     private final CurrentPathHolder pathHolder;
     private static final int MIN_STRING_LENGTH = 4;
-    private static final int BYTES_PER_LINE = 16;
+    private static final int MAX_STRING_SHOWN = 256;
+    private static final long DEFAULT_HEX_LENGTH = 256;
+    private static final long HEX_PAGE_BYTES = 4096;
+    private static final int PAGE_CHARS = 32 * 1024;
 
     public ReverseCommand(StyledDocument doc, Style style, CurrentPathHolder pathHolder) {
         super(doc, style, pathHolder, "reverse", "Реверс-инжиниринг файлов", "SEARCH_AND_PROCESS");
         this.pathHolder = pathHolder;
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     public void execute(CommandContext context) {
         try {
@@ -44,21 +58,25 @@ public class ReverseCommand extends AbstractCommand {
 
             switch (subCommand) {
                 case "strings":
-                    extractStrings(context, file);
+                    extractStrings(context, file, args);
                     break;
                 case "header":
                     analyzeHeader(context, file);
                     break;
                 case "hex":
-                    hexDump(context, file);
+                    hexDump(context, file, args);
                     break;
                 case "disasm":
-                    disassemble(context, file);
+                    disassemble(context, file, args);
                     break;
                 default:
                     OutputFormatter.printError(context.getDoc(), context.getStyle(), "Неизвестная подкоманда: " + subCommand);
                     showUsage(context);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (NumberFormatException e) {
+            OutputFormatter.printError(context.getDoc(), context.getStyle(), "Неверное число: " + e.getMessage());
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(context.getDoc(), context.getStyle(), "Ошибка: " + e.getMessage());
@@ -68,39 +86,49 @@ public class ReverseCommand extends AbstractCommand {
         }
     }
 
-    private void extractStrings(CommandContext context, File file) throws Exception {
-        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Извлечение строк из " + file.getName());
-        
-        byte[] bytes = Files.readAllBytes(file.toPath());
-        List<String> strings = new ArrayList<>();
-        StringBuilder currentString = new StringBuilder();
-        
-        for (byte b : bytes) {
-            if (isPrintable((char) b)) {
-                currentString.append((char) b);
-            } else if (currentString.length() >= MIN_STRING_LENGTH) {
-                strings.add(currentString.toString());
-                currentString = new StringBuilder();
+    private void extractStrings(CommandContext context, File file, String[] args) throws Exception {
+        int minLength = MIN_STRING_LENGTH;
+        long limit = UserSettings.getInstance().getLong("reverse-strings-limit", 10_000);
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-n") && i + 1 < args.length) {
+                minLength = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-limit") && i + 1 < args.length) {
+                limit = Long.parseLong(args[++i]);
             } else {
-                currentString = new StringBuilder();
+                OutputFormatter.printError(context.getDoc(), context.getStyle(), "Неизвестный параметр: " + args[i]);
+                return;
             }
         }
-        
-        if (currentString.length() >= MIN_STRING_LENGTH) {
-            strings.add(currentString.toString());
+
+        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Извлечение строк из " + file.getName());
+
+        StringBuilder page = new StringBuilder();
+        long found;
+        try (MappedFile mapped = MappedFile.open(file.toPath())) {
+            StringScanner scanner = new StringScanner(minLength, MAX_STRING_SHOWN, limit);
+            found = scanner.scan(mapped, match -> {
+                page.append(String.format("%08X  %s  ", match.getOffset(),
+                    match.getEncoding() == StringScanner.Encoding.ASCII ? "A" : "U"));
+                page.append(match.getText());
+                if (match.getLength() > match.getText().length()) {
+                    page.append("...");
+                }
+                page.append('\n');
+                if (page.length() >= PAGE_CHARS) {
+                    OutputFormatter.appendText(context.getDoc(), page.toString(), context.getStyle());
+                    page.setLength(0);
+                }
+            });
+        }
+        if (page.length() > 0) {
+            OutputFormatter.appendText(context.getDoc(), page.toString(), context.getStyle());
         }
 
-        if (!strings.isEmpty()) {
-            String[][] data = new String[strings.size()][2];
-            for (int i = 0; i < strings.size(); i++) {
-                data[i][0] = String.valueOf(i + 1);
-                data[i][1] = strings.get(i);
-            }
-            
-            OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
-                new String[]{"#", "Строка"}, data);
-        } else {
+        if (found == 0) {
             OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "Строки не найдены");
+        } else {
+            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), String.format(
+                "Найдено строк: %d%s (A - ASCII, U - UTF-16LE)", found, found >= limit ? ", достигнут лимит" : ""));
         }
     }
 
@@ -121,229 +149,161 @@ public class ReverseCommand extends AbstractCommand {
         }
     }
 
-    private void hexDump(CommandContext context, File file) throws Exception {
-        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Шестнадцатеричный дамп " + file.getName());
-        
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[BYTES_PER_LINE];
-            int offset = 0;
-            int read;
-            
-            while ((read = fis.read(buffer)) != -1) {
-                StringBuilder hex = new StringBuilder();
-                StringBuilder ascii = new StringBuilder();
-                
-                for (int i = 0; i < BYTES_PER_LINE; i++) {
-                    if (i < read) {
-                        hex.append(String.format("%02X ", buffer[i]));
-                        ascii.append(isPrintable((char) buffer[i]) ? (char) buffer[i] : '.');
-                    } else {
-                        hex.append("   ");
-                        ascii.append(" ");
-                    }
-                }
-                
-                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-                    String.format("%08X  %-48s  |%s|", offset, hex, ascii));
-                
-                offset += read;
-                if (offset >= 256) break; // Ограничиваем вывод
-            }
-        }
-    }
-
-    private void disassemble(CommandContext context, File file) throws Exception {
-        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Дизассемблирование " + file.getName());
-
-        byte[] fileContent = Files.readAllBytes(file.toPath());
-        
-        if (fileContent.length < 4) {
-            OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл слишком мал для анализа");
+    private void hexDump(CommandContext context, File file, String[] args) throws Exception {
+        long offset = args.length > 2 ? parseNumber(args[2]) : 0;
+        long length = args.length > 3 ? parseNumber(args[3]) : DEFAULT_HEX_LENGTH;
+        if (offset < 0 || length <= 0) {
+            OutputFormatter.printError(context.getDoc(), context.getStyle(), "Смещение и длина должны быть положительными");
             return;
         }
-
-        boolean isPE = fileContent[0] == 0x4D && fileContent[1] == 0x5A; // MZ
-        boolean isELF = fileContent[0] == 0x7F && fileContent[1] == 0x45 && 
-                       fileContent[2] == 0x4C && fileContent[3] == 0x46; // ELF
-
-        if (!isPE && !isELF) {
-            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-                "Предупреждение: Файл не является исполняемым (PE/ELF)\n" +
-                "Попытка дизассемблировать как бинарный код...");
-        }
-
-        int entryPoint = findEntryPoint(fileContent);
-        if (entryPoint == -1) {
-            entryPoint = 0;
+        if (offset >= file.length()) {
+            OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                String.format("Смещение за концом файла (%,d байт)", file.length()));
+            return;
         }
 
-        String[][] info = {
-            {"Тип файла", isPE ? "PE (Windows Executable)" : isELF ? "ELF (Linux Executable)" : "Бинарный файл"},
-            {"Точка входа", String.format("0x%08X", entryPoint)},
-            {"Размер", String.format("%,d байт", fileContent.length)}
-        };
-        
-        OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
-            new String[]{"Параметр", "Значение"}, info);
-
-        OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "\nДизассемблированный код:");
+        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Шестнадцатеричный дамп " + file.getName());
 
-        List<String[]> instructions = new ArrayList<>();
-        for (int i = entryPoint; i < Math.min(fileContent.length, entryPoint + 1000); i++) {
-            try {
-                Instruction instr = decodeInstruction(fileContent, i);
-                if (instr != null) {
-                    instructions.add(new String[]{
-                        String.format("%08X", i),
-                        formatBytes(fileContent, i, instr.length),
-                        instr.mnemonic
-                    });
-                    i += instr.length - 1;
-                } else {
-                    instructions.add(new String[]{
-                        String.format("%08X", i),
-                        String.format("%02X", fileContent[i]),
-                        "DB " + String.format("%02X", fileContent[i])
-                    });
+        try (MappedFile mapped = MappedFile.open(file.toPath())) {
+            HexFormatter formatter = new HexFormatter(mapped.size());
+            StringBuilder page = new StringBuilder(PAGE_CHARS + 128);
+            // offset + length может переполнить long, поэтому сравниваем с остатком файла
+            long end = length > mapped.size() - offset ? mapped.size() : offset + length;
+            long position = offset;
+            while (position < end) {
+                if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                    return;
                 }
-            } catch (Exception e) {
-                continue;
+                page.setLength(0);
+                position += formatter.render(mapped, position, Math.min(HEX_PAGE_BYTES, end - position), page);
+                OutputFormatter.appendText(context.getDoc(), page.toString(), context.getStyle());
+            }
+            if (end < mapped.size()) {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), String.format(
+                    "Показано 0x%X-0x%X из %,d байт. Далее: reverse hex %s 0x%X", offset, end, mapped.size(), file.getName(), end));
             }
-        }
-
-        if (!instructions.isEmpty()) {
-            OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
-                new String[]{"Смещение", "Байты", "Инструкция"},
-                instructions.toArray(new String[0][0]));
         }
     }
 
-    private static class Instruction {
-        int length;
-        String mnemonic;
-
-        Instruction(int length, String mnemonic) {
-            this.length = length;
-            this.mnemonic = mnemonic;
-        }
+    /**
+     * Разбирает десятичное число или шестнадцатеричное с префиксом 0x
+     */
+    private static long parseNumber(String value) {
+        String lower = value.toLowerCase();
+        return lower.startsWith("0x") ? Long.parseLong(lower.substring(2), 16) : Long.parseLong(lower);
     }
 
-    private int findEntryPoint(byte[] fileContent) {
-        if (fileContent[0] == 0x4D && fileContent[1] == 0x5A) { // PE
-            try {
-                int peOffset = readDword(fileContent, 0x3C);
-                if (peOffset > 0 && peOffset < fileContent.length - 4) {
-                    if (fileContent[peOffset] == 0x50 && fileContent[peOffset + 1] == 0x45) {
-                        return readDword(fileContent, peOffset + 0x28);
+    private void disassemble(CommandContext context, File file, String[] args) throws Exception {
+        try (MappedFile mapped = MappedFile.open(file.toPath())) {
+            ExecutableImage image = ExecutableImage.open(mapped);
+            if (image.getCodeBits() == 0) {
+                OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                    "Поддерживаются только x86 и x86-64, архитектура файла: " + image.getMachineName());
+                return;
+            }
+            Disassembler disassembler = new Disassembler(image);
+            DisassemblyCache cache = DisassemblyCache.getInstance();
+            List<Disassembler.SectionIndex> indexes = cache.getIndexes(disassembler);
+            if (indexes.isEmpty()) {
+                OutputFormatter.printError(context.getDoc(), context.getStyle(), "В файле нет секций с кодом");
+                return;
+            }
+
+            Disassembler.SectionIndex index;
+            int page;
+            if (args.length > 2) {
+                String target = args[2];
+                if (target.toLowerCase().startsWith("0x")) {
+                    long address = parseNumber(target);
+                    index = findIndex(indexes, address);
+                    if (index == null) {
+                        OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                            String.format("Адрес 0x%X не попадает в секции с кодом", address));
+                        return;
+                    }
+                    page = index.pageOf(address);
+                } else {
+                    index = null;
+                    for (Disassembler.SectionIndex candidate : indexes) {
+                        if (candidate.getSection().getName().equals(target)) {
+                            index = candidate;
+                            break;
+                        }
+                    }
+                    if (index == null) {
+                        OutputFormatter.printError(context.getDoc(), context.getStyle(), "Секция с кодом не найдена: " + target);
+                        return;
+                    }
+                    page = args.length > 3 ? Integer.parseInt(args[3]) - 1 : 0;
+                    if (page < 0 || page >= index.getPageCount()) {
+                        OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                            "Номер страницы должен быть от 1 до " + index.getPageCount());
+                        return;
                     }
                 }
-            } catch (Exception e) {
-                return -1;
+            } else {
+                OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Дизассемблирование " + file.getName());
+                printImageInfo(context, image, indexes);
+                index = findIndex(indexes, image.getEntryPoint());
+                page = index != null ? index.pageOf(image.getEntryPoint()) : 0;
+                if (index == null) {
+                    index = indexes.get(0);
+                }
             }
-        }
-        else if (fileContent[0] == 0x7F && fileContent[1] == 0x45 && // ELF
-                 fileContent[2] == 0x4C && fileContent[3] == 0x46) {
-            try {
-                return readDword(fileContent, 0x18);
-            } catch (Exception e) {
-                return -1;
+
+            if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            ExecutableImage.Section section = index.getSection();
+            OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(),
+                String.format("%s, страница %d из %d", section.getName(), page + 1, index.getPageCount()));
+            OutputFormatter.appendText(context.getDoc(), cache.getPage(disassembler, index, page), context.getStyle());
+            if (page + 1 < index.getPageCount()) {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), String.format(
+                    "Далее: reverse disasm %s %s %d", file.getName(), section.getName(), page + 2));
             }
         }
-        return -1;
     }
 
-    private int readDword(byte[] data, int offset) {
-        return ((data[offset + 3] & 0xFF) << 24) |
-               ((data[offset + 2] & 0xFF) << 16) |
-               ((data[offset + 1] & 0xFF) << 8) |
-               (data[offset] & 0xFF);
-    }
+    private void printImageInfo(CommandContext context, ExecutableImage image,
+            List<Disassembler.SectionIndex> indexes) throws Exception {
+        String type = image.getFormat() == ExecutableImage.Format.ELF ? "ELF"
+            : image.getFormat() == ExecutableImage.Format.PE ? "PE" : "Бинарный файл";
+        String[][] info = {
+            {"Тип файла", type},
+            {"Архитектура", image.getMachineName()},
+            {"Точка входа", String.format("0x%X", image.getEntryPoint())},
+            {"Размер", String.format("%,d байт", image.getFile().size())}
+        };
+        OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
+            new String[]{"Параметр", "Значение"}, info);
 
-    private String formatBytes(byte[] data, int offset, int length) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < length && offset + i < data.length; i++) {
-            sb.append(String.format("%02X ", data[offset + i]));
+        String[][] sections = new String[indexes.size()][];
+        for (int i = 0; i < indexes.size(); i++) {
+            Disassembler.SectionIndex index = indexes.get(i);
+            ExecutableImage.Section section = index.getSection();
+            sections[i] = new String[]{
+                section.getName(),
+                String.format("0x%X", section.getVirtualAddress()),
+                String.format("0x%X", section.getFileOffset()),
+                String.format("%,d", section.getSize()),
+                String.format("%,d", index.getInstructionCount()),
+                String.valueOf(index.getPageCount())
+            };
         }
-        return sb.toString().trim();
+        OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
+            new String[]{"Секция", "Адрес", "Смещение", "Размер", "Инструкций", "Страниц"}, sections);
     }
 
-    private Instruction decodeInstruction(byte[] data, int offset) {
-        if (offset >= data.length) return null;
-
-        byte opcode = data[offset];
-        switch (opcode & 0xFF) {
-            case 0x00: return new Instruction(2, "ADD BYTE PTR [" + getModRM(data, offset + 1) + "], AL");
-            case 0x01: return new Instruction(2, "ADD DWORD PTR [" + getModRM(data, offset + 1) + "], EAX");
-            case 0x03: return new Instruction(2, "ADD EAX, [" + getModRM(data, offset + 1) + "]");
-            case 0x05: return new Instruction(5, "ADD EAX, " + readDword(data, offset + 1));
-            case 0x50: return new Instruction(1, "PUSH EAX");
-            case 0x51: return new Instruction(1, "PUSH ECX");
-            case 0x52: return new Instruction(1, "PUSH EDX");
-            case 0x53: return new Instruction(1, "PUSH EBX");
-            case 0x54: return new Instruction(1, "PUSH ESP");
-            case 0x55: return new Instruction(1, "PUSH EBP");
-            case 0x56: return new Instruction(1, "PUSH ESI");
-            case 0x57: return new Instruction(1, "PUSH EDI");
-            case 0x58: return new Instruction(1, "POP EAX");
-            case 0x59: return new Instruction(1, "POP ECX");
-            case 0x5A: return new Instruction(1, "POP EDX");
-            case 0x5B: return new Instruction(1, "POP EBX");
-            case 0x5C: return new Instruction(1, "POP ESP");
-            case 0x5D: return new Instruction(1, "POP EBP");
-            case 0x5E: return new Instruction(1, "POP ESI");
-            case 0x5F: return new Instruction(1, "POP EDI");
-            case 0x68: return new Instruction(5, "PUSH " + readDword(data, offset + 1));
-            case 0x6A: return new Instruction(2, "PUSH " + data[offset + 1]);
-            case 0x74: return new Instruction(2, "JE " + (offset + 2 + (byte)data[offset + 1]));
-            case 0x75: return new Instruction(2, "JNE " + (offset + 2 + (byte)data[offset + 1]));
-            case 0x89: return new Instruction(2, "MOV [" + getModRM(data, offset + 1) + "], EAX");
-            case 0x8B: return new Instruction(2, "MOV EAX, [" + getModRM(data, offset + 1) + "]");
-            case 0x90: return new Instruction(1, "NOP");
-            case 0xC3: return new Instruction(1, "RET");
-            case 0xE8: return new Instruction(5, "CALL " + (offset + 5 + readDword(data, offset + 1)));
-            case 0xE9: return new Instruction(5, "JMP " + (offset + 5 + readDword(data, offset + 1)));
-            case 0xEB: return new Instruction(2, "JMP SHORT " + (offset + 2 + (byte)data[offset + 1]));
-            case 0xFF: {
-                if (offset + 1 < data.length) {
-                    byte modrm = data[offset + 1];
-                    switch ((modrm >> 3) & 7) {
-                        case 2: return new Instruction(2, "CALL [" + getModRM(data, offset + 1) + "]");
-                        case 4: return new Instruction(2, "JMP [" + getModRM(data, offset + 1) + "]");
-                    }
-                }
+    private static Disassembler.SectionIndex findIndex(List<Disassembler.SectionIndex> indexes, long address) {
+        for (Disassembler.SectionIndex index : indexes) {
+            if (index.pageOf(address) >= 0) {
+                return index;
             }
         }
         return null;
     }
 
-    private String getModRM(byte[] data, int offset) {
-        if (offset >= data.length) return "???";
-        
-        byte modrm = data[offset];
-        int mod = (modrm >> 6) & 3;
-        int reg = (modrm >> 3) & 7;
-        int rm = modrm & 7;
-        
-        String[] regs = {"EAX", "ECX", "EDX", "EBX", "ESP", "EBP", "ESI", "EDI"};
-        
-        switch (mod) {
-            case 0:
-                if (rm == 5) return String.format("[0x%X]", readDword(data, offset + 1));
-                return "[" + regs[rm] + "]";
-            case 1:
-                return String.format("[%s + %d]", regs[rm], (byte)data[offset + 1]);
-            case 2:
-                return String.format("[%s + 0x%X]", regs[rm], readDword(data, offset + 1));
-            case 3:
-                return regs[rm];
-        }
-        return "???";
-    }
-
-    private boolean isPrintable(char c) {
-        return c >= 32 && c < 127;
-    }
-
     private String bytesToHex(byte[] bytes) {
         StringBuilder result = new StringBuilder();
         for (byte b : bytes) {
@@ -364,12 +324,12 @@ public class ReverseCommand extends AbstractCommand {
     private void showUsage(CommandContext context) throws Exception {
         OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Использование команды reverse");
         OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-            "reverse <подкоманда> <файл>\n\n" +
+            "reverse <подкоманда> <файл> [параметры]\n\n" +
             "Подкоманды:\n" +
-            "  strings  - извлечь текстовые строки из файла\n" +
-            "  header   - анализ заголовка файла\n" +
-            "  hex      - шестнадцатеричный дамп файла\n" +
-            "  disasm   - дизассемблировать файл");
+            "  strings [-n мин] [-limit N]   - извлечь строки ASCII и UTF-16LE\n" +
+            "  header                        - анализ заголовка файла\n" +
+            "  hex [смещение] [длина]        - шестнадцатеричный дамп (числа десятичные или 0x...)\n" +
+            "  disasm [секция|0xадрес] [страница] - дизассемблировать код x86/x86-64 страницами");
     }
 
     @Override
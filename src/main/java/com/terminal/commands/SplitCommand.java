@@ -54,6 +54,11 @@ public class SplitCommand extends AbstractCommand {
         appendLine(help);
     }
 
+    @Override
+    public boolean runsOnEventThread() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return "Управление разделением экрана";
@@ -12,6 +12,9 @@ import java.util.Properties;
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.core.CommandExecutors;
+import com.terminal.sdk.core.CommandPool;
+import com.terminal.sdk.core.InstrumentedExecutor;
 import com.terminal.utils.OutputFormatter;
 
 public class SysCommand extends SystemCommandBase {
@@ -104,7 +107,21 @@ public class SysCommand extends SystemCommandBase {
                 {"Имя компьютера", System.getenv("COMPUTERNAME")},
                 {"Временная директория", props.getProperty("java.io.tmpdir")}
             };
-            OutputFormatter.printBeautifulTable(doc, style, headers, data);            
+            OutputFormatter.printBeautifulTable(doc, style, headers, data);
+
+            // Command pools
+            OutputFormatter.printBeautifulSection(doc, promptStyle, "Пулы команд");
+            CommandPool[] pools = CommandPool.values();
+            data = new String[pools.length][2];
+            for (int i = 0; i < pools.length; i++) {
+                InstrumentedExecutor executor = CommandExecutors.getInstance().get(pools[i]);
+                data[i][0] = executor.getName();
+                data[i][1] = String.format("Потоков: %d/%d, Активно: %d, Очередь: %d/%d, Выполнено: %d, Отклонено: %d",
+                    executor.getPoolSize(), executor.getMaximumPoolSize(), executor.getActiveCount(),
+                    executor.getQueueDepth(), executor.getQueueCapacity(),
+                    executor.getCompletedCount(), executor.getRejectedCount());
+            }
+            OutputFormatter.printBeautifulTable(doc, style, headers, data);
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
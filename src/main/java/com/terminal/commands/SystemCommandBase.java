@@ -6,6 +6,8 @@ import java.io.InputStreamReader;
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.output.BufferedOutputSink;
+
 public abstract class SystemCommandBase extends AbstractCommand {
     
     public SystemCommandBase(StyledDocument doc, Style style) {
@@ -34,6 +36,6 @@ public abstract class SystemCommandBase extends AbstractCommand {
     }
 
     protected void appendToDoc(String text) throws Exception {
-        doc.insertString(doc.getLength(), text, style);
+        BufferedOutputSink.write(doc, text, style);
     }
 } 
\ No newline at end of file
@@ -97,6 +97,11 @@ public class ThemeCommand extends AbstractCommand {
         }
     }
 
+    @Override
+    public boolean runsOnEventThread() {
+        return true;
+    }
+
     @Override
     public String[] getSuggestions(String[] args) {
         List<String> suggestions = new ArrayList<>();
@@ -1,19 +1,22 @@
 package com.terminal.commands;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.net.InetAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.network.DnsEngine;
+import com.terminal.sdk.network.TraceEngine;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class TraceCommand extends AbstractCommand {
+    private static final int DEFAULT_MAX_HOPS = 30;
+    private static final int DEFAULT_TIMEOUT_MS = 3000;
     private final Style promptStyle;
-    private volatile boolean isRunning = true;
 
     public TraceCommand(StyledDocument doc, Style style, Style promptStyle) {
         super(doc, style, null, "trace", "Трассировка маршрута", "NETWORK");
@@ -22,154 +25,87 @@ public class TraceCommand extends AbstractCommand {
 
     @Override
     public void executeCommand(String... args) {
-        // Сбрасываем флаг в начале выполнения
-        isRunning = true;
-        
         if (args.length < 1) {
             showUsage();
             return;
         }
 
-        BufferedReader reader = null;
-        AtomicReference<Process> processRef = new AtomicReference<>();
-
         try {
-            String target = args[0];
-            OutputFormatter.printBeautifulSection(doc, promptStyle, "ТРАССИРОВКА МАРШРУТА");
-            OutputFormatter.printBeautifulSection(doc, style, "К узлу: " + target);
-
-            String[] headers = {"Хоп", "IP адрес", "Время", "Имя хоста"};
-            List<String[]> dataList = new ArrayList<>();
-
-            boolean isWindows = System.getProperty("os.name").toLowerCase().contains("windows");
-            String command = isWindows ? "tracert -h 30 " + target : "traceroute -m 30 " + target;
-
-            ProcessBuilder pb = new ProcessBuilder();
-            if (isWindows) {
-                pb.command("cmd.exe", "/c", command);
-            } else {
-                pb.command("sh", "-c", command);
-            }
-
-            Process process = pb.start();
-            processRef.set(process);
-            reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), 
-                    isWindows ? "CP866" : "UTF-8")
-            );
-
-            // Устанавливаем таймаут на весь процесс
-            Thread timeoutThread = new Thread(() -> {
-                try {
-                    Thread.sleep(30000); // 30 секунд таймаут
-                    isRunning = false;
-                    Process p = processRef.get();
-                    if (p != null) {
-                        p.destroy();
-                    }
-                } catch (InterruptedException e) {
-                    // Игнорируем прерывание
+            String target = null;
+            int maxHops = DEFAULT_MAX_HOPS;
+            int timeout = UserSettings.getInstance().getInt("trace-timeout-ms", DEFAULT_TIMEOUT_MS);
+            boolean resolveNames = true;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-m") && i + 1 < args.length) {
+                    maxHops = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-w") && i + 1 < args.length) {
+                    timeout = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-d")) {
+                    resolveNames = false;
+                } else if (target == null) {
+                    target = args[i];
                 }
-            });
-            timeoutThread.start();
+            }
+            if (target == null) {
+                showUsage();
+                return;
+            }
 
-            String line;
-            boolean dataStarted = false;
-            int hopCount = 1;
+            InetAddress address = InetAddress.getByName(target);
+            OutputFormatter.printBeautifulSection(doc, promptStyle, "ТРАССИРОВКА МАРШРУТА");
+            OutputFormatter.printBeautifulSection(doc, style,
+                "К узлу: " + target + " [" + address.getHostAddress() + "], максимум прыжков: " + maxHops);
+
+            TraceEngine engine = new TraceEngine(maxHops, timeout, resolveNames);
+            TraceEngine.Hop[] hops = engine.trace(address);
+            if (engine.getFallbackReason() != null) {
+                OutputFormatter.printBeautifulMessage(doc, style,
+                    "Использована системная утилита трассировки: " + engine.getFallbackReason());
+            }
 
-            while ((line = reader.readLine()) != null && isRunning) {
-                line = line.trim();
-                
-                if (line.isEmpty()) continue;
-                
-                // Пропускаем заголовки
-                if (!dataStarted) {
-                    if (isWindows && (line.contains("над максимальным") || line.contains("Трассировка"))) {
-                        dataStarted = true;
-                    } else if (!isWindows && line.contains("traceroute to")) {
-                        dataStarted = true;
-                    }
+            // Имена запрошены во время трассировки, ждем оставшиеся с общим сроком
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DnsEngine.getInstance().getTimeoutMs() * 2);
+            String[] headers = {"Хоп", "IP адрес", "Время", "Имя хоста"};
+            String[][] data = new String[hops.length][];
+            for (int i = 0; i < hops.length; i++) {
+                TraceEngine.Hop hop = hops[i];
+                if (hop.getAddress() == null) {
+                    data[i] = new String[]{String.valueOf(hop.getTtl()), "*", "*", "*"};
                     continue;
                 }
-
-                // Обработка строки с данными
-                if (isWindows) {
-                    if (line.matches("\\s*\\d+.*")) {
-                        String[] parts = line.trim().split("\\s+");
-                        String hop = String.valueOf(hopCount++);
-                        String ip = "*";
-                        String time = "*";
-                        String hostname = "*";
-
-                        // Ищем IP адрес или имя хоста
-                        for (int i = parts.length - 1; i >= 0; i--) {
-                            if (parts[i].contains(".") || parts[i].equals("*")) {
-                                ip = parts[i];
-                                hostname = parts[i];
-                                break;
-                            }
-                        }
-
-                        // Ищем время
-                        for (int i = 0; i < parts.length; i++) {
-                            if (parts[i].matches("\\d+") || parts[i].equals("<1")) {
-                                time = parts[i] + " мс";
-                                break;
-                            }
-                        }
-
-                        dataList.add(new String[]{hop, ip, time, hostname});
-                    }
-                } else {
-                    if (line.matches("\\s*\\d+.*")) {
-                        String[] parts = line.trim().split("\\s+");
-                        String hop = String.valueOf(hopCount++);
-                        String ip = "*";
-                        String time = "*";
-                        String hostname = "*";
-
-                        if (parts.length >= 2) {
-                            if (!parts[1].equals("*")) {
-                                ip = parts[1];
-                                hostname = parts[1];
-                                if (parts.length >= 4) {
-                                    time = parts[2].replace("ms", "").trim() + " мс";
-                                }
-                            }
+                String ip = hop.getAddress().getHostAddress();
+                String time = String.format("%.1f мс", hop.getRttNanos() / 1e6);
+                if (hop.getUnreachableCode() >= 0) {
+                    time += " !" + hop.getUnreachableCode();
+                }
+                String hostname = ip;
+                if (hop.getName() != null) {
+                    try {
+                        String name = hop.getName().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        if (name != null) {
+                            hostname = name;
                         }
-
-                        dataList.add(new String[]{hop, ip, time, hostname});
+                    } catch (ExecutionException | TimeoutException e) {
+                        // Имя не получено вовремя: показываем адрес
                     }
                 }
+                data[i] = new String[]{String.valueOf(hop.getTtl()), ip, time, hostname};
             }
+            OutputFormatter.printBeautifulTable(doc, style, headers, data);
 
-            // Отображаем финальную таблицу
-            if (dataList.isEmpty()) {
-                OutputFormatter.printBeautifulSection(doc, style, "Не удалось получить информацию о маршруте");
-            } else {
-                String[][] data = dataList.toArray(new String[0][]);
-                OutputFormatter.printBeautifulTable(doc, style, headers, data);
+            TraceEngine.Hop last = hops[hops.length - 1];
+            if (!address.equals(last.getAddress())) {
+                OutputFormatter.printBeautifulSection(doc, style, "Узел не достигнут за " + hops.length + " прыжков");
             }
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, "Ошибка при выполнении трассировки: " + e.getMessage());
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
-        } finally {
-            isRunning = false;
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (Exception e) {
-                    // Игнорируем ошибки закрытия
-                }
-            }
-            Process p = processRef.get();
-            if (p != null) {
-                p.destroy();
-            }
         }
     }
 
@@ -180,7 +116,7 @@ public class TraceCommand extends AbstractCommand {
             String[][] data = {
                 {"trace <хост>", "Трассировка маршрута до указанного хоста"},
                 {"trace -m <число>", "Максимальное количество прыжков (TTL)"},
-                {"trace -w <мс>", "Таймаут ожидания для каждого ответа"},
+                {"trace -w <мс>", "Таймаут ожидания ответов на все зонды"},
                 {"trace -d", "Не преобразовывать адреса в имена DNS"}
             };
             OutputFormatter.printBeautifulTable(doc, style, headers, data);
@@ -193,4 +129,4 @@ public class TraceCommand extends AbstractCommand {
     public String getDescription() {
         return "трассировка маршрута до указанного узла";
     }
-} 
\ No newline at end of file
+}
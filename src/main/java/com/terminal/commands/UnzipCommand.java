@@ -1,17 +1,19 @@
 package com.terminal.commands;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.archive.ZipExtractor;
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.core.CommandPool;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
@@ -23,105 +25,96 @@ public class UnzipCommand extends AbstractCommand {
         this.pathHolder = pathHolder;
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     public void execute(CommandContext context) {
         try {
             String[] args = context.getArgs();
-            if (args.length < 1) {
+            boolean listOnly = false;
+            String selector = null;
+            List<String> positional = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-l")) {
+                    listOnly = true;
+                } else if (args[i].equals("-e") && i + 1 < args.length) {
+                    selector = args[++i];
+                } else {
+                    positional.add(args[i]);
+                }
+            }
+            if (positional.isEmpty()) {
                 showUsage(context);
                 return;
             }
 
-            File zipFile = new File(pathHolder.getCurrentPath(), args[0]);
+            File zipFile = new File(pathHolder.getCurrentPath(), positional.get(0));
             if (!zipFile.exists()) {
-                OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл не существует: " + args[0]);
+                OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл не существует: " + positional.get(0));
                 return;
             }
 
-            String targetDir = args.length > 1 ? args[1] : zipFile.getName().replaceFirst("[.][^.]+$", "");
+            ZipExtractor extractor = new ZipExtractor(zipFile.toPath());
+            if (listOnly) {
+                listEntries(context, zipFile, extractor);
+                return;
+            }
+
+            String targetDir = positional.size() > 1 ? positional.get(1) : zipFile.getName().replaceFirst("[.][^.]+$", "");
             File outputDir = new File(pathHolder.getCurrentPath(), targetDir);
-            
+
             if (!outputDir.exists() && !outputDir.mkdirs()) {
                 OutputFormatter.printError(context.getDoc(), context.getStyle(), "Не удалось создать директорию: " + targetDir);
                 return;
             }
 
             OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Распаковка архива");
-            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), 
+            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
                 String.format("Архив: %s\nПапка: %s", zipFile.getCanonicalPath(), outputDir.getCanonicalPath()));
 
-            List<ExtractedFile> extractedFiles = new ArrayList<>();
-            long totalSize = 0;
-
-            try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
-                ZipEntry entry;
-                byte[] buffer = new byte[1024];
-
-                while ((entry = zis.getNextEntry()) != null) {
-                    File newFile = new File(outputDir, entry.getName());
-                    String canonicalDestinationPath = newFile.getCanonicalPath();
-                    
-                    if (!canonicalDestinationPath.startsWith(outputDir.getCanonicalPath())) {
-                        OutputFormatter.printError(context.getDoc(), context.getStyle(),
-                            "Попытка записи за пределы целевой директории: " + entry.getName());
-                        continue;
-                    }
-
-                    if (entry.isDirectory()) {
-                        if (!newFile.mkdirs() && !newFile.isDirectory()) {
-                            OutputFormatter.printError(context.getDoc(), context.getStyle(),
-                                "Не удалось создать директорию: " + entry.getName());
-                        }
-                        continue;
-                    }
-
-                    File parent = newFile.getParentFile();
-                    if (!parent.exists() && !parent.mkdirs()) {
-                        OutputFormatter.printError(context.getDoc(), context.getStyle(),
-                            "Не удалось создать директорию: " + parent.getPath());
-                        continue;
-                    }
-
-                    try (FileOutputStream fos = new FileOutputStream(newFile)) {
-                        int len;
-                        long size = 0;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                            size += len;
-                        }
-                        extractedFiles.add(new ExtractedFile(entry.getName(), size));
-                        totalSize += size;
-                    }
+            long start = System.nanoTime();
+            long[] totals = new long[2];
+            extractor.extract(outputDir.toPath(), selector, new ZipExtractor.Listener() {
+                @Override
+                public void onExtracted(ZipEntry entry, long size, long doneBytes, long totalBytes) {
+                    totals[0]++;
+                    totals[1] += size;
+                    int percent = totalBytes > 0 ? (int) (doneBytes * 100 / totalBytes) : 100;
+                    OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                        String.format("[%3d%%] %s (%,d байт)", percent, entry.getName(), size));
+                }
+
+                @Override
+                public void onError(ZipEntry entry, IOException error) {
+                    OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                        "Не удалось распаковать " + entry.getName() + ": " + error.getMessage());
                 }
+            });
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+
+            if (selector != null && totals[0] == 0) {
+                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                    "В архиве нет записей, подходящих под " + selector);
             }
 
             // Выводим статистику
             OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "\nСтатистика распаковки:");
-            
+
             String[][] stats = {
-                {"Всего файлов", String.valueOf(extractedFiles.size())},
-                {"Общий размер", String.format("%,d байт", totalSize)},
+                {"Всего файлов", String.valueOf(totals[0])},
+                {"Общий размер", String.format("%,d байт", totals[1])},
+                {"Время", String.format("%.2f с (%.1f МБ/с)", seconds, totals[1] / (1024.0 * 1024.0) / seconds)},
                 {"Папка назначения", outputDir.getCanonicalPath()}
             };
-            
+
             OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
                 new String[]{"Параметр", "Значение"}, stats);
 
-            // Выводим список распакованных файлов
-            if (!extractedFiles.isEmpty()) {
-                OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "\nРаспакованные файлы:");
-                
-                String[][] files = new String[extractedFiles.size()][2];
-                for (int i = 0; i < extractedFiles.size(); i++) {
-                    ExtractedFile ef = extractedFiles.get(i);
-                    files[i][0] = ef.name;
-                    files[i][1] = String.format("%,d байт", ef.size);
-                }
-                
-                OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
-                    new String[]{"Имя файла", "Размер"}, files);
-            }
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(context.getDoc(), context.getStyle(), "Ошибка при распаковке: " + e.getMessage());
@@ -131,25 +124,47 @@ public class UnzipCommand extends AbstractCommand {
         }
     }
 
-    private static class ExtractedFile {
-        final String name;
-        final long size;
+    /**
+     * Выводит содержимое архива по центральному каталогу, не распаковывая данные
+     */
+    private void listEntries(CommandContext context, File zipFile, ZipExtractor extractor) throws IOException {
+        List<ZipEntry> entries = extractor.list();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        String[][] rows = new String[entries.size()][4];
+        long totalSize = 0;
+        long totalCompressed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            ZipEntry entry = entries.get(i);
+            rows[i][0] = entry.getName();
+            rows[i][1] = entry.isDirectory() ? "-" : String.format("%,d", entry.getSize());
+            rows[i][2] = entry.isDirectory() ? "-" : String.format("%,d", entry.getCompressedSize());
+            rows[i][3] = entry.getTime() > 0 ? dateFormat.format(new Date(entry.getTime())) : "";
+            totalSize += Math.max(0, entry.getSize());
+            totalCompressed += Math.max(0, entry.getCompressedSize());
+        }
 
-        ExtractedFile(String name, long size) {
-            this.name = name;
-            this.size = size;
+        OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Содержимое архива " + zipFile.getName());
+        if (rows.length > 0) {
+            OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
+                new String[]{"Имя", "Размер", "Сжато", "Изменен"}, rows);
         }
+        OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+            String.format("Записей: %d, размер: %,d байт, в архиве: %,d байт", entries.size(), totalSize, totalCompressed));
     }
 
     private void showUsage(CommandContext context) throws Exception {
         OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Использование команды unzip");
         OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-            "unzip <архив.zip> [папка]\n\n" +
+            "unzip [-l] [-e <запись|шаблон>] <архив.zip> [папка]\n\n" +
             "Распаковывает ZIP архив в указанную папку\n" +
-            "Если папка не указана, создается папка с именем архива\n\n" +
+            "Если папка не указана, создается папка с именем архива\n" +
+            "-l  показать содержимое архива без распаковки\n" +
+            "-e  распаковать только запись или записи по шаблону (* и ?)\n\n" +
             "Примеры:\n" +
             "  unzip archive.zip\n" +
-            "  unzip docs.zip extracted/");
+            "  unzip docs.zip extracted/\n" +
+            "  unzip -l release.zip\n" +
+            "  unzip -e \"docs/*.txt\" docs.zip");
     }
 
     @Override
@@ -162,4 +177,4 @@ public class UnzipCommand extends AbstractCommand {
     public String getDescription() {
         return "распаковка ZIP-архива";
     }
-} 
\ No newline at end of file
+}
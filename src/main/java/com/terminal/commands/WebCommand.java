@@ -1,22 +1,42 @@
 package com.terminal.commands;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+import com.terminal.sdk.network.HttpEngine;
 import com.terminal.sdk.system.CurrentPathHolder;
+import com.terminal.sdk.system.UserSettings;
 import com.terminal.utils.OutputFormatter;
 
 public class WebCommand extends AbstractCommand {
+    private static final int DEFAULT_DISPLAY_KB = 64;
+    private static final int DEFAULT_BENCH_REQUESTS = 100;
+    private static final int DEFAULT_BENCH_THREADS = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PAGE_CHARS = 16 * 1024;
     private final CurrentPathHolder pathHolder;
 
     public WebCommand(StyledDocument doc, Style style, CurrentPathHolder pathHolder) {
@@ -37,14 +57,14 @@ public class WebCommand extends AbstractCommand {
 
             switch (operation) {
                 case "get":
-                    doGet(urlStr);
+                    doGet(urlStr, option(args, 2, "-o"));
                     break;
                 case "post":
                     if (args.length < 3) {
                         OutputFormatter.printError(doc, style, "Требуются данные для POST-запроса");
                         return;
                     }
-                    doPost(urlStr, args[2]);
+                    doPost(urlStr, args[2], option(args, 3, "-o"));
                     break;
                 case "headers":
                     getHeaders(urlStr);
@@ -55,9 +75,20 @@ public class WebCommand extends AbstractCommand {
                 case "scan":
                     scanVulnerabilities(urlStr);
                     break;
+                case "bench": {
+                    String total = option(args, 2, "-n");
+                    String threads = option(args, 2, "-c");
+                    String method = option(args, 2, "-m");
+                    benchmark(urlStr, method != null ? method.toUpperCase() : "GET",
+                        total != null ? Integer.parseInt(total) : DEFAULT_BENCH_REQUESTS,
+                        threads != null ? Integer.parseInt(threads) : DEFAULT_BENCH_THREADS);
+                    break;
+                }
                 default:
                     OutputFormatter.printError(doc, style, "Неизвестная операция");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(doc, style, e.getMessage());
@@ -67,63 +98,110 @@ public class WebCommand extends AbstractCommand {
         }
     }
 
-    private void doGet(String urlStr) throws Exception {
+    private void doGet(String urlStr, String outputFile) throws Exception {
         OutputFormatter.printBoxedHeader(doc, style, "GET-запрос");
         OutputFormatter.printBoxedLine(doc, style, "URL: " + urlStr);
         OutputFormatter.printBoxedLine(doc, style, "");
 
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        int responseCode = conn.getResponseCode();
-        OutputFormatter.printBoxedLine(doc, style, "Код ответа: " + responseCode);
-        OutputFormatter.printBoxedLine(doc, style, "");
-
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine).append("\n");
-        }
-        in.close();
-
-        OutputFormatter.printBoxedLine(doc, style, "Ответ:");
-        OutputFormatter.printBoxedLine(doc, style, response.toString());
-        OutputFormatter.printBoxedFooter(doc, style);
+        printResponse(new HttpGet(urlStr), outputFile);
     }
 
-    private void doPost(String urlStr, String data) throws Exception {
+    private void doPost(String urlStr, String data, String outputFile) throws Exception {
         OutputFormatter.printBoxedHeader(doc, style, "POST-запрос");
         OutputFormatter.printBoxedLine(doc, style, "URL: " + urlStr);
         OutputFormatter.printBoxedLine(doc, style, "Данные: " + data);
         OutputFormatter.printBoxedLine(doc, style, "");
 
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        HttpPost post = new HttpPost(urlStr);
+        post.setEntity(new StringEntity(data, ContentType.APPLICATION_FORM_URLENCODED));
+        printResponse(post, outputFile);
+    }
 
-        try (DataOutputStream out = new DataOutputStream(conn.getOutputStream())) {
-            out.writeBytes(data);
-            out.flush();
+    /**
+     * Выводит ответ потоком: тело печатается страницами до лимита web-display-kb
+     * или целиком сохраняется в файл, затем выводится разбивка времени запроса
+     */
+    private void printResponse(HttpUriRequest request, String outputFile) throws Exception {
+        HttpEngine.Timing timing;
+        try (HttpEngine.Response response = HttpEngine.getInstance().execute(request)) {
+            OutputFormatter.printBoxedLine(doc, style, "Код ответа: " + response.getStatus());
+            OutputFormatter.printBoxedFooter(doc, style);
+
+            if (outputFile != null) {
+                saveBody(response, outputFile);
+            } else {
+                showBody(response);
+            }
+            timing = response.getTiming();
         }
+        printTiming(timing);
+    }
 
-        int responseCode = conn.getResponseCode();
-        OutputFormatter.printBoxedLine(doc, style, "Код ответа: " + responseCode);
-        OutputFormatter.printBoxedLine(doc, style, "");
+    private void showBody(HttpEngine.Response response) throws Exception {
+        long limit = Math.max(1, UserSettings.getInstance().getInt("web-display-kb", DEFAULT_DISPLAY_KB)) * 1024L;
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder page = new StringBuilder(PAGE_CHARS + BUFFER_SIZE);
+        long shown = 0;
+        boolean truncated = false;
+        Reader reader = new InputStreamReader(response.getBody(), response.getCharset());
+        int read;
+        while ((read = reader.read(buffer, 0, (int) Math.min(buffer.length, limit - shown))) > 0) {
+            if (isCancelled()) {
+                throw new InterruptedException();
+            }
+            page.append(buffer, 0, read);
+            shown += read;
+            if (page.length() >= PAGE_CHARS) {
+                OutputFormatter.appendText(doc, page.toString(), style);
+                page.setLength(0);
+            }
+            if (shown >= limit) {
+                truncated = reader.read() >= 0;
+                break;
+            }
+        }
+        if (page.length() > 0) {
+            OutputFormatter.appendText(doc, page.toString(), style);
+        }
+        if (!truncated) {
+            response.finish();
+        }
+        OutputFormatter.appendText(doc, "\n", style);
+        if (truncated) {
+            OutputFormatter.printBeautifulMessage(doc, style, String.format(
+                "Показаны первые %d КБ ответа, для сохранения целиком используйте -o <файл>", limit / 1024));
+        }
+    }
 
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine).append("\n");
+    private void saveBody(HttpEngine.Response response, String outputFile) throws Exception {
+        Path path = Paths.get(pathHolder.getCurrentPath()).resolve(outputFile);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        try (InputStream in = response.getBody(); OutputStream out = Files.newOutputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (isCancelled()) {
+                    throw new InterruptedException();
+                }
+                out.write(buffer, 0, read);
+                written += read;
+            }
         }
-        in.close();
+        response.finish();
+        OutputFormatter.printBeautifulMessage(doc, style, String.format("Сохранено %d байт в %s", written, path));
+    }
 
-        OutputFormatter.printBoxedLine(doc, style, "Ответ:");
-        OutputFormatter.printBoxedLine(doc, style, response.toString());
+    private void printTiming(HttpEngine.Timing timing) throws Exception {
+        OutputFormatter.printBoxedHeader(doc, style, "Время запроса");
+        if (timing.isReused()) {
+            OutputFormatter.printBoxedLine(doc, style, "Соединение:     из пула (keep-alive)");
+        } else {
+            OutputFormatter.printBoxedLine(doc, style, String.format("DNS:            %.1f мс", millis(timing.getDnsNanos())));
+            OutputFormatter.printBoxedLine(doc, style, String.format("Подключение:    %.1f мс", millis(timing.getConnectNanos())));
+            OutputFormatter.printBoxedLine(doc, style, String.format("TLS:            %.1f мс", millis(timing.getTlsNanos())));
+        }
+        OutputFormatter.printBoxedLine(doc, style, String.format("Первый байт:    %.1f мс", millis(timing.getFirstByteNanos())));
+        OutputFormatter.printBoxedLine(doc, style, String.format("Всего:          %.1f мс", millis(timing.getTotalNanos())));
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
@@ -132,14 +210,11 @@ public class WebCommand extends AbstractCommand {
         OutputFormatter.printBoxedLine(doc, style, "URL: " + urlStr);
         OutputFormatter.printBoxedLine(doc, style, "");
 
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("HEAD");
-
-        Map<String, List<String>> headers = conn.getHeaderFields();
-        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
-            String key = entry.getKey() == null ? "" : entry.getKey() + ": ";
-            OutputFormatter.printBoxedLine(doc, style, key + String.join(", ", entry.getValue()));
+        HttpEngine.Response response = HttpEngine.getInstance().executeAndConsume(new HttpHead(urlStr));
+        OutputFormatter.printBoxedLine(doc, style,
+            response.getProtocol() + " " + response.getStatus() + " " + response.getReason());
+        for (Header header : response.getHeaders()) {
+            OutputFormatter.printBoxedLine(doc, style, header.getName() + ": " + header.getValue());
         }
 
         OutputFormatter.printBoxedFooter(doc, style);
@@ -181,28 +256,28 @@ public class WebCommand extends AbstractCommand {
         OutputFormatter.printBoxedLine(doc, style, "URL: " + urlStr);
         OutputFormatter.printBoxedLine(doc, style, "");
 
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
         OutputFormatter.printBoxedLine(doc, style, "Проверка HTTP-методов:");
         String[] methods = {"GET", "POST", "PUT", "DELETE", "OPTIONS", "TRACE"};
+        Header[] headers = new Header[0];
         for (String method : methods) {
             try {
-                HttpURLConnection testConn = (HttpURLConnection) url.openConnection();
-                testConn.setRequestMethod(method);
-                int responseCode = testConn.getResponseCode();
+                HttpEngine.Response response = HttpEngine.getInstance()
+                    .executeAndConsume(RequestBuilder.create(method).setUri(urlStr).build());
+                int responseCode = response.getStatus();
+                if ("GET".equals(method)) {
+                    headers = response.getHeaders();
+                }
                 if (responseCode != 405) { // 405 = Method Not Allowed
                     OutputFormatter.printBoxedLine(doc, style, 
                         String.format("  %s: разрешен (код %d)", method, responseCode));
                 }
-            } catch (Exception e) {
+            } catch (IOException e) {
             }
         }
 
         OutputFormatter.printBoxedLine(doc, style, "");
         OutputFormatter.printBoxedLine(doc, style, "Проверка заголовков безопасности:");
         
-        Map<String, List<String>> headers = conn.getHeaderFields();
         checkSecurityHeader(headers, "Strict-Transport-Security");
         checkSecurityHeader(headers, "X-Frame-Options");
         checkSecurityHeader(headers, "X-Content-Type-Options");
@@ -212,9 +287,14 @@ public class WebCommand extends AbstractCommand {
         OutputFormatter.printBoxedFooter(doc, style);
     }
 
-    private void checkSecurityHeader(Map<String, List<String>> headers, String headerName) throws Exception {
-        List<String> values = headers.get(headerName);
-        if (values == null || values.isEmpty()) {
+    private void checkSecurityHeader(Header[] headers, String headerName) throws Exception {
+        List<String> values = new ArrayList<>();
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(headerName)) {
+                values.add(header.getValue());
+            }
+        }
+        if (values.isEmpty()) {
             OutputFormatter.printBoxedLine(doc, style, 
                 String.format("  %s: отсутствует", headerName));
         } else {
@@ -223,20 +303,76 @@ public class WebCommand extends AbstractCommand {
         }
     }
 
+    /**
+     * Нагрузочный тест: total запросов из concurrency потоков по общему пулу соединений
+     */
+    private void benchmark(String urlStr, String method, int total, int concurrency) throws Exception {
+        if (total < 1 || concurrency < 1) {
+            OutputFormatter.printError(doc, style, "Число запросов и потоков должно быть больше нуля");
+            return;
+        }
+        OutputFormatter.printBeautifulSection(doc, style, String.format("%s %s: %d запросов, %d потоков",
+            method, urlStr, total, concurrency));
+
+        HttpEngine.BenchResult result = HttpEngine.getInstance()
+            .bench(() -> RequestBuilder.create(method).setUri(urlStr).build(), total, concurrency);
+
+        double seconds = result.getElapsedNanos() / 1e9;
+        OutputFormatter.printBoxedHeader(doc, style, "Результаты");
+        OutputFormatter.printBoxedLine(doc, style, String.format("Выполнено:      %d из %d, ошибок %d",
+            result.getCompleted(), total, result.getFailures()));
+        OutputFormatter.printBoxedLine(doc, style, String.format("Время:          %.2f с, %.1f запросов/с",
+            seconds, seconds > 0 ? result.getCompleted() / seconds : 0));
+        OutputFormatter.printBoxedLine(doc, style, String.format("Коды:           2xx %d, 3xx %d, 4xx %d, 5xx %d",
+            result.getStatusCount(2), result.getStatusCount(3), result.getStatusCount(4), result.getStatusCount(5)));
+        OutputFormatter.printBoxedLine(doc, style, "");
+        OutputFormatter.printBoxedLine(doc, style, String.format("Среднее:        %.2f мс", millis(result.mean())));
+        OutputFormatter.printBoxedLine(doc, style, String.format("p50:            %.2f мс", millis(result.percentile(0.50))));
+        OutputFormatter.printBoxedLine(doc, style, String.format("p90:            %.2f мс", millis(result.percentile(0.90))));
+        OutputFormatter.printBoxedLine(doc, style, String.format("p99:            %.2f мс", millis(result.percentile(0.99))));
+        OutputFormatter.printBoxedLine(doc, style, String.format("Максимум:       %.2f мс", millis(result.percentile(1.0))));
+        if (result.getLastError() != null) {
+            OutputFormatter.printBoxedLine(doc, style, "");
+            OutputFormatter.printBoxedLine(doc, style, "Последняя ошибка: " + result.getLastError());
+        }
+        OutputFormatter.printBoxedFooter(doc, style);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Значение флага вида "-o файл" или null
+     */
+    private static String option(String[] args, int from, String flag) {
+        for (int i = from; i < args.length - 1; i++) {
+            if (flag.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
     private void showUsage() throws Exception {
         OutputFormatter.printBoxedHeader(doc, style, "Использование: web <операция> <url> [данные]");
         OutputFormatter.printBoxedLine(doc, style, "Выполняет HTTP-запросы");
         OutputFormatter.printBoxedLine(doc, style, "");
         OutputFormatter.printBoxedLine(doc, style, "Операции:");
-        OutputFormatter.printBoxedLine(doc, style, "  get <url>           - выполнить GET-запрос");
-        OutputFormatter.printBoxedLine(doc, style, "  post <url> <data>   - выполнить POST-запрос");
+        OutputFormatter.printBoxedLine(doc, style, "  get <url> [-o файл] - выполнить GET-запрос");
+        OutputFormatter.printBoxedLine(doc, style, "  post <url> <data> [-o файл]");
+        OutputFormatter.printBoxedLine(doc, style, "                      - выполнить POST-запрос");
         OutputFormatter.printBoxedLine(doc, style, "  headers <url>       - получить заголовки");
         OutputFormatter.printBoxedLine(doc, style, "  ssl <url>           - проверить SSL");
         OutputFormatter.printBoxedLine(doc, style, "  scan <url>          - сканировать уязвимости");
+        OutputFormatter.printBoxedLine(doc, style, "  bench <url> [-n N] [-c C] [-m метод]");
+        OutputFormatter.printBoxedLine(doc, style, "                      - нагрузочный тест");
         OutputFormatter.printBoxedLine(doc, style, "");
         OutputFormatter.printBoxedLine(doc, style, "Примеры:");
         OutputFormatter.printBoxedLine(doc, style, "  web get https://example.com");
         OutputFormatter.printBoxedLine(doc, style, "  web post https://example.com/api \"data=test\"");
+        OutputFormatter.printBoxedLine(doc, style, "  web get https://example.com/big.iso -o big.iso");
+        OutputFormatter.printBoxedLine(doc, style, "  web bench http://localhost:8080/ -n 1000 -c 16");
         OutputFormatter.printBoxedLine(doc, style, "  web ssl https://example.com");
         OutputFormatter.printBoxedFooter(doc, style);
     }
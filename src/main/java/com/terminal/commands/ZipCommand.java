@@ -1,15 +1,26 @@
 package com.terminal.commands;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
+import com.terminal.sdk.archive.ParallelZipWriter;
 import com.terminal.sdk.core.CommandContext;
+import com.terminal.sdk.core.CommandPool;
+import com.terminal.sdk.io.PathGlob;
 import com.terminal.sdk.system.CurrentPathHolder;
 import com.terminal.utils.OutputFormatter;
 
@@ -21,10 +32,20 @@ public class ZipCommand extends AbstractCommand {
         this.pathHolder = pathHolder;
     }
 
+    @Override
+    public CommandPool getPool() {
+        return CommandPool.CPU;
+    }
+
     @Override
     public void execute(CommandContext context) {
         try {
             String[] args = context.getArgs();
+            int level = Deflater.DEFAULT_COMPRESSION;
+            if (args.length > 0 && args[0].matches("-[0-9]")) {
+                level = args[0].charAt(1) - '0';
+                args = Arrays.copyOfRange(args, 1, args.length);
+            }
             if (args.length < 2) {
                 showUsage(context);
                 return;
@@ -35,34 +56,65 @@ public class ZipCommand extends AbstractCommand {
                 zipFileName += ".zip";
             }
 
+            Path base = Paths.get(pathHolder.getCurrentPath());
             File zipFile = new File(pathHolder.getCurrentPath(), zipFileName);
             OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Создание ZIP архива");
             OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "Архив: " + zipFile.getCanonicalPath());
 
-            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
-                for (int i = 1; i < args.length; i++) {
-                    File fileToZip = new File(pathHolder.getCurrentPath(), args[i]);
-                    if (!fileToZip.exists()) {
-                        OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл не существует: " + args[i]);
-                        continue;
+            Path archive = zipFile.toPath().toAbsolutePath().normalize();
+            List<ParallelZipWriter.Source> sources = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                List<Path> targets = PathGlob.expand(base, args[i]);
+                if (targets.isEmpty() || !Files.exists(targets.get(0))) {
+                    OutputFormatter.printError(context.getDoc(), context.getStyle(), "Файл не существует: " + args[i]);
+                    continue;
+                }
+                for (Path target : targets) {
+                    collectSources(target, archive, sources);
+                }
+            }
+
+            long start = System.nanoTime();
+            long[] totals = new long[2];
+            int written = new ParallelZipWriter(archive, level).write(sources, new ParallelZipWriter.Listener() {
+                @Override
+                public void onEntry(String name, long size, long compressedSize, boolean stored) {
+                    totals[0] += size;
+                    totals[1] += compressedSize;
+                    if (name.endsWith("/")) {
+                        OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                            "Добавлена пустая папка: " + name);
+                        return;
                     }
+                    OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
+                        String.format("Добавлен файл: %s (%,d байт%s)", name, size, stored ? ", без сжатия" : ""));
+                }
 
-                    addToZip(context, zos, fileToZip, "");
+                @Override
+                public void onError(String name, IOException error) {
+                    OutputFormatter.printError(context.getDoc(), context.getStyle(),
+                        "Не удалось добавить " + name + ": " + error.getMessage());
                 }
-            }
+            });
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
 
             OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(), "Архив успешно создан");
             
             // Выводим статистику
             String[][] stats = {
                 {"Размер архива", String.format("%,d байт", zipFile.length())},
-                {"Количество файлов", String.valueOf(args.length - 1)},
+                {"Количество файлов", String.valueOf(written)},
+                {"Исходный объем", String.format("%,d байт", totals[0])},
+                {"Сжатие", totals[0] > 0 ? String.format("%.1f%%", 100.0 * totals[1] / totals[0]) : "-"},
+                {"Время", String.format("%.2f с (%.1f МБ/с)", seconds, totals[0] / (1024.0 * 1024.0) / seconds)},
                 {"Расположение", zipFile.getCanonicalPath()}
             };
             
             OutputFormatter.printBeautifulTable(context.getDoc(), context.getStyle(),
                 new String[]{"Параметр", "Значение"}, stats);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             try {
                 OutputFormatter.printError(context.getDoc(), context.getStyle(), "Ошибка при создании архива: " + e.getMessage());
@@ -72,44 +124,60 @@ public class ZipCommand extends AbstractCommand {
         }
     }
 
-    private void addToZip(CommandContext context, ZipOutputStream zos, File fileToZip, String parentPath) throws Exception {
-        String entryPath = parentPath + fileToZip.getName();
-        
-        if (fileToZip.isDirectory()) {
-            File[] children = fileToZip.listFiles();
-            if (children != null) {
-                for (File child : children) {
-                    addToZip(context, zos, child, entryPath + "/");
+    /**
+     * Добавляет файл или все файлы директории; имена записей начинаются с имени аргумента.
+     * Пустые директории добавляются отдельными записями, чтобы не пропасть из архива.
+     */
+    private void collectSources(Path target, Path archive, List<ParallelZipWriter.Source> sources) throws IOException {
+        Path parent = target.toAbsolutePath().normalize().getParent();
+        Files.walkFileTree(target, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path absolute = dir.toAbsolutePath().normalize();
+                if (parent != null && isEmptyDirectory(dir)) {
+                    String name = parent.relativize(absolute).toString().replace(File.separatorChar, '/');
+                    sources.add(new ParallelZipWriter.Source(dir, name + "/"));
                 }
+                return FileVisitResult.CONTINUE;
             }
-            return;
-        }
 
-        try (FileInputStream fis = new FileInputStream(fileToZip)) {
-            ZipEntry zipEntry = new ZipEntry(entryPath);
-            zos.putNextEntry(zipEntry);
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path absolute = file.toAbsolutePath().normalize();
+                if (attrs.isRegularFile() && !absolute.equals(archive)) {
+                    String name = parent != null ? parent.relativize(absolute).toString() : absolute.toString();
+                    sources.add(new ParallelZipWriter.Source(file, name.replace(File.separatorChar, '/')));
+                }
+                return FileVisitResult.CONTINUE;
+            }
 
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = fis.read(buffer)) > 0) {
-                zos.write(buffer, 0, len);
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
             }
+        });
+    }
 
-            zos.closeEntry();
-            OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-                String.format("Добавлен файл: %s (%,d байт)", entryPath, fileToZip.length()));
+    private static boolean isEmptyDirectory(Path dir) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        } catch (IOException e) {
+            return false;
         }
     }
 
     private void showUsage(CommandContext context) throws Exception {
         OutputFormatter.printBeautifulSection(context.getDoc(), context.getStyle(), "Использование команды zip");
         OutputFormatter.printBeautifulMessage(context.getDoc(), context.getStyle(),
-            "zip <архив.zip> <файлы...>\n\n" +
-            "Создает ZIP архив из указанных файлов\n\n" +
+            "zip [-0..-9] <архив.zip> <файлы...>\n\n" +
+            "Создает ZIP архив из указанных файлов\n" +
+            "-0..-9 - уровень сжатия (0 - без сжатия, 9 - максимальное)\n" +
+            "Файлы jpg, png, zip, gz и другие сжатые форматы сохраняются без сжатия\n\n" +
             "Примеры:\n" +
             "  zip archive.zip file1.txt file2.txt\n" +
             "  zip docs.zip *.doc *.pdf\n" +
-            "  zip backup.zip folder/");
+            "  zip backup.zip folder/\n" +
+            "  zip -9 release.zip build/");
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.terminal.sdk;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.swing.SwingUtilities;
 import javax.swing.text.Style;
@@ -8,6 +9,7 @@ import javax.swing.text.StyledDocument;
 
 import com.terminal.commands.AbstractCommand;
 import com.terminal.sdk.core.AsyncTaskManager;
+import com.terminal.sdk.core.CommandExecutors;
 import com.terminal.sdk.core.IAsyncCommand;
 import com.terminal.sdk.output.IAnimatedOutput;
 import com.terminal.sdk.output.SwingAnimatedOutput;
@@ -39,24 +41,32 @@ public abstract class AbstractAsyncCommand extends AbstractCommand implements IA
         resetInterrupted();
         output.startAnimation(FRAMES, FRAME_DELAY);
         
-        CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
-            try {
-                if (!isInterrupted) {
-                    execute(args);
+        CompletableFuture<Void> task;
+        try {
+            task = CommandExecutors.getInstance().forCommand(this).runAsync(() -> {
+                try {
+                    if (!isInterrupted) {
+                        execute(args);
+                    }
+                    if (!isInterrupted) {
+                        SwingUtilities.invokeLater(() -> output.complete());
+                    }
+                } catch (Exception e) {
+                    if (!isInterrupted) {
+                        SwingUtilities.invokeLater(() -> output.completeWithError(e.getMessage()));
+                        throw new RuntimeException(e);
+                    }
                 }
-                if (!isInterrupted) {
-                    SwingUtilities.invokeLater(() -> output.complete());
-                }
-            } catch (Exception e) {
-                if (!isInterrupted) {
-                    SwingUtilities.invokeLater(() -> output.completeWithError(e.getMessage()));
-                    throw new RuntimeException(e);
-                }
-            }
-        });
+            });
+        } catch (RejectedExecutionException e) {
+            SwingUtilities.invokeLater(() -> output.completeWithError(e.getMessage()));
+            task = new CompletableFuture<>();
+            task.completeExceptionally(e);
+            return task;
+        }
         
         int terminalId = TerminalService.getInstance().getTerminalPanel().getTerminalId();
-        AsyncTaskManager.getInstance().registerTask(task, terminalId);
+        AsyncTaskManager.getInstance().registerTask(task, terminalId, getName());
         return task;
     }
     
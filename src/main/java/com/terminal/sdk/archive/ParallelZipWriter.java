@@ -0,0 +1,517 @@
+package com.terminal.sdk.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Параллельная запись ZIP архива.
+ * Записи сжимаются одновременно в пуле "archive" {@link WorkerPools}: небольшой
+ * результат сжатия хранится в памяти, крупный сбрасывается во временный файл рядом
+ * с архивом. Затем записи последовательно, в исходном порядке, переносятся в архив
+ * вместе с заголовками. Уже сжатые форматы и файлы, которые не уменьшаются,
+ * сохраняются методом STORED и копируются из источника без участия JVM.
+ * Для архивов и записей больше 4 ГБ используются расширения ZIP64.
+ * Архив пишется в скрытый файл рядом с целевым и переносится на место только
+ * после записи центрального каталога, поэтому прерванная запись не оставляет
+ * обрезанный архив.
+ */
+public class ParallelZipWriter {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MEMORY_LIMIT = 4 * 1024 * 1024;
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int DOS_DIRECTORY_ATTRIBUTE = 0x10;
+    private static final Set<String> STORED_EXTENSIONS = new HashSet<>(Arrays.asList(
+        "jpg", "jpeg", "png", "gif", "webp", "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar",
+        "mp3", "mp4", "mkv", "avi"));
+    private static final ThreadLocal<byte[]> INPUT_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final ThreadLocal<byte[]> OUTPUT_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final Path archive;
+    private final int level;
+    private volatile boolean cancelled;
+
+    /**
+     * Файл, добавляемый в архив; имя, оканчивающееся на "/", задает запись директории
+     */
+    public static final class Source {
+        private final Path file;
+        private final String name;
+
+        public Source(Path file, String name) {
+            this.file = file;
+            this.name = name;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /**
+     * Получатель хода записи. Вызывается в потоке, запустившем запись.
+     */
+    public interface Listener {
+        void onEntry(String name, long size, long compressedSize, boolean stored);
+
+        void onError(String name, IOException error);
+    }
+
+    /**
+     * Сжатая, но еще не записанная в архив запись
+     */
+    private static final class Prepared {
+        Source source;
+        long size;
+        long crc;
+        long modified;
+        int method;
+        long compressedSize;
+        byte[] data;
+        Path spill;
+        IOException error;
+    }
+
+    /**
+     * Запись центрального каталога
+     */
+    private static final class CentralEntry {
+        byte[] name;
+        int method;
+        int dosTime;
+        int dosDate;
+        long crc;
+        long size;
+        long compressedSize;
+        long offset;
+        boolean directory;
+    }
+
+    /**
+     * @param level уровень сжатия от 0 до 9 или -1 для уровня по умолчанию
+     */
+    public ParallelZipWriter(Path archive, int level) {
+        this.archive = archive;
+        this.level = level;
+    }
+
+    /**
+     * Записывает архив из списка файлов
+     *
+     * @return число записанных файлов
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public int write(List<Source> sources, Listener listener) throws IOException, InterruptedException {
+        int window = Math.max(2, WorkerPools.get("archive").getParallelism() * 2);
+        Deque<ForkJoinTask<Prepared>> inFlight = new ArrayDeque<>(window);
+        List<CentralEntry> central = new ArrayList<>(sources.size());
+        int next = 0;
+        Path partial = archive.resolveSibling("." + archive.getFileName() + ".part");
+        boolean complete = false;
+        try {
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (next < sources.size() || !inFlight.isEmpty()) {
+                    while (next < sources.size() && inFlight.size() < window) {
+                        Source source = sources.get(next++);
+                        inFlight.addLast(WorkerPools.get("archive").submit(() -> prepare(source)));
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    Prepared entry;
+                    try {
+                        entry = inFlight.peekFirst().get();
+                    } catch (ExecutionException e) {
+                        throw new IOException(e.getCause().getMessage(), e.getCause());
+                    }
+                    inFlight.removeFirst();
+                    if (entry.error != null) {
+                        listener.onError(entry.source.getName(), entry.error);
+                        continue;
+                    }
+                    try {
+                        central.add(writeEntry(out, entry));
+                    } finally {
+                        if (entry.spill != null) {
+                            Files.deleteIfExists(entry.spill);
+                        }
+                    }
+                    listener.onEntry(entry.source.getName(), entry.size, entry.compressedSize,
+                        entry.method == METHOD_STORED);
+                }
+                writeCentralDirectory(out, central);
+            }
+            try {
+                Files.move(partial, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, archive, StandardCopyOption.REPLACE_EXISTING);
+            }
+            complete = true;
+        } finally {
+            cancelled = true;
+            for (ForkJoinTask<Prepared> task : inFlight) {
+                task.cancel(false);
+                if (task.isDone() && !task.isCancelled() && !task.isCompletedAbnormally()) {
+                    Path spill = task.join().spill;
+                    if (spill != null) {
+                        Files.deleteIfExists(spill);
+                    }
+                }
+            }
+            if (!complete) {
+                Files.deleteIfExists(partial);
+            }
+        }
+        return central.size();
+    }
+
+    /**
+     * Сжимает файл и считает контрольную сумму; выполняется в пуле архивации
+     */
+    private Prepared prepare(Source source) {
+        Prepared entry = new Prepared();
+        entry.source = source;
+        try {
+            entry.modified = Files.getLastModifiedTime(source.getFile()).toMillis();
+            if (source.isDirectory()) {
+                entry.method = METHOD_STORED;
+                return entry;
+            }
+            if (level == 0 || isCompressed(source.getName())) {
+                checksum(entry);
+            } else {
+                deflate(entry);
+            }
+            checkCancelled();
+        } catch (IOException e) {
+            if (entry.spill != null) {
+                try {
+                    Files.deleteIfExists(entry.spill);
+                } catch (IOException ignored) {
+                    // временный файл останется рядом с архивом
+                }
+                entry.spill = null;
+            }
+            entry.error = e;
+        }
+        return entry;
+    }
+
+    private void checksum(Prepared entry) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] input = INPUT_BUFFERS.get();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(entry.source.getFile(), StandardOpenOption.READ)) {
+            ByteBuffer wrapped = ByteBuffer.wrap(input);
+            int read;
+            while ((read = channel.read(wrapped)) > 0) {
+                checkCancelled();
+                crc.update(input, 0, read);
+                size += read;
+                wrapped.clear();
+            }
+        }
+        entry.method = METHOD_STORED;
+        entry.size = size;
+        entry.compressedSize = size;
+        entry.crc = crc.getValue();
+    }
+
+    private void deflate(Prepared entry) throws IOException {
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        byte[] input = INPUT_BUFFERS.get();
+        byte[] output = OUTPUT_BUFFERS.get();
+        SpillBuffer compressed = new SpillBuffer();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(entry.source.getFile(), StandardOpenOption.READ)) {
+            ByteBuffer wrapped = ByteBuffer.wrap(input);
+            int read;
+            while ((read = channel.read(wrapped)) > 0) {
+                checkCancelled();
+                crc.update(input, 0, read);
+                size += read;
+                deflater.setInput(input, 0, read);
+                while (!deflater.needsInput()) {
+                    int length = deflater.deflate(output);
+                    compressed.write(output, length);
+                }
+                wrapped.clear();
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int length = deflater.deflate(output);
+                compressed.write(output, length);
+            }
+        } catch (IOException e) {
+            compressed.discard();
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        entry.size = size;
+        entry.crc = crc.getValue();
+        if (compressed.length >= size) {
+            // Сжатие не помогло: запись хранится как есть и копируется из источника
+            compressed.discard();
+            entry.method = METHOD_STORED;
+            entry.compressedSize = size;
+            return;
+        }
+        compressed.close();
+        entry.method = METHOD_DEFLATED;
+        entry.compressedSize = compressed.length;
+        entry.data = compressed.memory;
+        entry.spill = compressed.spill;
+    }
+
+    /**
+     * Буфер результата сжатия: до MEMORY_LIMIT в памяти, дальше во временном файле
+     */
+    private final class SpillBuffer {
+        byte[] memory = new byte[8192];
+        long length;
+        Path spill;
+        OutputStream spillStream;
+
+        void write(byte[] bytes, int count) throws IOException {
+            if (count == 0) {
+                return;
+            }
+            if (spill == null && length + count <= MEMORY_LIMIT) {
+                if (length + count > memory.length) {
+                    memory = Arrays.copyOf(memory, (int) Math.min(MEMORY_LIMIT, Math.max(memory.length * 2, length + count)));
+                }
+                System.arraycopy(bytes, 0, memory, (int) length, count);
+            } else {
+                if (spill == null) {
+                    Path directory = archive.toAbsolutePath().getParent();
+                    spill = Files.createTempFile(directory, ".zip-", ".part");
+                    spillStream = Files.newOutputStream(spill);
+                    spillStream.write(memory, 0, (int) length);
+                    memory = null;
+                }
+                spillStream.write(bytes, 0, count);
+            }
+            length += count;
+        }
+
+        void close() throws IOException {
+            if (spillStream != null) {
+                spillStream.close();
+                spillStream = null;
+            }
+        }
+
+        void discard() {
+            try {
+                close();
+                if (spill != null) {
+                    Files.deleteIfExists(spill);
+                }
+            } catch (IOException ignored) {
+                // временный файл останется рядом с архивом
+            }
+            spill = null;
+            memory = null;
+        }
+    }
+
+    private CentralEntry writeEntry(FileChannel out, Prepared entry) throws IOException {
+        CentralEntry central = new CentralEntry();
+        central.name = entry.source.getName().getBytes(StandardCharsets.UTF_8);
+        central.method = entry.method;
+        central.crc = entry.crc;
+        central.size = entry.size;
+        central.compressedSize = entry.compressedSize;
+        central.offset = out.position();
+        central.directory = entry.source.isDirectory();
+        setDosTime(central, entry.modified);
+
+        boolean zip64 = entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT;
+        ByteBuffer header = littleEndian(30 + central.name.length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50)
+            .putShort((short) (zip64 ? 45 : 20))
+            .putShort((short) FLAG_UTF8)
+            .putShort((short) central.method)
+            .putShort((short) central.dosTime)
+            .putShort((short) central.dosDate)
+            .putInt((int) central.crc)
+            .putInt((int) (zip64 ? ZIP64_LIMIT : central.compressedSize))
+            .putInt((int) (zip64 ? ZIP64_LIMIT : central.size))
+            .putShort((short) central.name.length)
+            .putShort((short) (zip64 ? 20 : 0))
+            .put(central.name);
+        if (zip64) {
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(central.size).putLong(central.compressedSize);
+        }
+        writeFully(out, header);
+
+        if (entry.data != null) {
+            writeFully(out, ByteBuffer.wrap(entry.data, 0, (int) entry.compressedSize));
+        } else if (entry.compressedSize > 0) {
+            Path data = entry.spill != null ? entry.spill : entry.source.getFile();
+            try (FileChannel in = FileChannel.open(data, StandardOpenOption.READ)) {
+                long position = 0;
+                while (position < entry.compressedSize) {
+                    long sent = in.transferTo(position, entry.compressedSize - position, out);
+                    if (sent <= 0) {
+                        throw new IOException("Файл изменился во время архивации: " + entry.source.getName());
+                    }
+                    position += sent;
+                }
+            }
+        }
+        return central;
+    }
+
+    private static void writeCentralDirectory(FileChannel out, List<CentralEntry> entries) throws IOException {
+        long start = out.position();
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(out), BUFFER_SIZE);
+        for (CentralEntry entry : entries) {
+            boolean sizeZip64 = entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT;
+            boolean offsetZip64 = entry.offset >= ZIP64_LIMIT;
+            int extraLength = (sizeZip64 || offsetZip64) ? 4 + (sizeZip64 ? 16 : 0) + (offsetZip64 ? 8 : 0) : 0;
+            ByteBuffer header = littleEndian(46 + entry.name.length + extraLength);
+            int version = extraLength > 0 ? 45 : 20;
+            header.putInt(0x02014b50)
+                .putShort((short) version)
+                .putShort((short) version)
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) entry.method)
+                .putShort((short) entry.dosTime)
+                .putShort((short) entry.dosDate)
+                .putInt((int) entry.crc)
+                .putInt((int) (sizeZip64 ? ZIP64_LIMIT : entry.compressedSize))
+                .putInt((int) (sizeZip64 ? ZIP64_LIMIT : entry.size))
+                .putShort((short) entry.name.length)
+                .putShort((short) extraLength)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(entry.directory ? DOS_DIRECTORY_ATTRIBUTE : 0)
+                .putInt((int) (offsetZip64 ? ZIP64_LIMIT : entry.offset))
+                .put(entry.name);
+            if (extraLength > 0) {
+                header.putShort((short) 0x0001).putShort((short) (extraLength - 4));
+                if (sizeZip64) {
+                    header.putLong(entry.size).putLong(entry.compressedSize);
+                }
+                if (offsetZip64) {
+                    header.putLong(entry.offset);
+                }
+            }
+            stream.write(header.array());
+        }
+        stream.flush();
+        long end = out.position();
+        long size = end - start;
+
+        boolean zip64 = entries.size() >= ZIP64_ENTRY_LIMIT || start >= ZIP64_LIMIT || size >= ZIP64_LIMIT;
+        if (zip64) {
+            ByteBuffer record = littleEndian(56 + 20);
+            record.putInt(0x06064b50)
+                .putLong(44)
+                .putShort((short) 45)
+                .putShort((short) 45)
+                .putInt(0)
+                .putInt(0)
+                .putLong(entries.size())
+                .putLong(entries.size())
+                .putLong(size)
+                .putLong(start);
+            record.putInt(0x07064b50)
+                .putInt(0)
+                .putLong(end)
+                .putInt(1);
+            writeFully(out, record);
+        }
+        ByteBuffer eocd = littleEndian(22);
+        eocd.putInt(0x06054b50)
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putShort((short) (zip64 ? ZIP64_ENTRY_LIMIT : entries.size()))
+            .putShort((short) (zip64 ? ZIP64_ENTRY_LIMIT : entries.size()))
+            .putInt((int) (zip64 ? ZIP64_LIMIT : size))
+            .putInt((int) (zip64 ? ZIP64_LIMIT : start))
+            .putShort((short) 0);
+        writeFully(out, eocd);
+    }
+
+    private static void setDosTime(CentralEntry entry, long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        entry.dosTime = (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+        entry.dosDate = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5) | time.getDayOfMonth();
+    }
+
+    /**
+     * Проверяет, сжат ли формат файла по расширению
+     */
+    public static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && STORED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private void checkCancelled() throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Архивация отменена");
+        }
+    }
+
+    private static ByteBuffer littleEndian(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+        }
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.terminal.sdk.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Распаковка ZIP архива по центральному каталогу.
+ * Список записей читается из центрального каталога без распаковки данных, поэтому
+ * отдельная запись находится сразу, а листинг не читает содержимое. Записи
+ * распаковываются параллельно в пуле "archive" {@link WorkerPools}; размер выходного
+ * файла задается заранее. Результаты передаются слушателю в порядке каталога.
+ */
+public class ZipExtractor {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final Path archive;
+
+    /**
+     * Получатель хода распаковки. Вызывается в потоке, запустившем распаковку.
+     */
+    public interface Listener {
+        void onExtracted(ZipEntry entry, long size, long doneBytes, long totalBytes);
+
+        void onError(ZipEntry entry, IOException error);
+    }
+
+    public ZipExtractor(Path archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Возвращает записи центрального каталога, не распаковывая данные
+     */
+    public List<ZipEntry> list() throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            return Collections.list(cast(zip.entries()));
+        }
+    }
+
+    /**
+     * Распаковывает записи архива
+     *
+     * @param selector имя записи или шаблон (* и ?), null - все записи
+     * @return число распакованных файлов
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public int extract(Path outputDir, String selector, Listener listener) throws IOException, InterruptedException {
+        Path root = outputDir.toAbsolutePath().normalize();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            List<ZipEntry> entries = select(zip, selector);
+            long totalBytes = 0;
+            List<ZipEntry> files = new ArrayList<>(entries.size());
+            for (ZipEntry entry : entries) {
+                if (entry.isDirectory()) {
+                    try {
+                        Files.createDirectories(resolve(root, entry));
+                    } catch (IOException e) {
+                        listener.onError(entry, e);
+                    }
+                } else {
+                    files.add(entry);
+                    totalBytes += Math.max(0, entry.getSize());
+                }
+            }
+
+            // Флаг отмены свой у каждого запуска: повторная распаковка тем же объектом не видит прошлую отмену
+            AtomicBoolean cancelled = new AtomicBoolean();
+            int window = Math.max(2, WorkerPools.get("archive").getParallelism() * 2);
+            Deque<ForkJoinTask<Object>> inFlight = new ArrayDeque<>(window);
+            int next = 0;
+            int delivered = 0;
+            long doneBytes = 0;
+            try {
+                while (delivered < files.size()) {
+                    while (next < files.size() && inFlight.size() < window) {
+                        ZipEntry entry = files.get(next++);
+                        inFlight.addLast(WorkerPools.get("archive").submit(() -> extractEntry(zip, root, entry, cancelled)));
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    Object result;
+                    try {
+                        result = inFlight.peekFirst().get();
+                    } catch (ExecutionException e) {
+                        result = new IOException(e.getCause().getMessage(), e.getCause());
+                    }
+                    inFlight.removeFirst();
+                    ZipEntry entry = files.get(delivered++);
+                    if (result instanceof IOException) {
+                        listener.onError(entry, (IOException) result);
+                    } else {
+                        long size = (Long) result;
+                        doneBytes += size;
+                        listener.onExtracted(entry, size, doneBytes, Math.max(totalBytes, doneBytes));
+                    }
+                }
+            } finally {
+                if (!inFlight.isEmpty()) {
+                    cancelled.set(true);
+                    for (ForkJoinTask<Object> task : inFlight) {
+                        task.cancel(false);
+                    }
+                    // Начатые записи удаляют свои неполные файлы; архив закрывается после них
+                    for (ForkJoinTask<Object> task : inFlight) {
+                        task.quietlyJoin();
+                    }
+                }
+            }
+            return files.size();
+        }
+    }
+
+    /**
+     * Выбирает записи: точное имя ищется в каталоге напрямую, шаблон проверяется по именам
+     */
+    private static List<ZipEntry> select(ZipFile zip, String selector) {
+        if (selector == null) {
+            return Collections.list(cast(zip.entries()));
+        }
+        if (selector.indexOf('*') < 0 && selector.indexOf('?') < 0) {
+            ZipEntry entry = zip.getEntry(selector);
+            return entry != null ? Collections.singletonList(entry) : Collections.<ZipEntry>emptyList();
+        }
+        Pattern pattern = globToRegex(selector);
+        List<ZipEntry> selected = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (pattern.matcher(entry.getName()).matches()) {
+                selected.add(entry);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Распаковывает одну запись; выполняется в пуле архивации.
+     * При отмене неполный файл удаляется.
+     *
+     * @return размер файла или IOException
+     */
+    private static Object extractEntry(ZipFile zip, Path root, ZipEntry entry, AtomicBoolean cancelled) {
+        Path target;
+        try {
+            target = resolve(root, entry);
+            Files.createDirectories(target.getParent());
+        } catch (IOException e) {
+            return e;
+        }
+        byte[] buffer = BUFFERS.get();
+        long written = 0;
+        try (InputStream in = zip.getInputStream(entry);
+             RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            FileChannel out = file.getChannel();
+            out.truncate(0);
+            if (entry.getSize() > 0) {
+                // Заранее выделяем место, чтобы файловая система не наращивала файл по блокам
+                file.setLength(entry.getSize());
+            }
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (cancelled.get()) {
+                    throw new InterruptedIOException("Распаковка отменена");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    written += out.write(chunk, written);
+                }
+            }
+            if (out.size() != written) {
+                out.truncate(written);
+            }
+        } catch (IOException e) {
+            if (cancelled.get()) {
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException ignored) {
+                    // файл занят или уже удален
+                }
+            }
+            return e;
+        }
+        try {
+            if (entry.getTime() > 0) {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+            }
+        } catch (IOException ignored) {
+            // время изменения не критично для содержимого
+        }
+        return written;
+    }
+
+    /**
+     * Возвращает путь записи внутри директории назначения
+     *
+     * @throws IOException если имя записи выводит за пределы директории
+     */
+    private static Path resolve(Path root, ZipEntry entry) throws IOException {
+        Path target = root.resolve(entry.getName()).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("Попытка записи за пределы целевой директории: " + entry.getName());
+        }
+        return target;
+    }
+
+    /**
+     * Переводит шаблон имени записи в регулярное выражение; * захватывает и разделители
+     */
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Enumeration<ZipEntry> cast(Enumeration<? extends ZipEntry> entries) {
+        return (Enumeration<ZipEntry>) entries;
+    }
+}
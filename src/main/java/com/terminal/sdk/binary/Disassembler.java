@@ -0,0 +1,205 @@
+package com.terminal.sdk.binary;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Дизассемблирование секций кода страницами.
+ * Сначала каждая исполняемая секция индексируется: декодер проходит ее целиком,
+ * вычисляя только длины инструкций, и запоминает границу инструкции в начале
+ * каждой страницы по {@link #PAGE_BYTES} байт. Секции индексируются параллельно
+ * в пуле "binary" {@link WorkerPools}. Затем любую страницу можно декодировать
+ * в текст независимо от остальных.
+ */
+public final class Disassembler {
+    public static final int PAGE_BYTES = 4096;
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int MAX_BYTES_SHOWN = 8;
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final ThreadLocal<byte[]> BUFFERS =
+        ThreadLocal.withInitial(() -> new byte[CHUNK_BYTES + X86Decoder.MAX_LENGTH]);
+
+    private final ExecutableImage image;
+    private final X86Decoder decoder;
+    private volatile boolean cancelled;
+
+    /**
+     * Индекс секции: смещения первых инструкций страниц относительно начала секции
+     */
+    public static final class SectionIndex {
+        private final ExecutableImage.Section section;
+        private final long[] pageStarts;
+        private final long instructions;
+
+        SectionIndex(ExecutableImage.Section section, long[] pageStarts, long instructions) {
+            this.section = section;
+            this.pageStarts = pageStarts;
+            this.instructions = instructions;
+        }
+
+        public ExecutableImage.Section getSection() {
+            return section;
+        }
+
+        public int getPageCount() {
+            return pageStarts.length;
+        }
+
+        public long getInstructionCount() {
+            return instructions;
+        }
+
+        /**
+         * Номер страницы с инструкцией по адресу, или -1 если адрес вне секции
+         */
+        public int pageOf(long address) {
+            if (!section.containsAddress(address) || pageStarts.length == 0) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(pageStarts, address - section.getVirtualAddress());
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException если архитектура файла не x86
+     */
+    public Disassembler(ExecutableImage image) {
+        int bits = image.getCodeBits();
+        if (bits == 0) {
+            throw new IllegalArgumentException("Поддерживаются только x86 и x86-64, архитектура файла: "
+                + image.getMachineName());
+        }
+        this.image = image;
+        this.decoder = new X86Decoder(bits);
+    }
+
+    public ExecutableImage getImage() {
+        return image;
+    }
+
+    /**
+     * Индексирует все непустые исполняемые секции параллельно
+     *
+     * @return индексы в порядке секций файла
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public List<SectionIndex> indexAll() throws IOException, InterruptedException {
+        List<ExecutableImage.Section> code = new ArrayList<>();
+        for (ExecutableImage.Section section : image.getSections()) {
+            if (section.isExecutable() && section.getSize() > 0) {
+                code.add(section);
+            }
+        }
+        ForkJoinPool pool = WorkerPools.get("binary");
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<SectionIndex>> inFlight = new ArrayDeque<>(window);
+        List<SectionIndex> result = new ArrayList<>(code.size());
+        int next = 0;
+        cancelled = false;
+        try {
+            while (!inFlight.isEmpty() || next < code.size()) {
+                while (next < code.size() && inFlight.size() < window) {
+                    ExecutableImage.Section section = code.get(next++);
+                    inFlight.addLast(pool.submit(() -> index(section)));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                try {
+                    result.add(inFlight.peekFirst().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+                }
+                inFlight.removeFirst();
+            }
+            return result;
+        } finally {
+            if (!inFlight.isEmpty()) {
+                cancelled = true;
+                for (ForkJoinTask<SectionIndex> task : inFlight) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Проход по секции без форматирования: только длины инструкций
+     */
+    private SectionIndex index(ExecutableImage.Section section) {
+        MappedFile file = image.getFile();
+        long size = section.getSize();
+        long[] pageStarts = new long[(int) ((size + PAGE_BYTES - 1) / PAGE_BYTES)];
+        int pages = 0;
+        long instructions = 0;
+        byte[] buffer = BUFFERS.get();
+        X86Decoder.Instruction insn = new X86Decoder.Instruction();
+        long chunkStart = 0;
+        int buffered = 0;
+        long position = 0;
+        while (position < size) {
+            if (position - chunkStart + X86Decoder.MAX_LENGTH > buffered && chunkStart + buffered < size
+                    || position - chunkStart >= buffered) {
+                if (cancelled) {
+                    break;
+                }
+                chunkStart = position;
+                buffered = file.read(section.getFileOffset() + position, buffer, 0,
+                    (int) Math.min(buffer.length, size - position));
+            }
+            if (position >= (long) pages * PAGE_BYTES) {
+                pageStarts[pages++] = position;
+            }
+            int offset = (int) (position - chunkStart);
+            position += decoder.decode(buffer, offset, buffered, section.getVirtualAddress() + position, insn);
+            instructions++;
+        }
+        return new SectionIndex(section, Arrays.copyOf(pageStarts, pages), instructions);
+    }
+
+    /**
+     * Декодирует страницу секции в текст: адрес, байты и инструкция в каждой строке
+     */
+    public String renderPage(SectionIndex index, int page) {
+        ExecutableImage.Section section = index.section;
+        long start = index.pageStarts[page];
+        long end = page + 1 < index.pageStarts.length ? index.pageStarts[page + 1] : section.getSize();
+        byte[] code = new byte[(int) (end - start)];
+        int length = image.getFile().read(section.getFileOffset() + start, code, 0, code.length);
+        int addressDigits = section.getVirtualAddress() + section.getSize() > 0xFFFFFFFFL ? 16 : 8;
+        X86Decoder.Instruction insn = new X86Decoder.Instruction();
+        StringBuilder out = new StringBuilder(length * 12);
+        int position = 0;
+        while (position < length) {
+            long address = section.getVirtualAddress() + start + position;
+            int size = decoder.decode(code, position, length, address, insn);
+            for (int shift = (addressDigits - 1) * 4; shift >= 0; shift -= 4) {
+                out.append(DIGITS[(int) (address >>> shift) & 0xF]);
+            }
+            out.append("  ");
+            for (int i = 0; i < MAX_BYTES_SHOWN; i++) {
+                if (i < size) {
+                    int value = code[position + i] & 0xFF;
+                    out.append(DIGITS[value >>> 4]).append(DIGITS[value & 0xF]).append(i == MAX_BYTES_SHOWN - 1 && size > MAX_BYTES_SHOWN ? '+' : ' ');
+                } else {
+                    out.append("   ");
+                }
+            }
+            out.append(' ');
+            decoder.format(insn, out);
+            out.append('\n');
+            position += size;
+        }
+        return out.toString();
+    }
+}
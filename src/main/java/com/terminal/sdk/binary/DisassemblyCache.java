@@ -0,0 +1,95 @@
+package com.terminal.sdk.binary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * LRU-кэш результатов дизассемблирования.
+ * Хранит индексы секций для нескольких последних файлов и декодированный текст
+ * недавно показанных страниц, поэтому повторный просмотр и листание больших
+ * файлов не декодируют код заново. Ключ включает размер и время изменения
+ * файла, так что измененный файл индексируется снова.
+ */
+public class DisassemblyCache {
+    private static final int DEFAULT_MAX_PAGES = 256;
+    private static final int MAX_FILES = 8;
+
+    private static DisassemblyCache instance;
+    private final int maxPages;
+    private final Map<String, List<Disassembler.SectionIndex>> indexes;
+    private final Map<String, String> pages;
+
+    private DisassemblyCache() {
+        this.maxPages = Math.max(1, UserSettings.getInstance().getInt("disasm-cache-pages", DEFAULT_MAX_PAGES));
+        this.indexes = new LinkedHashMap<String, List<Disassembler.SectionIndex>>(MAX_FILES * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Disassembler.SectionIndex>> eldest) {
+                return size() > MAX_FILES;
+            }
+        };
+        this.pages = new LinkedHashMap<String, String>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public static synchronized DisassemblyCache getInstance() {
+        if (instance == null) {
+            instance = new DisassemblyCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает индексы секций файла, при отсутствии в кэше строит их
+     *
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public List<Disassembler.SectionIndex> getIndexes(Disassembler disassembler) throws IOException, InterruptedException {
+        String key = fileKey(disassembler.getImage().getFile());
+        synchronized (indexes) {
+            List<Disassembler.SectionIndex> cached = indexes.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<Disassembler.SectionIndex> built = disassembler.indexAll();
+        synchronized (indexes) {
+            indexes.put(key, built);
+        }
+        return built;
+    }
+
+    /**
+     * Возвращает текст страницы секции, декодируя ее при промахе
+     */
+    public String getPage(Disassembler disassembler, Disassembler.SectionIndex index, int page) throws IOException {
+        ExecutableImage.Section section = index.getSection();
+        String key = fileKey(disassembler.getImage().getFile()) + '|' + section.getName()
+            + '@' + section.getFileOffset() + '|' + page;
+        synchronized (pages) {
+            String cached = pages.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String text = disassembler.renderPage(index, page);
+        synchronized (pages) {
+            pages.put(key, text);
+        }
+        return text;
+    }
+
+    private static String fileKey(MappedFile file) throws IOException {
+        Path path = file.getPath().toAbsolutePath().normalize();
+        return path + "|" + file.size() + "|" + Files.getLastModifiedTime(path).toMillis();
+    }
+}
@@ -0,0 +1,331 @@
+package com.terminal.sdk.binary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Заголовки ELF и PE поверх отображенного файла.
+ * При открытии читается только заголовок файла; таблица секций разбирается при
+ * первом обращении. Файл без известной сигнатуры представляется одной секцией
+ * "raw" с началом по нулевому адресу.
+ */
+public final class ExecutableImage {
+    private static final int SHT_NOBITS = 8;
+    private static final long SHF_EXECINSTR = 0x4;
+    private static final int PT_LOAD = 1;
+    private static final int PF_X = 1;
+    private static final long IMAGE_SCN_CNT_CODE = 0x20;
+    private static final long IMAGE_SCN_MEM_EXECUTE = 0x20000000L;
+    private static final int MAX_SECTIONS = 65535;
+
+    public enum Format {
+        ELF, PE, RAW
+    }
+
+    /**
+     * Секция исполняемого файла. Размер - число байт секции в файле.
+     */
+    public static final class Section {
+        private final String name;
+        private final long virtualAddress;
+        private final long fileOffset;
+        private final long size;
+        private final boolean executable;
+
+        Section(String name, long virtualAddress, long fileOffset, long size, boolean executable) {
+            this.name = name;
+            this.virtualAddress = virtualAddress;
+            this.fileOffset = fileOffset;
+            this.size = size;
+            this.executable = executable;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getVirtualAddress() {
+            return virtualAddress;
+        }
+
+        public long getFileOffset() {
+            return fileOffset;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isExecutable() {
+            return executable;
+        }
+
+        public boolean containsAddress(long address) {
+            return address >= virtualAddress && address - virtualAddress < size;
+        }
+    }
+
+    private final MappedFile file;
+    private final Format format;
+    private final boolean wide;
+    private final boolean bigEndian;
+    private final int machine;
+    private final long entryPoint;
+    private final long imageBase;
+    private final long headerOffset;
+    private List<Section> sections;
+
+    private ExecutableImage(MappedFile file, Format format, boolean wide, boolean bigEndian, int machine,
+            long entryPoint, long imageBase, long headerOffset) {
+        this.file = file;
+        this.format = format;
+        this.wide = wide;
+        this.bigEndian = bigEndian;
+        this.machine = machine;
+        this.entryPoint = entryPoint;
+        this.imageBase = imageBase;
+        this.headerOffset = headerOffset;
+    }
+
+    /**
+     * Определяет формат и читает заголовок файла
+     *
+     * @throws IOException если заголовок ELF или PE поврежден
+     */
+    public static ExecutableImage open(MappedFile file) throws IOException {
+        try {
+            return readHeader(file);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Заголовок исполняемого файла выходит за пределы файла");
+        }
+    }
+
+    private static ExecutableImage readHeader(MappedFile file) {
+        long size = file.size();
+        if (size >= 0x40 && file.get(0) == 0x7F && file.get(1) == 'E' && file.get(2) == 'L' && file.get(3) == 'F') {
+            boolean wide = file.get(4) == 2;
+            boolean bigEndian = file.get(5) == 2;
+            ExecutableImage probe = new ExecutableImage(file, Format.ELF, wide, bigEndian, 0, 0, 0, 0);
+            int machine = probe.u16(0x12);
+            long entry = wide ? probe.u64(0x18) : probe.u32(0x18);
+            return new ExecutableImage(file, Format.ELF, wide, bigEndian, machine, entry, 0, 0);
+        }
+        if (size >= 0x40 && file.get(0) == 'M' && file.get(1) == 'Z') {
+            ExecutableImage probe = new ExecutableImage(file, Format.PE, false, false, 0, 0, 0, 0);
+            long pe = probe.u32(0x3C);
+            if (pe + 24 <= size && probe.u32(pe) == 0x00004550L) {
+                int machine = probe.u16(pe + 4);
+                long optional = pe + 24;
+                boolean wide = probe.u16(optional) == 0x20B;
+                long imageBase = wide ? probe.u64(optional + 24) : probe.u32(optional + 28);
+                long entry = imageBase + probe.u32(optional + 16);
+                return new ExecutableImage(file, Format.PE, wide, false, machine, entry, imageBase, pe);
+            }
+        }
+        return new ExecutableImage(file, Format.RAW, false, false, 0, 0, 0, 0);
+    }
+
+    public MappedFile getFile() {
+        return file;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getEntryPoint() {
+        return entryPoint;
+    }
+
+    public long getImageBase() {
+        return imageBase;
+    }
+
+    /**
+     * Разрядность кода x86 для декодера: 32, 64 или 0 для других архитектур
+     */
+    public int getCodeBits() {
+        if (format == Format.RAW) {
+            return 32;
+        }
+        if (format == Format.ELF) {
+            return machine == 0x3E ? 64 : machine == 0x03 ? 32 : 0;
+        }
+        return machine == 0x8664 ? 64 : machine == 0x14C ? 32 : 0;
+    }
+
+    public String getMachineName() {
+        if (format == Format.RAW) {
+            return "неизвестно";
+        }
+        int bits = getCodeBits();
+        if (bits == 64) {
+            return "x86-64";
+        }
+        if (bits == 32) {
+            return "x86";
+        }
+        switch (machine) {
+            case 0x28:
+            case 0x1C0:
+                return "ARM";
+            case 0xB7:
+            case 0xAA64:
+                return "AArch64";
+            case 0xF3:
+                return "RISC-V";
+            default:
+                return String.format("0x%X", machine);
+        }
+    }
+
+    /**
+     * Возвращает секции, разбирая таблицу секций при первом вызове
+     */
+    public synchronized List<Section> getSections() throws IOException {
+        if (sections == null) {
+            try {
+                sections = Collections.unmodifiableList(format == Format.ELF ? readElfSections()
+                    : format == Format.PE ? readPeSections()
+                    : Collections.singletonList(new Section("raw", 0, 0, file.size(), true)));
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Таблица секций выходит за пределы файла");
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Возвращает секцию с кодом, содержащую адрес, или null
+     */
+    public Section findSection(long address) throws IOException {
+        for (Section section : getSections()) {
+            if (section.isExecutable() && section.containsAddress(address)) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    private List<Section> readElfSections() throws IOException {
+        long sectionTable = wide ? u64(0x28) : u32(0x20);
+        int entrySize = u16(wide ? 0x3A : 0x2E);
+        int count = u16(wide ? 0x3C : 0x30);
+        int namesIndex = u16(wide ? 0x3E : 0x32);
+        if (sectionTable == 0 || count == 0) {
+            return readElfSegments();
+        }
+        checkTable(sectionTable, entrySize, count);
+        long namesOffset = 0;
+        if (namesIndex < count) {
+            long header = sectionTable + (long) namesIndex * entrySize;
+            namesOffset = wide ? u64(header + 0x18) : u32(header + 0x10);
+        }
+        List<Section> result = new ArrayList<>(count);
+        for (int i = 1; i < count; i++) {
+            long header = sectionTable + (long) i * entrySize;
+            long type = u32(header + 4);
+            long flags = wide ? u64(header + 8) : u32(header + 8);
+            long address = wide ? u64(header + 0x10) : u32(header + 0x0C);
+            long offset = wide ? u64(header + 0x18) : u32(header + 0x10);
+            long size = wide ? u64(header + 0x20) : u32(header + 0x14);
+            if (type == SHT_NOBITS || offset >= file.size()) {
+                size = 0;
+            }
+            String name = namesOffset > 0 ? cString(namesOffset + u32(header), 64) : "#" + i;
+            result.add(new Section(name, address, offset, Math.min(size, file.size() - offset),
+                (flags & SHF_EXECINSTR) != 0));
+        }
+        return result;
+    }
+
+    /**
+     * Файл без таблицы секций: берутся загружаемые сегменты из заголовков программы
+     */
+    private List<Section> readElfSegments() throws IOException {
+        long table = wide ? u64(0x20) : u32(0x1C);
+        int entrySize = u16(wide ? 0x36 : 0x2A);
+        int count = u16(wide ? 0x38 : 0x2C);
+        List<Section> result = new ArrayList<>();
+        if (table == 0 || count == 0) {
+            return result;
+        }
+        checkTable(table, entrySize, count);
+        for (int i = 0; i < count; i++) {
+            long header = table + (long) i * entrySize;
+            if (u32(header) != PT_LOAD) {
+                continue;
+            }
+            long flags = wide ? u32(header + 4) : u32(header + 0x18);
+            long offset = wide ? u64(header + 8) : u32(header + 4);
+            long address = wide ? u64(header + 0x10) : u32(header + 8);
+            long size = wide ? u64(header + 0x20) : u32(header + 0x10);
+            if (offset < file.size()) {
+                result.add(new Section("LOAD#" + i, address, offset, Math.min(size, file.size() - offset),
+                    (flags & PF_X) != 0));
+            }
+        }
+        return result;
+    }
+
+    private List<Section> readPeSections() throws IOException {
+        int count = u16(headerOffset + 6);
+        int optionalSize = u16(headerOffset + 20);
+        long table = headerOffset + 24 + optionalSize;
+        checkTable(table, 40, count);
+        List<Section> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long header = table + 40L * i;
+            String name = cString(header, 8);
+            long virtualSize = u32(header + 8);
+            long address = u32(header + 12);
+            long rawSize = u32(header + 16);
+            long offset = u32(header + 20);
+            long characteristics = u32(header + 36);
+            long size = virtualSize > 0 ? Math.min(virtualSize, rawSize) : rawSize;
+            if (offset >= file.size()) {
+                size = 0;
+            }
+            result.add(new Section(name, imageBase + address, offset, Math.min(size, file.size() - offset),
+                (characteristics & (IMAGE_SCN_CNT_CODE | IMAGE_SCN_MEM_EXECUTE)) != 0));
+        }
+        return result;
+    }
+
+    private void checkTable(long offset, int entrySize, int count) throws IOException {
+        if (count > MAX_SECTIONS || entrySize <= 0 || offset < 0 || offset + (long) entrySize * count > file.size()) {
+            throw new IOException("Таблица секций выходит за пределы файла");
+        }
+    }
+
+    private String cString(long offset, int maxLength) {
+        byte[] bytes = new byte[maxLength];
+        int read = file.read(offset, bytes, 0, maxLength);
+        int length = 0;
+        while (length < read && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private int u16(long offset) {
+        int b0 = file.get(offset) & 0xFF;
+        int b1 = file.get(offset + 1) & 0xFF;
+        return bigEndian ? b0 << 8 | b1 : b1 << 8 | b0;
+    }
+
+    private long u32(long offset) {
+        long b0 = u16(offset);
+        long b1 = u16(offset + 2);
+        return bigEndian ? b0 << 16 | b1 : b1 << 16 | b0;
+    }
+
+    private long u64(long offset) {
+        long b0 = u32(offset);
+        long b1 = u32(offset + 4);
+        return bigEndian ? b0 << 32 | b1 : b1 << 32 | b0;
+    }
+}
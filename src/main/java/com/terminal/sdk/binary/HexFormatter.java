@@ -0,0 +1,79 @@
+package com.terminal.sdk.binary;
+
+/**
+ * Форматирование шестнадцатеричного дампа страницами.
+ * Пары шестнадцатеричных цифр и ASCII-представление всех 256 значений байта
+ * подготовлены заранее, строка собирается в переиспользуемом char[] без String.format.
+ * Экземпляр не потокобезопасен.
+ */
+public final class HexFormatter {
+    public static final int BYTES_PER_LINE = 16;
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] HEX = new char[256 * 2];
+    private static final char[] ASCII = new char[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX[i * 2] = DIGITS[i >>> 4];
+            HEX[i * 2 + 1] = DIGITS[i & 0xF];
+            ASCII[i] = i >= 32 && i < 127 ? (char) i : '.';
+        }
+    }
+
+    private final int offsetDigits;
+    private final char[] line;
+    private final byte[] bytes = new byte[BYTES_PER_LINE];
+
+    /**
+     * @param fileSize размер файла; от него зависит ширина столбца смещений
+     */
+    public HexFormatter(long fileSize) {
+        this.offsetDigits = fileSize > 0xFFFFFFFFL ? 12 : 8;
+        // смещение, 2 пробела, 16 * "XX ", 2 пробела, |ascii|
+        this.line = new char[offsetDigits + 2 + BYTES_PER_LINE * 3 + 2 + BYTES_PER_LINE + 2];
+    }
+
+    /**
+     * Дописывает в out строки дампа для диапазона [offset, offset + length)
+     *
+     * @return число показанных байт
+     */
+    public long render(MappedFile file, long offset, long length, StringBuilder out) {
+        long end = Math.min(file.size(), offset + length);
+        long position = offset;
+        while (position < end) {
+            int count = file.read(position, bytes, 0, (int) Math.min(BYTES_PER_LINE, end - position));
+            out.append(line, 0, formatLine(position, count)).append('\n');
+            position += count;
+        }
+        return position - offset;
+    }
+
+    private int formatLine(long offset, int count) {
+        int p = 0;
+        for (int shift = (offsetDigits - 1) * 4; shift >= 0; shift -= 4) {
+            line[p++] = DIGITS[(int) (offset >>> shift) & 0xF];
+        }
+        line[p++] = ' ';
+        line[p++] = ' ';
+        int asciiStart = p + BYTES_PER_LINE * 3 + 3;
+        line[asciiStart - 3] = ' ';
+        line[asciiStart - 2] = ' ';
+        line[asciiStart - 1] = '|';
+        for (int i = 0; i < BYTES_PER_LINE; i++) {
+            if (i < count) {
+                int value = bytes[i] & 0xFF;
+                line[p++] = HEX[value * 2];
+                line[p++] = HEX[value * 2 + 1];
+                line[asciiStart + i] = ASCII[value];
+            } else {
+                line[p++] = ' ';
+                line[p++] = ' ';
+                line[asciiStart + i] = ' ';
+            }
+            line[p++] = ' ';
+        }
+        line[asciiStart + BYTES_PER_LINE] = '|';
+        return asciiStart + BYTES_PER_LINE + 1;
+    }
+}
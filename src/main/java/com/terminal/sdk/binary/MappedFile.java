@@ -0,0 +1,86 @@
+package com.terminal.sdk.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Файл, отображенный в память только для чтения.
+ * Отображение делится на сегменты по 1 ГБ, поэтому размер файла не ограничен
+ * int-индексами буфера и не занимает кучу. Методы чтения потокобезопасны:
+ * используются только абсолютные позиции.
+ */
+public final class MappedFile implements Closeable {
+    public static final int SEGMENT_SHIFT = 30;
+    public static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedFile(Path path, FileChannel channel, MappedByteBuffer[] segments, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static MappedFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return new MappedFile(path, channel, segments, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Копирует байты начиная с позиции, в том числе через границу сегментов
+     *
+     * @return число скопированных байт, меньше length у конца файла
+     */
+    public int read(long position, byte[] target, int offset, int length) {
+        int copied = 0;
+        while (copied < length && position < size) {
+            MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            int index = (int) (position & SEGMENT_MASK);
+            int count = Math.min(length - copied, segment.limit() - index);
+            ByteBuffer view = segment.duplicate();
+            view.position(index);
+            view.get(target, offset + copied, count);
+            copied += count;
+            position += count;
+        }
+        return copied;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
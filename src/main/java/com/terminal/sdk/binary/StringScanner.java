@@ -0,0 +1,235 @@
+package com.terminal.sdk.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Поиск строк ASCII и UTF-16LE в отображенном файле за один проход.
+ * Файл делится на блоки, которые сканируются параллельно в пуле "binary"
+ * {@link WorkerPools}. Строка принадлежит блоку, в котором начинается, и дочитывается
+ * за его границей; продолжение строки из предыдущего блока пропускается.
+ * UTF-16 строки ищутся на четных и нечетных смещениях одновременно.
+ * Каждый блок хранит не больше limit найденных строк, поэтому память ограничена
+ * и на файлах с миллионами строк.
+ */
+public class StringScanner {
+    private static final long CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final int ASCII = 0;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[(int) CHUNK_SIZE]);
+
+    private final int minLength;
+    private final int maxLength;
+    private final long limit;
+    private volatile boolean cancelled;
+
+    public enum Encoding {
+        ASCII, UTF16LE
+    }
+
+    public static final class Match {
+        private final long offset;
+        private final Encoding encoding;
+        private final int length;
+        private final String text;
+
+        Match(long offset, Encoding encoding, int length, String text) {
+            this.offset = offset;
+            this.encoding = encoding;
+            this.length = length;
+            this.text = text;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public Encoding getEncoding() {
+            return encoding;
+        }
+
+        /** Полная длина строки в символах; текст может быть обрезан до maxLength */
+        public int getLength() {
+            return length;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * Получатель найденных строк в порядке смещений. Вызывается в потоке, запустившем поиск.
+     */
+    public interface Listener {
+        void onString(Match match);
+    }
+
+    /**
+     * @param minLength минимальная длина строки в символах
+     * @param maxLength длина, до которой обрезается текст длинных строк
+     * @param limit     максимальное число строк
+     */
+    public StringScanner(int minLength, int maxLength, long limit) {
+        this.minLength = Math.max(1, minLength);
+        this.maxLength = Math.max(this.minLength, maxLength);
+        this.limit = Math.max(1, limit);
+    }
+
+    /**
+     * Сканирует файл
+     *
+     * @return число переданных строк
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public long scan(MappedFile file, Listener listener) throws InterruptedException {
+        long chunks = (file.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        ForkJoinPool pool = WorkerPools.get("binary");
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<List<Match>>> inFlight = new ArrayDeque<>(window);
+        long next = 0;
+        long delivered = 0;
+        cancelled = false;
+        try {
+            while (!inFlight.isEmpty() || next < chunks) {
+                while (next < chunks && inFlight.size() < window) {
+                    long from = next++ * CHUNK_SIZE;
+                    inFlight.addLast(pool.submit(() -> scanChunk(file, from, Math.min(from + CHUNK_SIZE, file.size()))));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                List<Match> matches;
+                try {
+                    matches = inFlight.peekFirst().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+                }
+                inFlight.removeFirst();
+                for (Match match : matches) {
+                    listener.onString(match);
+                    if (++delivered >= limit) {
+                        return delivered;
+                    }
+                }
+            }
+            return delivered;
+        } finally {
+            if (!inFlight.isEmpty()) {
+                cancelled = true;
+                for (ForkJoinTask<List<Match>> task : inFlight) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сканирует блок [from, to); строки, начатые в блоке, дочитываются за его концом
+     */
+    private List<Match> scanChunk(MappedFile file, long from, long to) {
+        List<Match> matches = new ArrayList<>();
+        long size = file.size();
+        // 0 - ASCII, 1 и 2 - UTF-16LE на четных и нечетных смещениях
+        long[] start = {-1, -1, -1};
+        boolean[] inherited = new boolean[3];
+        inherited[ASCII] = from > 0 && isPrintable(file.get(from - 1));
+        // Символ [from - 2, from - 1] продолжается символом [from, from + 1] той же четности
+        inherited[1 + (int) (from & 1)] = from >= 2
+            && isUtf16Printable(file.get(from - 2) & 0xFF, file.get(from - 1) & 0xFF);
+        int previous = from > 0 ? file.get(from - 1) & 0xFF : -1;
+        // Блок копируется в буфер потока целиком; хвост строки за границей читается из отображения
+        byte[] buffer = BUFFERS.get();
+        int buffered = file.read(from, buffer, 0, (int) (to - from));
+        long position = from;
+        for (; position < size; position++) {
+            if (position > to && start[0] < 0 && start[1] < 0 && start[2] < 0) {
+                break;
+            }
+            if (cancelled || matches.size() >= limit) {
+                return matches;
+            }
+            long index = position - from;
+            int current = (index < buffered ? buffer[(int) index] : file.get(position)) & 0xFF;
+
+            if (isPrintable((byte) current)) {
+                if (start[ASCII] < 0 && !inherited[ASCII] && position < to) {
+                    start[ASCII] = position;
+                }
+            } else {
+                close(file, matches, start, ASCII, position);
+                inherited[ASCII] = false;
+            }
+
+            if (previous >= 0) {
+                // Символ UTF-16LE из байтов [position - 1, position]
+                long unitStart = position - 1;
+                int machine = 1 + (int) (unitStart & 1);
+                if (isUtf16Printable(previous, current)) {
+                    if (start[machine] < 0 && !inherited[machine]) {
+                        if (unitStart < from) {
+                            inherited[machine] = true;
+                        } else if (unitStart < to) {
+                            start[machine] = unitStart;
+                        }
+                    }
+                } else {
+                    close(file, matches, start, machine, unitStart);
+                    inherited[machine] = false;
+                }
+            }
+            previous = current;
+        }
+        if (position >= size && !cancelled) {
+            close(file, matches, start, ASCII, size);
+            close(file, matches, start, 1, closeBoundary(start[1], size));
+            close(file, matches, start, 2, closeBoundary(start[2], size));
+        }
+        matches.sort((a, b) -> Long.compare(a.offset, b.offset));
+        return matches;
+    }
+
+    /**
+     * Конец UTF-16 строки у конца файла: последний неполный байт в нее не входит
+     */
+    private static long closeBoundary(long start, long size) {
+        return start < 0 ? size : start + ((size - start) & ~1L);
+    }
+
+    private void close(MappedFile file, List<Match> matches, long[] start, int machine, long end) {
+        long begin = start[machine];
+        if (begin < 0) {
+            return;
+        }
+        start[machine] = -1;
+        boolean ascii = machine == ASCII;
+        long length = ascii ? end - begin : (end - begin) / 2;
+        if (length < minLength || matches.size() >= limit) {
+            return;
+        }
+        int shown = (int) Math.min(length, maxLength);
+        byte[] bytes = new byte[ascii ? shown : shown * 2];
+        file.read(begin, bytes, 0, bytes.length);
+        String text = new String(bytes, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16LE);
+        matches.add(new Match(begin, ascii ? Encoding.ASCII : Encoding.UTF16LE,
+            (int) Math.min(length, Integer.MAX_VALUE), text));
+    }
+
+    private static boolean isPrintable(byte b) {
+        return b >= 32 && b < 127 || b == '\t';
+    }
+
+    /**
+     * Печатный символ ASCII или кириллицы (U+0400-U+045F)
+     */
+    private static boolean isUtf16Printable(int low, int high) {
+        return high == 0 ? low >= 32 && low < 127 : high == 0x04 && low <= 0x5F;
+    }
+}
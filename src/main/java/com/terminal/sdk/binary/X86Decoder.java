@@ -0,0 +1,1294 @@
+package com.terminal.sdk.binary;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Табличный декодер x86 и x86-64 (синтаксис Intel).
+ * Карты кодов операций описаны строками вида "8B mov Gv,Ev" и один раз разбираются
+ * в таблицы; декодирование только заполняет переиспользуемую {@link Instruction}
+ * и вычисляет длину, текст строится отдельно в {@link #format}. Поддерживаются
+ * префиксы, REX, VEX/EVEX (по длине), ModRM/SIB, x87, основные SSE/AVX, FMA и BMI.
+ * Неизвестный байт декодируется как DB длиной 1; неизвестные коды карт 0F38 и 0F3A
+ * получают свою длину по ModRM и выводятся как (BAD).
+ */
+public final class X86Decoder {
+    public static final int MAX_LENGTH = 15;
+
+    // Типы операндов в обозначениях карт кодов Intel
+    private static final int EB = 1;
+    private static final int EW = 2;
+    private static final int EV = 3;
+    private static final int ED = 4;
+    private static final int EY = 5;
+    private static final int GB = 6;
+    private static final int GW = 7;
+    private static final int GV = 8;
+    private static final int GD = 9;
+    private static final int GY = 10;
+    private static final int IB = 11;
+    private static final int IBS = 12;
+    private static final int IW = 13;
+    private static final int IZ = 14;
+    private static final int IV = 15;
+    private static final int JB = 16;
+    private static final int JZ = 17;
+    private static final int M = 18;
+    private static final int ZB = 19;
+    private static final int ZV = 20;
+    private static final int AL = 21;
+    private static final int CL = 22;
+    private static final int DX = 23;
+    private static final int RAX = 24;
+    private static final int ONE = 25;
+    private static final int OB = 26;
+    private static final int OV = 27;
+    private static final int SW = 28;
+    private static final int AP = 29;
+    private static final int VX = 30;
+    private static final int WX = 31;
+    private static final int PQ = 32;
+    private static final int QQ = 33;
+    private static final int RY = 34;
+    private static final int CD = 35;
+    private static final int DD = 36;
+    private static final int SEG = 37;
+    /** Регистр общего назначения из поля VEX.vvvv */
+    private static final int BY = 38;
+
+    private static final int F_INVALID64 = 1;
+    private static final int F_DEFAULT64 = 2;
+    private static final int F_GROUP = 4;
+    private static final int F_SSE = 8;
+    private static final int F_STRING8 = 16;
+    private static final int F_STRINGV = 32;
+    private static final int F_X87 = 64;
+    /** Код есть только в кодировке VEX/EVEX */
+    private static final int F_VEX_ONLY = 128;
+    /** Целочисленная инструкция VEX: имя пишется полностью, без приставки V */
+    private static final int F_VEX_INT = 256;
+    /** Свободный код карты 0F38/0F3A: длина известна, инструкции нет */
+    private static final int F_BAD = 512;
+    /** FMA: суффикс PS/PD/SS/SD выбирается по VEX.W */
+    private static final int F_FMA = 1024;
+
+    private static final Map<String, Integer> OPERAND_CODES = new HashMap<>();
+    private static final String[] SEGMENTS = {"ES", "CS", "SS", "DS", "FS", "GS"};
+    private static final String[] CONDITIONS = {"o", "no", "b", "ae", "e", "ne", "be", "a",
+        "s", "ns", "p", "np", "l", "ge", "le", "g"};
+    private static final String[] ALU = {"add", "or", "adc", "sbb", "and", "sub", "xor", "cmp"};
+
+    private static final String[] REG8 = {"AL", "CL", "DL", "BL", "AH", "CH", "DH", "BH"};
+    private static final String[] REG8_REX = {"AL", "CL", "DL", "BL", "SPL", "BPL", "SIL", "DIL",
+        "R8B", "R9B", "R10B", "R11B", "R12B", "R13B", "R14B", "R15B"};
+    private static final String[] REG16 = {"AX", "CX", "DX", "BX", "SP", "BP", "SI", "DI",
+        "R8W", "R9W", "R10W", "R11W", "R12W", "R13W", "R14W", "R15W"};
+    private static final String[] REG32 = {"EAX", "ECX", "EDX", "EBX", "ESP", "EBP", "ESI", "EDI",
+        "R8D", "R9D", "R10D", "R11D", "R12D", "R13D", "R14D", "R15D"};
+    private static final String[] REG64 = {"RAX", "RCX", "RDX", "RBX", "RSP", "RBP", "RSI", "RDI",
+        "R8", "R9", "R10", "R11", "R12", "R13", "R14", "R15"};
+    private static final String[] MEM16 = {"BX+SI", "BX+DI", "BP+SI", "BP+DI", "SI", "DI", "BP", "BX"};
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final String[] VECTORS = {"XMM", "YMM", "ZMM"};
+    private static final String[] VECTOR_SIZES = {"XMMWORD PTR ", "YMMWORD PTR ", "ZMMWORD PTR "};
+
+    private static final String[][] GROUPS = {
+        {"add", "or", "adc", "sbb", "and", "sub", "xor", "cmp"},
+        {"pop", null, null, null, null, null, null, null},
+        {"rol", "ror", "rcl", "rcr", "shl", "shr", "sal", "sar"},
+        {"test", "test", "not", "neg", "mul", "imul", "div", "idiv"},
+        {"inc", "dec", null, null, null, null, null, null},
+        {"inc", "dec", "call", "callf", "jmp", "jmpf", "push", null},
+        {"mov", null, null, null, null, null, null, null},
+        {"sldt", "str", "lldt", "ltr", "verr", "verw", null, null},
+        {"sgdt", "sidt", "lgdt", "lidt", "smsw", null, "lmsw", "invlpg"},
+        {null, null, null, null, "bt", "bts", "btr", "btc"},
+        {null, "cmpxchg8b", null, null, null, null, "rdrand", "rdseed"},
+        {null, null, "psrlw", null, "psraw", null, "psllw", null},
+        {null, null, "psrld", null, "psrad", null, "pslld", null},
+        {null, null, "psrlq", "psrldq", null, null, "psllq", "pslldq"},
+        {"fxsave", "fxrstor", "ldmxcsr", "stmxcsr", "xsave", "xrstor", "xsaveopt", "clflush"},
+        {"prefetchnta", "prefetcht0", "prefetcht1", "prefetcht2", "nop", "nop", "nop", "nop"},
+        {null, "blsr", "blsmsk", "blsi", null, null, null, null},
+    };
+    private static final int G1 = 0;
+    private static final int G1A = 1;
+    private static final int G2 = 2;
+    private static final int G3 = 3;
+    private static final int G4 = 4;
+    private static final int G5 = 5;
+    private static final int G11 = 6;
+    private static final int G6 = 7;
+    private static final int G7 = 8;
+    private static final int G8 = 9;
+    private static final int G9 = 10;
+    private static final int G15 = 14;
+    private static final int G17 = 16;
+    /**
+     * Флаги отдельных кодов внутри группы. В группе 5 ближние CALL, JMP и PUSH
+     * в 64-битном режиме работают с 64-битным операндом, а INC и DEC - нет.
+     */
+    private static final int[][] GROUP_FLAGS = new int[GROUPS.length][8];
+
+    private static final String[][] X87_MEMORY = {
+        {"fadd", "fmul", "fcom", "fcomp", "fsub", "fsubr", "fdiv", "fdivr"},
+        {"fld", null, "fst", "fstp", "fldenv", "fldcw", "fnstenv", "fnstcw"},
+        {"fiadd", "fimul", "ficom", "ficomp", "fisub", "fisubr", "fidiv", "fidivr"},
+        {"fild", "fisttp", "fist", "fistp", null, "fld", null, "fstp"},
+        {"fadd", "fmul", "fcom", "fcomp", "fsub", "fsubr", "fdiv", "fdivr"},
+        {"fld", "fisttp", "fst", "fstp", "frstor", null, "fnsave", "fnstsw"},
+        {"fiadd", "fimul", "ficom", "ficomp", "fisub", "fisubr", "fidiv", "fidivr"},
+        {"fild", "fisttp", "fist", "fistp", "fbld", "fild", "fbstp", "fistp"},
+    };
+    private static final String[][] X87_REGISTER = {
+        {"fadd", "fmul", "fcom", "fcomp", "fsub", "fsubr", "fdiv", "fdivr"},
+        {"fld", "fxch", null, null, null, null, null, null},
+        {"fcmovb", "fcmove", "fcmovbe", "fcmovu", null, null, null, null},
+        {"fcmovnb", "fcmovne", "fcmovnbe", "fcmovnu", null, "fucomi", "fcomi", null},
+        {"fadd", "fmul", "fcom", "fcomp", "fsubr", "fsub", "fdivr", "fdiv"},
+        {"ffree", null, "fst", "fstp", "fucom", "fucomp", null, null},
+        {"faddp", "fmulp", null, null, "fsubrp", "fsubp", "fdivrp", "fdivp"},
+        {null, null, null, null, null, "fucomip", "fcomip", null},
+    };
+    private static final String[] X87_D9 = {
+        "fchs", "fabs", null, null, "ftst", "fxam", null, null,
+        "fld1", "fldl2t", "fldl2e", "fldpi", "fldlg2", "fldln2", "fldz", null,
+        "f2xm1", "fyl2x", "fptan", "fpatan", "fxtract", "fprem1", "fdecstp", "fincstp",
+        "fprem", "fyl2xp1", "fsqrt", "fsincos", "frndint", "fscale", "fsin", "fcos"};
+
+    private static final Opcode[] ONE_BYTE = new Opcode[256];
+    private static final Opcode[] TWO_BYTE = new Opcode[256];
+    private static final Opcode[] THREE_38 = new Opcode[256];
+    private static final Opcode[] THREE_3A = new Opcode[256];
+    /** Варианты двухбайтовых кодов с обязательным префиксом: ключ (префикс << 8) | код */
+    private static final Map<Integer, Opcode> PREFIXED = new HashMap<>();
+    /** Коды, существующие только в VEX: ключ (карта << 16) | (префикс << 8) | код */
+    private static final Map<Integer, Opcode> VEX_CODES = new HashMap<>();
+    private static final Opcode MOVSXD;
+    private static final Opcode X87 = new Opcode("", new int[0], null, true, F_X87);
+
+    private static final class Opcode {
+        final String name;
+        final int[] operands;
+        final String[] literals;
+        final boolean modrm;
+        final int flags;
+        final int group;
+
+        Opcode(String name, int[] operands, String[] literals, boolean modrm, int flags) {
+            this.flags = flags;
+            this.operands = operands;
+            this.literals = literals;
+            this.modrm = modrm;
+            if (name.startsWith("#")) {
+                this.group = Integer.parseInt(name.substring(1));
+                this.name = null;
+            } else {
+                this.group = -1;
+                this.name = name.toUpperCase(Locale.ROOT);
+            }
+        }
+
+        boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+
+    /**
+     * Результат декодирования одной инструкции. Переиспользуется между вызовами.
+     */
+    public static final class Instruction {
+        long address;
+        int length;
+        int firstByte;
+        Opcode opcode;
+        boolean operandPrefix;
+        boolean addressPrefix;
+        boolean lock;
+        int rep;
+        int segment;
+        int rex;
+        boolean vex;
+        int vexRegister;
+        /** Длина вектора VEX/EVEX: 0 - 128, 1 - 256, 2 - 512 бит */
+        int vectorLength;
+        int operandSize;
+        int addressSize;
+        int modrm;
+        int sib;
+        long displacement;
+        int displacementSize;
+        long immediate;
+        long immediate2;
+        int opcodeByte;
+
+        void reset(long address) {
+            this.address = address;
+            length = 1;
+            opcode = null;
+            operandPrefix = false;
+            addressPrefix = false;
+            lock = false;
+            rep = 0;
+            segment = 0;
+            rex = 0;
+            vex = false;
+            vexRegister = 0;
+            vectorLength = 0;
+            modrm = -1;
+            sib = -1;
+            displacement = 0;
+            displacementSize = 0;
+            immediate = 0;
+            immediate2 = 0;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public boolean isValid() {
+            return opcode != null;
+        }
+    }
+
+    /** Выход за границу кода: инструкция не помещается в буфер */
+    private static final class Truncated extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final Truncated TRUNCATED = new Truncated();
+
+    static {
+        String[] tokens = {"Eb", "Ew", "Ev", "Ed", "Ey", "Gb", "Gw", "Gv", "Gd", "Gy", "Ib", "Ibs", "Iw", "Iz", "Iv",
+            "Jb", "Jz", "M", "Zb", "Zv", "AL", "CL", "DX", "rAX", "1", "Ob", "Ov", "Sw", "Ap", "Vx", "Wx", "Pq", "Qq",
+            "Ry", "Cd", "Dd"};
+        for (int i = 0; i < tokens.length; i++) {
+            OPERAND_CODES.put(tokens[i], i + 1);
+        }
+        OPERAND_CODES.put("Mp", M);
+        OPERAND_CODES.put("Ux", WX);
+        OPERAND_CODES.put("Nq", QQ);
+        OPERAND_CODES.put("By", BY);
+        GROUP_FLAGS[G5][2] = F_DEFAULT64;
+        GROUP_FLAGS[G5][4] = F_DEFAULT64;
+        GROUP_FLAGS[G5][6] = F_DEFAULT64;
+        MOVSXD = parse("63 movsxd Gv,Ed");
+
+        for (int i = 0; i < 8; i++) {
+            int base = i * 8;
+            define(ONE_BYTE, base, ALU[i] + " Eb,Gb");
+            define(ONE_BYTE, base + 1, ALU[i] + " Ev,Gv");
+            define(ONE_BYTE, base + 2, ALU[i] + " Gb,Eb");
+            define(ONE_BYTE, base + 3, ALU[i] + " Gv,Ev");
+            define(ONE_BYTE, base + 4, ALU[i] + " AL,Ib");
+            define(ONE_BYTE, base + 5, ALU[i] + " rAX,Iz");
+            define(ONE_BYTE, 0x40 + i, "inc Zv !i64");
+            define(ONE_BYTE, 0x48 + i, "dec Zv !i64");
+            define(ONE_BYTE, 0x50 + i, "push Zv !d64");
+            define(ONE_BYTE, 0x58 + i, "pop Zv !d64");
+            define(ONE_BYTE, 0xB0 + i, "mov Zb,Ib");
+            define(ONE_BYTE, 0xB8 + i, "mov Zv,Iv");
+            define(ONE_BYTE, 0xD8 + i, null);
+            ONE_BYTE[0xD8 + i] = X87;
+            define(TWO_BYTE, 0xC8 + i, "bswap Zv");
+            if (i > 0) {
+                define(ONE_BYTE, 0x90 + i, "xchg Zv,rAX");
+            }
+        }
+        for (int cc = 0; cc < 16; cc++) {
+            define(ONE_BYTE, 0x70 + cc, "j" + CONDITIONS[cc] + " Jb");
+            define(TWO_BYTE, 0x80 + cc, "j" + CONDITIONS[cc] + " Jz !d64");
+            define(TWO_BYTE, 0x90 + cc, "set" + CONDITIONS[cc] + " Eb");
+            define(TWO_BYTE, 0x40 + cc, "cmov" + CONDITIONS[cc] + " Gv,Ev");
+        }
+        table(ONE_BYTE,
+            "06 push ES !i64", "07 pop ES !i64", "0E push CS !i64", "16 push SS !i64", "17 pop SS !i64",
+            "1E push DS !i64", "1F pop DS !i64", "27 daa - !i64", "2F das - !i64", "37 aaa - !i64", "3F aas - !i64",
+            "60 pusha - !i64", "61 popa - !i64", "62 bound Gv,M !i64", "63 arpl Ew,Gw",
+            "68 push Iz !d64", "69 imul Gv,Ev,Iz", "6A push Ibs !d64", "6B imul Gv,Ev,Ibs",
+            "6C ins - !s8", "6D ins - !sv", "6E outs - !s8", "6F outs - !sv",
+            "80 #0 Eb,Ib", "81 #0 Ev,Iz", "82 #0 Eb,Ib !i64", "83 #0 Ev,Ibs",
+            "84 test Eb,Gb", "85 test Ev,Gv", "86 xchg Eb,Gb", "87 xchg Ev,Gv",
+            "88 mov Eb,Gb", "89 mov Ev,Gv", "8A mov Gb,Eb", "8B mov Gv,Ev",
+            "8C mov Ev,Sw", "8D lea Gv,M", "8E mov Sw,Ew", "8F #1 Ev !d64",
+            "90 nop -", "98 cwde -", "99 cdq -", "9A callf Ap !i64", "9B fwait -",
+            "9C pushf - !d64", "9D popf - !d64", "9E sahf -", "9F lahf -",
+            "A0 mov AL,Ob", "A1 mov rAX,Ov", "A2 mov Ob,AL", "A3 mov Ov,rAX",
+            "A4 movs - !s8", "A5 movs - !sv", "A6 cmps - !s8", "A7 cmps - !sv", "A8 test AL,Ib", "A9 test rAX,Iz",
+            "AA stos - !s8", "AB stos - !sv", "AC lods - !s8", "AD lods - !sv", "AE scas - !s8", "AF scas - !sv",
+            "C0 #2 Eb,Ib", "C1 #2 Ev,Ib", "C2 ret Iw !d64", "C3 ret - !d64", "C4 les Gv,Mp !i64", "C5 lds Gv,Mp !i64",
+            "C6 #6 Eb,Ib", "C7 #6 Ev,Iz", "C8 enter Iw,Ib", "C9 leave - !d64", "CA retf Iw", "CB retf -",
+            "CC int3 -", "CD int Ib", "CE into - !i64", "CF iret -",
+            "D0 #2 Eb,1", "D1 #2 Ev,1", "D2 #2 Eb,CL", "D3 #2 Ev,CL", "D4 aam Ib !i64", "D5 aad Ib !i64",
+            "D6 salc - !i64", "D7 xlat -",
+            "E0 loopne Jb", "E1 loope Jb", "E2 loop Jb", "E3 jecxz Jb", "E4 in AL,Ib", "E5 in rAX,Ib",
+            "E6 out Ib,AL", "E7 out Ib,rAX", "E8 call Jz !d64", "E9 jmp Jz !d64", "EA jmpf Ap !i64", "EB jmp Jb",
+            "EC in AL,DX", "ED in rAX,DX", "EE out DX,AL", "EF out DX,rAX",
+            "F1 int1 -", "F4 hlt -", "F5 cmc -", "F6 #3 Eb", "F7 #3 Ev", "F8 clc -", "F9 stc -",
+            "FA cli -", "FB sti -", "FC cld -", "FD std -", "FE #4 Eb", "FF #5 Ev");
+        table(TWO_BYTE,
+            "00 #7 Ew", "01 #8 M", "02 lar Gv,Ew", "03 lsl Gv,Ew", "05 syscall -", "06 clts -", "07 sysret -",
+            "08 invd -", "09 wbinvd -", "0B ud2 -", "0D prefetchw M", "0E femms -", "0F 3dnow Pq,Qq,Ib",
+            "10 movups Vx,Wx !sse", "11 movups Wx,Vx !sse", "12 movlps Vx,Wx !sse", "13 movlps Wx,Vx !sse",
+            "14 unpcklps Vx,Wx !sse", "15 unpckhps Vx,Wx !sse", "16 movhps Vx,Wx !sse", "17 movhps Wx,Vx !sse",
+            "18 #15 M", "19 nop Ev", "1A nop Ev", "1B nop Ev", "1C nop Ev", "1D nop Ev", "1E nop Ev", "1F nop Ev",
+            "20 mov Ry,Cd", "21 mov Ry,Dd", "22 mov Cd,Ry", "23 mov Dd,Ry",
+            "28 movaps Vx,Wx !sse", "29 movaps Wx,Vx !sse", "2A cvtpi2ps Vx,Qq !sse", "2B movntps Wx,Vx !sse",
+            "2C cvttps2pi Pq,Wx !sse", "2D cvtps2pi Pq,Wx !sse", "2E ucomiss Vx,Wx !sse", "2F comiss Vx,Wx !sse",
+            "30 wrmsr -", "31 rdtsc -", "32 rdmsr -", "33 rdpmc -", "34 sysenter -", "35 sysexit -", "37 getsec -",
+            "50 movmskps Gd,Ux !sse", "51 sqrtps Vx,Wx !sse", "52 rsqrtps Vx,Wx !sse", "53 rcpps Vx,Wx !sse",
+            "54 andps Vx,Wx !sse", "55 andnps Vx,Wx !sse", "56 orps Vx,Wx !sse", "57 xorps Vx,Wx !sse",
+            "58 addps Vx,Wx !sse", "59 mulps Vx,Wx !sse", "5A cvtps2pd Vx,Wx !sse", "5B cvtdq2ps Vx,Wx !sse",
+            "5C subps Vx,Wx !sse", "5D minps Vx,Wx !sse", "5E divps Vx,Wx !sse", "5F maxps Vx,Wx !sse",
+            "60 punpcklbw Pq,Qq", "61 punpcklwd Pq,Qq", "62 punpckldq Pq,Qq", "63 packsswb Pq,Qq",
+            "64 pcmpgtb Pq,Qq", "65 pcmpgtw Pq,Qq", "66 pcmpgtd Pq,Qq", "67 packuswb Pq,Qq",
+            "68 punpckhbw Pq,Qq", "69 punpckhwd Pq,Qq", "6A punpckhdq Pq,Qq", "6B packssdw Pq,Qq",
+            "6C punpcklqdq Vx,Wx", "6D punpckhqdq Vx,Wx", "6E movd Pq,Ey", "6F movq Pq,Qq",
+            "70 pshufw Pq,Qq,Ib", "71 #11 Nq,Ib", "72 #12 Nq,Ib", "73 #13 Nq,Ib",
+            "74 pcmpeqb Pq,Qq", "75 pcmpeqw Pq,Qq", "76 pcmpeqd Pq,Qq", "77 emms -", "78 vmread Ey,Gy",
+            "79 vmwrite Gy,Ey", "7C haddps Vx,Wx", "7D hsubps Vx,Wx", "7E movd Ey,Pq", "7F movq Qq,Pq",
+            "A0 push FS !d64", "A1 pop FS !d64", "A2 cpuid -", "A3 bt Ev,Gv", "A4 shld Ev,Gv,Ib", "A5 shld Ev,Gv,CL",
+            "A8 push GS !d64", "A9 pop GS !d64", "AA rsm -", "AB bts Ev,Gv", "AC shrd Ev,Gv,Ib", "AD shrd Ev,Gv,CL",
+            "AE #14 M", "AF imul Gv,Ev",
+            "B0 cmpxchg Eb,Gb", "B1 cmpxchg Ev,Gv", "B2 lss Gv,Mp", "B3 btr Ev,Gv", "B4 lfs Gv,Mp", "B5 lgs Gv,Mp",
+            "B6 movzx Gv,Eb", "B7 movzx Gv,Ew", "B8 popcnt Gv,Ev", "B9 ud1 Gv,Ev", "BA #9 Ev,Ib", "BB btc Ev,Gv",
+            "BC bsf Gv,Ev", "BD bsr Gv,Ev", "BE movsx Gv,Eb", "BF movsx Gv,Ew",
+            "C0 xadd Eb,Gb", "C1 xadd Ev,Gv", "C2 cmpps Vx,Wx,Ib !sse", "C3 movnti M,Gy", "C4 pinsrw Pq,Ed,Ib",
+            "C5 pextrw Gd,Nq,Ib", "C6 shufps Vx,Wx,Ib !sse", "C7 #10 M",
+            "D0 addsubps Vx,Wx", "D1 psrlw Pq,Qq", "D2 psrld Pq,Qq", "D3 psrlq Pq,Qq", "D4 paddq Pq,Qq",
+            "D5 pmullw Pq,Qq", "D6 movq Wx,Vx", "D7 pmovmskb Gd,Nq", "D8 psubusb Pq,Qq", "D9 psubusw Pq,Qq",
+            "DA pminub Pq,Qq", "DB pand Pq,Qq", "DC paddusb Pq,Qq", "DD paddusw Pq,Qq", "DE pmaxub Pq,Qq",
+            "DF pandn Pq,Qq", "E0 pavgb Pq,Qq", "E1 psraw Pq,Qq", "E2 psrad Pq,Qq", "E3 pavgw Pq,Qq",
+            "E4 pmulhuw Pq,Qq", "E5 pmulhw Pq,Qq", "E6 cvttpd2dq Vx,Wx", "E7 movntq M,Pq", "E8 psubsb Pq,Qq",
+            "E9 psubsw Pq,Qq", "EA pminsw Pq,Qq", "EB por Pq,Qq", "EC paddsb Pq,Qq", "ED paddsw Pq,Qq",
+            "EE pmaxsw Pq,Qq", "EF pxor Pq,Qq", "F0 lddqu Vx,M", "F1 psllw Pq,Qq", "F2 pslld Pq,Qq",
+            "F3 psllq Pq,Qq", "F4 pmuludq Pq,Qq", "F5 pmaddwd Pq,Qq", "F6 psadbw Pq,Qq", "F7 maskmovq Pq,Nq",
+            "F8 psubb Pq,Qq", "F9 psubw Pq,Qq", "FA psubd Pq,Qq", "FB psubq Pq,Qq", "FC paddb Pq,Qq",
+            "FD paddw Pq,Qq", "FE paddd Pq,Qq", "FF ud0 Gv,Ev");
+        prefixed(0xF3, "10 movss Vx,Wx", "11 movss Wx,Vx", "12 movsldup Vx,Wx", "16 movshdup Vx,Wx",
+            "2A cvtsi2ss Vx,Ey", "2C cvttss2si Gy,Wx", "2D cvtss2si Gy,Wx", "5A cvtss2sd Vx,Wx",
+            "5B cvttps2dq Vx,Wx", "6F movdqu Vx,Wx", "70 pshufhw Vx,Wx,Ib", "7E movq Vx,Wx", "7F movdqu Wx,Vx",
+            "B8 popcnt Gv,Ev", "BC tzcnt Gv,Ev", "BD lzcnt Gv,Ev", "D6 movq2dq Vx,Nq", "E6 cvtdq2pd Vx,Wx");
+        prefixed(0xF2, "10 movsd Vx,Wx", "11 movsd Wx,Vx", "12 movddup Vx,Wx", "2A cvtsi2sd Vx,Ey",
+            "2C cvttsd2si Gy,Wx", "2D cvtsd2si Gy,Wx", "5A cvtsd2ss Vx,Wx", "70 pshuflw Vx,Wx,Ib",
+            "6F movdqu Vx,Wx", "7C haddps Vx,Wx", "7D hsubps Vx,Wx", "7F movdqu Wx,Vx", "D0 addsubps Vx,Wx",
+            "D6 movdq2q Pq,Ux", "E6 cvtpd2dq Vx,Wx",
+            "F0 lddqu Vx,M");
+        prefixed(0x66, "12 movlpd Vx,Wx", "13 movlpd Wx,Vx", "16 movhpd Vx,Wx", "17 movhpd Wx,Vx",
+            "2A cvtpi2pd Vx,Qq", "2C cvttpd2pi Pq,Wx", "2D cvtpd2pi Pq,Wx", "5A cvtpd2ps Vx,Wx",
+            "5B cvtps2dq Vx,Wx", "6F movdqa Vx,Wx", "70 pshufd Vx,Wx,Ib", "7C haddpd Vx,Wx", "7D hsubpd Vx,Wx",
+            "7E movd Ey,Vx", "7F movdqa Wx,Vx", "D0 addsubpd Vx,Wx", "D6 movq Wx,Vx", "E6 cvttpd2dq Vx,Wx",
+            "E7 movntdq M,Vx", "F7 maskmovdqu Vx,Ux");
+
+        // Все коды карт 0F38 и 0F3A имеют ModRM, в 0F3A за ним следует байт
+        for (int i = 0; i < 256; i++) {
+            define(THREE_38, i, "bad Vx,Wx !bad");
+            define(THREE_3A, i, "bad Vx,Wx,Ib !bad");
+        }
+        table(THREE_38, "00 pshufb Pq,Qq", "01 phaddw Pq,Qq", "02 phaddd Pq,Qq", "03 phaddsw Pq,Qq",
+            "04 pmaddubsw Pq,Qq", "05 phsubw Pq,Qq", "06 phsubd Pq,Qq", "07 phsubsw Pq,Qq", "08 psignb Pq,Qq",
+            "09 psignw Pq,Qq", "0A psignd Pq,Qq", "0B pmulhrsw Pq,Qq", "0C permilps Vx,Wx !vex",
+            "0D permilpd Vx,Wx !vex", "0E testps Vx,Wx !vex", "0F testpd Vx,Wx !vex", "10 pblendvb Vx,Wx",
+            "14 blendvps Vx,Wx", "15 blendvpd Vx,Wx", "16 permps Vx,Wx !vex", "17 ptest Vx,Wx",
+            "18 broadcastss Vx,Wx !vex", "19 broadcastsd Vx,Wx !vex", "1A broadcastf128 Vx,M !vex",
+            "1C pabsb Pq,Qq", "1D pabsw Pq,Qq", "1E pabsd Pq,Qq", "20 pmovsxbw Vx,Wx", "21 pmovsxbd Vx,Wx",
+            "22 pmovsxbq Vx,Wx", "23 pmovsxwd Vx,Wx", "24 pmovsxwq Vx,Wx", "25 pmovsxdq Vx,Wx",
+            "28 pmuldq Vx,Wx", "29 pcmpeqq Vx,Wx", "2A movntdqa Vx,M", "2B packusdw Vx,Wx",
+            "2C maskmovps Vx,M !vex", "2D maskmovpd Vx,M !vex", "30 pmovzxbw Vx,Wx", "31 pmovzxbd Vx,Wx",
+            "32 pmovzxbq Vx,Wx", "33 pmovzxwd Vx,Wx", "34 pmovzxwq Vx,Wx", "35 pmovzxdq Vx,Wx",
+            "36 permd Vx,Wx !vex", "37 pcmpgtq Vx,Wx", "38 pminsb Vx,Wx", "39 pminsd Vx,Wx",
+            "3A pminuw Vx,Wx", "3B pminud Vx,Wx", "3C pmaxsb Vx,Wx", "3D pmaxsd Vx,Wx", "3E pmaxuw Vx,Wx",
+            "3F pmaxud Vx,Wx", "40 pmulld Vx,Wx", "41 phminposuw Vx,Wx", "45 psrlvd Vx,Wx !vex",
+            "46 psravd Vx,Wx !vex", "47 psllvd Vx,Wx !vex", "58 pbroadcastd Vx,Wx !vex",
+            "59 pbroadcastq Vx,Wx !vex", "5A broadcasti128 Vx,M !vex", "78 pbroadcastb Vx,Wx !vex",
+            "79 pbroadcastw Vx,Wx !vex", "8C pmaskmovd Vx,M !vex", "DB aesimc Vx,Wx", "DC aesenc Vx,Wx",
+            "DD aesenclast Vx,Wx", "DE aesdec Vx,Wx", "DF aesdeclast Vx,Wx", "F0 movbe Gv,M", "F1 movbe M,Gv");
+        String[] fma = {"fmaddsub", "fmsubadd", "fmadd", "fmadd", "fmsub", "fmsub", "fnmadd", "fnmadd",
+            "fnmsub", "fnmsub"};
+        String[] fmaOrders = {"132", "213", "231"};
+        for (int order = 0; order < fmaOrders.length; order++) {
+            for (int i = 0; i < fma.length; i++) {
+                define(THREE_38, 0x96 + order * 16 + i, fma[i] + fmaOrders[order] + " Vx,Wx !vex !fma");
+            }
+        }
+        table(THREE_3A, "08 roundps Vx,Wx,Ib", "09 roundpd Vx,Wx,Ib", "0A roundss Vx,Wx,Ib",
+            "0B roundsd Vx,Wx,Ib", "0C blendps Vx,Wx,Ib", "0D blendpd Vx,Wx,Ib", "0E pblendw Vx,Wx,Ib",
+            "0F palignr Pq,Qq,Ib", "14 pextrb Ed,Vx,Ib", "16 pextrd Ey,Vx,Ib", "17 extractps Ed,Vx,Ib",
+            "20 pinsrb Vx,Ed,Ib", "22 pinsrd Vx,Ey,Ib", "40 dpps Vx,Wx,Ib", "44 pclmulqdq Vx,Wx,Ib",
+            "60 pcmpestrm Vx,Wx,Ib", "61 pcmpestri Vx,Wx,Ib", "62 pcmpistrm Vx,Wx,Ib", "63 pcmpistri Vx,Wx,Ib",
+            "DF aeskeygenassist Vx,Wx,Ib", "00 permq Vx,Wx,Ib !vex", "01 permpd Vx,Wx,Ib !vex",
+            "02 pblendd Vx,Wx,Ib !vex", "04 permilps Vx,Wx,Ib !vex", "05 permilpd Vx,Wx,Ib !vex",
+            "06 perm2f128 Vx,Wx,Ib !vex", "15 pextrw Ed,Vx,Ib", "18 insertf128 Vx,Wx,Ib !vex",
+            "19 extractf128 Wx,Vx,Ib !vex", "1D cvtps2ph Wx,Vx,Ib !vex", "21 insertps Vx,Wx,Ib",
+            "38 inserti128 Vx,Wx,Ib !vex", "39 extracti128 Wx,Vx,Ib !vex", "41 dppd Vx,Wx,Ib",
+            "42 mpsadbw Vx,Wx,Ib", "46 perm2i128 Vx,Wx,Ib !vex", "4A blendvps Vx,Wx,Ib !vex",
+            "4B blendvpd Vx,Wx,Ib !vex", "4C pblendvb Vx,Wx,Ib !vex");
+        vex(1, 0, "77 vzeroupper -");
+        vex(2, 0, "F2 andn Gy,By,Ey", "F3 #16 By,Ey", "F5 bzhi Gy,Ey,By", "F7 bextr Gy,Ey,By");
+        vex(2, 0x66, "F7 shlx Gy,Ey,By");
+        vex(2, 0xF3, "F5 pext Gy,By,Ey", "F7 sarx Gy,Ey,By");
+        vex(2, 0xF2, "F5 pdep Gy,By,Ey", "F6 mulx Gy,By,Ey", "F7 shrx Gy,Ey,By");
+        vex(3, 0xF2, "F0 rorx Gy,Ey,Ib");
+    }
+
+    private final boolean mode64;
+
+    /**
+     * @param bits 32 или 64
+     */
+    public X86Decoder(int bits) {
+        this.mode64 = bits == 64;
+    }
+
+    /**
+     * Декодирует инструкцию с позиции offset
+     *
+     * @param limit   граница кода в буфере
+     * @param address виртуальный адрес инструкции
+     * @return длина инструкции, не меньше 1
+     */
+    public int decode(byte[] code, int offset, int limit, long address, Instruction insn) {
+        insn.reset(address);
+        insn.firstByte = code[offset] & 0xFF;
+        int end = Math.min(limit, offset + MAX_LENGTH);
+        try {
+            int length = decodeAt(code, offset, end, insn) - offset;
+            insn.length = length;
+            return length;
+        } catch (Truncated e) {
+            insn.opcode = null;
+            insn.length = 1;
+            return 1;
+        }
+    }
+
+    private int decodeAt(byte[] code, int start, int end, Instruction insn) {
+        int p = start;
+        int b;
+        prefixes:
+        while (true) {
+            b = fetch(code, p, end);
+            switch (b) {
+                case 0x66:
+                    insn.operandPrefix = true;
+                    break;
+                case 0x67:
+                    insn.addressPrefix = true;
+                    break;
+                case 0xF0:
+                    insn.lock = true;
+                    break;
+                case 0xF2:
+                case 0xF3:
+                    insn.rep = b;
+                    break;
+                case 0x26:
+                case 0x2E:
+                case 0x36:
+                case 0x3E:
+                case 0x64:
+                case 0x65:
+                    insn.segment = b;
+                    break;
+                default:
+                    break prefixes;
+            }
+            p++;
+        }
+        if (mode64 && (b & 0xF0) == 0x40) {
+            insn.rex = b;
+            b = fetch(code, ++p, end);
+        }
+        p++;
+        insn.opcodeByte = b;
+
+        Opcode opcode;
+        if (b == 0x0F) {
+            int second = fetch(code, p++, end);
+            if (second == 0x38 || second == 0x3A) {
+                int third = fetch(code, p++, end);
+                insn.opcodeByte = third;
+                opcode = second == 0x38 ? THREE_38[third] : THREE_3A[third];
+            } else {
+                insn.opcodeByte = second;
+                opcode = twoByte(insn, second);
+            }
+        } else if ((b == 0xC4 || b == 0xC5 || b == 0x62) && (mode64 || (fetch(code, p, end) & 0xC0) == 0xC0)) {
+            p = decodeVex(code, p, end, insn, b);
+            opcode = insn.opcode;
+        } else {
+            opcode = ONE_BYTE[b];
+            if (b == 0x63 && mode64) {
+                opcode = MOVSXD;
+            }
+        }
+        if (opcode == null || mode64 && opcode.has(F_INVALID64)) {
+            throw TRUNCATED;
+        }
+        insn.opcode = opcode;
+
+        boolean wide = (insn.rex & 0x08) != 0;
+        boolean sizePrefix = insn.operandPrefix && !(opcode.has(F_SSE) || isMmx(opcode));
+        if (mode64 && opcode.has(F_DEFAULT64)) {
+            insn.operandSize = sizePrefix ? 16 : 64;
+        } else {
+            insn.operandSize = wide ? 64 : sizePrefix ? 16 : 32;
+        }
+        insn.addressSize = mode64 ? (insn.addressPrefix ? 32 : 64) : (insn.addressPrefix ? 16 : 32);
+
+        if (opcode.modrm) {
+            p = decodeModrm(code, p, end, insn);
+            if (mode64 && opcode.group >= 0 && (GROUP_FLAGS[opcode.group][(insn.modrm >> 3) & 7] & F_DEFAULT64) != 0) {
+                insn.operandSize = sizePrefix ? 16 : 64;
+            }
+        }
+        int immediates = 0;
+        for (int operand : opcode.operands) {
+            int size = immediateSize(insn, operand);
+            if (size > 0) {
+                long value = readImmediate(code, p, end, size, operand != IB && operand != IW && operand != AP);
+                if (immediates++ == 0) {
+                    insn.immediate = value;
+                } else {
+                    insn.immediate2 = value;
+                }
+                p += size;
+            }
+        }
+        // TEST Eb/Ev с непосредственным операндом в группе 3
+        if (opcode.group == G3 && ((insn.modrm >> 3) & 7) < 2) {
+            int size = b == 0xF6 ? 1 : insn.operandSize == 16 ? 2 : 4;
+            insn.immediate = readImmediate(code, p, end, size, false);
+            p += size;
+        }
+        return p;
+    }
+
+    private Opcode twoByte(Instruction insn, int code) {
+        if (insn.rep != 0 || insn.operandPrefix) {
+            int prefix = insn.rep != 0 ? insn.rep : 0x66;
+            Opcode special = PREFIXED.get(prefix << 8 | code);
+            if (special != null) {
+                return special;
+            }
+        }
+        return TWO_BYTE[code];
+    }
+
+    /**
+     * Разбирает префиксы VEX (C4, C5) и EVEX (62); возвращает позицию байта кода операции
+     */
+    private int decodeVex(byte[] code, int p, int end, Instruction insn, int kind) {
+        int map;
+        int pp;
+        if (kind == 0xC5) {
+            int b1 = fetch(code, p++, end);
+            insn.rex = (b1 & 0x80) == 0 ? 0x44 : 0x40;
+            insn.vexRegister = ~(b1 >> 3) & 0xF;
+            insn.vectorLength = (b1 >> 2) & 1;
+            pp = b1 & 3;
+            map = 1;
+        } else if (kind == 0xC4) {
+            int b1 = fetch(code, p++, end);
+            int b2 = fetch(code, p++, end);
+            insn.rex = 0x40 | (~b1 >> 5 & 7) | (b2 & 0x80) >> 4;
+            map = b1 & 0x1F;
+            insn.vexRegister = ~(b2 >> 3) & 0xF;
+            insn.vectorLength = (b2 >> 2) & 1;
+            pp = b2 & 3;
+        } else {
+            int p0 = fetch(code, p++, end);
+            int p1 = fetch(code, p++, end);
+            int p2 = fetch(code, p++, end);
+            insn.rex = 0x40 | (~p0 >> 5 & 7) | (p1 & 0x80) >> 4;
+            map = p0 & 3;
+            insn.vexRegister = ~(p1 >> 3) & 0xF;
+            insn.vectorLength = Math.min(2, (p2 >> 5) & 3);
+            pp = p1 & 3;
+        }
+        insn.vex = true;
+        insn.operandPrefix = pp == 1;
+        insn.rep = pp == 2 ? 0xF3 : pp == 3 ? 0xF2 : 0;
+        int op = fetch(code, p++, end);
+        insn.opcodeByte = op;
+        int prefix = insn.rep != 0 ? insn.rep : insn.operandPrefix ? 0x66 : 0;
+        Opcode vexOnly = VEX_CODES.get(map << 16 | prefix << 8 | op);
+        if (vexOnly != null) {
+            insn.opcode = vexOnly;
+            return p;
+        }
+        switch (map) {
+            case 1:
+                insn.opcode = twoByte(insn, op);
+                break;
+            case 2:
+                insn.opcode = THREE_38[op];
+                break;
+            case 3:
+                insn.opcode = THREE_3A[op];
+                break;
+            default:
+                throw TRUNCATED;
+        }
+        return p;
+    }
+
+    private int decodeModrm(byte[] code, int p, int end, Instruction insn) {
+        int modrm = fetch(code, p++, end);
+        insn.modrm = modrm;
+        int mod = modrm >> 6;
+        int rm = modrm & 7;
+        if (mod == 3) {
+            return p;
+        }
+        if (insn.addressSize == 16) {
+            if (mod == 0 && rm == 6 || mod == 2) {
+                insn.displacementSize = 2;
+            } else if (mod == 1) {
+                insn.displacementSize = 1;
+            }
+        } else {
+            if (rm == 4) {
+                insn.sib = fetch(code, p++, end);
+                if ((insn.sib & 7) == 5 && mod == 0) {
+                    insn.displacementSize = 4;
+                }
+            }
+            if (mod == 0 && rm == 5 || mod == 2) {
+                insn.displacementSize = 4;
+            } else if (mod == 1) {
+                insn.displacementSize = 1;
+            }
+        }
+        if (insn.displacementSize > 0) {
+            insn.displacement = readImmediate(code, p, end, insn.displacementSize, true);
+            p += insn.displacementSize;
+        }
+        return p;
+    }
+
+    private int immediateSize(Instruction insn, int operand) {
+        switch (operand) {
+            case IB:
+            case IBS:
+            case JB:
+                return 1;
+            case IW:
+                return 2;
+            case IZ:
+                return insn.operandSize == 16 ? 2 : 4;
+            case IV:
+                return insn.operandSize / 8;
+            case JZ:
+                return !mode64 && insn.operandSize == 16 ? 2 : 4;
+            case OB:
+            case OV:
+                return insn.addressSize / 8;
+            case AP:
+                return insn.operandSize == 16 ? 4 : 6;
+            default:
+                return 0;
+        }
+    }
+
+    private static long readImmediate(byte[] code, int p, int end, int size, boolean signed) {
+        if (p + size > end) {
+            throw TRUNCATED;
+        }
+        long value = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            value = value << 8 | (code[p + i] & 0xFF);
+        }
+        if (signed && size < 8) {
+            int shift = 64 - size * 8;
+            value = value << shift >> shift;
+        }
+        return value;
+    }
+
+    private static int fetch(byte[] code, int p, int end) {
+        if (p >= end) {
+            throw TRUNCATED;
+        }
+        return code[p] & 0xFF;
+    }
+
+    private static boolean isMmx(Opcode opcode) {
+        for (int operand : opcode.operands) {
+            if (operand == PQ || operand == QQ || operand == VX || operand == WX) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Дописывает текст инструкции в синтаксисе Intel
+     */
+    public void format(Instruction insn, StringBuilder out) {
+        Opcode opcode = insn.opcode;
+        if (opcode == null) {
+            out.append("DB ");
+            appendHex(out, insn.firstByte);
+            return;
+        }
+        int reg = insn.modrm >= 0 ? (insn.modrm >> 3) & 7 : 0;
+        String name = mnemonic(insn, opcode, reg);
+        if (name == null) {
+            out.append("(BAD)");
+            return;
+        }
+        if (insn.lock) {
+            out.append("LOCK ");
+        }
+        if (insn.rep != 0 && (opcode.has(F_STRING8) || opcode.has(F_STRINGV))) {
+            out.append(insn.rep == 0xF3 ? "REP " : "REPNE ");
+        }
+        boolean vexInteger = opcode.has(F_VEX_INT);
+        if (insn.vex && !vexInteger && !(opcode.has(F_SSE) || isMmx(opcode))) {
+            // Обычные целочисленные коды в кодировке VEX не существуют (KMOV и маски не описаны)
+            out.append("(BAD)");
+            return;
+        }
+        if (insn.vex && !vexInteger) {
+            out.append('V');
+        }
+        out.append(name);
+        if (name.startsWith("ENDBR")) {
+            return;
+        }
+        if (opcode.has(F_X87)) {
+            formatX87(insn, out);
+            return;
+        }
+        if (opcode.group == G7 && insn.modrm >> 6 == 3 || opcode.group == G15 && insn.modrm >> 6 == 3) {
+            return;
+        }
+
+        int count = 0;
+        long ripTarget = -1;
+        for (int i = 0; i < opcode.operands.length; i++) {
+            out.append(count++ == 0 ? " " : ", ");
+            if (opcode.operands[i] == SEG) {
+                out.append(opcode.literals[i]);
+            } else {
+                ripTarget = Math.max(ripTarget, operand(insn, opcode, opcode.operands[i], name, out));
+            }
+            if (i == 0 && insn.vex && !vexInteger && insn.vexRegister != 0 && opcode.operands.length > 1) {
+                out.append(", ").append(VECTORS[insn.vectorLength]).append(insn.vexRegister);
+            }
+        }
+        if (opcode.group == G3 && reg < 2) {
+            out.append(", ");
+            appendHex(out, insn.immediate & mask(insn.opcodeByte == 0xF6 ? 8 : insn.operandSize));
+        }
+        if (ripTarget >= 0) {
+            out.append("  ; ");
+            appendHex(out, ripTarget);
+        }
+    }
+
+    private String mnemonic(Instruction insn, Opcode opcode, int reg) {
+        if (opcode.has(F_BAD) || opcode.has(F_VEX_ONLY) && !insn.vex) {
+            return null;
+        }
+        if (opcode.group >= 0) {
+            if (opcode.group == G7 && insn.modrm >> 6 == 3) {
+                return group7Register(insn.modrm);
+            }
+            if (opcode.group == G15 && insn.modrm >> 6 == 3) {
+                return reg == 5 ? "LFENCE" : reg == 6 ? "MFENCE" : reg == 7 ? "SFENCE" : null;
+            }
+            if (opcode.group == G9 && reg == 1 && (insn.rex & 0x08) != 0) {
+                return "CMPXCHG16B";
+            }
+            String name = GROUPS[opcode.group][reg];
+            return name == null ? null : name.toUpperCase(Locale.ROOT);
+        }
+        if (opcode.has(F_X87)) {
+            return x87Name(insn);
+        }
+        String name = opcode.name;
+        int code = insn.opcodeByte;
+        if (opcode == ONE_BYTE[0x90] && insn.rep == 0xF3) {
+            return "PAUSE";
+        }
+        if (opcode == ONE_BYTE[0x90] && (insn.rex & 1) != 0) {
+            return "XCHG";
+        }
+        if (opcode == ONE_BYTE[0x98]) {
+            return insn.operandSize == 16 ? "CBW" : insn.operandSize == 64 ? "CDQE" : "CWDE";
+        }
+        if (opcode == ONE_BYTE[0x99]) {
+            return insn.operandSize == 16 ? "CWD" : insn.operandSize == 64 ? "CQO" : "CDQ";
+        }
+        if (opcode == ONE_BYTE[0xE3]) {
+            return insn.addressSize == 16 ? "JCXZ" : insn.addressSize == 64 ? "JRCXZ" : "JECXZ";
+        }
+        if (opcode == ONE_BYTE[0xCF] && insn.operandSize != 16) {
+            return insn.operandSize == 64 ? "IRETQ" : "IRETD";
+        }
+        if (opcode == TWO_BYTE[0x1E] && insn.rep == 0xF3 && (insn.modrm == 0xFA || insn.modrm == 0xFB)) {
+            return insn.modrm == 0xFA ? "ENDBR64" : "ENDBR32";
+        }
+        if (opcode.has(F_FMA)) {
+            boolean scalar = (code & 1) != 0 && (code & 0xF) >= 9;
+            boolean wide = (insn.rex & 0x08) != 0;
+            return name + (scalar ? (wide ? "SD" : "SS") : (wide ? "PD" : "PS"));
+        }
+        if (vexZeroUpper(insn, opcode) && insn.vectorLength != 0) {
+            return "VZEROALL";
+        }
+        if (opcode.has(F_STRING8)) {
+            return name + "B";
+        }
+        if (opcode.has(F_STRINGV)) {
+            return name + (insn.operandSize == 16 ? "W" : insn.operandSize == 64 ? "Q" : "D");
+        }
+        if (opcode.has(F_SSE) && name.endsWith("PS") && code != 0x10 && code != 0x11) {
+            String stem = name.substring(0, name.length() - 2);
+            if (insn.operandPrefix) {
+                return stem + "PD";
+            }
+            if (insn.rep == 0xF3) {
+                return stem + "SS";
+            }
+            if (insn.rep == 0xF2) {
+                return stem + "SD";
+            }
+        } else if (opcode.has(F_SSE) && insn.operandPrefix && name.endsWith("PS")) {
+            return name.substring(0, name.length() - 2) + "PD";
+        }
+        return name;
+    }
+
+    private static boolean vexZeroUpper(Instruction insn, Opcode opcode) {
+        return insn.vex && opcode == VEX_CODES.get(1 << 16 | 0x77);
+    }
+
+    private static String group7Register(int modrm) {
+        switch (modrm) {
+            case 0xC1: return "VMCALL";
+            case 0xC2: return "VMLAUNCH";
+            case 0xC3: return "VMRESUME";
+            case 0xC4: return "VMXOFF";
+            case 0xC8: return "MONITOR";
+            case 0xC9: return "MWAIT";
+            case 0xCA: return "CLAC";
+            case 0xCB: return "STAC";
+            case 0xD0: return "XGETBV";
+            case 0xD1: return "XSETBV";
+            case 0xD5: return "XEND";
+            case 0xD6: return "XTEST";
+            case 0xF8: return "SWAPGS";
+            case 0xF9: return "RDTSCP";
+            default: return null;
+        }
+    }
+
+    private static String x87Name(Instruction insn) {
+        int index = insn.opcodeByte - 0xD8;
+        int reg = (insn.modrm >> 3) & 7;
+        String name;
+        if (insn.modrm >> 6 != 3) {
+            name = X87_MEMORY[index][reg];
+        } else if (index == 1 && insn.modrm >= 0xE0) {
+            name = X87_D9[insn.modrm - 0xE0];
+        } else if (index == 1 && insn.modrm == 0xD0) {
+            name = "fnop";
+        } else if (index == 3 && insn.modrm == 0xE2) {
+            name = "fnclex";
+        } else if (index == 3 && insn.modrm == 0xE3) {
+            name = "fninit";
+        } else if (index == 6 && insn.modrm == 0xD9) {
+            name = "fcompp";
+        } else if (index == 7 && insn.modrm == 0xE0) {
+            name = "fnstsw";
+        } else {
+            name = X87_REGISTER[index][reg];
+        }
+        return name == null ? null : name.toUpperCase(Locale.ROOT);
+    }
+
+    private void formatX87(Instruction insn, StringBuilder out) {
+        if (insn.modrm >> 6 != 3) {
+            out.append(' ');
+            memory(insn, "", out);
+        } else if (insn.opcodeByte == 0xDF && insn.modrm == 0xE0) {
+            out.append(" AX");
+        } else if (!(insn.opcodeByte == 0xD9 && insn.modrm >= 0xD0) && !(insn.opcodeByte == 0xDB && insn.modrm >= 0xE2 && insn.modrm <= 0xE3)
+                && !(insn.opcodeByte == 0xDE && insn.modrm == 0xD9)) {
+            out.append(" ST(").append(insn.modrm & 7).append(')');
+        }
+    }
+
+    /**
+     * Дописывает операнд
+     *
+     * @return адрес назначения для адресации относительно RIP или -1
+     */
+    private long operand(Instruction insn, Opcode opcode, int operand, String name, StringBuilder out) {
+        int modrm = insn.modrm;
+        int reg = ((modrm >> 3) & 7) | (insn.rex & 0x04) << 1;
+        int rm = (modrm & 7) | (insn.rex & 0x01) << 3;
+        boolean register = modrm >> 6 == 3;
+        boolean xmmFamily = insn.operandPrefix || insn.vex;
+        switch (operand) {
+            case EB:
+                return register ? append(out, reg8(insn, rm)) : memory(insn, "BYTE PTR ", out);
+            case EW:
+                return register ? append(out, REG16[rm]) : memory(insn, "WORD PTR ", out);
+            case EV:
+                return register ? append(out, regv(insn.operandSize, rm)) : memory(insn, sizeName(insn.operandSize), out);
+            case ED:
+                return register ? append(out, REG32[rm]) : memory(insn, "DWORD PTR ", out);
+            case EY:
+                boolean quad = (insn.rex & 0x08) != 0;
+                return register ? append(out, quad ? REG64[rm] : REG32[rm]) : memory(insn, quad ? "QWORD PTR " : "DWORD PTR ", out);
+            case RY:
+                return append(out, mode64 ? REG64[rm] : REG32[rm]);
+            case BY:
+                int vvvv = insn.vexRegister & (mode64 ? 15 : 7);
+                return append(out, (insn.rex & 0x08) != 0 ? REG64[vvvv] : REG32[vvvv]);
+            case GB:
+                return append(out, reg8(insn, reg));
+            case GW:
+                return append(out, REG16[reg]);
+            case GV:
+                return append(out, regv(insn.operandSize, reg));
+            case GD:
+                return append(out, REG32[reg]);
+            case GY:
+                return append(out, (insn.rex & 0x08) != 0 ? REG64[reg] : REG32[reg]);
+            case ZB:
+                return append(out, reg8(insn, (insn.opcodeByte & 7) | (insn.rex & 1) << 3));
+            case ZV:
+                return append(out, regv(insn.operandSize, (insn.opcodeByte & 7) | (insn.rex & 1) << 3));
+            case AL:
+                return append(out, "AL");
+            case CL:
+                return append(out, "CL");
+            case DX:
+                return append(out, "DX");
+            case RAX:
+                return append(out, regv(insn.operandSize, 0));
+            case ONE:
+                return append(out, "1");
+            case SW:
+                return append(out, ((modrm >> 3) & 7) < SEGMENTS.length ? SEGMENTS[(modrm >> 3) & 7] : "?S");
+            case CD:
+                out.append("CR").append(reg);
+                return -1;
+            case DD:
+                out.append("DR").append(reg);
+                return -1;
+            case M:
+                return register ? append(out, regv(insn.operandSize, rm)) : memory(insn, "", out);
+            case VX:
+                out.append(VECTORS[insn.vectorLength]).append(reg);
+                return -1;
+            case WX:
+                if (register) {
+                    out.append(VECTORS[isXmmOperand(name) ? 0 : insn.vectorLength]).append(rm);
+                    return -1;
+                }
+                return memory(insn, vectorSize(insn, name), out);
+            case PQ:
+                if (xmmFamily) {
+                    out.append(VECTORS[insn.vectorLength]).append(reg);
+                } else {
+                    out.append("MM").append(reg & 7);
+                }
+                return -1;
+            case QQ:
+                if (register) {
+                    if (xmmFamily) {
+                        out.append(VECTORS[insn.vectorLength]).append(rm);
+                    } else {
+                        out.append("MM").append(rm & 7);
+                    }
+                    return -1;
+                }
+                return memory(insn, xmmFamily ? VECTOR_SIZES[insn.vectorLength] : "QWORD PTR ", out);
+            case IB:
+                appendHex(out, insn.operandSize == 0 ? 0 : immediateFor(insn, opcode, operand) & 0xFF);
+                return -1;
+            case IW:
+                appendHex(out, immediateFor(insn, opcode, operand) & 0xFFFF);
+                return -1;
+            case IBS:
+            case IZ:
+            case IV:
+                appendHex(out, immediateFor(insn, opcode, operand) & mask(insn.operandSize));
+                return -1;
+            case JB:
+            case JZ:
+                appendHex(out, (insn.address + insn.length + insn.immediate) & mask(mode64 ? 64 : 32));
+                return -1;
+            case OB:
+            case OV:
+                out.append(operand == OB ? "BYTE PTR " : sizeName(insn.operandSize));
+                appendSegment(insn, out);
+                out.append('[');
+                appendHex(out, insn.immediate & mask(insn.addressSize));
+                out.append(']');
+                return -1;
+            case AP:
+                int offsetBits = insn.operandSize == 16 ? 16 : 32;
+                appendHex(out, (insn.immediate >>> offsetBits) & 0xFFFF);
+                out.append(':');
+                appendHex(out, insn.immediate & mask(offsetBits));
+                return -1;
+            default:
+                out.append('?');
+                return -1;
+        }
+    }
+
+    /**
+     * Значение непосредственного операнда: второй операнд ENTER хранится отдельно
+     */
+    private static long immediateFor(Instruction insn, Opcode opcode, int operand) {
+        int index = 0;
+        for (int candidate : opcode.operands) {
+            if (candidate == operand) {
+                break;
+            }
+            if (candidate == IB || candidate == IBS || candidate == IW || candidate == IZ || candidate == IV) {
+                index++;
+            }
+        }
+        return index == 0 ? insn.immediate : insn.immediate2;
+    }
+
+    private long memory(Instruction insn, String size, StringBuilder out) {
+        out.append(size);
+        appendSegment(insn, out);
+        out.append('[');
+        int mod = insn.modrm >> 6;
+        int rm = insn.modrm & 7;
+        boolean hasBase = false;
+        long ripTarget = -1;
+        if (insn.addressSize == 16) {
+            if (!(mod == 0 && rm == 6)) {
+                out.append(MEM16[rm]);
+                hasBase = true;
+            }
+        } else {
+            String[] regs = insn.addressSize == 64 ? REG64 : REG32;
+            if (insn.sib >= 0) {
+                int base = (insn.sib & 7) | (insn.rex & 1) << 3;
+                int index = ((insn.sib >> 3) & 7) | (insn.rex & 2) << 2;
+                if (!((insn.sib & 7) == 5 && mod == 0)) {
+                    out.append(regs[base]);
+                    hasBase = true;
+                }
+                if (index != 4) {
+                    if (hasBase) {
+                        out.append('+');
+                    }
+                    out.append(regs[index]);
+                    int scale = 1 << (insn.sib >> 6);
+                    if (scale > 1) {
+                        out.append('*').append(scale);
+                    }
+                    hasBase = true;
+                }
+            } else if (mod == 0 && rm == 5) {
+                if (mode64) {
+                    out.append(insn.addressSize == 64 ? "RIP" : "EIP");
+                    hasBase = true;
+                    ripTarget = insn.address + insn.length + insn.displacement;
+                }
+            } else {
+                out.append(regs[rm | (insn.rex & 1) << 3]);
+                hasBase = true;
+            }
+        }
+        if (insn.displacementSize > 0) {
+            long displacement = insn.displacement;
+            if (!hasBase) {
+                appendHex(out, displacement & mask(insn.addressSize));
+            } else if (displacement < 0) {
+                out.append('-');
+                appendHex(out, -displacement);
+            } else if (displacement > 0) {
+                out.append('+');
+                appendHex(out, displacement);
+            }
+        }
+        out.append(']');
+        return ripTarget;
+    }
+
+    private static void appendSegment(Instruction insn, StringBuilder out) {
+        switch (insn.segment) {
+            case 0x26: out.append("ES:"); break;
+            case 0x2E: out.append("CS:"); break;
+            case 0x36: out.append("SS:"); break;
+            case 0x3E: out.append("DS:"); break;
+            case 0x64: out.append("FS:"); break;
+            case 0x65: out.append("GS:"); break;
+            default: break;
+        }
+    }
+
+    private static String vectorSize(Instruction insn, String name) {
+        if (name.contains("BROADCAST")) {
+            switch (name.charAt(name.length() - 1)) {
+                case 'B': return "BYTE PTR ";
+                case 'W': return "WORD PTR ";
+                case 'D': return name.endsWith("SD") ? "QWORD PTR " : "DWORD PTR ";
+                case 'Q': return "QWORD PTR ";
+                default: return "DWORD PTR ";
+            }
+        }
+        if (isXmmOperand(name)) {
+            return VECTOR_SIZES[0];
+        }
+        if (name.endsWith("SS")) {
+            return "DWORD PTR ";
+        }
+        if (name.endsWith("SD") && !name.startsWith("ADDSUB")) {
+            return "QWORD PTR ";
+        }
+        return VECTOR_SIZES[insn.vectorLength];
+    }
+
+    /**
+     * Операнд W всегда XMM: источник рассылки и половина YMM в INSERT/EXTRACT*128
+     */
+    private static boolean isXmmOperand(String name) {
+        return name.contains("BROADCAST") || name.endsWith("128") && (name.startsWith("INSERT") || name.startsWith("EXTRACT"));
+    }
+
+    private static String sizeName(int bits) {
+        return bits == 16 ? "WORD PTR " : bits == 64 ? "QWORD PTR " : "DWORD PTR ";
+    }
+
+    private static String reg8(Instruction insn, int reg) {
+        return insn.rex != 0 ? REG8_REX[reg] : REG8[reg & 7];
+    }
+
+    private static String regv(int size, int reg) {
+        return size == 16 ? REG16[reg] : size == 64 ? REG64[reg] : REG32[reg];
+    }
+
+    private static long mask(int bits) {
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private static long append(StringBuilder out, String text) {
+        out.append(text);
+        return -1;
+    }
+
+    private static void appendHex(StringBuilder out, long value) {
+        out.append("0x");
+        int shift = 60;
+        while (shift > 0 && (value >>> shift & 0xF) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            out.append(DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    private static void table(Opcode[] target, String... specs) {
+        for (String spec : specs) {
+            target[Integer.parseInt(spec.substring(0, 2), 16)] = parse(spec);
+        }
+    }
+
+    private static void prefixed(int prefix, String... specs) {
+        for (String spec : specs) {
+            PREFIXED.put(prefix << 8 | Integer.parseInt(spec.substring(0, 2), 16), parse(spec));
+        }
+    }
+
+    private static void vex(int map, int prefix, String... specs) {
+        for (String spec : specs) {
+            VEX_CODES.put(map << 16 | prefix << 8 | Integer.parseInt(spec.substring(0, 2), 16), parse(spec + " !vi"));
+        }
+    }
+
+    private static void define(Opcode[] target, int code, String spec) {
+        if (spec != null) {
+            target[code] = parse(String.format("%02X ", code) + spec);
+        }
+    }
+
+    /**
+     * Разбирает описание "КОД имя операнды [!флаги]"
+     */
+    private static Opcode parse(String spec) {
+        String[] parts = spec.split(" ");
+        String name = parts[1];
+        int flags = 0;
+        String operandSpec = parts.length > 2 ? parts[2] : "-";
+        for (int i = 2; i < parts.length; i++) {
+            switch (parts[i]) {
+                case "!i64":
+                    flags |= F_INVALID64;
+                    break;
+                case "!d64":
+                    flags |= F_DEFAULT64;
+                    break;
+                case "!sse":
+                    flags |= F_SSE;
+                    break;
+                case "!s8":
+                    flags |= F_STRING8;
+                    break;
+                case "!sv":
+                    flags |= F_STRINGV;
+                    break;
+                case "!vex":
+                    flags |= F_VEX_ONLY;
+                    break;
+                case "!vi":
+                    flags |= F_VEX_INT;
+                    break;
+                case "!bad":
+                    flags |= F_BAD;
+                    break;
+                case "!fma":
+                    flags |= F_FMA;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (operandSpec.startsWith("!")) {
+            operandSpec = "-";
+        }
+        String[] tokens = operandSpec.equals("-") ? new String[0] : operandSpec.split(",");
+        int[] operands = new int[tokens.length];
+        String[] literals = new String[tokens.length];
+        boolean modrm = name.startsWith("#");
+        for (int i = 0; i < tokens.length; i++) {
+            Integer code = OPERAND_CODES.get(tokens[i]);
+            if (code == null) {
+                operands[i] = SEG;
+                literals[i] = tokens[i];
+                continue;
+            }
+            operands[i] = code;
+            modrm |= code == EB || code == EW || code == EV || code == ED || code == EY || code == GB || code == GW
+                || code == GV || code == GD || code == GY || code == M || code == SW || code == VX || code == WX
+                || code == PQ || code == QQ || code == RY || code == CD || code == DD;
+        }
+        return new Opcode(name, operands, literals, modrm, flags);
+    }
+}
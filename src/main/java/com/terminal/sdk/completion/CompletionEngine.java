@@ -0,0 +1,72 @@
+package com.terminal.sdk.completion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.terminal.commands.AbstractCommand;
+import com.terminal.sdk.core.Command;
+
+/**
+ * Движок автодополнения команд панели терминала.
+ * Имена команд (встроенных и из плагинов) и их подкоманды хранятся в префиксных
+ * деревьях; выполненные команды получают вес и поднимаются в выдаче.
+ */
+public class CompletionEngine {
+    private final PrefixTrie commandNames = new PrefixTrie();
+    private final Map<String, PrefixTrie> subCommands = new ConcurrentHashMap<>();
+
+    /**
+     * Добавляет команду и ее подкоманды в индекс
+     */
+    public void registerCommand(String name, Command command) {
+        commandNames.add(name);
+        if (command instanceof AbstractCommand) {
+            PrefixTrie names = new PrefixTrie();
+            for (String subCommand : ((AbstractCommand) command).getSubCommandNames()) {
+                names.add(subCommand);
+            }
+            if (names.size() > 0) {
+                subCommands.put(name, names);
+            }
+        }
+    }
+
+    public void unregisterCommand(String name) {
+        commandNames.remove(name);
+        subCommands.remove(name);
+    }
+
+    /**
+     * Возвращает лучшее имя команды для префикса или пустую строку
+     */
+    public String completeCommand(String prefix) {
+        return commandNames.best(prefix);
+    }
+
+    /**
+     * Возвращает до limit имен команд для префикса
+     */
+    public List<String> suggestCommands(String prefix, int limit) {
+        return commandNames.complete(prefix, limit);
+    }
+
+    /**
+     * Возвращает лучшую подкоманду для префикса или пустую строку
+     */
+    public String completeSubCommand(String command, String prefix) {
+        PrefixTrie names = subCommands.get(command);
+        return names != null ? names.best(prefix) : "";
+    }
+
+    /**
+     * Учитывает выполнение команды при ранжировании
+     */
+    public void recordUse(String command, String[] args) {
+        commandNames.addWeight(command, 1);
+        PrefixTrie names = subCommands.get(command);
+        if (names != null && args.length > 0) {
+            names.addWeight(args[0], 1);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.terminal.sdk.completion;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.terminal.sdk.system.Logger;
+
+/**
+ * Индекс имен файлов и поддиректорий одной директории.
+ * Строится в фоне одним проходом DirectoryStream и затем поддерживается
+ * событиями WatchService, поэтому запрос вариантов не обращается к диску.
+ */
+public class DirectoryIndex {
+    private static final String CLASS_NAME = DirectoryIndex.class.getSimpleName();
+
+    private final Path directory;
+    private volatile PrefixTrie files = new PrefixTrie();
+    private volatile PrefixTrie directories = new PrefixTrie();
+    private volatile boolean ready;
+
+    DirectoryIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Проверяет, построен ли индекс. До этого варианты не предлагаются.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Возвращает имена файлов, начинающиеся с префикса
+     */
+    public List<String> completeFiles(String prefix, int limit) {
+        return files.complete(prefix, limit);
+    }
+
+    /**
+     * Возвращает имена поддиректорий, начинающиеся с префикса
+     */
+    public List<String> completeDirectories(String prefix, int limit) {
+        return directories.complete(prefix, limit);
+    }
+
+    /**
+     * Возвращает имена файлов и поддиректорий, начинающиеся с префикса
+     */
+    public List<String> completeEntries(String prefix, int limit) {
+        List<String> dirs = directories.complete(prefix, limit);
+        List<String> plain = files.complete(prefix, limit);
+        if (dirs.isEmpty()) {
+            return plain;
+        }
+        if (plain.isEmpty()) {
+            return dirs;
+        }
+        List<String> merged = new ArrayList<>(Math.min(limit, dirs.size() + plain.size()));
+        int d = 0;
+        int f = 0;
+        while (merged.size() < limit && (d < dirs.size() || f < plain.size())) {
+            if (f >= plain.size() || (d < dirs.size() && dirs.get(d).length() <= plain.get(f).length())) {
+                merged.add(dirs.get(d++));
+            } else {
+                merged.add(plain.get(f++));
+            }
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * Перечитывает директорию целиком и атомарно подменяет индекс
+     */
+    void rebuild() {
+        PrefixTrie newFiles = new PrefixTrie();
+        PrefixTrie newDirectories = new PrefixTrie();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                String name = entry.getFileName().toString();
+                if (isDirectory(entry)) {
+                    newDirectories.add(name);
+                } else {
+                    newFiles.add(name);
+                }
+            }
+        } catch (IOException e) {
+            Logger.warning(CLASS_NAME, "Не удалось прочитать директорию " + directory + ": " + e.getMessage());
+        }
+        files = newFiles;
+        directories = newDirectories;
+        ready = true;
+    }
+
+    void entryCreated(Path name) {
+        String entry = name.toString();
+        if (isDirectory(directory.resolve(name))) {
+            directories.add(entry);
+        } else {
+            files.add(entry);
+        }
+    }
+
+    void entryDeleted(Path name) {
+        String entry = name.toString();
+        if (!files.remove(entry)) {
+            directories.remove(entry);
+        }
+    }
+
+    private static boolean isDirectory(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).isDirectory();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.terminal.sdk.completion;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.terminal.sdk.system.Logger;
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Кэш индексов директорий для автодополнения.
+ * Индекс строится в фоновом потоке при первом обращении к директории,
+ * после чего обновляется по событиям WatchService. Хранится ограниченное
+ * число недавно использованных директорий, остальные вытесняются.
+ */
+public class DirectoryIndexCache {
+    private static final String CLASS_NAME = DirectoryIndexCache.class.getSimpleName();
+    private static final int DEFAULT_MAX_DIRECTORIES = 16;
+
+    private static DirectoryIndexCache instance;
+    private final int maxDirectories;
+    private final Map<Path, Entry> entries;
+    private final ExecutorService indexer;
+    private WatchService watchService;
+
+    private static final class Entry {
+        final DirectoryIndex index;
+        WatchKey key;
+
+        Entry(DirectoryIndex index) {
+            this.index = index;
+        }
+    }
+
+    private DirectoryIndexCache() {
+        this.maxDirectories = Math.max(1,
+            UserSettings.getInstance().getInt("completion-cached-directories", DEFAULT_MAX_DIRECTORIES));
+        this.entries = new LinkedHashMap<>(maxDirectories * 2, 0.75f, true);
+        this.indexer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "completion-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread watcher = new Thread(this::watchLoop, "completion-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            Logger.warning(CLASS_NAME, "WatchService недоступен, индексы не будут обновляться: " + e.getMessage());
+        }
+    }
+
+    public static synchronized DirectoryIndexCache getInstance() {
+        if (instance == null) {
+            instance = new DirectoryIndexCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает индекс директории. Новый индекс возвращается сразу,
+     * а заполняется в фоне; до этого он не содержит вариантов.
+     */
+    public DirectoryIndex get(String directory) {
+        Path path = Paths.get(directory).toAbsolutePath().normalize();
+        synchronized (entries) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                return entry.index;
+            }
+            entry = new Entry(new DirectoryIndex(path));
+            entries.put(path, entry);
+            evictOverflow();
+            Entry created = entry;
+            indexer.execute(() -> load(created));
+            return entry.index;
+        }
+    }
+
+    /**
+     * Заранее строит индекс директории, например после смены текущего пути
+     */
+    public void prefetch(String directory) {
+        get(directory);
+    }
+
+    private void load(Entry entry) {
+        Path path = entry.index.getDirectory();
+        if (watchService != null) {
+            try {
+                WatchKey key = path.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+                synchronized (entries) {
+                    if (entries.get(path) == entry) {
+                        entry.key = key;
+                    } else {
+                        key.cancel();
+                    }
+                }
+            } catch (IOException | ClosedWatchServiceException e) {
+                Logger.warning(CLASS_NAME, "Не удалось отслеживать " + path + ": " + e.getMessage());
+            }
+        }
+        entry.index.rebuild();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxDirectories && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (eldest.key != null) {
+                eldest.key.cancel();
+            }
+            it.remove();
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            DirectoryIndex index;
+            synchronized (entries) {
+                Entry entry = entries.get(directory);
+                index = entry != null && entry.key == key ? entry.index : null;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (index == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    DirectoryIndex overflowed = index;
+                    indexer.execute(overflowed::rebuild);
+                    index = null;
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    index.entryCreated((Path) event.context());
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    index.entryDeleted((Path) event.context());
+                }
+            }
+            key.reset();
+        }
+    }
+}
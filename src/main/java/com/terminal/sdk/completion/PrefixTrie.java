@@ -0,0 +1,294 @@
+package com.terminal.sdk.completion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Префиксное дерево для автодополнения без учета регистра.
+ * Потомки узла хранятся в отсортированных массивах, поэтому поиск префикса
+ * стоит O(длина префикса * log алфавита). Каждый узел помнит длину самого
+ * короткого слова в своем поддереве, и варианты извлекаются в порядке длины
+ * без обхода всего поддерева; затем они упорядочиваются по весу (частоте использования).
+ * Слова, различающиеся только регистром (Readme и README), попадают в один узел,
+ * который хранит все исходные написания со своими весами.
+ */
+public class PrefixTrie {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final String[] NO_WORDS = new String[0];
+    private static final int[] NO_WEIGHTS = new int[0];
+    private static final int RANKED_CANDIDATES = 512;
+
+    private final Node root = new Node();
+    private int size;
+    private int weightedWords;
+
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        /** Написания слова в порядке добавления и их веса */
+        String[] words = NO_WORDS;
+        int[] weights = NO_WEIGHTS;
+        int wordCount;
+        int minLength = Integer.MAX_VALUE;
+
+        int indexOf(String word) {
+            for (int i = 0; i < wordCount; i++) {
+                if (words[i].equals(word)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void addWord(String word, int weight) {
+            if (wordCount == words.length) {
+                words = Arrays.copyOf(words, wordCount + 1);
+                weights = Arrays.copyOf(weights, wordCount + 1);
+            }
+            words[wordCount] = word;
+            weights[wordCount] = weight;
+            wordCount++;
+        }
+
+        void removeWord(int index) {
+            System.arraycopy(words, index + 1, words, index, wordCount - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, wordCount - index - 1);
+            wordCount--;
+            words[wordCount] = null;
+        }
+
+        void updateMinLength(int depth) {
+            int min = wordCount > 0 ? depth : Integer.MAX_VALUE;
+            for (int i = 0; i < childCount; i++) {
+                min = Math.min(min, children[i].minLength);
+            }
+            minLength = min;
+        }
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, childCount - insert);
+            System.arraycopy(children, insert, children, insert + 1, childCount - insert);
+            Node node = new Node();
+            keys[insert] = key;
+            children[insert] = node;
+            childCount++;
+            return node;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+    }
+
+    private static final class Candidate {
+        final String word;
+        final int weight;
+
+        Candidate(String word, int weight) {
+            this.word = word;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Узел в очереди обхода: сначала поддеревья с более короткими словами,
+     * при равенстве - последний добавленный (обход в глубину), что вместе
+     * с добавлением потомков в обратном порядке дает алфавитный порядок
+     */
+    private static final class Pending implements Comparable<Pending> {
+        final Node node;
+        final long order;
+
+        Pending(Node node, long order) {
+            this.node = node;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byLength = Integer.compare(node.minLength, other.node.minLength);
+            return byLength != 0 ? byLength : Long.compare(other.order, order);
+        }
+    }
+
+    public synchronized boolean add(String word) {
+        return add(word, 0);
+    }
+
+    /**
+     * Добавляет слово с начальным весом
+     *
+     * @return true, если слова еще не было
+     */
+    public synchronized boolean add(String word, int weight) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrCreate(Character.toLowerCase(word.charAt(i)));
+        }
+        if (node.indexOf(word) >= 0) {
+            return false;
+        }
+        node.addWord(word, weight);
+        if (weight != 0) {
+            weightedWords++;
+        }
+        size++;
+        node = root;
+        root.minLength = Math.min(root.minLength, word.length());
+        for (int i = 0; i < word.length(); i++) {
+            node = node.child(Character.toLowerCase(word.charAt(i)));
+            node.minLength = Math.min(node.minLength, word.length());
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет написание слова и освобождает ставшие пустыми узлы
+     */
+    public synchronized boolean remove(String word) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(Character.toLowerCase(word.charAt(i)));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = path[word.length()];
+        int index = node.indexOf(word);
+        if (index < 0) {
+            return false;
+        }
+        if (node.weights[index] != 0) {
+            weightedWords--;
+        }
+        node.removeWord(index);
+        size--;
+        if (node.wordCount > 0) {
+            return true;
+        }
+        for (int i = word.length(); i >= 0; i--) {
+            if (i > 0 && path[i].wordCount == 0 && path[i].childCount == 0) {
+                path[i - 1].removeChild(Character.toLowerCase(word.charAt(i - 1)));
+            } else {
+                path[i].updateMinLength(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Увеличивает вес слова, поднимая его в выдаче
+     */
+    public synchronized void addWeight(String word, int delta) {
+        Node node = find(word);
+        int index = node != null ? node.indexOf(word) : -1;
+        if (index >= 0) {
+            if (node.weights[index] == 0 && delta != 0) {
+                weightedWords++;
+            }
+            node.weights[index] += delta;
+            if (node.weights[index] == 0) {
+                weightedWords--;
+            }
+        }
+    }
+
+    public synchronized boolean contains(String word) {
+        Node node = find(word);
+        return node != null && node.indexOf(word) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root.keys = NO_KEYS;
+        root.children = NO_CHILDREN;
+        root.childCount = 0;
+        root.words = NO_WORDS;
+        root.weights = NO_WEIGHTS;
+        root.wordCount = 0;
+        root.minLength = Integer.MAX_VALUE;
+        size = 0;
+        weightedWords = 0;
+    }
+
+    /**
+     * Возвращает лучший вариант для префикса или пустую строку
+     */
+    public String best(String prefix) {
+        List<String> result = complete(prefix, 1);
+        return result.isEmpty() ? "" : result.get(0);
+    }
+
+    /**
+     * Возвращает до limit вариантов, начинающихся с префикса, в порядке ранжирования
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Пока ни у одного слова нет веса, порядок по длине окончательный
+        int wanted = weightedWords > 0 ? Math.max(limit, RANKED_CANDIDATES) : limit;
+        List<Candidate> candidates = new ArrayList<>();
+        PriorityQueue<Pending> queue = new PriorityQueue<>();
+        long order = 0;
+        queue.add(new Pending(start, order++));
+        while (!queue.isEmpty() && candidates.size() < wanted) {
+            Node node = queue.poll().node;
+            for (int i = 0; i < node.wordCount; i++) {
+                candidates.add(new Candidate(node.words[i], node.weights[i]));
+            }
+            for (int i = node.childCount - 1; i >= 0; i--) {
+                queue.add(new Pending(node.children[i], order++));
+            }
+        }
+        // Сортировка устойчивая: при равном весе сохраняется порядок по длине
+        if (weightedWords > 0) {
+            candidates.sort((a, b) -> Integer.compare(b.weight, a.weight));
+        }
+        List<String> result = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && i < limit; i++) {
+            result.add(candidates.get(i).word);
+        }
+        return result;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(Character.toLowerCase(prefix.charAt(i)));
+        }
+        return node;
+    }
+}
@@ -1,6 +1,7 @@
 package com.terminal.sdk.core;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.SwingUtilities;
@@ -8,6 +9,7 @@ import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
 import com.terminal.TerminalPanel;
+import com.terminal.sdk.output.BufferedOutputSink;
 import com.terminal.sdk.system.CurrentPathHolder;
 
 /**
@@ -70,15 +72,25 @@ public abstract class AsyncCommand extends Command {
     public abstract CompletableFuture<Void> executeAsync(String[] args);
     
     protected void handleError(Throwable ex) {
+        BufferedOutputSink.write(doc, "Ошибка: " + ex.getMessage() + "\n", style);
+    }
+
+    /**
+     * Запускает работу в пуле команды. Если пул перегружен, возвращает
+     * завершенную с ошибкой задачу, и сообщение об отказе выводится в терминал.
+     */
+    protected CompletableFuture<Void> runInPool(Runnable body) {
         try {
-            doc.insertString(doc.getLength(), "Ошибка: " + ex.getMessage() + "\n", style);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return CommandExecutors.getInstance().forCommand(this).runAsync(body);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
         }
     }
 
     protected CompletableFuture<Void> registerTask(CompletableFuture<Void> task) {
-        AsyncTaskManager.getInstance().registerTask(task, terminal.getTerminalId());
+        AsyncTaskManager.getInstance().registerTask(task, terminal.getTerminalId(), getName());
         return task;
     }
 } 
\ No newline at end of file
@@ -1,86 +1,95 @@
 package com.terminal.sdk.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Учет асинхронных задач по панелям терминала.
+ * Каждая панель хранит собственный конкурентный набор задач, поэтому регистрация
+ * и отмена в одной панели не блокируют остальные. Отмена не ждет завершения задач.
+ */
 public class AsyncTaskManager {
     private static AsyncTaskManager instance;
-    private final Map<Integer, List<CompletableFuture<Void>>> terminalTasks;
-    private final Map<Integer, AtomicBoolean> terminalStates;
-    
+    private final Map<Integer, Set<TaskHandle>> terminalTasks;
+
     private AsyncTaskManager() {
         this.terminalTasks = new ConcurrentHashMap<>();
-        this.terminalStates = new ConcurrentHashMap<>();
     }
-    
+
     public static synchronized AsyncTaskManager getInstance() {
         if (instance == null) {
             instance = new AsyncTaskManager();
         }
         return instance;
     }
-    
-    public void registerTask(CompletableFuture<Void> task, int terminalId) {
-        synchronized(this) {
-            List<CompletableFuture<Void>> tasks = terminalTasks.computeIfAbsent(terminalId, 
-                k -> new ArrayList<>());
-            
-            tasks.add(task);
-            
-            terminalStates.computeIfAbsent(terminalId, 
-                k -> new AtomicBoolean()).set(true);
-            
-            task.whenComplete((result, ex) -> {
-                synchronized(AsyncTaskManager.this) {
-                    List<CompletableFuture<Void>> currentTasks = terminalTasks.get(terminalId);
-                    if (currentTasks != null) {
-                        currentTasks.remove(task);
-                        if (currentTasks.isEmpty()) {
-                            terminalTasks.remove(terminalId);
-                            AtomicBoolean state = terminalStates.get(terminalId);
-                            if (state != null) {
-                                state.set(false);
-                            }
-                        }
-                    }
-                }
-            });
-        }
+
+    public TaskHandle registerTask(CompletableFuture<Void> task, int terminalId) {
+        return registerTask(task, terminalId, "task");
+    }
+
+    /**
+     * Регистрирует задачу панели и возвращает ее описание
+     */
+    public TaskHandle registerTask(CompletableFuture<Void> task, int terminalId, String name) {
+        TaskHandle handle = new TaskHandle(task, terminalId, name);
+        Set<TaskHandle> tasks = terminalTasks.computeIfAbsent(terminalId, k -> ConcurrentHashMap.newKeySet());
+        tasks.add(handle);
+
+        task.whenComplete((result, ex) -> {
+            handle.onComplete(ex);
+            tasks.remove(handle);
+        });
+        return handle;
     }
-    
+
     public boolean hasActiveTask(int terminalId) {
-        AtomicBoolean state = terminalStates.get(terminalId);
-        return state != null && state.get();
+        Set<TaskHandle> tasks = terminalTasks.get(terminalId);
+        if (tasks == null) {
+            return false;
+        }
+        for (TaskHandle handle : tasks) {
+            if (handle.isActive()) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
+    /**
+     * Возвращает снимок активных задач панели
+     */
+    public List<TaskHandle> getTasks(int terminalId) {
+        Set<TaskHandle> tasks = terminalTasks.get(terminalId);
+        if (tasks == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Отменяет все задачи панели, не дожидаясь их завершения
+     */
     public void cancelAllTasks(int terminalId) {
-        synchronized(this) {
-            AtomicBoolean state = terminalStates.get(terminalId);
-            if (state != null) {
-                state.set(false);
-            }
-            
-            List<CompletableFuture<Void>> tasks = terminalTasks.get(terminalId);
-            if (tasks != null) {
-                List<CompletableFuture<Void>> tasksCopy = new ArrayList<>(tasks);
-                
-                terminalTasks.remove(terminalId);
-                
-                for (CompletableFuture<Void> task : tasksCopy) {
-                    if (!task.isDone() && !task.isCancelled()) {
-                        task.cancel(true);
-                        
-                        try {
-                            task.handle((result, ex) -> null).get();
-                        } catch (Exception ignored) {
-                        }
-                    }
-                }
-            }
+        Set<TaskHandle> tasks = terminalTasks.get(terminalId);
+        if (tasks == null) {
+            return;
+        }
+        for (TaskHandle handle : tasks) {
+            tasks.remove(handle);
+            handle.cancel();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Забывает задачи закрытой панели
+     */
+    public void releaseTerminal(int terminalId) {
+        cancelAllTasks(terminalId);
+        terminalTasks.remove(terminalId);
+    }
+}
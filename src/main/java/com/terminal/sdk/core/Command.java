@@ -1,6 +1,7 @@
 package com.terminal.sdk.core;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
@@ -71,15 +72,22 @@ public abstract class Command {
         String animationId = "cmd_" + System.currentTimeMillis();
         AnimationManager.getInstance().startAnimation(animationId);
         
-        return CompletableFuture.runAsync(() -> {
-            try {
-                execute(args);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            } finally {
-                AnimationManager.getInstance().stopAnimation(animationId);
-            }
-        });
+        try {
+            return CommandExecutors.getInstance().forCommand(this).runAsync(() -> {
+                try {
+                    execute(args);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    AnimationManager.getInstance().stopAnimation(animationId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            AnimationManager.getInstance().stopAnimation(animationId);
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
     }
     
     /**
@@ -92,6 +100,23 @@ public abstract class Command {
         return null;
     }
     
+    /**
+     * Возвращает пул, в котором выполняется асинхронная работа команды.
+     * Команды с вычислительной нагрузкой переопределяют его на CommandPool.CPU;
+     * такие команды и в очереди панели выполняются в пуле terminal-cpu.
+     */
+    public CommandPool getPool() {
+        return CommandPool.IO;
+    }
+    
+    /**
+     * Проверяет, должна ли команда выполняться в потоке обработки событий Swing.
+     * Такие команды напрямую работают с компонентами интерфейса.
+     */
+    public boolean runsOnEventThread() {
+        return false;
+    }
+    
     /**
      * Проверяет, является ли команда длительной операцией.
      */
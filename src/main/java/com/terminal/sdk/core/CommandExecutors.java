@@ -0,0 +1,58 @@
+package com.terminal.sdk.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Пулы потоков для асинхронной работы команд.
+ * Блокирующие операции ввода-вывода и вычисления выполняются в разных пулах,
+ * поэтому медленная сеть не занимает потоки, нужные для расчетов, и наоборот.
+ * Размеры пулов и очередей задаются в content/user.json.
+ */
+public class CommandExecutors {
+    private static CommandExecutors instance;
+    private final Map<CommandPool, InstrumentedExecutor> pools = new EnumMap<>(CommandPool.class);
+
+    private CommandExecutors() {
+        UserSettings settings = UserSettings.getInstance();
+        int cpus = Runtime.getRuntime().availableProcessors();
+        pools.put(CommandPool.IO, new InstrumentedExecutor("terminal-io",
+            Math.max(1, settings.getInt("io-pool-threads", 32)),
+            Math.max(1, settings.getInt("io-pool-queue", 256))));
+        pools.put(CommandPool.CPU, new InstrumentedExecutor("terminal-cpu",
+            Math.max(1, settings.getInt("cpu-pool-threads", cpus)),
+            Math.max(1, settings.getInt("cpu-pool-queue", 64))));
+    }
+
+    public static synchronized CommandExecutors getInstance() {
+        if (instance == null) {
+            instance = new CommandExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает пул указанного типа
+     */
+    public InstrumentedExecutor get(CommandPool pool) {
+        return pools.get(pool);
+    }
+
+    /**
+     * Возвращает пул, объявленный командой
+     */
+    public InstrumentedExecutor forCommand(Command command) {
+        return pools.get(command.getPool());
+    }
+
+    /**
+     * Останавливает все пулы
+     */
+    public void shutdown() {
+        for (InstrumentedExecutor executor : pools.values()) {
+            executor.shutdownNow();
+        }
+    }
+}
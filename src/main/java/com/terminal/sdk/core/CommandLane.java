@@ -0,0 +1,164 @@
+package com.terminal.sdk.core;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Последовательная очередь команд одной панели терминала.
+ * Команды выполняются строго по одной в общем пуле потоков планировщика,
+ * поэтому разные панели работают параллельно, а внутри панели сохраняется порядок.
+ * Команды пула {@link CommandPool#CPU} выполняются в пуле terminal-cpu, чтобы
+ * вычисления из всех панелей не занимали больше потоков, чем есть процессоров.
+ */
+public class CommandLane {
+    private final int terminalId;
+    private final Executor workers;
+    private final Queue<PendingTask> pending = new ArrayDeque<>();
+    private FutureTask<Void> current;
+    private Thread currentThread;
+    private boolean currentCancelled;
+    private boolean shutdown;
+    private CancelListener cancelListener;
+
+    /**
+     * Получатель событий прерывания команды. Оба метода вызываются под монитором
+     * очереди, поэтому завершение прерванной команды не обгоняет ее прерывание.
+     */
+    public interface CancelListener {
+
+        /** Команда в потоке runner прерывается */
+        void onCancel(Thread runner);
+
+        /** Прерванная команда завершилась, поток runner возвращается в пул */
+        void onFinished(Thread runner);
+    }
+
+    private static final class PendingTask {
+        final FutureTask<Void> task;
+        final CommandPool pool;
+
+        PendingTask(FutureTask<Void> task, CommandPool pool) {
+            this.task = task;
+            this.pool = pool;
+        }
+    }
+
+    CommandLane(int terminalId, Executor workers) {
+        this.terminalId = terminalId;
+        this.workers = workers;
+    }
+
+    public int getTerminalId() {
+        return terminalId;
+    }
+
+    public synchronized void setCancelListener(CancelListener listener) {
+        this.cancelListener = listener;
+    }
+
+    /**
+     * Ставит команду в очередь панели
+     */
+    public Future<Void> submit(Runnable body) {
+        return submit(body, CommandPool.IO);
+    }
+
+    /**
+     * Ставит команду в очередь панели; команда выполнится в потоке указанного пула
+     */
+    public synchronized Future<Void> submit(Runnable body, CommandPool pool) {
+        if (shutdown) {
+            throw new IllegalStateException("Очередь команд терминала " + terminalId + " закрыта");
+        }
+        FutureTask<Void> task = new FutureTask<>(body, null);
+        pending.add(new PendingTask(task, pool));
+        if (current == null) {
+            scheduleNext();
+        }
+        return task;
+    }
+
+    /**
+     * Проверяет, выполняется ли сейчас команда
+     */
+    public synchronized boolean isBusy() {
+        return current != null;
+    }
+
+    /**
+     * Прерывает текущую команду.
+     *
+     * @return поток, в котором выполнялась команда, или null, если команды нет
+     */
+    public synchronized Thread cancelCurrent() {
+        if (current == null) {
+            return null;
+        }
+        Thread runner = currentThread;
+        if (runner != null && !currentCancelled) {
+            currentCancelled = true;
+            if (cancelListener != null) {
+                cancelListener.onCancel(runner);
+            }
+        }
+        current.cancel(true);
+        return runner;
+    }
+
+    /**
+     * Отменяет ожидающие и текущую команды и закрывает очередь
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        for (PendingTask next : pending) {
+            next.task.cancel(false);
+        }
+        pending.clear();
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    private void scheduleNext() {
+        PendingTask next = pending.poll();
+        if (next == null) {
+            current = null;
+            return;
+        }
+        current = next.task;
+        FutureTask<Void> task = current;
+        Runnable runner = () -> {
+            synchronized (this) {
+                currentThread = Thread.currentThread();
+            }
+            try {
+                task.run();
+            } finally {
+                Thread.interrupted();
+                onTaskFinished();
+            }
+        };
+        if (next.pool == CommandPool.CPU) {
+            try {
+                CommandExecutors.getInstance().get(CommandPool.CPU).execute(runner);
+                return;
+            } catch (RejectedExecutionException e) {
+                // Очередь вычислительного пула переполнена: команда не теряется
+            }
+        }
+        workers.execute(runner);
+    }
+
+    private synchronized void onTaskFinished() {
+        if (currentCancelled && cancelListener != null) {
+            cancelListener.onFinished(currentThread);
+        }
+        currentCancelled = false;
+        currentThread = null;
+        scheduleNext();
+    }
+}
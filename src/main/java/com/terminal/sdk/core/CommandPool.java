@@ -0,0 +1,11 @@
+package com.terminal.sdk.core;
+
+/**
+ * Пул потоков, в котором выполняется асинхронная работа команды
+ */
+public enum CommandPool {
+    /** Блокирующие сетевые и дисковые операции */
+    IO,
+    /** Вычисления: хеширование, шифрование, сжатие */
+    CPU
+}
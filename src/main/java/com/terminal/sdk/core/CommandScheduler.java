@@ -0,0 +1,52 @@
+package com.terminal.sdk.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Планировщик выполнения команд вне потока обработки событий Swing.
+ * Каждой панели терминала выделяется собственная последовательная очередь,
+ * все очереди используют общий пул рабочих потоков.
+ */
+public class CommandScheduler {
+    private static CommandScheduler instance;
+    private final ExecutorService workers;
+    private final Map<Integer, CommandLane> lanes;
+
+    private CommandScheduler() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "terminal-command-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.lanes = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized CommandScheduler getInstance() {
+        if (instance == null) {
+            instance = new CommandScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает очередь команд панели, создавая ее при необходимости
+     */
+    public CommandLane getLane(int terminalId) {
+        return lanes.computeIfAbsent(terminalId, id -> new CommandLane(id, workers));
+    }
+
+    /**
+     * Закрывает очередь команд панели
+     */
+    public void releaseLane(int terminalId) {
+        CommandLane lane = lanes.remove(terminalId);
+        if (lane != null) {
+            lane.shutdown();
+        }
+    }
+}
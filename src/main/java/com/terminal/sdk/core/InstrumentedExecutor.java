@@ -0,0 +1,145 @@
+package com.terminal.sdk.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Именованный пул потоков с ограниченной очередью и счетчиками.
+ * При переполнении очереди задача отклоняется исключением
+ * RejectedExecutionException с понятным пользователю сообщением.
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+    private final String name;
+    private final int queueCapacity;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+    public InstrumentedExecutor(String name, int threads, int queueCapacity) {
+        super(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadCounter = new AtomicInteger();
+        setThreadFactory(r -> {
+            Thread t = new Thread(r, name + "-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        setRejectedExecutionHandler((r, executor) -> {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException(String.format(
+                "Пул %s перегружен: %d задач в очереди (лимит %d)", name, getQueue().size(), queueCapacity));
+        });
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(command);
+        // Отклоненные задачи сюда не доходят: обработчик отказа бросает исключение
+        submitted.incrementAndGet();
+        peakQueueDepth.accumulateAndGet(getQueue().size(), Math::max);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        // Future (в том числе задачи CompletableFuture) сохраняет исключение у себя
+        if (t == null && r instanceof Future<?> && ((Future<?>) r).isDone()) {
+            try {
+                ((Future<?>) r).get();
+            } catch (CancellationException e) {
+                t = e;
+            } catch (ExecutionException e) {
+                t = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (t == null) {
+            completed.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Запускает задачу в пуле и возвращает ее завершение.
+     * В отличие от CompletableFuture.runAsync задача выполняется как FutureTask,
+     * поэтому ее исключение видно в afterExecute и попадает в счетчик ошибок.
+     *
+     * @throws RejectedExecutionException если очередь пула заполнена
+     */
+    public CompletableFuture<Void> runAsync(Runnable body) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        execute(new FutureTask<Void>(body, null) {
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    result.complete(null);
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(new CompletionException(e.getCause()));
+                } catch (CancellationException | InterruptedException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Возвращает краткую сводку состояния пула
+     */
+    public String describe() {
+        return String.format("%s: потоков %d/%d, активно %d, очередь %d/%d (пик %d), "
+                + "принято %d, выполнено %d, ошибок %d, отклонено %d",
+            name, getPoolSize(), getMaximumPoolSize(), getActiveCount(),
+            getQueueDepth(), queueCapacity, getPeakQueueDepth(),
+            getSubmittedCount(), getCompletedCount(), getFailedCount(), getRejectedCount());
+    }
+}
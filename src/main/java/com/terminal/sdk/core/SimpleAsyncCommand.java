@@ -31,7 +31,7 @@ public class SimpleAsyncCommand extends AsyncCommand {
     
     @Override
     public CompletableFuture<Void> executeAsync(String[] args) {
-        CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> task = runInPool(() -> {
             try {
                 System.out.println("Starting async task for terminal " + terminal.getTerminalId());
                 while (!isCancelled()) {
@@ -0,0 +1,123 @@
+package com.terminal.sdk.core;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Описание асинхронной задачи терминала: состояние, время выполнения и прогресс.
+ * Состояние меняется атомарно и без блокировок, поэтому опрос задачи
+ * из потока интерфейса никогда не ждет саму задачу.
+ */
+public class TaskHandle {
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
+    private final int terminalId;
+    private final String name;
+    private final CompletableFuture<Void> future;
+    private final long startNanos;
+    private final AtomicReference<State> state;
+    private volatile long endNanos;
+    private volatile double progress = -1;
+
+    TaskHandle(CompletableFuture<Void> future, int terminalId, String name) {
+        this.id = NEXT_ID.incrementAndGet();
+        this.terminalId = terminalId;
+        this.name = name;
+        this.future = future;
+        this.startNanos = System.nanoTime();
+        this.state = new AtomicReference<>(State.RUNNING);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getTerminalId() {
+        return terminalId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isActive() {
+        return state.get() == State.RUNNING;
+    }
+
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /**
+     * Возвращает время выполнения задачи в миллисекундах
+     */
+    public long getElapsedMillis() {
+        long end = endNanos;
+        if (end == 0) {
+            end = System.nanoTime();
+        }
+        return (end - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Возвращает прогресс от 0 до 1 или -1, если задача его не сообщает
+     */
+    public double getProgress() {
+        return progress;
+    }
+
+    /**
+     * Сообщает прогресс задачи, значение ограничивается диапазоном 0..1
+     */
+    public void setProgress(double value) {
+        progress = Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * Отменяет задачу, не дожидаясь ее завершения
+     */
+    public boolean cancel() {
+        boolean cancelled = finish(State.CANCELLED);
+        future.cancel(true);
+        return cancelled;
+    }
+
+    void onComplete(Throwable error) {
+        if (error == null) {
+            finish(State.COMPLETED);
+        } else if (error instanceof CancellationException
+                || error.getCause() instanceof CancellationException) {
+            finish(State.CANCELLED);
+        } else {
+            finish(State.FAILED);
+        }
+    }
+
+    private boolean finish(State finalState) {
+        long now = System.nanoTime();
+        if (state.compareAndSet(State.RUNNING, finalState)) {
+            endNanos = now;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s [%s, %d мс]", id, name, state.get(), getElapsedMillis());
+    }
+}
@@ -0,0 +1,37 @@
+package com.terminal.sdk.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Именованные fork/join пулы для параллельных подзадач команд (поиск, хеширование, сжатие).
+ * Команда уже выполняется в пуле {@link CommandExecutors}, поэтому ее подзадачи идут
+ * в отдельный пул, иначе ограниченная очередь пула команд могла бы заблокироваться.
+ * Число потоков пула задается ключом {@code <имя>-threads} в content/user.json.
+ */
+public final class WorkerPools {
+    private static final Map<String, ForkJoinPool> POOLS = new HashMap<>();
+
+    private WorkerPools() {
+    }
+
+    public static synchronized ForkJoinPool get(String name) {
+        ForkJoinPool pool = POOLS.get(name);
+        if (pool == null) {
+            int parallelism = Math.max(1, UserSettings.getInstance().getInt(name + "-threads",
+                Runtime.getRuntime().availableProcessors()));
+            pool = new ForkJoinPool(parallelism, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName(name + "-worker-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+            POOLS.put(name, pool);
+        }
+        return pool;
+    }
+}
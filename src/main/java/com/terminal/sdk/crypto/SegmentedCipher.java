@@ -0,0 +1,336 @@
+package com.terminal.sdk.crypto;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Шифрование файлов AES-GCM сегментами фиксированного размера.
+ * Формат контейнера: заголовок (сигнатура, версия, размер сегмента, 7 байт случайного
+ * префикса nonce), затем сегменты, каждый со своим тегом. Nonce сегмента - префикс,
+ * номер сегмента и признак последнего сегмента, поэтому перестановка и обрезка
+ * сегментов обнаруживаются. Заголовок входит в AAD каждого сегмента.
+ * Сегменты независимы и обрабатываются параллельно в пуле "crypto" {@link WorkerPools}
+ * через прямые буферы; смещение каждого сегмента известно заранее, поэтому воркеры
+ * пишут результат сами, а слушатель получает ход работы в порядке сегментов.
+ */
+public class SegmentedCipher {
+    public static final int MAGIC = 0x54474331;
+    public static final int HEADER_SIZE = 16;
+    public static final int TAG_SIZE = 16;
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+    private static final int VERSION = 1;
+    private static final int PREFIX_SIZE = 7;
+    private static final int MIN_SEGMENT_SIZE = 4 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<ByteBuffer[]> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[2]);
+
+    private final SecretKey key;
+    private final int segmentSize;
+    private volatile boolean cancelled;
+
+    /**
+     * Получатель хода работы. Вызывается в потоке, запустившем операцию.
+     */
+    public interface Listener {
+        void onSegment(long index, long count, long bytes);
+
+        void onCorrupt(long index, long count);
+    }
+
+    /**
+     * @param segmentSize размер открытого текста в сегменте; при расшифровке берется из заголовка
+     */
+    public SegmentedCipher(SecretKey key, int segmentSize) {
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Размер сегмента должен быть от "
+                + MIN_SEGMENT_SIZE / 1024 + " КБ до " + MAX_SEGMENT_SIZE / (1024 * 1024) + " МБ");
+        }
+        this.key = key;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Проверяет, начинается ли файл с заголовка контейнера
+     */
+    public static boolean isContainer(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(in, header, 0);
+            return header.position() == HEADER_SIZE && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Шифрует файл в контейнер
+     *
+     * @return число сегментов
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public long encrypt(Path source, Path target, Listener listener)
+            throws IOException, InterruptedException, GeneralSecurityException {
+        byte[] prefix = new byte[PREFIX_SIZE];
+        new SecureRandom().nextBytes(prefix);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put((byte) VERSION).putInt(segmentSize).put(prefix).flip();
+        byte[] aad = header.array().clone();
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long plainSize = in.size();
+            long count = Math.max(1, (plainSize + segmentSize - 1) / segmentSize);
+            checkCount(count);
+            writeFully(out, header, 0);
+            run(count, listener, index -> {
+                long from = index * segmentSize;
+                int length = (int) Math.min(segmentSize, plainSize - from);
+                return encryptSegment(in, out, aad, prefix, index, index == count - 1, from, length,
+                    cipherOffset(segmentSize, index));
+            });
+            return count;
+        }
+    }
+
+    /**
+     * Расшифровывает контейнер. Поврежденные сегменты передаются слушателю,
+     * остальные расшифровываются и проверяются независимо.
+     *
+     * @param target файл результата или null, чтобы только проверить теги
+     * @return число поврежденных сегментов
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public long decrypt(Path source, Path target, Listener listener)
+            throws IOException, InterruptedException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = target == null ? null : FileChannel.open(target, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(in, header, 0);
+            if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("Файл не является зашифрованным контейнером");
+            }
+            if (header.get(4) != VERSION) {
+                throw new IOException("Неподдерживаемая версия контейнера: " + header.get(4));
+            }
+            int size = header.getInt(5);
+            if (size < MIN_SEGMENT_SIZE || size > MAX_SEGMENT_SIZE) {
+                throw new IOException("Неверный размер сегмента в заголовке: " + size);
+            }
+            byte[] aad = header.array().clone();
+            byte[] prefix = new byte[PREFIX_SIZE];
+            System.arraycopy(aad, 9, prefix, 0, PREFIX_SIZE);
+
+            long cipherSize = in.size() - HEADER_SIZE;
+            long fullSegment = (long) size + TAG_SIZE;
+            long count = (cipherSize + fullSegment - 1) / fullSegment;
+            if (count == 0 || cipherSize - (count - 1) * fullSegment < TAG_SIZE) {
+                throw new IOException("Контейнер обрезан");
+            }
+            checkCount(count);
+            long[] corrupt = new long[1];
+            run(count, new Listener() {
+                @Override
+                public void onSegment(long index, long total, long bytes) {
+                    listener.onSegment(index, total, bytes);
+                }
+
+                @Override
+                public void onCorrupt(long index, long total) {
+                    corrupt[0]++;
+                    listener.onCorrupt(index, total);
+                }
+            }, index -> {
+                long from = cipherOffset(size, index);
+                int length = (int) Math.min(fullSegment, HEADER_SIZE + cipherSize - from);
+                return decryptSegment(in, out, aad, prefix, index, index == count - 1, from, length, index * size);
+            });
+            if (out != null) {
+                out.truncate(Math.max(0, cipherSize - count * TAG_SIZE));
+            }
+            return corrupt[0];
+        }
+    }
+
+    private interface SegmentTask {
+        Object process(long index) throws IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Держит в работе не больше двух сегментов на поток пула и отдает результаты по порядку
+     */
+    private void run(long count, Listener listener, SegmentTask task)
+            throws IOException, InterruptedException, GeneralSecurityException {
+        ForkJoinPool pool = WorkerPools.get("crypto");
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<Object>> inFlight = new ArrayDeque<>(window);
+        long next = 0;
+        long delivered = 0;
+        cancelled = false;
+        try {
+            while (delivered < count) {
+                while (next < count && inFlight.size() < window) {
+                    long index = next++;
+                    inFlight.addLast(pool.submit(() -> {
+                        if (cancelled) {
+                            return new InterruptedIOException("Операция отменена");
+                        }
+                        try {
+                            return task.process(index);
+                        } catch (IOException | GeneralSecurityException e) {
+                            return e;
+                        }
+                    }));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                Object result;
+                try {
+                    result = inFlight.peekFirst().get();
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+                inFlight.removeFirst();
+                long index = delivered++;
+                if (result instanceof AEADBadTagException) {
+                    listener.onCorrupt(index, count);
+                } else if (result instanceof IOException) {
+                    throw (IOException) result;
+                } else if (result instanceof GeneralSecurityException) {
+                    throw (GeneralSecurityException) result;
+                } else {
+                    listener.onSegment(index, count, (Integer) result);
+                }
+            }
+        } finally {
+            if (!inFlight.isEmpty()) {
+                cancelled = true;
+                for (ForkJoinTask<Object> pending : inFlight) {
+                    pending.cancel(false);
+                }
+            }
+        }
+    }
+
+    private Integer encryptSegment(FileChannel in, FileChannel out, byte[] aad, byte[] prefix, long index,
+            boolean last, long from, int length, long to) throws IOException, GeneralSecurityException {
+        ByteBuffer[] buffers = buffers(length + TAG_SIZE);
+        ByteBuffer plain = buffers[0];
+        plain.limit(length);
+        readFully(in, plain, from);
+        if (plain.hasRemaining()) {
+            throw new IOException("Файл изменился во время шифрования");
+        }
+        plain.flip();
+        ByteBuffer sealed = buffers[1];
+        sealed.limit(length + TAG_SIZE);
+        Cipher cipher = cipher(Cipher.ENCRYPT_MODE, aad, prefix, index, last);
+        cipher.doFinal(plain, sealed);
+        sealed.flip();
+        writeFully(out, sealed, to);
+        return length;
+    }
+
+    private Integer decryptSegment(FileChannel in, FileChannel out, byte[] aad, byte[] prefix, long index,
+            boolean last, long from, int length, long to) throws IOException, GeneralSecurityException {
+        ByteBuffer[] buffers = buffers(length);
+        ByteBuffer sealed = buffers[0];
+        sealed.limit(length);
+        readFully(in, sealed, from);
+        sealed.flip();
+        ByteBuffer plain = buffers[1];
+        plain.limit(length - TAG_SIZE);
+        Cipher cipher = cipher(Cipher.DECRYPT_MODE, aad, prefix, index, last);
+        cipher.doFinal(sealed, plain);
+        plain.flip();
+        if (out != null) {
+            writeFully(out, plain, to);
+        }
+        return length - TAG_SIZE;
+    }
+
+    private Cipher cipher(int mode, byte[] aad, byte[] prefix, long index, boolean last)
+            throws GeneralSecurityException {
+        byte[] nonce = new byte[12];
+        System.arraycopy(prefix, 0, nonce, 0, PREFIX_SIZE);
+        nonce[7] = (byte) (index >>> 24);
+        nonce[8] = (byte) (index >>> 16);
+        nonce[9] = (byte) (index >>> 8);
+        nonce[10] = (byte) index;
+        nonce[11] = (byte) (last ? 1 : 0);
+        Cipher cipher = CIPHERS.get();
+        cipher.init(mode, key, new GCMParameterSpec(TAG_SIZE * 8, nonce));
+        cipher.updateAAD(aad);
+        return cipher;
+    }
+
+    /**
+     * Возвращает прямые буферы потока, пересоздавая их только при нехватке емкости
+     */
+    private static ByteBuffer[] buffers(int capacity) {
+        ByteBuffer[] buffers = BUFFERS.get();
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null || buffers[i].capacity() < capacity) {
+                buffers[i] = ByteBuffer.allocateDirect(capacity);
+            }
+            buffers[i].clear();
+        }
+        return buffers;
+    }
+
+    private static void checkCount(long count) throws IOException {
+        if (count > 0xFFFFFFFFL) {
+            throw new IOException("Слишком много сегментов, увеличьте размер сегмента");
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    /**
+     * Смещение сегмента в контейнере
+     */
+    private static long cipherOffset(int segmentSize, long index) {
+        return HEADER_SIZE + index * ((long) segmentSize + TAG_SIZE);
+    }
+}
@@ -18,6 +18,7 @@ import static com.terminal.sdk.formatting.BoxCharacters.VERTICAL;
 import com.terminal.sdk.formatting.TableBuilder.Alignment;
 import com.terminal.sdk.formatting.TableBuilder.TableFormat;
 import com.terminal.sdk.formatting.TableBuilder.TableStyle;
+import com.terminal.sdk.output.BufferedOutputSink;
 
 public class DefaultBeautifulFormatter {
     
@@ -89,19 +90,11 @@ public class DefaultBeautifulFormatter {
         if (TableBuilder.isCapturingOutput()) {
             TableBuilder.getOutputBuffer().append(text);
         }
-        try {
-            doc.insertString(doc.getLength(), text, style);
-        } catch (BadLocationException e) {
-            e.printStackTrace();
-        }
+        BufferedOutputSink.write(doc, text, style);
     }
 
     protected void insertText(StyledDocument doc, Style style, String text) {
-        try {
-            doc.insertString(doc.getLength(), text, style);
-        } catch (BadLocationException e) {
-            e.printStackTrace();
-        }
+        BufferedOutputSink.write(doc, text, style);
     }
     
     protected int calculateWidth(StyledDocument doc, String[][] data) {
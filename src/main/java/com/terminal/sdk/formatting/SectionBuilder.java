@@ -12,6 +12,8 @@ import static com.terminal.sdk.formatting.BoxCharacters.TOP_RIGHT;
 import static com.terminal.sdk.formatting.BoxCharacters.T_RIGHT;
 import static com.terminal.sdk.formatting.BoxCharacters.VERTICAL;
 
+import com.terminal.sdk.output.BufferedOutputSink;
+
 public class SectionBuilder {
     private final String title;
     private final StringBuilder buffer;
@@ -37,7 +39,7 @@ public class SectionBuilder {
     }
     
     public void insertIntoDocument(StyledDocument doc, Style style) throws BadLocationException {
-        doc.insertString(doc.getLength(), buffer.toString(), style);
+        BufferedOutputSink.write(doc, buffer.toString(), style);
     }
     
     private static String repeat(String str, int count) {
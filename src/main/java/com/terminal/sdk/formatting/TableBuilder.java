@@ -16,6 +16,8 @@ import static com.terminal.sdk.formatting.BoxCharacters.T_RIGHT;
 import static com.terminal.sdk.formatting.BoxCharacters.T_UP;
 import static com.terminal.sdk.formatting.BoxCharacters.VERTICAL;
 
+import com.terminal.sdk.output.BufferedOutputSink;
+
 public class TableBuilder {
     private final String[] headers;
     private final String[][] data;
@@ -25,28 +27,43 @@ public class TableBuilder {
     private final TableFormat format;
     private int width;
 
-    protected static StringBuilder outputBuffer = new StringBuilder();
-    protected static Boolean isCapturingOutput = false;
+    // Перехват вывода свой у каждого потока: панели выполняют команды параллельно
+    private static final ThreadLocal<StringBuilder> OUTPUT_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private static final ThreadLocal<Boolean> CAPTURING_OUTPUT = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * Буфер перехвата текущего потока для наследников (прежнее поле outputBuffer)
+     */
+    protected static StringBuilder outputBuffer() {
+        return OUTPUT_BUFFER.get();
+    }
+
+    /**
+     * Включает или выключает перехват в текущем потоке (прежнее поле isCapturingOutput)
+     */
+    protected static void setCapturingOutput(Boolean capturing) {
+        CAPTURING_OUTPUT.set(Boolean.TRUE.equals(capturing));
+    }
 
     public static StringBuilder getOutputBuffer() {
-        return outputBuffer;
+        return OUTPUT_BUFFER.get();
     }
 
     public static Boolean isCapturingOutput() {
-        return isCapturingOutput;
+        return CAPTURING_OUTPUT.get();
     }
 
     public static void startOutputCapture() {
-        outputBuffer.setLength(0);
-        isCapturingOutput = true;
+        OUTPUT_BUFFER.get().setLength(0);
+        CAPTURING_OUTPUT.set(Boolean.TRUE);
     }
 
     public static void stopOutputCapture() {
-        isCapturingOutput = false;
+        CAPTURING_OUTPUT.set(Boolean.FALSE);
     }
 
     public static String getCapturedOutput() {
-        return outputBuffer.toString();
+        return OUTPUT_BUFFER.get().toString();
     }
     
     public static class TableStyle {
@@ -366,7 +383,7 @@ public class TableBuilder {
         if (DefaultBeautifulFormatter.isCapturingOutput()) {
             DefaultBeautifulFormatter.getOutputBuffer().append(buffer.toString());
         } else {
-            doc.insertString(doc.getLength(), buffer.toString(), docStyle);
+            BufferedOutputSink.write(doc, buffer.toString(), docStyle);
         }
     }
     
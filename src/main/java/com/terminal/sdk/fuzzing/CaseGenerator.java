@@ -0,0 +1,16 @@
+package com.terminal.sdk.fuzzing;
+
+/**
+ * Источник тестовых случаев. Вызывается только из потока генерации,
+ * поэтому реализации не обязаны быть потокобезопасными.
+ */
+public interface CaseGenerator {
+
+    /**
+     * Заполняет следующий случай. Номер случая уже выставлен по порядку,
+     * генератор может заменить его своим.
+     *
+     * @return false, если случаи закончились
+     */
+    boolean next(FuzzCase target);
+}
@@ -0,0 +1,141 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Набор исходных данных для фаззинга.
+ * Из каталога каждый обычный файл загружается как один двоичный элемент,
+ * из файла - каждая непустая строка, кроме комментариев с #.
+ */
+public final class Corpus {
+    private final List<byte[]> entries;
+
+    private Corpus(List<byte[]> entries) {
+        this.entries = entries;
+    }
+
+    public static Corpus of(List<String> lines) {
+        List<byte[]> entries = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            entries.add(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return new Corpus(entries);
+    }
+
+    /**
+     * Загружает корпус из файла строк или каталога файлов
+     *
+     * @throws IOException если корпус не читается или пуст
+     */
+    public static Corpus load(Path path) throws IOException {
+        List<byte[]> entries = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path file : stream) {
+                    if (Files.isRegularFile(file)) {
+                        files.add(file);
+                    }
+                }
+            }
+            Collections.sort(files);
+            for (Path file : files) {
+                entries.add(Files.readAllBytes(file));
+            }
+        } else {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    entries.add(line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IOException("Корпус пуст: " + path);
+        }
+        return new Corpus(entries);
+    }
+
+    /**
+     * Новый корпус с entry в качестве первого элемента
+     */
+    public Corpus prepend(byte[] entry) {
+        List<byte[]> combined = new ArrayList<>(entries.size() + 1);
+        combined.add(entry);
+        combined.addAll(entries);
+        return new Corpus(combined);
+    }
+
+    public static Corpus of(byte[] entry) {
+        List<byte[]> entries = new ArrayList<>(1);
+        entries.add(entry);
+        return new Corpus(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public byte[] get(int index) {
+        return entries.get(index);
+    }
+
+    /** Размер самого длинного элемента */
+    public int getMaxLength() {
+        int max = 0;
+        for (byte[] entry : entries) {
+            max = Math.max(max, entry.length);
+        }
+        return max;
+    }
+
+    /**
+     * Генератор, который перебирает элементы по кругу, пока не выдаст count случаев
+     */
+    public CaseGenerator cycle(long count) {
+        return new CaseGenerator() {
+            private long produced;
+
+            @Override
+            public boolean next(FuzzCase target) {
+                if (produced >= count) {
+                    return false;
+                }
+                byte[] entry = entries.get((int) (produced++ % entries.size()));
+                target.set(entry, 0, entry.length);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Генератор случайных данных длиной до maxLength байт
+     */
+    public static CaseGenerator random(long count, int maxLength, long seed) {
+        return new CaseGenerator() {
+            private final SplittableRandom random = new SplittableRandom(seed);
+            private long produced;
+
+            @Override
+            public boolean next(FuzzCase target) {
+                if (produced++ >= count) {
+                    return false;
+                }
+                int length = 1 + random.nextInt(Math.max(1, maxLength));
+                byte[] data = target.ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    data[i] = (byte) random.nextInt(256);
+                }
+                target.setLength(length);
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Цели файлового фаззинга.
+ * Запись в кольцо файлов: случай N пишется в файл prefix(N mod ring), поэтому
+ * на диске остаются только последние ring случаев. Запуск команды: данные
+ * пишутся в собственный файл исполнителя; если в аргументах есть @@, вместо него
+ * подставляется путь к файлу, иначе файл подключается к stdin процесса, поэтому
+ * программа, не читающая stdin, не блокирует исполнителя. Падением считается
+ * завершение по сигналу ошибки (SIGSEGV, SIGABRT и т.п.) или по исключению
+ * Windows, превышение таймаута - зависанием; такие входные данные целиком
+ * сохраняются в каталог находок.
+ */
+public final class FileFuzzTarget implements FuzzTarget {
+    public static final String INPUT_MARKER = "@@";
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+    private static final File NULL_FILE = new File(WINDOWS ? "NUL" : "/dev/null");
+    /** Java сообщает о завершении по сигналу N в Unix кодом 128 + N */
+    private static final int SIGNAL_EXIT_BASE = 128;
+    /** Сигналы ошибок, которые считаются падением: SIGILL, SIGTRAP, SIGABRT, SIGBUS, SIGFPE, SIGSEGV */
+    private static final int[] CRASH_SIGNALS = {4, 5, 6, 7, 8, 11};
+    private static final String[] CRASH_SIGNAL_NAMES = {"SIGILL", "SIGTRAP", "SIGABRT", "SIGBUS", "SIGFPE", "SIGSEGV"};
+    /** Коды исключений Windows (NTSTATUS) с уровнем ошибки: 0xC0000005 и т.п. */
+    private static final int NTSTATUS_ERROR = 0xC0000000;
+
+    private final Path directory;
+    private final String prefix;
+    private final int ringSize;
+    private final List<String> command;
+    private final Path findingsDirectory;
+    private final long timeoutMs;
+    private String detail;
+
+    private FileFuzzTarget(Path directory, String prefix, int ringSize, List<String> command,
+            Path findingsDirectory, long timeoutMs) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.ringSize = Math.max(1, ringSize);
+        this.command = command;
+        this.findingsDirectory = findingsDirectory;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Цель, которая только пишет случаи в кольцо из ringSize файлов
+     */
+    public static Factory ring(Path directory, String prefix, int ringSize) {
+        return () -> new FileFuzzTarget(directory, prefix, ringSize, null, null, 0);
+    }
+
+    /**
+     * Цель, которая запускает команду для каждого случая
+     *
+     * @param directory каталог для файлов исполнителей, если команда принимает @@
+     */
+    public static Factory command(List<String> command, Path directory, Path findingsDirectory, long timeoutMs) {
+        AtomicInteger workers = new AtomicInteger();
+        return () -> new FileFuzzTarget(directory, "fuzz-input-" + workers.getAndIncrement(), 1,
+            command, findingsDirectory, Math.max(1, timeoutMs));
+    }
+
+    @Override
+    public Outcome send(FuzzCase fuzzCase) {
+        try {
+            if (command == null) {
+                write(directory.resolve(prefix + fuzzCase.getIndex() % ringSize), fuzzCase);
+                return Outcome.RESPONSE;
+            }
+            return execute(fuzzCase);
+        } catch (IOException e) {
+            detail = e.getMessage();
+            return Outcome.ERROR;
+        }
+    }
+
+    private Outcome execute(FuzzCase fuzzCase) throws IOException {
+        List<String> arguments = new ArrayList<>(command.size());
+        Path input = directory.resolve(prefix);
+        boolean viaFile = false;
+        for (String argument : command) {
+            if (argument.contains(INPUT_MARKER)) {
+                arguments.add(argument.replace(INPUT_MARKER, input.toString()));
+                viaFile = true;
+            } else {
+                arguments.add(argument);
+            }
+        }
+        write(input, fuzzCase);
+        // stdin из файла подает сама ОС: запись не блокируется, таймаут идет с запуска
+        Process process = new ProcessBuilder(arguments)
+            .redirectInput(viaFile ? NULL_FILE : input.toFile())
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+            .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+            .start();
+        try {
+            if (!process.waitFor(timeoutMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly().waitFor();
+                detail = "зависание, сохранено " + save("hang-", fuzzCase);
+                return Outcome.ANOMALY;
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            detail = "прервано";
+            return Outcome.ERROR;
+        }
+        int exit = process.exitValue();
+        String crash = crashName(exit);
+        if (crash != null) {
+            detail = crash + ", сохранено " + save("crash-", fuzzCase);
+            return Outcome.CRASH;
+        }
+        detail = "код выхода " + exit;
+        return Outcome.RESPONSE;
+    }
+
+    /**
+     * Название аварийного завершения или null для обычного кода выхода.
+     * Коды 129-255 без сигнала ошибки (например, exit(130)) падением не считаются.
+     */
+    private static String crashName(int exit) {
+        if (WINDOWS) {
+            return (exit & NTSTATUS_ERROR) == NTSTATUS_ERROR
+                ? String.format("исключение 0x%08X", exit) : null;
+        }
+        for (int i = 0; i < CRASH_SIGNALS.length; i++) {
+            if (exit == SIGNAL_EXIT_BASE + CRASH_SIGNALS[i]) {
+                return "сигнал " + CRASH_SIGNAL_NAMES[i];
+            }
+        }
+        return null;
+    }
+
+    private Path save(String kind, FuzzCase fuzzCase) throws IOException {
+        Files.createDirectories(findingsDirectory);
+        Path path = findingsDirectory.resolve(kind + fuzzCase.getIndex());
+        write(path, fuzzCase);
+        return path;
+    }
+
+    private static void write(Path path, FuzzCase fuzzCase) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            out.write(fuzzCase.getData(), 0, fuzzCase.getLength());
+        }
+    }
+
+    @Override
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (command != null) {
+            Files.deleteIfExists(directory.resolve(prefix));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.terminal.sdk.fuzzing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Тестовый случай фаззинга. Экземпляры переиспользуются: генератор заполняет
+ * буфер, исполнитель отправляет его и возвращает случай в очередь свободных,
+ * поэтому на каждый случай не создается новых массивов.
+ */
+public final class FuzzCase {
+    private long index;
+    private byte[] data;
+    private int length;
+
+    FuzzCase(int capacity) {
+        this.data = new byte[Math.max(16, capacity)];
+    }
+
+    /** Порядковый номер случая в кампании */
+    public long getIndex() {
+        return index;
+    }
+
+    void setIndex(long index) {
+        this.index = index;
+    }
+
+    /** Буфер данных; значимы первые {@link #getLength()} байт */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Гарантирует емкость буфера, сохраняя текущее содержимое
+     */
+    public byte[] ensureCapacity(int capacity) {
+        if (data.length < capacity) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+        return data;
+    }
+
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Копирует данные в буфер случая
+     */
+    public void set(byte[] source, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(source, offset, data, 0, count);
+        length = count;
+    }
+
+    public String asString() {
+        return new String(data, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,248 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Исполнитель фаззинг-кампаний.
+ * Поток генерации заполняет случаи и кладет их в ограниченную очередь, откуда
+ * их забирают workers исполнителей, у каждого своя цель со своим соединением.
+ * Отправленные случаи возвращаются в очередь свободных и переиспользуются.
+ * Темп генерации ограничен ratePerSecond, поэтому очередь не дает исполнителям
+ * обогнать заданную скорость. Вызывающий поток получает находки и периодическую
+ * статистику через {@link Listener}.
+ */
+public class FuzzEngine {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int INITIAL_CASE_BYTES = 256;
+    private static final int MAX_FINDING_BYTES = 256;
+    private static final int FINDINGS_QUEUE = 1024;
+
+    private final int workers;
+    private final int queueCapacity;
+    private final int ratePerSecond;
+
+    /**
+     * Снимок счетчиков кампании
+     */
+    public static final class Stats {
+        private final long[] outcomes;
+        private final long sent;
+        private final long elapsedNanos;
+
+        Stats(long[] outcomes, long sent, long elapsedNanos) {
+            this.outcomes = outcomes;
+            this.sent = sent;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** Число отправленных случаев */
+        public long getSent() {
+            return sent;
+        }
+
+        public long getCount(FuzzTarget.Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** Случаев в секунду с начала кампании */
+        public double getRate() {
+            return elapsedNanos > 0 ? sent * (double) NANOS_PER_SECOND / elapsedNanos : 0;
+        }
+    }
+
+    /**
+     * Случай, на который цель отреагировала аномально или после которого упала
+     */
+    public static final class Finding {
+        private final long index;
+        private final FuzzTarget.Outcome outcome;
+        private final String detail;
+        private final byte[] payload;
+        private final int length;
+
+        Finding(FuzzCase fuzzCase, FuzzTarget.Outcome outcome, String detail) {
+            this.index = fuzzCase.getIndex();
+            this.outcome = outcome;
+            this.detail = detail;
+            this.length = fuzzCase.getLength();
+            this.payload = Arrays.copyOf(fuzzCase.getData(), Math.min(length, MAX_FINDING_BYTES));
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public FuzzTarget.Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        /** Начало данных случая, не больше 256 байт */
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        /** Полная длина данных случая */
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Получатель событий кампании; вызывается в потоке, запустившем кампанию
+     */
+    public interface Listener {
+        void onFinding(Finding finding);
+
+        void onProgress(Stats stats);
+    }
+
+    /**
+     * @param workers       число исполнителей и одновременных соединений
+     * @param queueCapacity емкость очереди между генерацией и исполнителями
+     * @param ratePerSecond максимум случаев в секунду, 0 - без ограничения
+     */
+    public FuzzEngine(int workers, int queueCapacity, int ratePerSecond) {
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.ratePerSecond = Math.max(0, ratePerSecond);
+    }
+
+    /**
+     * Выполняет кампанию до исчерпания генератора
+     *
+     * @param progressMs период вызова {@link Listener#onProgress}
+     * @throws IOException          если не удалось создать цель для исполнителя
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public Stats run(CaseGenerator generator, FuzzTarget.Factory factory, long progressMs, Listener listener)
+            throws IOException, InterruptedException {
+        BlockingQueue<FuzzCase> free = new ArrayBlockingQueue<>(queueCapacity + workers);
+        BlockingQueue<FuzzCase> ready = new ArrayBlockingQueue<>(queueCapacity + workers);
+        for (int i = 0; i < queueCapacity + workers; i++) {
+            free.add(new FuzzCase(INITIAL_CASE_BYTES));
+        }
+        FuzzCase end = new FuzzCase(0);
+        BlockingQueue<Finding> findings = new ArrayBlockingQueue<>(FINDINGS_QUEUE);
+        LongAdder[] outcomes = new LongAdder[FuzzTarget.Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+        LongAdder sent = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(workers);
+        long begin = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "fuzz-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            executor.execute(() -> {
+                try {
+                    long produced = 0;
+                    while (true) {
+                        if (ratePerSecond > 0) {
+                            long wait = begin + produced * NANOS_PER_SECOND / ratePerSecond - System.nanoTime();
+                            if (wait > 0) {
+                                LockSupport.parkNanos(wait);
+                                if (Thread.currentThread().isInterrupted()) {
+                                    return;
+                                }
+                                continue;
+                            }
+                        }
+                        FuzzCase fuzzCase = free.take();
+                        fuzzCase.setIndex(produced);
+                        if (!generator.next(fuzzCase)) {
+                            break;
+                        }
+                        produced++;
+                        ready.put(fuzzCase);
+                    }
+                    for (int i = 0; i < workers; i++) {
+                        ready.put(end);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    try (FuzzTarget target = factory.open()) {
+                        FuzzCase fuzzCase;
+                        while ((fuzzCase = ready.take()) != end) {
+                            FuzzTarget.Outcome outcome = target.send(fuzzCase);
+                            sent.increment();
+                            outcomes[outcome.ordinal()].increment();
+                            if (outcome == FuzzTarget.Outcome.ANOMALY || outcome == FuzzTarget.Outcome.CRASH) {
+                                findings.offer(new Finding(fuzzCase, outcome, target.getDetail()));
+                            }
+                            free.put(fuzzCase);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+
+            long nextProgress = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(progressMs);
+            boolean done = false;
+            while (!done) {
+                done = finished.await(Math.max(1, nextProgress - System.nanoTime()), TimeUnit.NANOSECONDS);
+                drain(findings, listener);
+                Throwable error = failure.get();
+                if (error != null) {
+                    throw new IOException(error.getMessage() != null ? error.getMessage()
+                        : error.getClass().getSimpleName(), error);
+                }
+                if (!done && System.nanoTime() >= nextProgress) {
+                    listener.onProgress(snapshot(outcomes, sent, begin));
+                    nextProgress += TimeUnit.MILLISECONDS.toNanos(progressMs);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return snapshot(outcomes, sent, begin);
+    }
+
+    private static void drain(BlockingQueue<Finding> findings, Listener listener) {
+        Finding finding;
+        while ((finding = findings.poll()) != null) {
+            listener.onFinding(finding);
+        }
+    }
+
+    private static Stats snapshot(LongAdder[] outcomes, LongAdder sent, long begin) {
+        long[] counts = new long[outcomes.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = outcomes[i].sum();
+        }
+        return new Stats(counts, sent.sum(), System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,43 @@
+package com.terminal.sdk.fuzzing;
+
+/**
+ * Генератор SplitMix64 с пересевом без создания объектов.
+ * Каждый случай получает поток, определяемый парой (seed, номер случая),
+ * поэтому любой случай кампании воспроизводится отдельно от остальных.
+ */
+public final class FuzzRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long state;
+
+    public FuzzRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Переключает генератор на поток случая stream
+     */
+    public void seed(long seed, long stream) {
+        state = seed ^ mix(stream * GOLDEN_GAMMA + GOLDEN_GAMMA);
+    }
+
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Случайное число в [0, bound), bound больше нуля
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,43 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.Closeable;
+
+/**
+ * Цель фаззинга. Каждый исполнитель получает свой экземпляр и держит
+ * в нем соединение между случаями, поэтому реализации не обязаны быть потокобезопасными.
+ */
+public interface FuzzTarget extends Closeable {
+
+    /**
+     * Результат отправки одного случая
+     */
+    enum Outcome {
+        /** Цель ответила как обычно */
+        RESPONSE,
+        /** Ответа не было до таймаута */
+        SILENT,
+        /** Ответ отличается от обычного: код 5xx, другой код или разрыв соединения */
+        ANOMALY,
+        /** Сетевая ошибка при отправке */
+        ERROR,
+        /** Цель перестала принимать подключения после того, как уже отвечала */
+        CRASH
+    }
+
+    /**
+     * Создает цель для одного исполнителя
+     */
+    interface Factory {
+        FuzzTarget open() throws Exception;
+    }
+
+    /**
+     * Отправляет случай и классифицирует реакцию цели
+     */
+    Outcome send(FuzzCase fuzzCase);
+
+    /**
+     * Подробности последнего результата для отчета: код ответа, текст ошибки
+     */
+    String getDetail();
+}
@@ -0,0 +1,85 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URLEncoder;
+
+import org.apache.http.client.methods.HttpGet;
+
+import com.terminal.sdk.network.HttpEngine;
+
+/**
+ * Фаззинг веб-параметра через общий пул соединений {@link HttpEngine}.
+ * Данные случая подставляются вместо маркера FUZZ в URL, а без маркера
+ * добавляются параметром fuzz. Аномалией считается код 5xx или код,
+ * отличный от ответа на безобидное значение.
+ */
+public final class HttpFuzzTarget implements FuzzTarget {
+    public static final String MARKER = "FUZZ";
+    private static final String BASELINE_VALUE = "fuzz";
+
+    private final String url;
+    private final int baselineStatus;
+    private String detail;
+
+    private HttpFuzzTarget(String url, int baselineStatus) {
+        this.url = url;
+        this.baselineStatus = baselineStatus;
+    }
+
+    /**
+     * Проверяет доступность цели и запоминает обычный код ответа.
+     * Пул соединений под число исполнителей резервирует вызывающий,
+     * см. {@link HttpEngine#reserveConnections}.
+     *
+     * @throws IOException если цель не отвечает
+     */
+    public static Factory prepare(String url) throws IOException {
+        int baseline = HttpEngine.getInstance()
+            .executeAndConsume(new HttpGet(buildUrl(url, BASELINE_VALUE))).getStatus();
+        return () -> new HttpFuzzTarget(url, baseline);
+    }
+
+    @Override
+    public Outcome send(FuzzCase fuzzCase) {
+        try {
+            int status = HttpEngine.getInstance()
+                .executeAndConsume(new HttpGet(buildUrl(url, fuzzCase.asString()))).getStatus();
+            detail = "код " + status;
+            return status >= 500 || status != baselineStatus ? Outcome.ANOMALY : Outcome.RESPONSE;
+        } catch (ConnectException e) {
+            detail = "цель не принимает подключения";
+            return Outcome.CRASH;
+        } catch (SocketTimeoutException e) {
+            detail = "нет ответа";
+            return Outcome.SILENT;
+        } catch (IOException | IllegalArgumentException e) {
+            detail = e.getMessage();
+            return Outcome.ERROR;
+        }
+    }
+
+    @Override
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static String buildUrl(String url, String value) {
+        String encoded;
+        try {
+            encoded = URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        if (url.contains(MARKER)) {
+            return url.replace(MARKER, encoded);
+        }
+        return url + (url.contains("?") ? "&fuzz=" : "?fuzz=") + encoded;
+    }
+}
@@ -0,0 +1,61 @@
+package com.terminal.sdk.fuzzing;
+
+import java.util.List;
+
+/**
+ * Генератор мутаций корпуса. Для каждого случая выбирается элемент корпуса,
+ * копируется в буфер случая целиком и изменяется стопкой из 1-8 мутаций
+ * случайно выбранных стратегий. Генератор пересевается номером случая,
+ * поэтому случай N при том же seed воспроизводится без прогона предыдущих.
+ * Номер случая в кампании совпадает с номером в генераторе.
+ */
+public final class MutationGenerator implements CaseGenerator {
+    private static final int MAX_STACK = 8;
+
+    private final Corpus corpus;
+    private final List<Mutator> mutators;
+    private final long seed;
+    private final long first;
+    private final long end;
+    private final int maxLength;
+    private final FuzzRandom random = new FuzzRandom(0);
+    private long next;
+
+    /**
+     * @param first     номер первого случая
+     * @param count     число случаев
+     * @param maxLength предельная длина данных после мутаций
+     */
+    public MutationGenerator(Corpus corpus, List<Mutator> mutators, long seed, long first, long count, int maxLength) {
+        if (mutators.isEmpty()) {
+            throw new IllegalArgumentException("Не задано ни одной стратегии мутации");
+        }
+        this.corpus = corpus;
+        this.mutators = mutators;
+        this.seed = seed;
+        this.first = first;
+        this.end = first + count;
+        this.maxLength = Math.max(1, maxLength);
+        this.next = first;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    @Override
+    public boolean next(FuzzCase target) {
+        if (next >= end) {
+            return false;
+        }
+        target.setIndex(next);
+        random.seed(seed, next++);
+        byte[] source = corpus.get(random.nextInt(corpus.size()));
+        target.set(source, 0, Math.min(source.length, maxLength));
+        int stack = 1 + random.nextInt(MAX_STACK);
+        for (int i = 0; i < stack; i++) {
+            mutators.get(random.nextInt(mutators.size())).mutate(target, random, maxLength);
+        }
+        return true;
+    }
+}
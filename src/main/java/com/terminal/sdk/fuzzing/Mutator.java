@@ -0,0 +1,16 @@
+package com.terminal.sdk.fuzzing;
+
+/**
+ * Стратегия мутации. Изменяет данные случая на месте, при необходимости
+ * расширяя буфер через {@link FuzzCase#ensureCapacity(int)}.
+ */
+public interface Mutator {
+
+    /**
+     * @param maxLength длина, которую данные не должны превышать после мутации
+     */
+    void mutate(FuzzCase fuzzCase, FuzzRandom random, int maxLength);
+
+    /** Имя стратегии для вывода и выбора в командной строке */
+    String getName();
+}
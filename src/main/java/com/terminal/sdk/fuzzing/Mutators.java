@@ -0,0 +1,164 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Встроенные стратегии мутации
+ */
+public final class Mutators {
+
+    private Mutators() {
+    }
+
+    /**
+     * Инвертирует один случайный бит
+     */
+    public static Mutator bitFlip() {
+        return new Mutator() {
+            @Override
+            public void mutate(FuzzCase fuzzCase, FuzzRandom random, int maxLength) {
+                int length = fuzzCase.getLength();
+                if (length > 0) {
+                    int bit = random.nextInt(length * 8);
+                    fuzzCase.getData()[bit >>> 3] ^= 1 << (bit & 7);
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "bitflip";
+            }
+        };
+    }
+
+    /**
+     * Заменяет случайный байт случайным значением
+     */
+    public static Mutator randomByte() {
+        return new Mutator() {
+            @Override
+            public void mutate(FuzzCase fuzzCase, FuzzRandom random, int maxLength) {
+                int length = fuzzCase.getLength();
+                if (length > 0) {
+                    fuzzCase.getData()[random.nextInt(length)] = (byte) random.nextInt(256);
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "byte";
+            }
+        };
+    }
+
+    /**
+     * Склеивает начало данных с концом случайного элемента корпуса
+     */
+    public static Mutator splice(Corpus corpus) {
+        return new Mutator() {
+            @Override
+            public void mutate(FuzzCase fuzzCase, FuzzRandom random, int maxLength) {
+                byte[] other = corpus.get(random.nextInt(corpus.size()));
+                if (other.length == 0) {
+                    return;
+                }
+                int split = random.nextInt(fuzzCase.getLength() + 1);
+                int from = random.nextInt(other.length);
+                int count = Math.min(other.length - from, maxLength - split);
+                if (count <= 0) {
+                    return;
+                }
+                System.arraycopy(other, from, fuzzCase.ensureCapacity(split + count), split, count);
+                fuzzCase.setLength(split + count);
+            }
+
+            @Override
+            public String getName() {
+                return "splice";
+            }
+        };
+    }
+
+    /**
+     * Вставляет токен словаря в случайную позицию или записывает поверх данных
+     */
+    public static Mutator dictionary(List<byte[]> tokens) {
+        return new Mutator() {
+            @Override
+            public void mutate(FuzzCase fuzzCase, FuzzRandom random, int maxLength) {
+                byte[] token = tokens.get(random.nextInt(tokens.size()));
+                int length = fuzzCase.getLength();
+                int position = random.nextInt(length + 1);
+                if (random.nextBoolean() && position + token.length <= length) {
+                    System.arraycopy(token, 0, fuzzCase.getData(), position, token.length);
+                    return;
+                }
+                if (length + token.length > maxLength) {
+                    return;
+                }
+                byte[] data = fuzzCase.ensureCapacity(length + token.length);
+                System.arraycopy(data, position, data, position + token.length, length - position);
+                System.arraycopy(token, 0, data, position, token.length);
+                fuzzCase.setLength(length + token.length);
+            }
+
+            @Override
+            public String getName() {
+                return "dict";
+            }
+        };
+    }
+
+    /**
+     * Загружает словарь: токен на строку, строки с # пропускаются.
+     * Поддерживается формат AFL name="value" с экранированием \xNN, \\ и \".
+     *
+     * @throws IOException если словарь не читается или пуст
+     */
+    public static List<byte[]> loadDictionary(Path path) throws IOException {
+        List<byte[]> tokens = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String text = line.trim();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            int open = text.indexOf('"');
+            int close = text.lastIndexOf('"');
+            byte[] token = open >= 0 && close > open ? unescape(text.substring(open + 1, close))
+                : text.getBytes(StandardCharsets.UTF_8);
+            if (token.length > 0) {
+                tokens.add(token);
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IOException("Словарь пуст: " + path);
+        }
+        return tokens;
+    }
+
+    private static byte[] unescape(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length());
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\\' && i + 1 < bytes.length) {
+                byte next = bytes[i + 1];
+                if (next == 'x' && i + 3 < bytes.length) {
+                    out.write(Integer.parseInt(new String(bytes, i + 2, 2, StandardCharsets.US_ASCII), 16));
+                    i += 3;
+                    continue;
+                }
+                out.write(next);
+                i++;
+                continue;
+            }
+            out.write(bytes[i]);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,143 @@
+package com.terminal.sdk.fuzzing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Фаззинг TCP-сервиса. Соединение держится между случаями и открывается
+ * заново, только когда сервер его закрыл или сбросил. Если сервер перестал
+ * принимать подключения после того, как уже принимал их, случай считается
+ * падением цели.
+ */
+public final class TcpFuzzTarget implements FuzzTarget {
+    private static final int RESPONSE_BUFFER = 4096;
+
+    private final InetSocketAddress address;
+    private final int timeoutMs;
+    private final byte[] response = new byte[RESPONSE_BUFFER];
+    private Socket socket;
+    private boolean connectedOnce;
+    private String detail;
+
+    public TcpFuzzTarget(InetSocketAddress address, int timeoutMs) {
+        this.address = address;
+        this.timeoutMs = Math.max(1, timeoutMs);
+    }
+
+    public static Factory factory(InetSocketAddress address, int timeoutMs) {
+        return () -> new TcpFuzzTarget(address, timeoutMs);
+    }
+
+    @Override
+    public Outcome send(FuzzCase fuzzCase) {
+        boolean reused = socket != null;
+        Outcome outcome = connect();
+        if (outcome != null) {
+            return outcome;
+        }
+        try {
+            socket.getOutputStream().write(fuzzCase.getData(), 0, fuzzCase.getLength());
+        } catch (IOException e) {
+            disconnect();
+            if (!reused) {
+                detail = e.getMessage();
+                return Outcome.ERROR;
+            }
+            // Сервер закрыл соединение после прошлого случая: повторяем на новом
+            outcome = connect();
+            if (outcome != null) {
+                return outcome;
+            }
+            try {
+                socket.getOutputStream().write(fuzzCase.getData(), 0, fuzzCase.getLength());
+            } catch (IOException retry) {
+                disconnect();
+                detail = retry.getMessage();
+                return Outcome.ERROR;
+            }
+        }
+        return receive();
+    }
+
+    /**
+     * @return null при успешном подключении, иначе результат случая
+     */
+    private Outcome connect() {
+        if (socket != null) {
+            return null;
+        }
+        Socket candidate = new Socket();
+        try {
+            candidate.setTcpNoDelay(true);
+            candidate.connect(address, timeoutMs);
+            candidate.setSoTimeout(timeoutMs);
+            socket = candidate;
+            connectedOnce = true;
+            return null;
+        } catch (ConnectException e) {
+            closeQuietly(candidate);
+            detail = "цель не принимает подключения";
+            return connectedOnce ? Outcome.CRASH : Outcome.ERROR;
+        } catch (IOException e) {
+            closeQuietly(candidate);
+            detail = e.getMessage();
+            return Outcome.ERROR;
+        }
+    }
+
+    private Outcome receive() {
+        try {
+            InputStream in = socket.getInputStream();
+            int read = in.read(response);
+            if (read < 0) {
+                disconnect();
+                detail = "соединение закрыто без ответа";
+                return Outcome.SILENT;
+            }
+            long total = read;
+            // Остаток ответа не должен попасть в ответ на следующий случай
+            while (in.available() > 0 && (read = in.read(response)) > 0) {
+                total += read;
+            }
+            detail = "ответ " + total + " байт";
+            return Outcome.RESPONSE;
+        } catch (SocketTimeoutException e) {
+            detail = "нет ответа";
+            return Outcome.SILENT;
+        } catch (IOException e) {
+            disconnect();
+            detail = "сброс соединения: " + e.getMessage();
+            return Outcome.ANOMALY;
+        }
+    }
+
+    @Override
+    public String getDetail() {
+        return detail;
+    }
+
+    private void disconnect() {
+        closeQuietly(socket);
+        socket = null;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Соединение уже разорвано
+        }
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+}
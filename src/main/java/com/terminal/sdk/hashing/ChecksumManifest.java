@@ -0,0 +1,108 @@
+package com.terminal.sdk.hashing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Файл контрольных сумм в формате sha256sum/md5sum:
+ * {@code <хеш>  <имя файла>} или {@code <хеш> *<имя файла>} для двоичного режима.
+ * Пустые строки и комментарии (#) пропускаются.
+ */
+public final class ChecksumManifest {
+
+    /**
+     * Строка файла контрольных сумм
+     */
+    public static final class Entry {
+        private final String hash;
+        private final HashAlgorithm algorithm;
+        private final String fileName;
+
+        Entry(String hash, HashAlgorithm algorithm, String fileName) {
+            this.hash = hash;
+            this.algorithm = algorithm;
+            this.fileName = fileName;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public HashAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final int malformedLines;
+
+    private ChecksumManifest(List<Entry> entries, int malformedLines) {
+        this.entries = entries;
+        this.malformedLines = malformedLines;
+    }
+
+    /**
+     * Читает файл контрольных сумм
+     *
+     * @param algorithm алгоритм всех строк или null для определения по длине хеша
+     */
+    public static ChecksumManifest read(Path manifest, HashAlgorithm algorithm) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int malformed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Entry entry = parse(line, algorithm);
+                if (entry == null) {
+                    malformed++;
+                } else {
+                    entries.add(entry);
+                }
+            }
+        }
+        return new ChecksumManifest(entries, malformed);
+    }
+
+    private static Entry parse(String line, HashAlgorithm algorithm) {
+        int space = line.indexOf(' ');
+        if (space <= 0 || space + 2 > line.length()) {
+            return null;
+        }
+        String hash = line.substring(0, space).toLowerCase();
+        char mode = line.charAt(space + 1);
+        if (mode != ' ' && mode != '*') {
+            return null;
+        }
+        String fileName = line.substring(space + 2);
+        HashAlgorithm resolved = algorithm != null ? algorithm : HashAlgorithm.fromHexLength(hash.length());
+        if (fileName.isEmpty() || resolved == null || hash.length() != resolved.getDigestLength() * 2) {
+            return null;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            if (Character.digit(hash.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return new Entry(hash, resolved, fileName);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int getMalformedLines() {
+        return malformedLines;
+    }
+}
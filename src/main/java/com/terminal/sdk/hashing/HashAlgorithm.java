@@ -0,0 +1,64 @@
+package com.terminal.sdk.hashing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Поддерживаемые алгоритмы хеширования
+ */
+public enum HashAlgorithm {
+    MD5("md5", "MD5", 16),
+    SHA1("sha1", "SHA-1", 20),
+    SHA256("sha256", "SHA-256", 32),
+    SHA512("sha512", "SHA-512", 64);
+
+    private final String name;
+    private final String jcaName;
+    private final int digestLength;
+
+    HashAlgorithm(String name, String jcaName, int digestLength) {
+        this.name = name;
+        this.jcaName = jcaName;
+        this.digestLength = digestLength;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDigestLength() {
+        return digestLength;
+    }
+
+    public MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(jcaName);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм недоступен: " + jcaName, e);
+        }
+    }
+
+    /**
+     * Возвращает алгоритм по имени (md5, sha1, sha256, sha512) или null
+     */
+    public static HashAlgorithm fromName(String name) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name.equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Определяет алгоритм по длине шестнадцатеричной записи хеша или возвращает null
+     */
+    public static HashAlgorithm fromHexLength(int length) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.digestLength * 2 == length) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
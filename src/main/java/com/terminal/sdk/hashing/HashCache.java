@@ -0,0 +1,435 @@
+package com.terminal.sdk.hashing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.terminal.sdk.system.Logger;
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Постоянный кеш хешей файлов в content/data/hash-cache.idx.
+ * Ключ записи - канонический путь и алгоритм; хеш действителен, пока совпадают
+ * размер и время изменения файла. Файл индекса только дописывается двоичными
+ * записями и при запуске читается целиком; последняя запись для ключа главная.
+ * Индекс не отображается в память, чтобы его можно было заменить при сжатии
+ * (в Windows отображенный файл нельзя обрезать или переименовать).
+ * Поиск идет по конкурентной таблице без блокировок, чтобы параллельные потоки
+ * хеширования не ждали друг друга. Новые записи дописывает в файл отдельный поток
+ * hash-cache-writer; он же вытесняет самые давно использованные записи при
+ * превышении hash-cache-max-entries (пачкой до 15/16 емкости) и сжимает файл,
+ * когда мертвых записей в нем становится больше живых. При выходе файл
+ * переписывается в порядке использования, только если набор записей менялся.
+ */
+public final class HashCache {
+    private static final String CLASS_NAME = HashCache.class.getSimpleName();
+    private static final Path INDEX_PATH = Paths.get("content", "data", "hash-cache.idx");
+    private static final int MAGIC = 0x48434931;
+    private static final int HEADER_SIZE = 4;
+    private static final int MAX_PATH_BYTES = Short.MAX_VALUE;
+    /** Файлы, измененные недавно, не кешируются: время изменения может не отразить новую запись */
+    private static final long RACY_WINDOW_MILLIS = 2000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private static HashCache instance;
+
+    private final Path indexPath;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, CacheEntry> entries = new ConcurrentHashMap<>(1024);
+    /** Часы использования: чем больше отметка записи, тем позже к ней обращались */
+    private final AtomicLong clock = new AtomicLong();
+    private final Queue<CacheEntry> pending = new ConcurrentLinkedQueue<>();
+    /** Защищает файл индекса; поиск и сохранение в память эту блокировку не берут */
+    private final Object fileLock = new Object();
+    private final Thread writerThread;
+    private FileChannel channel;
+    private long fileRecords;
+    /** После неудачного сжатия следующая попытка - когда файл вырастет вдвое */
+    private long retryCompactionAt;
+    private volatile boolean changed;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+
+    private static final class CacheEntry {
+        final HashAlgorithm algorithm;
+        final String path;
+        final long size;
+        final long modified;
+        final byte[] digest;
+        volatile long lastUsed;
+
+        CacheEntry(HashAlgorithm algorithm, String path, long size, long modified, byte[] digest, long lastUsed) {
+            this.algorithm = algorithm;
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private HashCache(Path indexPath, int maxEntries) {
+        this.indexPath = indexPath;
+        this.maxEntries = Math.max(1, maxEntries);
+        try {
+            open();
+        } catch (IOException e) {
+            Logger.error(CLASS_NAME, "Кеш хешей недоступен: " + e.getMessage());
+            closeChannel();
+        }
+        this.writerThread = new Thread(this::drainLoop, "hash-cache-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "hash-cache-shutdown"));
+    }
+
+    public static synchronized HashCache getInstance() {
+        if (instance == null) {
+            instance = new HashCache(INDEX_PATH,
+                UserSettings.getInstance().getInt("hash-cache-max-entries", 100_000));
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает сохраненный хеш или null, если записи нет или файл изменился
+     */
+    public String lookup(String canonicalPath, long size, long modified, HashAlgorithm algorithm) {
+        String key = key(canonicalPath, algorithm);
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.size != size || entry.modified != modified) {
+            if (entries.remove(key, entry)) {
+                changed = true;
+            }
+            return null;
+        }
+        entry.lastUsed = clock.incrementAndGet();
+        return Hex.encode(entry.digest);
+    }
+
+    /**
+     * Сохраняет хеш файла; запись в индекс дописывает поток hash-cache-writer
+     */
+    public void store(String canonicalPath, long size, long modified, HashAlgorithm algorithm, String hash) {
+        if (closed || System.currentTimeMillis() - modified < RACY_WINDOW_MILLIS) {
+            return;
+        }
+        if (canonicalPath.getBytes(StandardCharsets.UTF_8).length > MAX_PATH_BYTES) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(algorithm, canonicalPath, size, modified, Hex.decode(hash),
+            clock.incrementAndGet());
+        entries.put(key(canonicalPath, algorithm), entry);
+        changed = true;
+        pending.offer(entry);
+        if (writerIdle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Удаляет все записи кеша
+     */
+    public void clear() {
+        synchronized (fileLock) {
+            pending.clear();
+            entries.clear();
+            if (channel != null) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    Logger.error(CLASS_NAME, "Ошибка очистки кеша хешей: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Дописывает накопленные записи, сохраняет порядок использования, если набор
+     * записей менялся, и закрывает индекс
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            writePending();
+            if (channel != null && changed) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    Logger.error(CLASS_NAME, "Ошибка сохранения кеша хешей: " + e.getMessage());
+                }
+            }
+            closeChannel();
+        }
+    }
+
+    private void drainLoop() {
+        while (!closed) {
+            if (pending.isEmpty()) {
+                writerIdle = true;
+                if (pending.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerIdle = false;
+                continue;
+            }
+            synchronized (fileLock) {
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * Дописывает ожидающие записи, вытесняет лишние и при необходимости сжимает файл.
+     * Вызывается под fileLock
+     */
+    private void writePending() {
+        CacheEntry entry;
+        while ((entry = pending.poll()) != null) {
+            if (channel == null) {
+                continue;
+            }
+            try {
+                append(channel, entry, entry.path.getBytes(StandardCharsets.UTF_8));
+                fileRecords++;
+            } catch (IOException e) {
+                Logger.error(CLASS_NAME, "Ошибка записи кеша хешей: " + e.getMessage());
+                closeChannel();
+            }
+        }
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        if (channel != null && needsCompaction()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                Logger.error(CLASS_NAME, "Ошибка сжатия кеша хешей: " + e.getMessage());
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * Удаляет самые давно использованные записи, оставляя 15/16 емкости,
+     * чтобы сортировка не повторялась на каждой новой записи
+     */
+    private void evict() {
+        List<CacheEntry> byUse = sortedByUse();
+        int excess = byUse.size() - (maxEntries - maxEntries / 16);
+        for (int i = 0; i < excess; i++) {
+            CacheEntry eldest = byUse.get(i);
+            entries.remove(key(eldest.path, eldest.algorithm), eldest);
+        }
+        if (excess > 0) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Возвращает записи от давно использованных к недавним. Отметки копируются
+     * до сортировки: поиск может менять их во время сжатия
+     */
+    private List<CacheEntry> sortedByUse() {
+        List<long[]> order = new ArrayList<>(entries.size());
+        List<CacheEntry> snapshot = new ArrayList<>(entries.values());
+        for (int i = 0; i < snapshot.size(); i++) {
+            order.add(new long[] {snapshot.get(i).lastUsed, i});
+        }
+        order.sort(Comparator.comparingLong(o -> o[0]));
+        List<CacheEntry> sorted = new ArrayList<>(order.size());
+        for (long[] o : order) {
+            sorted.add(snapshot.get((int) o[1]));
+        }
+        return sorted;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(indexPath.getParent());
+        channel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            writeHeader(channel);
+            return;
+        }
+        long valid = size > Integer.MAX_VALUE ? -1 : load(readFully(channel, (int) size));
+        if (valid < 0) {
+            Logger.warning(CLASS_NAME, "Неизвестный формат кеша хешей, индекс создан заново");
+            entries.clear();
+            channel.truncate(0);
+            writeHeader(channel);
+            fileRecords = 0;
+            return;
+        }
+        if (valid < size) {
+            Logger.warning(CLASS_NAME, "Индекс кеша хешей обрезан до последней целой записи");
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        // Загрузка заполняет записи заново, но файл от этого не меняется
+        changed = false;
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    private boolean needsCompaction() {
+        return fileRecords > 2L * entries.size() + 1024 && fileRecords >= retryCompactionAt;
+    }
+
+    private static ByteBuffer readFully(FileChannel source, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Читает записи индекса
+     *
+     * @return смещение конца последней целой записи или -1 для чужого файла
+     */
+    private long load(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            return -1;
+        }
+        buffer.position(HEADER_SIZE);
+        HashAlgorithm[] algorithms = HashAlgorithm.values();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return start;
+            }
+            int ordinal = buffer.get();
+            if (ordinal < 0 || ordinal >= algorithms.length) {
+                return start;
+            }
+            HashAlgorithm algorithm = algorithms[ordinal];
+            long size = buffer.getLong();
+            long modified = buffer.getLong();
+            int pathLength = buffer.getShort() & 0xFFFF;
+            if (1 + 8 + 8 + 2 + pathLength + algorithm.getDigestLength() != length) {
+                return start;
+            }
+            byte[] pathBytes = new byte[pathLength];
+            buffer.get(pathBytes);
+            byte[] digest = new byte[algorithm.getDigestLength()];
+            buffer.get(digest);
+            String path = new String(pathBytes, StandardCharsets.UTF_8);
+            String key = key(path, algorithm);
+            // Повторная запись ключа переносит его в конец порядка использования
+            entries.put(key, new CacheEntry(algorithm, path, size, modified, digest, clock.incrementAndGet()));
+            fileRecords++;
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Переписывает индекс только живыми записями в порядке использования
+     */
+    private void compact() throws IOException {
+        // Записи, добавленные после снимка, еще ждут в очереди и будут дописаны следом
+        changed = false;
+        List<CacheEntry> live = sortedByUse();
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            for (CacheEntry entry : live) {
+                append(out, entry, entry.path.getBytes(StandardCharsets.UTF_8));
+            }
+            out.force(false);
+        }
+        closeChannel();
+        try {
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileRecords = live.size();
+            retryCompactionAt = 0;
+        } catch (IOException e) {
+            changed = true;
+            // Например, индекс открыт другим процессом: продолжаем дописывать в старый файл
+            Files.deleteIfExists(temp);
+            retryCompactionAt = 2 * fileRecords;
+            Logger.warning(CLASS_NAME, "Не удалось сжать индекс кеша хешей: " + e.getMessage());
+        } finally {
+            channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+    }
+
+    private static void append(FileChannel target, CacheEntry entry, byte[] pathBytes) throws IOException {
+        int length = 1 + 8 + 8 + 2 + pathBytes.length + entry.digest.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length)
+            .put((byte) entry.algorithm.ordinal())
+            .putLong(entry.size)
+            .putLong(entry.modified)
+            .putShort((short) pathBytes.length)
+            .put(pathBytes)
+            .put(entry.digest);
+        record.flip();
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).flip();
+        target.position(0);
+        while (header.hasRemaining()) {
+            target.write(header);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logger.warning(CLASS_NAME, "Ошибка закрытия индекса кеша хешей: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private static String key(String path, HashAlgorithm algorithm) {
+        return algorithm.getName() + '\0' + path;
+    }
+}
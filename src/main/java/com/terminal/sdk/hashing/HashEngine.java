@@ -0,0 +1,225 @@
+package com.terminal.sdk.hashing;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Параллельное хеширование файлов.
+ * Каждый файл читается один раз, и каждый прочитанный блок передается всем
+ * выбранным алгоритмам. Небольшие файлы читаются в буфер потока, большие
+ * отображаются через mmap. Файлы обрабатываются параллельно в пуле "hash" {@link WorkerPools}
+ * ограниченным окном задач, а результаты передаются слушателю в порядке входного списка.
+ * Если задан {@link HashCache}, файлы с неизменными размером и временем изменения не читаются.
+ */
+public class HashEngine {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long MAP_THRESHOLD = 4L * 1024 * 1024;
+    private static final long SEGMENT_SIZE = 256L * 1024 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final HashAlgorithm[] algorithms;
+    private final HashCache cache;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private volatile boolean cancelled;
+
+    /**
+     * Получатель результатов. Вызывается в потоке, запустившем хеширование.
+     */
+    public interface Listener {
+        void onHash(Path file, long size, String[] hashes);
+
+        void onError(Path file, IOException error);
+    }
+
+    private static final class Result {
+        long size;
+        String[] hashes;
+        IOException error;
+    }
+
+    public HashEngine(HashAlgorithm... algorithms) {
+        this(null, algorithms);
+    }
+
+    /**
+     * @param cache кеш хешей или null, чтобы всегда читать файлы
+     */
+    public HashEngine(HashCache cache, HashAlgorithm... algorithms) {
+        this.cache = cache;
+        this.algorithms = algorithms.clone();
+    }
+
+    /**
+     * Число файлов, хеши которых полностью взяты из кеша
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Хеширует список файлов
+     *
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public void hashAll(List<Path> files, Listener listener) throws InterruptedException {
+        int window = Math.max(2, WorkerPools.get("hash").getParallelism() * 2);
+        Deque<ForkJoinTask<Result>> inFlight = new ArrayDeque<>(window);
+        int next = 0;
+        int delivered = 0;
+        try {
+            while (delivered < files.size()) {
+                while (next < files.size() && inFlight.size() < window) {
+                    Path file = files.get(next++);
+                    inFlight.addLast(WorkerPools.get("hash").submit(() -> compute(file)));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                Result result;
+                try {
+                    result = inFlight.peekFirst().get();
+                } catch (ExecutionException e) {
+                    result = new Result();
+                    result.error = new IOException(e.getCause().getMessage(), e.getCause());
+                }
+                inFlight.removeFirst();
+                Path file = files.get(delivered++);
+                if (result.error != null) {
+                    listener.onError(file, result.error);
+                } else {
+                    listener.onHash(file, result.size, result.hashes);
+                }
+            }
+        } finally {
+            if (!inFlight.isEmpty()) {
+                cancelled = true;
+                for (ForkJoinTask<Result> task : inFlight) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    private Result compute(Path file) {
+        Result result = new Result();
+        try {
+            if (cache != null) {
+                computeCached(file, result);
+            } else {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    result.size = channel.size();
+                    result.hashes = digest(channel, algorithms);
+                }
+            }
+        } catch (IOException e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    /**
+     * Берет из кеша найденные хеши и читает файл только ради недостающих алгоритмов
+     */
+    private void computeCached(Path file, Result result) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String canonicalPath = file.toRealPath().toString();
+        long modified = attributes.lastModifiedTime().toMillis();
+        result.size = attributes.size();
+        result.hashes = new String[algorithms.length];
+
+        List<HashAlgorithm> missing = new ArrayList<>(algorithms.length);
+        for (int i = 0; i < algorithms.length; i++) {
+            result.hashes[i] = cache.lookup(canonicalPath, result.size, modified, algorithms[i]);
+            if (result.hashes[i] == null) {
+                missing.add(algorithms[i]);
+            }
+        }
+        if (missing.isEmpty()) {
+            cacheHits.incrementAndGet();
+            return;
+        }
+
+        String[] computed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            computed = digest(channel, missing.toArray(new HashAlgorithm[0]));
+        }
+        for (int i = 0, m = 0; i < algorithms.length; i++) {
+            if (result.hashes[i] == null) {
+                result.hashes[i] = computed[m];
+                cache.store(canonicalPath, result.size, modified, algorithms[i], computed[m]);
+                m++;
+            }
+        }
+    }
+
+    /**
+     * Хеширует один файл всеми алгоритмами за один проход
+     *
+     * @return шестнадцатеричные хеши в порядке алгоритмов
+     */
+    public String[] hash(Path file) throws IOException {
+        Result result = compute(file);
+        if (result.error != null) {
+            throw result.error;
+        }
+        return result.hashes;
+    }
+
+    private String[] digest(FileChannel channel, HashAlgorithm[] selected) throws IOException {
+        MessageDigest[] digests = new MessageDigest[selected.length];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = selected[i].newDigest();
+        }
+        byte[] buffer = BUFFERS.get();
+        long size = channel.size();
+        if (size < MAP_THRESHOLD) {
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int read;
+            while ((read = channel.read(wrapped)) > 0) {
+                update(digests, buffer, read);
+                wrapped.clear();
+            }
+        } else {
+            for (long position = 0; position < size; position += SEGMENT_SIZE) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(SEGMENT_SIZE, size - position));
+                while (segment.hasRemaining()) {
+                    int length = Math.min(buffer.length, segment.remaining());
+                    segment.get(buffer, 0, length);
+                    update(digests, buffer, length);
+                }
+            }
+        }
+        String[] hashes = new String[digests.length];
+        for (int i = 0; i < digests.length; i++) {
+            hashes[i] = Hex.encode(digests[i].digest());
+        }
+        return hashes;
+    }
+
+    private void update(MessageDigest[] digests, byte[] buffer, int length) throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Хеширование отменено");
+        }
+        for (MessageDigest digest : digests) {
+            digest.update(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.terminal.sdk.hashing;
+
+/**
+ * Перевод байтов в шестнадцатеричную строку по таблице символов
+ */
+public final class Hex {
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Hex() {
+    }
+
+    public static String encode(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            out[j++] = DIGITS[b >>> 4];
+            out[j++] = DIGITS[b & 0x0F];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Разбирает шестнадцатеричную строку в байты
+     *
+     * @throws IllegalArgumentException если строка содержит недопустимые символы
+     */
+    public static byte[] decode(String hex) {
+        if ((hex.length() & 1) != 0) {
+            throw new IllegalArgumentException("Нечетная длина шестнадцатеричной строки");
+        }
+        byte[] out = new byte[hex.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            int hi = Character.digit(hex.charAt(i * 2), 16);
+            int lo = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (hi < 0 || lo < 0) {
+                throw new IllegalArgumentException("Недопустимый символ в шестнадцатеричной строке");
+            }
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,221 @@
+package com.terminal.sdk.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Потоковое чтение текстовых файлов.
+ * Файл читается блоками фиксированного размера, каждый блок декодируется и сразу
+ * передается получателю, поэтому память не зависит от размера файла. Окна
+ * первых и последних строк находятся по байтам без декодирования: для хвоста
+ * файл читается с конца.
+ */
+public final class FileStreamer {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Получатель декодированных фрагментов текста
+     */
+    public interface Sink {
+        /**
+         * @return false, чтобы прекратить чтение
+         */
+        boolean accept(String chunk);
+    }
+
+    private FileStreamer() {
+    }
+
+    /**
+     * Передает получателю байты файла в диапазоне [from, to).
+     * Переводы строк \r\n заменяются на \n, в конце вывода всегда есть перевод строки.
+     *
+     * @return число прочитанных байт
+     * @throws InterruptedException если поток был прерван
+     */
+    public static long stream(Path file, long from, long to, Charset charset, Sink sink)
+            throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return stream(channel, from, Math.min(to, channel.size()), charset, sink);
+        }
+    }
+
+    private static long stream(FileChannel channel, long from, long to, Charset charset, Sink sink)
+            throws IOException, InterruptedException {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BLOCK_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BLOCK_SIZE);
+        StringBuilder chunk = new StringBuilder(BLOCK_SIZE);
+        boolean pendingCr = false;
+        char last = '\n';
+        long position = from;
+
+        while (position < to) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            bytes.limit((int) Math.min(bytes.capacity(), bytes.position() + (to - position)));
+            int read = channel.read(bytes, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+            bytes.flip();
+            boolean endOfInput = position >= to;
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput && !result.isOverflow()) {
+                    decoder.flush(chars);
+                }
+                chars.flip();
+                while (chars.hasRemaining()) {
+                    char c = chars.get();
+                    if (pendingCr) {
+                        pendingCr = false;
+                        if (c != '\n') {
+                            chunk.append('\r');
+                        }
+                    }
+                    if (c == '\r') {
+                        pendingCr = true;
+                        continue;
+                    }
+                    chunk.append(c);
+                    last = c;
+                }
+                chars.clear();
+            } while (result.isOverflow());
+            bytes.compact();
+
+            if (chunk.length() > 0) {
+                if (!sink.accept(chunk.toString())) {
+                    return position - from;
+                }
+                chunk.setLength(0);
+            }
+        }
+        if (pendingCr) {
+            chunk.append('\r');
+            last = '\r';
+        }
+        if (last != '\n') {
+            chunk.append('\n');
+        }
+        if (chunk.length() > 0) {
+            sink.accept(chunk.toString());
+        }
+        return position - from;
+    }
+
+    /**
+     * Возвращает смещение начала строки с номером line (с 1) или размер файла,
+     * если строк меньше. Сканирует байты без декодирования.
+     */
+    public static long lineOffset(Path file, long line) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (line <= 1) {
+                return 0;
+            }
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            long position = 0;
+            long remaining = line - 1;
+            while (position < size) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n' && --remaining == 0) {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Возвращает смещение начала последних lines строк файла.
+     * Файл читается блоками с конца, пока не найдено нужное число переводов строки.
+     */
+    public static long tailOffset(Path file, long lines) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (lines <= 0 || size == 0) {
+                return size;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            long end = size;
+            long remaining = lines;
+            boolean skipTrailing = true;
+            while (end > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                long start = Math.max(0, end - BLOCK_SIZE);
+                buffer.clear();
+                buffer.limit((int) (end - start));
+                while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                    // дочитываем блок целиком
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) != '\n') {
+                        skipTrailing = false;
+                        continue;
+                    }
+                    if (skipTrailing) {
+                        // перевод строки в самом конце файла не начинает новую строку
+                        skipTrailing = false;
+                        continue;
+                    }
+                    if (--remaining == 0) {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Копирует байты [from, to) файла средствами ядра без чтения данных в память JVM
+     *
+     * @return число скопированных байт
+     */
+    public static long transfer(Path source, long from, long to, Path target, boolean append) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = append
+                 ? FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                 : FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long end = Math.min(to, in.size());
+            long position = from;
+            while (position < end) {
+                long sent = in.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            return position - from;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.terminal.sdk.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Раскрытие шаблонов имен файлов (*.log, data?.bin) в аргументах команд
+ */
+public final class PathGlob {
+
+    private PathGlob() {
+    }
+
+    public static boolean hasGlob(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+    }
+
+    public static boolean hasGlob(List<String> names) {
+        for (String name : names) {
+            if (hasGlob(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Раскрывает шаблон в последней части пути в отсортированный список путей.
+     * Аргумент без шаблона возвращается как есть, даже если файла нет.
+     */
+    public static List<Path> expand(Path base, String fileName) throws IOException {
+        Path path = base.resolve(fileName).normalize();
+        String name = path.getFileName() != null ? path.getFileName().toString() : "";
+        if (!hasGlob(name)) {
+            return Collections.singletonList(path);
+        }
+        List<Path> matches = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path.getParent(), name)) {
+            for (Path entry : stream) {
+                matches.add(entry);
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+}
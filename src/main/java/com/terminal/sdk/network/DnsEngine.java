@@ -0,0 +1,257 @@
+package com.terminal.sdk.network;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.ExtendedResolver;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.ResolverConfig;
+import org.xbill.DNS.ReverseMap;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+import org.xbill.DNS.lookup.LookupResult;
+import org.xbill.DNS.lookup.LookupSession;
+import org.xbill.DNS.lookup.NoSuchDomainException;
+import org.xbill.DNS.lookup.NoSuchRRSetException;
+
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Асинхронные DNS-запросы на {@link LookupSession} из dnsjava.
+ * Один экземпляр на приложение: все команды (dns, nmap, con, trace) делят
+ * общий кэш записей, который соблюдает TTL ответов и кэширует отрицательные
+ * ответы. Запросы не занимают потоки команд: ответы приходят через
+ * {@link CompletionStage}, а синхронные методы лишь ждут их с таймаутом.
+ */
+public class DnsEngine {
+    private static final int DEFAULT_CACHE_ENTRIES = 10_000;
+    private static final long DEFAULT_TIMEOUT_MS = 3000;
+
+    private static DnsEngine instance;
+    private final LookupSession session;
+    private final Cache cache;
+    private final long timeoutMs;
+
+    /**
+     * Результат разрешения имени в пакетном режиме
+     */
+    public static final class Resolution {
+        private final String name;
+        private final Map<Integer, List<Record>> records;
+        private final String error;
+
+        Resolution(String name, Map<Integer, List<Record>> records, String error) {
+            this.name = name;
+            this.records = records;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Записи по типам в порядке запроса; пустой список - записей нет */
+        public Map<Integer, List<Record>> getRecords() {
+            return records;
+        }
+
+        /** Описание ошибки или null */
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Получатель результатов пакетного разрешения; вызывается в потоке, запустившем разрешение
+     */
+    public interface Listener {
+        void onResolved(Resolution resolution);
+    }
+
+    private DnsEngine() {
+        UserSettings settings = UserSettings.getInstance();
+        this.timeoutMs = Math.max(100, settings.getLong("dns-timeout-ms", DEFAULT_TIMEOUT_MS));
+        this.cache = new Cache(DClass.IN);
+        cache.setMaxEntries(Math.max(16, settings.getInt("dns-cache-entries", DEFAULT_CACHE_ENTRIES)));
+        ExtendedResolver resolver = new ExtendedResolver();
+        resolver.setTimeout(Duration.ofMillis(timeoutMs));
+        ResolverConfig config = ResolverConfig.getCurrentConfig();
+        this.session = LookupSession.builder()
+            .resolver(resolver)
+            .cache(cache)
+            .searchPath(config.searchPath())
+            .ndots(config.ndots())
+            .defaultHostsFileParser()
+            .build();
+    }
+
+    public static synchronized DnsEngine getInstance() {
+        if (instance == null) {
+            instance = new DnsEngine();
+        }
+        return instance;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Асинхронный запрос записей одного типа. Отсутствие имени или записей
+     * дает пустой список, остальные ошибки завершают stage исключением.
+     */
+    public CompletionStage<List<Record>> lookupAsync(String name, int type) {
+        Name parsed;
+        try {
+            parsed = Name.fromString(name);
+        } catch (TextParseException e) {
+            CompletableFuture<List<Record>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return lookupAsync(parsed, type);
+    }
+
+    private CompletionStage<List<Record>> lookupAsync(Name name, int type) {
+        return session.lookupAsync(name, type).handle((LookupResult result, Throwable error) -> {
+            if (error == null) {
+                return result.getRecords();
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof NoSuchDomainException || cause instanceof NoSuchRRSetException) {
+                return Collections.<Record>emptyList();
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Запрашивает несколько типов записей одновременно и ждет все ответы
+     *
+     * @return записи по типам в порядке types
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public Map<Integer, List<Record>> lookupAll(String name, int... types) throws Exception {
+        List<CompletableFuture<List<Record>>> futures = new ArrayList<>(types.length);
+        for (int type : types) {
+            futures.add(lookupAsync(name, type).toCompletableFuture());
+        }
+        Map<Integer, List<Record>> result = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs * 2);
+        try {
+            for (int i = 0; i < types.length; i++) {
+                result.put(types[i], await(futures.get(i), deadline));
+            }
+        } finally {
+            for (CompletableFuture<List<Record>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Асинхронный обратный запрос; результат - имя без завершающей точки или null
+     */
+    public CompletionStage<String> reverseAsync(InetAddress address) {
+        return lookupAsync(ReverseMap.fromAddress(address), Type.PTR).handle((records, error) -> {
+            if (error != null || records.isEmpty()) {
+                return null;
+            }
+            String target = ((PTRRecord) records.get(0)).getTarget().toString();
+            return target.endsWith(".") ? target.substring(0, target.length() - 1) : target;
+        });
+    }
+
+    /**
+     * Синхронный обратный запрос с таймаутом движка
+     *
+     * @return имя хоста или null, если имени нет или ответ не получен вовремя
+     */
+    public String reverse(InetAddress address) throws InterruptedException {
+        try {
+            return reverseAsync(address).toCompletableFuture().get(timeoutMs * 2, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Разрешает список имен, держа в работе не больше maxConcurrent имен одновременно.
+     * Для каждого имени все типы записей запрашиваются параллельно.
+     * Результаты передаются в порядке готовности.
+     *
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public void resolveAll(List<String> names, int[] types, int maxConcurrent, Listener listener)
+            throws InterruptedException {
+        BlockingQueue<Resolution> completed = new LinkedBlockingQueue<>();
+        int window = Math.max(1, maxConcurrent);
+        int next = 0;
+        int inFlight = 0;
+        while (next < names.size() || inFlight > 0) {
+            while (next < names.size() && inFlight < window) {
+                String name = names.get(next++);
+                inFlight++;
+                resolveAsync(name, types).thenAccept(completed::add);
+            }
+            Resolution resolution = completed.take();
+            inFlight--;
+            listener.onResolved(resolution);
+        }
+    }
+
+    private CompletionStage<Resolution> resolveAsync(String name, int[] types) {
+        List<CompletableFuture<List<Record>>> futures = new ArrayList<>(types.length);
+        for (int type : types) {
+            futures.add(lookupAsync(name, type).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, error) -> {
+            Map<Integer, List<Record>> records = new LinkedHashMap<>();
+            String message = null;
+            for (int i = 0; i < types.length; i++) {
+                CompletableFuture<List<Record>> future = futures.get(i);
+                if (future.isCompletedExceptionally()) {
+                    try {
+                        future.join();
+                    } catch (CompletionException e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                    }
+                    records.put(types[i], Collections.<Record>emptyList());
+                } else {
+                    records.put(types[i], future.join());
+                }
+            }
+            return new Resolution(name, records, message);
+        });
+    }
+
+    private static List<Record> await(CompletableFuture<List<Record>> future, long deadline) throws Exception {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("DNS-сервер не ответил вовремя");
+        }
+    }
+}
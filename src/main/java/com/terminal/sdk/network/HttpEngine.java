@@ -0,0 +1,518 @@
+package com.terminal.sdk.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+
+import com.terminal.sdk.system.UserSettings;
+
+/**
+ * Общий HTTP-клиент на Apache HttpClient с пулом соединений.
+ * Соединения переиспользуются между запросами и командами (keep-alive),
+ * ответы gzip и deflate распаковываются прозрачно, тело ответа читается потоком.
+ * Для каждого запроса измеряются этапы: разрешение имени, TCP-подключение,
+ * рукопожатие TLS, первый байт ответа и общее время. Этапы подключения равны
+ * нулю, если запрос ушел по уже открытому соединению из пула.
+ */
+public class HttpEngine {
+    private static final int DEFAULT_MAX_CONNECTIONS = 64;
+    private static final int DEFAULT_TIMEOUT_MS = 10_000;
+    private static final long IDLE_EVICT_SECONDS = 30;
+    private static final ThreadLocal<Timing> CURRENT = new ThreadLocal<>();
+
+    private static HttpEngine instance;
+    private final PoolingHttpClientConnectionManager connections;
+    private final CloseableHttpClient client;
+    private final int baseConnections;
+    private final List<Reservation> reservations = new ArrayList<>();
+
+    /**
+     * Этапы выполнения запроса в наносекундах
+     */
+    public static final class Timing {
+        long started;
+        long dns;
+        long connect;
+        long tls;
+        long requestSent;
+        long firstByte;
+        long total;
+
+        public long getDnsNanos() {
+            return dns;
+        }
+
+        public long getConnectNanos() {
+            return connect;
+        }
+
+        public long getTlsNanos() {
+            return tls;
+        }
+
+        /** От начала запроса до получения заголовков ответа */
+        public long getFirstByteNanos() {
+            return firstByte;
+        }
+
+        /** От начала запроса до конца тела ответа */
+        public long getTotalNanos() {
+            return total;
+        }
+
+        /** Запрос ушел по соединению из пула */
+        public boolean isReused() {
+            return connect == 0;
+        }
+    }
+
+    /**
+     * Временное расширение пула соединений, см. {@link #reserveConnections}
+     */
+    public final class Reservation implements Closeable {
+        private final int concurrency;
+
+        private Reservation(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    /**
+     * Ответ с телом, которое читается потоком. Закрытие возвращает соединение в пул,
+     * если тело прочитано до конца, иначе соединение закрывается.
+     */
+    public static final class Response implements Closeable {
+        private final CloseableHttpResponse response;
+        private final Timing timing;
+
+        Response(CloseableHttpResponse response, Timing timing) {
+            this.response = response;
+            this.timing = timing;
+        }
+
+        public int getStatus() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        public String getReason() {
+            return response.getStatusLine().getReasonPhrase();
+        }
+
+        public String getProtocol() {
+            return response.getStatusLine().getProtocolVersion().toString();
+        }
+
+        public Header[] getHeaders() {
+            return response.getAllHeaders();
+        }
+
+        public String getHeader(String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+
+        /** Поток тела ответа, уже распакованный; пустой поток, если тела нет */
+        public InputStream getBody() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+        }
+
+        /** Кодировка тела из Content-Type, по умолчанию UTF-8 */
+        public Charset getCharset() {
+            ContentType type = ContentType.getLenient(response.getEntity());
+            return type != null && type.getCharset() != null ? type.getCharset() : StandardCharsets.UTF_8;
+        }
+
+        /** Длина тела по заголовку или -1 */
+        public long getContentLength() {
+            HttpEntity entity = response.getEntity();
+            return entity != null ? entity.getContentLength() : 0;
+        }
+
+        /**
+         * Время запроса; общее время фиксируется при вызове {@link #finish()} или закрытии
+         */
+        public Timing getTiming() {
+            return timing;
+        }
+
+        /**
+         * Дочитывает тело, чтобы соединение вернулось в пул, и фиксирует общее время
+         */
+        public void finish() throws IOException {
+            EntityUtils.consume(response.getEntity());
+            markDone();
+        }
+
+        private void markDone() {
+            if (timing.total == 0) {
+                timing.total = System.nanoTime() - timing.started;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            markDone();
+            response.close();
+        }
+    }
+
+    /**
+     * Итог нагрузочного теста
+     */
+    public static final class BenchResult {
+        private final long[] latencies;
+        private final int failures;
+        private final int[] statusClasses;
+        private final long elapsedNanos;
+        private final String lastError;
+
+        BenchResult(long[] latencies, int failures, int[] statusClasses, long elapsedNanos, String lastError) {
+            this.latencies = latencies;
+            this.failures = failures;
+            this.statusClasses = statusClasses;
+            this.elapsedNanos = elapsedNanos;
+            this.lastError = lastError;
+        }
+
+        /** Число выполненных запросов с ответом */
+        public int getCompleted() {
+            return latencies.length;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        /** Число ответов с кодом 1xx-5xx по индексу первой цифры */
+        public int getStatusCount(int digit) {
+            return statusClasses[digit];
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        /**
+         * Задержка для процентиля, например 0.99; массив задержек отсортирован
+         */
+        public long percentile(double fraction) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        public long mean() {
+            long sum = 0;
+            for (long latency : latencies) {
+                sum += latency;
+            }
+            return latencies.length == 0 ? 0 : sum / latencies.length;
+        }
+    }
+
+    /**
+     * Разрешение имени с замером времени
+     */
+    private static final class TimedDnsResolver implements DnsResolver {
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            long start = System.nanoTime();
+            try {
+                return SystemDefaultDnsResolver.INSTANCE.resolve(host);
+            } finally {
+                Timing timing = CURRENT.get();
+                if (timing != null) {
+                    timing.dns += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    private static final class TimedPlainSocketFactory extends PlainConnectionSocketFactory {
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } finally {
+                Timing timing = CURRENT.get();
+                if (timing != null) {
+                    timing.connect += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    /**
+     * Время TLS - рукопожатие в createLayeredSocket, остальное в connectSocket - TCP
+     */
+    private static final class TimedSslSocketFactory extends SSLConnectionSocketFactory {
+        TimedSslSocketFactory() {
+            super(SSLContexts.createDefault(), SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            Timing timing = CURRENT.get();
+            long tlsBefore = timing != null ? timing.tls : 0;
+            try {
+                return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } finally {
+                if (timing != null) {
+                    timing.connect += System.nanoTime() - start - (timing.tls - tlsBefore);
+                }
+            }
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.createLayeredSocket(socket, target, port, context);
+            } finally {
+                Timing timing = CURRENT.get();
+                if (timing != null) {
+                    timing.tls += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    /**
+     * Отмечает отправку запроса и получение заголовков ответа
+     */
+    private static final class TimedRequestExecutor extends HttpRequestExecutor {
+        @Override
+        protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection connection, HttpContext context)
+                throws IOException, HttpException {
+            HttpResponse response = super.doSendRequest(request, connection, context);
+            Timing timing = CURRENT.get();
+            if (timing != null) {
+                timing.requestSent = System.nanoTime() - timing.started;
+            }
+            return response;
+        }
+
+        @Override
+        protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection connection, HttpContext context)
+                throws HttpException, IOException {
+            HttpResponse response = super.doReceiveResponse(request, connection, context);
+            Timing timing = CURRENT.get();
+            if (timing != null) {
+                timing.firstByte = System.nanoTime() - timing.started;
+            }
+            return response;
+        }
+    }
+
+    private HttpEngine() {
+        UserSettings settings = UserSettings.getInstance();
+        int maxConnections = Math.max(1, settings.getInt("http-max-connections", DEFAULT_MAX_CONNECTIONS));
+        int timeout = Math.max(1, settings.getInt("http-timeout-ms", DEFAULT_TIMEOUT_MS));
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", new TimedPlainSocketFactory())
+            .register("https", new TimedSslSocketFactory())
+            .build();
+        this.connections = new PoolingHttpClientConnectionManager(registry, null, null, new TimedDnsResolver(),
+            -1, TimeUnit.MILLISECONDS);
+        this.baseConnections = maxConnections;
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnections);
+        connections.setValidateAfterInactivity(2000);
+        RequestConfig config = RequestConfig.custom()
+            .setConnectTimeout(timeout)
+            .setConnectionRequestTimeout(timeout)
+            .setSocketTimeout(timeout)
+            .build();
+        this.client = HttpClients.custom()
+            .setConnectionManager(connections)
+            .setDefaultRequestConfig(config)
+            .setRequestExecutor(new TimedRequestExecutor())
+            .setUserAgent("terminal-clone")
+            .evictIdleConnections(IDLE_EVICT_SECONDS, TimeUnit.SECONDS)
+            .build();
+    }
+
+    public static synchronized HttpEngine getInstance() {
+        if (instance == null) {
+            instance = new HttpEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Расширяет пул, чтобы concurrency потоков могли одновременно обращаться к одному хосту.
+     * Закрытие резерва возвращает пулу прежние лимиты, если других резервов нет.
+     */
+    public synchronized Reservation reserveConnections(int concurrency) {
+        Reservation reservation = new Reservation(concurrency);
+        reservations.add(reservation);
+        applyLimits();
+        return reservation;
+    }
+
+    private synchronized void release(Reservation reservation) {
+        if (reservations.remove(reservation)) {
+            applyLimits();
+        }
+    }
+
+    private void applyLimits() {
+        int limit = baseConnections;
+        for (Reservation reservation : reservations) {
+            limit = Math.max(limit, reservation.concurrency);
+        }
+        connections.setMaxTotal(limit);
+        connections.setDefaultMaxPerRoute(limit);
+    }
+
+    /**
+     * Выполняет запрос и возвращает ответ, как только получены заголовки.
+     * Ответ нужно закрыть.
+     */
+    public Response execute(HttpUriRequest request) throws IOException {
+        Timing timing = new Timing();
+        timing.started = System.nanoTime();
+        CURRENT.set(timing);
+        try {
+            return new Response(client.execute(request), timing);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Выполняет запрос, дочитывает тело и возвращает код ответа с замером времени
+     */
+    public Response executeAndConsume(HttpUriRequest request) throws IOException {
+        Response response = execute(request);
+        try {
+            response.finish();
+        } finally {
+            response.close();
+        }
+        return response;
+    }
+
+    /**
+     * Нагрузочный тест: total запросов из concurrency потоков по общему пулу соединений.
+     * Задержки хранятся в массиве long и сортируются для процентилей.
+     *
+     * @param requests создает новый запрос для каждой попытки
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public BenchResult bench(Supplier<HttpUriRequest> requests, int total, int concurrency) throws InterruptedException {
+        int threads = Math.max(1, Math.min(concurrency, total));
+        Reservation reservation = reserveConnections(threads);
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        int[][] statusClasses = new int[threads][6];
+        AtomicReference<String> lastError = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "http-bench");
+            t.setDaemon(true);
+            return t;
+        });
+        long begin = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                int[] counts = statusClasses[i];
+                futures.add(executor.submit(() -> {
+                    while (next.getAndIncrement() < total && !Thread.currentThread().isInterrupted()) {
+                        long start = System.nanoTime();
+                        try {
+                            Response response = executeAndConsume(requests.get());
+                            latencies[completed.getAndIncrement()] = System.nanoTime() - start;
+                            counts[Math.min(5, response.getStatus() / 100)]++;
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                            lastError.set(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            reservation.close();
+        }
+        long elapsed = System.nanoTime() - begin;
+        int[] totals = new int[6];
+        for (int[] counts : statusClasses) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += counts[i];
+            }
+        }
+        long[] done = Arrays.copyOf(latencies, completed.get());
+        Arrays.sort(done);
+        return new BenchResult(done, failures.get(), totals, elapsed, lastError.get());
+    }
+}
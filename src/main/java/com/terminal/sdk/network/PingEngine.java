@@ -0,0 +1,292 @@
+package com.terminal.sdk.network;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пинг множества хостов раундами.
+ * В каждом раунде всем хостам одновременно отправляется по одному запросу,
+ * раунды начинаются не чаще заданного интервала. Режим ICMP использует
+ * {@link InetAddress#isReachable(int)} из пула потоков: ICMP echo требует прав
+ * администратора (кроме Windows), без них JDK подменяет его подключением к
+ * порту echo. Режим TCP отправляет неблокирующие подключения на заданный порт
+ * на одном {@link Selector}: ответом считается как принятое подключение, так и
+ * отказ (RST). Статистика обновляется в вызывающем потоке.
+ */
+public class PingEngine {
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int CAP_NET_RAW = 13;
+
+    /**
+     * Способ проверки доступности
+     */
+    public enum Mode {
+        ICMP,
+        TCP
+    }
+
+    private final Mode mode;
+    private final int port;
+    private final long intervalNanos;
+    private final int timeoutMs;
+    private final int maxInFlight;
+
+    /**
+     * Получатель окончания раундов
+     */
+    public interface Listener {
+
+        /**
+         * @return false, чтобы остановить пинг
+         */
+        boolean onRound(int round);
+    }
+
+    private static final class Probe {
+        final int host;
+        final long started;
+        final SocketChannel channel;
+        boolean done;
+
+        Probe(int host, long started, SocketChannel channel) {
+            this.host = host;
+            this.started = started;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param port        порт для режима TCP
+     * @param maxInFlight максимум одновременных запросов в раунде
+     */
+    public PingEngine(Mode mode, int port, long intervalMs, int timeoutMs, int maxInFlight) {
+        this.mode = mode;
+        this.port = port;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMs));
+        this.timeoutMs = Math.max(1, timeoutMs);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Может ли JVM отправлять ICMP echo: в Windows всегда, в Unix - от root,
+     * в Linux также при возможности CAP_NET_RAW (например, после setcap на java)
+     */
+    public static boolean isIcmpPermitted() {
+        return System.getProperty("os.name", "").startsWith("Windows")
+            || "root".equals(System.getProperty("user.name"))
+            || hasNetRawCapability();
+    }
+
+    /**
+     * Проверяет бит CAP_NET_RAW в действующих возможностях процесса (/proc/self/status)
+     */
+    private static boolean hasNetRawCapability() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return false;
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("CapEff:")) {
+                    long capabilities = Long.parseUnsignedLong(line.substring(7).trim(), 16);
+                    return (capabilities & (1L << CAP_NET_RAW)) != 0;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Возможности неизвестны: считаем, что ICMP недоступен
+        }
+        return false;
+    }
+
+    /**
+     * Выполняет раунды пинга
+     *
+     * @param stats  статистика по хостам, в том же порядке, что и hosts
+     * @param rounds число раундов, 0 - пока listener не остановит
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public void run(InetAddress[] hosts, PingStats[] stats, int rounds, Listener listener)
+            throws IOException, InterruptedException {
+        long[] rtts = new long[hosts.length];
+        ExecutorService icmp = null;
+        Selector selector = null;
+        try {
+            if (mode == Mode.ICMP) {
+                icmp = Executors.newFixedThreadPool(Math.min(hosts.length, maxInFlight), r -> {
+                    Thread t = new Thread(r, "ping-icmp");
+                    t.setDaemon(true);
+                    return t;
+                });
+            } else {
+                selector = Selector.open();
+            }
+            long start = System.nanoTime();
+            for (int round = 0; rounds == 0 || round < rounds; round++) {
+                long wait = start - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                start = Math.max(start + intervalNanos, System.nanoTime());
+                Arrays.fill(rtts, -1);
+                if (mode == Mode.ICMP) {
+                    probeIcmp(icmp, hosts, rtts);
+                } else {
+                    probeTcp(selector, hosts, rtts);
+                }
+                for (int i = 0; i < hosts.length; i++) {
+                    if (rtts[i] >= 0) {
+                        stats[i].addReply(rtts[i]);
+                    } else {
+                        stats[i].addLoss();
+                    }
+                }
+                if (!listener.onRound(round)) {
+                    break;
+                }
+            }
+        } finally {
+            if (icmp != null) {
+                icmp.shutdownNow();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        }
+    }
+
+    private void probeIcmp(ExecutorService pool, InetAddress[] hosts, long[] rtts) throws InterruptedException {
+        CountDownLatch replies = new CountDownLatch(hosts.length);
+        for (int i = 0; i < hosts.length; i++) {
+            int host = i;
+            pool.execute(() -> {
+                try {
+                    long started = System.nanoTime();
+                    if (hosts[host].isReachable(timeoutMs)) {
+                        rtts[host] = System.nanoTime() - started;
+                    }
+                } catch (IOException e) {
+                    // Нет маршрута до хоста: запрос потерян
+                } finally {
+                    replies.countDown();
+                }
+            });
+        }
+        replies.await();
+    }
+
+    private void probeTcp(Selector selector, InetAddress[] hosts, long[] rtts) throws IOException, InterruptedException {
+        long timeoutNanos = timeoutMs * NANOS_PER_MILLI;
+        Deque<Probe> pending = new ArrayDeque<>();
+        int next = 0;
+        int inFlight = 0;
+        int limit = maxInFlight;
+        try {
+            while (next < hosts.length || inFlight > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                while (next < hosts.length && inFlight < limit) {
+                    SocketChannel channel;
+                    try {
+                        channel = SocketChannel.open();
+                    } catch (IOException e) {
+                        if (inFlight == 0) {
+                            throw e;
+                        }
+                        // Исчерпаны дескрипторы: дальше работаем с меньшим окном
+                        limit = inFlight;
+                        break;
+                    }
+                    int host = next++;
+                    long started = System.nanoTime();
+                    try {
+                        channel.configureBlocking(false);
+                        if (channel.connect(new InetSocketAddress(hosts[host], port))) {
+                            rtts[host] = System.nanoTime() - started;
+                            channel.close();
+                            continue;
+                        }
+                        Probe probe = new Probe(host, started, channel);
+                        channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                        pending.addLast(probe);
+                        inFlight++;
+                    } catch (ConnectException e) {
+                        rtts[host] = System.nanoTime() - started;
+                        channel.close();
+                    } catch (IOException e) {
+                        channel.close();
+                    }
+                }
+
+                long wait = timeoutNanos;
+                for (Probe probe : pending) {
+                    if (!probe.done) {
+                        wait = probe.started + timeoutNanos - System.nanoTime();
+                        break;
+                    }
+                }
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Probe probe = (Probe) key.attachment();
+                    long rtt = System.nanoTime() - probe.started;
+                    try {
+                        probe.channel.finishConnect();
+                        rtts[probe.host] = rtt;
+                    } catch (ConnectException e) {
+                        // Отказ в подключении тоже означает, что хост ответил
+                        rtts[probe.host] = rtt;
+                    } catch (IOException e) {
+                        // Хост или сеть недоступны
+                    }
+                    probe.done = true;
+                    probe.channel.close();
+                    inFlight--;
+                }
+
+                long now = System.nanoTime();
+                while (!pending.isEmpty()) {
+                    Probe head = pending.peekFirst();
+                    if (head.done) {
+                        pending.removeFirst();
+                    } else if (now - head.started >= timeoutNanos) {
+                        pending.removeFirst();
+                        head.done = true;
+                        head.channel.close();
+                        inFlight--;
+                    } else {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            for (Probe probe : pending) {
+                if (!probe.done) {
+                    probe.channel.close();
+                }
+            }
+        }
+        // Ключи закрытых каналов снимаются с регистрации при следующем select
+        selector.selectNow();
+    }
+}
@@ -0,0 +1,83 @@
+package com.terminal.sdk.network;
+
+/**
+ * Текущая статистика пинга одного хоста.
+ * Все значения считаются на лету в примитивных полях, без хранения выборки:
+ * среднее и дисперсия по алгоритму Уэлфорда, джиттер - сглаженная разница
+ * соседних RTT по RFC 3550. Время в наносекундах.
+ */
+public final class PingStats {
+    private long sent;
+    private long received;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double mean;
+    private double squares;
+    private double jitter;
+    private long last = -1;
+    private long previous = -1;
+
+    /**
+     * Учитывает ответ с временем rtt
+     */
+    public void addReply(long rtt) {
+        sent++;
+        received++;
+        min = Math.min(min, rtt);
+        max = Math.max(max, rtt);
+        double delta = rtt - mean;
+        mean += delta / received;
+        squares += delta * (rtt - mean);
+        if (previous >= 0) {
+            jitter += (Math.abs(rtt - previous) - jitter) / 16;
+        }
+        previous = rtt;
+        last = rtt;
+    }
+
+    /**
+     * Учитывает запрос без ответа
+     */
+    public void addLoss() {
+        sent++;
+        last = -1;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    /** Доля потерь в процентах */
+    public double getLossPercent() {
+        return sent == 0 ? 0 : (sent - received) * 100.0 / sent;
+    }
+
+    /** Время последнего ответа или -1, если последний запрос потерян */
+    public long getLast() {
+        return last;
+    }
+
+    public long getMin() {
+        return received == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return received < 2 ? 0 : Math.sqrt(squares / (received - 1));
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+}
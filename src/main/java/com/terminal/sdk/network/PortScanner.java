@@ -0,0 +1,262 @@
+package com.terminal.sdk.network;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Неблокирующее сканирование TCP-портов на одном {@link Selector}.
+ * Одновременно открыто до maxInFlight подключений, новые подключения
+ * запускаются не чаще ratePerSecond в секунду. Таймаут вычисляется по
+ * измеренным RTT ответов (открытых и закрытых портов) по формуле TCP:
+ * SRTT + 4 * RTTVAR в пределах [minTimeout, maxTimeout], и сразу применяется
+ * ко всем ожидающим подключениям. Весь цикл выполняется в вызывающем потоке,
+ * поэтому получатель результатов вызывается в нем же.
+ */
+public class PortScanner {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxInFlight;
+    private final int ratePerSecond;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private long smoothedRtt = -1;
+    private long rttVariance;
+
+    /**
+     * Получатель открытых портов в порядке обнаружения
+     */
+    public interface Listener {
+        void onOpen(int port, long rttNanos);
+    }
+
+    /**
+     * Итог сканирования
+     */
+    public static final class Summary {
+        private final int open;
+        private final int closed;
+        private final int filtered;
+        private final long elapsedNanos;
+        private final long timeoutNanos;
+
+        Summary(int open, int closed, int filtered, long elapsedNanos, long timeoutNanos) {
+            this.open = open;
+            this.closed = closed;
+            this.filtered = filtered;
+            this.elapsedNanos = elapsedNanos;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        public int getOpen() {
+            return open;
+        }
+
+        public int getClosed() {
+            return closed;
+        }
+
+        /** Порты без ответа до таймаута или с ошибкой сети */
+        public int getFiltered() {
+            return filtered;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** Таймаут на момент окончания сканирования */
+        public long getTimeoutNanos() {
+            return timeoutNanos;
+        }
+    }
+
+    private static final class Probe {
+        final int port;
+        final long started;
+        final SocketChannel channel;
+        boolean done;
+
+        Probe(int port, long started, SocketChannel channel) {
+            this.port = port;
+            this.started = started;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param maxInFlight   максимум одновременных подключений
+     * @param ratePerSecond максимум новых подключений в секунду
+     * @param minTimeoutMs  нижняя граница адаптивного таймаута
+     * @param maxTimeoutMs  начальный и максимальный таймаут
+     */
+    public PortScanner(int maxInFlight, int ratePerSecond, long minTimeoutMs, long maxTimeoutMs) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+        this.maxTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxTimeoutMs));
+        this.minTimeoutNanos = Math.min(maxTimeoutNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(1, minTimeoutMs)));
+    }
+
+    /**
+     * Сканирует порты [fromPort, toPort]
+     *
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public Summary scan(InetAddress address, int fromPort, int toPort, Listener listener)
+            throws IOException, InterruptedException {
+        Deque<Probe> pending = new ArrayDeque<>();
+        int open = 0;
+        int closed = 0;
+        int filtered = 0;
+        int inFlight = 0;
+        int limit = maxInFlight;
+        int next = fromPort;
+        long begin = System.nanoTime();
+        long launched = 0;
+        smoothedRtt = -1;
+        rttVariance = 0;
+
+        try (Selector selector = Selector.open()) {
+            try {
+                while (next <= toPort || inFlight > 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    long now = System.nanoTime();
+                    long allowed = (now - begin) * ratePerSecond / NANOS_PER_SECOND + 1;
+                    while (next <= toPort && inFlight < limit && launched < allowed) {
+                        SocketChannel channel;
+                        try {
+                            channel = SocketChannel.open();
+                        } catch (IOException e) {
+                            // Исчерпаны дескрипторы: дальше работаем с меньшим окном
+                            limit = Math.max(1, inFlight);
+                            break;
+                        }
+                        int port = next++;
+                        launched++;
+                        try {
+                            channel.configureBlocking(false);
+                            if (channel.connect(new InetSocketAddress(address, port))) {
+                                channel.close();
+                                open++;
+                                listener.onOpen(port, System.nanoTime() - now);
+                                continue;
+                            }
+                            Probe probe = new Probe(port, System.nanoTime(), channel);
+                            channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                            pending.addLast(probe);
+                            inFlight++;
+                        } catch (ConnectException e) {
+                            channel.close();
+                            closed++;
+                        } catch (IOException e) {
+                            channel.close();
+                            filtered++;
+                        }
+                    }
+
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nextWakeup(pending, next <= toPort,
+                        inFlight < limit, begin, launched))));
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Probe probe = (Probe) key.attachment();
+                        long rtt = System.nanoTime() - probe.started;
+                        try {
+                            probe.channel.finishConnect();
+                            open++;
+                            addSample(rtt);
+                            listener.onOpen(probe.port, rtt);
+                        } catch (ConnectException e) {
+                            closed++;
+                            addSample(rtt);
+                        } catch (IOException e) {
+                            filtered++;
+                        }
+                        finish(probe);
+                        inFlight--;
+                    }
+
+                    long timeout = timeout();
+                    long expired = System.nanoTime();
+                    while (!pending.isEmpty()) {
+                        Probe head = pending.peekFirst();
+                        if (head.done) {
+                            pending.removeFirst();
+                        } else if (expired - head.started >= timeout) {
+                            pending.removeFirst();
+                            finish(head);
+                            filtered++;
+                            inFlight--;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                for (Probe probe : pending) {
+                    if (!probe.done) {
+                        probe.channel.close();
+                    }
+                }
+            }
+        }
+        return new Summary(open, closed, filtered, System.nanoTime() - begin, timeout());
+    }
+
+    /**
+     * Время до ближайшего события: истечения таймаута первого подключения
+     * или появления разрешения на новое подключение
+     */
+    private long nextWakeup(Deque<Probe> pending, boolean morePorts, boolean windowFree, long begin, long launched) {
+        long now = System.nanoTime();
+        long wait = maxTimeoutNanos;
+        for (Probe probe : pending) {
+            if (!probe.done) {
+                wait = Math.min(wait, probe.started + timeout() - now);
+                break;
+            }
+        }
+        if (morePorts && windowFree) {
+            long nextSlot = begin + launched * NANOS_PER_SECOND / ratePerSecond;
+            wait = Math.min(wait, nextSlot - now);
+        }
+        return Math.max(0, wait);
+    }
+
+    private static void finish(Probe probe) throws IOException {
+        probe.done = true;
+        probe.channel.close();
+    }
+
+    /**
+     * Обновляет SRTT и RTTVAR по RFC 6298
+     */
+    private void addSample(long rtt) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rtt;
+            rttVariance = rtt / 2;
+        } else {
+            rttVariance = (3 * rttVariance + Math.abs(smoothedRtt - rtt)) / 4;
+            smoothedRtt = (7 * smoothedRtt + rtt) / 8;
+        }
+    }
+
+    private long timeout() {
+        if (smoothedRtt < 0) {
+            return maxTimeoutNanos;
+        }
+        return Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, smoothedRtt + 4 * rttVariance));
+    }
+}
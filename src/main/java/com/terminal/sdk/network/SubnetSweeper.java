@@ -0,0 +1,381 @@
+package com.terminal.sdk.network;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обход диапазона IPv4-адресов TCP-пингом.
+ * Адреса перебираются как 32-битные числа, каждому хосту отправляются
+ * неблокирующие подключения на заданный список портов. Хост считается
+ * доступным, если ответил хотя бы на одном порту: принял подключение или
+ * отверг его (RST). Число одновременных подключений и темп ограничены, а все
+ * подключения обслуживаются одним {@link Selector} в вызывающем потоке.
+ * Результаты хранятся в примитивных массивах: бит на каждый адрес диапазона
+ * и маска открытых портов на каждый доступный хост.
+ */
+public class SubnetSweeper {
+    /** Маска открытых портов хранится в long */
+    public static final int MAX_PORTS = 64;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxInFlight;
+    private final int ratePerSecond;
+    private final long timeoutNanos;
+
+    /**
+     * Диапазон адресов CIDR
+     */
+    public static final class Range {
+        private final int network;
+        private final int prefix;
+
+        private Range(int network, int prefix) {
+            this.network = network;
+            this.prefix = prefix;
+        }
+
+        /**
+         * Разбирает "адрес/префикс" или одиночный адрес; вместо адреса допускается имя хоста
+         *
+         * @throws IllegalArgumentException при неверном префиксе
+         * @throws UnknownHostException     если имя не разрешается в IPv4-адрес
+         */
+        public static Range parse(String text) throws UnknownHostException {
+            int slash = text.indexOf('/');
+            String host = slash >= 0 ? text.substring(0, slash) : text;
+            int prefix = slash >= 0 ? Integer.parseInt(text.substring(slash + 1)) : 32;
+            if (prefix < 0 || prefix > 32) {
+                throw new IllegalArgumentException("Префикс подсети должен быть от 0 до 32");
+            }
+            for (InetAddress candidate : InetAddress.getAllByName(host)) {
+                if (candidate instanceof Inet4Address) {
+                    int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+                    return new Range(toInt(candidate) & mask, prefix);
+                }
+            }
+            throw new UnknownHostException("Нет IPv4-адреса: " + host);
+        }
+
+        public int getPrefix() {
+            return prefix;
+        }
+
+        /** Число адресов в диапазоне, включая адрес сети и широковещательный */
+        public long size() {
+            return 1L << (32 - prefix);
+        }
+
+        public int address(long index) {
+            return network + (int) index;
+        }
+
+        /**
+         * Адрес сети и широковещательный не сканируются в подсетях крупнее /31
+         */
+        boolean isHost(long index) {
+            return prefix >= 31 || index != 0 && index != size() - 1;
+        }
+
+        @Override
+        public String toString() {
+            return format(network) + "/" + prefix;
+        }
+    }
+
+    /**
+     * Получатель доступных хостов; вызывается в потоке обхода по мере завершения проверки хоста
+     */
+    public interface Listener {
+        void onHost(int address, long openPortMask);
+    }
+
+    /**
+     * Результат обхода в компактном виде
+     */
+    public static final class Result {
+        private final Range range;
+        private final long[] upBits;
+        private int[] hosts = new int[16];
+        private long[] openMasks = new long[16];
+        private int hostCount;
+        private long probes;
+        private long elapsedNanos;
+
+        Result(Range range) {
+            this.range = range;
+            this.upBits = new long[(int) ((range.size() + 63) >>> 6)];
+        }
+
+        void add(long index, int address, long openMask) {
+            upBits[(int) (index >>> 6)] |= 1L << index;
+            if (hostCount == hosts.length) {
+                hosts = Arrays.copyOf(hosts, hostCount * 2);
+                openMasks = Arrays.copyOf(openMasks, hostCount * 2);
+            }
+            hosts[hostCount] = address;
+            openMasks[hostCount++] = openMask;
+        }
+
+        public Range getRange() {
+            return range;
+        }
+
+        public boolean isUp(long index) {
+            return (upBits[(int) (index >>> 6)] & 1L << index) != 0;
+        }
+
+        /** Число доступных хостов */
+        public int getHostCount() {
+            return hostCount;
+        }
+
+        /** Адрес i-го найденного хоста в порядке обнаружения */
+        public int getHost(int i) {
+            return hosts[i];
+        }
+
+        public long getOpenPortMask(int i) {
+            return openMasks[i];
+        }
+
+        public long getProbes() {
+            return probes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /** Хост, проверка которого еще идет */
+    private static final class HostState {
+        final long index;
+        int pending;
+        boolean launched;
+        boolean answered;
+        long openMask;
+
+        HostState(long index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Probe {
+        final HostState host;
+        final int portIndex;
+        final long started;
+        final SocketChannel channel;
+        boolean done;
+
+        Probe(HostState host, int portIndex, long started, SocketChannel channel) {
+            this.host = host;
+            this.portIndex = portIndex;
+            this.started = started;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param maxInFlight   максимум одновременных подключений
+     * @param ratePerSecond максимум новых подключений в секунду
+     * @param timeoutMs     время ожидания ответа на подключение
+     */
+    public SubnetSweeper(int maxInFlight, int ratePerSecond, long timeoutMs) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMs));
+    }
+
+    /**
+     * Проверяет все хосты диапазона
+     *
+     * @param ports порты для проверки, не больше {@link #MAX_PORTS}
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public Result sweep(Range range, int[] ports, Listener listener) throws IOException, InterruptedException {
+        if (ports.length == 0 || ports.length > MAX_PORTS) {
+            throw new IllegalArgumentException("Число портов должно быть от 1 до " + MAX_PORTS);
+        }
+        Result result = new Result(range);
+        Deque<Probe> pending = new ArrayDeque<>();
+        long size = range.size();
+        long nextHost = 0;
+        int nextPort = 0;
+        HostState current = null;
+        int inFlight = 0;
+        int limit = maxInFlight;
+        long begin = System.nanoTime();
+        long launched = 0;
+
+        try (Selector selector = Selector.open()) {
+            try {
+                while (nextHost < size || current != null || inFlight > 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    long allowed = (System.nanoTime() - begin) * ratePerSecond / NANOS_PER_SECOND + 1;
+                    while (inFlight < limit && launched < allowed) {
+                        if (current == null) {
+                            while (nextHost < size && !range.isHost(nextHost)) {
+                                nextHost++;
+                            }
+                            if (nextHost >= size) {
+                                break;
+                            }
+                            current = new HostState(nextHost++);
+                            nextPort = 0;
+                        }
+                        SocketChannel channel;
+                        try {
+                            channel = SocketChannel.open();
+                        } catch (IOException e) {
+                            // Исчерпаны дескрипторы: дальше работаем с меньшим окном
+                            limit = Math.max(1, inFlight);
+                            break;
+                        }
+                        HostState host = current;
+                        int portIndex = nextPort++;
+                        if (nextPort == ports.length) {
+                            host.launched = true;
+                            current = null;
+                        }
+                        launched++;
+                        host.pending++;
+                        InetSocketAddress target = new InetSocketAddress(
+                            toInetAddress(range.address(host.index)), ports[portIndex]);
+                        try {
+                            channel.configureBlocking(false);
+                            if (channel.connect(target)) {
+                                channel.close();
+                                answer(host, portIndex, true);
+                                complete(host, range, result, listener);
+                                continue;
+                            }
+                            Probe probe = new Probe(host, portIndex, System.nanoTime(), channel);
+                            channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                            pending.addLast(probe);
+                            inFlight++;
+                        } catch (ConnectException e) {
+                            channel.close();
+                            answer(host, portIndex, false);
+                            complete(host, range, result, listener);
+                        } catch (IOException e) {
+                            channel.close();
+                            complete(host, range, result, listener);
+                        }
+                    }
+
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                        nextWakeup(pending, nextHost < size || current != null, inFlight < limit, begin, launched))));
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Probe probe = (Probe) key.attachment();
+                        try {
+                            probe.channel.finishConnect();
+                            answer(probe.host, probe.portIndex, true);
+                        } catch (ConnectException e) {
+                            answer(probe.host, probe.portIndex, false);
+                        } catch (IOException e) {
+                            // Сеть недоступна: хост не ответил
+                        }
+                        finish(probe);
+                        inFlight--;
+                        complete(probe.host, range, result, listener);
+                    }
+
+                    long now = System.nanoTime();
+                    while (!pending.isEmpty()) {
+                        Probe head = pending.peekFirst();
+                        if (head.done) {
+                            pending.removeFirst();
+                        } else if (now - head.started >= timeoutNanos) {
+                            pending.removeFirst();
+                            finish(head);
+                            inFlight--;
+                            complete(head.host, range, result, listener);
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                for (Probe probe : pending) {
+                    if (!probe.done) {
+                        probe.channel.close();
+                    }
+                }
+            }
+        }
+        result.probes = launched;
+        result.elapsedNanos = System.nanoTime() - begin;
+        return result;
+    }
+
+    private long nextWakeup(Deque<Probe> pending, boolean moreProbes, boolean windowFree, long begin, long launched) {
+        long now = System.nanoTime();
+        long wait = timeoutNanos;
+        for (Probe probe : pending) {
+            if (!probe.done) {
+                wait = Math.min(wait, probe.started + timeoutNanos - now);
+                break;
+            }
+        }
+        if (moreProbes && windowFree) {
+            wait = Math.min(wait, begin + launched * NANOS_PER_SECOND / ratePerSecond - now);
+        }
+        return Math.max(0, wait);
+    }
+
+    private static void answer(HostState host, int portIndex, boolean open) {
+        host.answered = true;
+        if (open) {
+            host.openMask |= 1L << portIndex;
+        }
+    }
+
+    /**
+     * Учитывает завершение одного подключения; после последнего сообщает о доступном хосте
+     */
+    private static void complete(HostState host, Range range, Result result, Listener listener) {
+        if (--host.pending > 0 || !host.launched || !host.answered) {
+            return;
+        }
+        int address = range.address(host.index);
+        result.add(host.index, address, host.openMask);
+        listener.onHost(address, host.openMask);
+    }
+
+    private static void finish(Probe probe) throws IOException {
+        probe.done = true;
+        probe.channel.close();
+    }
+
+    public static int toInt(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF;
+    }
+
+    public static InetAddress toInetAddress(int address) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{
+            (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address});
+    }
+
+    public static String format(int address) {
+        return (address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "." + (address & 0xFF);
+    }
+}
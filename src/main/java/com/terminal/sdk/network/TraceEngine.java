@@ -0,0 +1,480 @@
+package com.terminal.sdk.network;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import com.terminal.sdk.system.Logger;
+
+/**
+ * Трассировка маршрута без внешних утилит.
+ * Java не позволяет задать TTL обычного UDP-пакета и принять ICMP-ответы,
+ * поэтому зонды собираются вручную и отправляются через libpcap (pcap4j) на
+ * интерфейсе, ведущем к цели. Все TTL отправляются сразу, зонд с TTL n - на порт
+ * {@link #BASE_PORT} + n; ICMP Time Exceeded и Port Unreachable сопоставляются
+ * с зондами по порту из процитированного заголовка, так что трассировка занимает
+ * примерно один таймаут. MAC следующего узла берется из перехваченного обычного
+ * UDP-пакета к цели. Обратные имена узлов запрашиваются через {@link DnsEngine}
+ * сразу при получении ответа.
+ * Если libpcap недоступна или нет прав, а также для IPv6 маршрут строит системная
+ * утилита (traceroute, в Windows tracert), а ее вывод разбирается в те же узлы.
+ */
+public class TraceEngine {
+    /** Базовый порт зондов, как у traceroute: зонд с TTL n отправляется на BASE_PORT + n */
+    public static final int BASE_PORT = 33434;
+
+    private static final String CLASS_NAME = TraceEngine.class.getSimpleName();
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+    private static final long TOOL_POLL_MS = 50;
+    private static final Pattern TOOL_ADDRESS = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|[0-9a-fA-F]*:[0-9a-fA-F:]+");
+    private static final Pattern TOOL_TIME = Pattern.compile("<?(\\d+(\\.\\d+)?)");
+
+    private static final int SNAPLEN = 256;
+    private static final int READ_TIMEOUT_MS = 10;
+    private static final int ETHERNET_HEADER = 14;
+    private static final int IP_HEADER = 20;
+    private static final int UDP_HEADER = 8;
+    private static final int PROBE_PAYLOAD = 32;
+    private static final int ETHERTYPE_IPV4 = 0x0800;
+    private static final int ETHERTYPE_VLAN = 0x8100;
+    private static final int PROTOCOL_ICMP = 1;
+    private static final int PROTOCOL_UDP = 17;
+    private static final int ICMP_UNREACHABLE = 3;
+    private static final int ICMP_TIME_EXCEEDED = 11;
+    private static final int CODE_PORT_UNREACHABLE = 3;
+
+    private final int maxHops;
+    private final int timeoutMs;
+    private final boolean resolveNames;
+    private String fallbackReason;
+
+    /**
+     * Узел маршрута
+     */
+    public static final class Hop {
+        private final int ttl;
+        private InetAddress address;
+        private long rttNanos = -1;
+        private int unreachableCode = -1;
+        private CompletableFuture<String> name;
+
+        Hop(int ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getTtl() {
+            return ttl;
+        }
+
+        /** Адрес ответившего узла или null, если ответа нет */
+        public InetAddress getAddress() {
+            return address;
+        }
+
+        /** Время ответа или -1 */
+        public long getRttNanos() {
+            return rttNanos;
+        }
+
+        /** Код ICMP Destination Unreachable, отличный от Port Unreachable, или -1 */
+        public int getUnreachableCode() {
+            return unreachableCode;
+        }
+
+        /** Обратное имя узла; null, если имя не запрашивалось */
+        public CompletableFuture<String> getName() {
+            return name;
+        }
+    }
+
+    /**
+     * @param resolveNames запрашивать обратные имена ответивших узлов
+     */
+    public TraceEngine(int maxHops, int timeoutMs, boolean resolveNames) {
+        this.maxHops = Math.max(1, Math.min(255, maxHops));
+        this.timeoutMs = Math.max(1, timeoutMs);
+        this.resolveNames = resolveNames;
+    }
+
+    /**
+     * Причина, по которой маршрут построила системная утилита, или null
+     */
+    public String getFallbackReason() {
+        return fallbackReason;
+    }
+
+    /**
+     * Трассирует маршрут до цели
+     *
+     * @return узлы до цели включительно; если цель не ответила - все maxHops узлов
+     * @throws IOException          если нет маршрута или не удалось запустить системную утилиту
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public Hop[] trace(InetAddress target) throws IOException, InterruptedException {
+        if (!(target instanceof Inet4Address)) {
+            fallbackReason = "собственные зонды поддерживают только IPv4";
+            return traceWithTool(target);
+        }
+        try (DatagramSocket socket = new DatagramSocket()) {
+            // connect только выбирает маршрут, пакеты не отправляются
+            socket.connect(target, BASE_PORT);
+            InetAddress source = socket.getLocalAddress();
+            if (source.isAnyLocalAddress()) {
+                throw new IOException("Нет маршрута до " + target.getHostAddress());
+            }
+            PcapHandle handle;
+            try {
+                handle = open(source, target);
+            } catch (IOException e) {
+                fallbackReason = e.getMessage();
+                Logger.info(CLASS_NAME, "Трассировка системной утилитой: " + e.getMessage());
+                return traceWithTool(target);
+            }
+            try {
+                return trace(handle, socket, (Inet4Address) source, (Inet4Address) target);
+            } catch (PcapNativeException | NotOpenException e) {
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                handle.close();
+            }
+        }
+    }
+
+    private PcapHandle open(InetAddress source, InetAddress target) throws IOException {
+        try {
+            PcapNetworkInterface device = Pcaps.getDevByAddress(source);
+            if (device == null) {
+                throw new IOException("Не найден сетевой интерфейс с адресом " + source.getHostAddress());
+            }
+            PcapHandle handle = new PcapHandle.Builder(device.getName())
+                .snaplen(SNAPLEN)
+                .promiscuousMode(PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS)
+                .timeoutMillis(READ_TIMEOUT_MS)
+                .immediateMode(true)
+                .build();
+            try {
+                handle.setFilter("icmp or (udp and dst host " + target.getHostAddress()
+                    + " and dst port " + BASE_PORT + ")", BpfProgram.BpfCompileMode.OPTIMIZE);
+            } catch (PcapNativeException | NotOpenException e) {
+                handle.close();
+                throw e;
+            }
+            return handle;
+        } catch (PcapNativeException | NotOpenException e) {
+            throw new IOException("Нет доступа к сетевому интерфейсу (нужны права администратора): "
+                + e.getMessage(), e);
+        } catch (LinkageError e) {
+            throw new IOException("Не найдена библиотека libpcap (Npcap в Windows)", e);
+        }
+    }
+
+    private Hop[] trace(PcapHandle handle, DatagramSocket socket, Inet4Address source, Inet4Address target)
+            throws IOException, InterruptedException, PcapNativeException, NotOpenException {
+        byte[] link = linkHeader(handle, socket, target);
+        int sourcePort = socket.getLocalPort();
+        Hop[] hops = new Hop[maxHops + 1];
+        long[] sent = new long[maxHops + 1];
+        byte[] probe = new byte[link.length + IP_HEADER + UDP_HEADER + PROBE_PAYLOAD];
+        System.arraycopy(link, 0, probe, 0, link.length);
+        for (int ttl = 1; ttl <= maxHops; ttl++) {
+            hops[ttl] = new Hop(ttl);
+            writeProbe(probe, link.length, source, target, sourcePort, ttl);
+            sent[ttl] = System.nanoTime();
+            handle.sendPacket(probe);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        int destination = maxHops + 1;
+        int answered = 0;
+        int[] reply = new int[3];
+        while (System.nanoTime() < deadline && answered < destination - 1) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            byte[] frame = handle.getNextRawPacket();
+            if (frame == null) {
+                continue;
+            }
+            long received = System.nanoTime();
+            if (!parseReply(frame, link.length, target, sourcePort, reply)) {
+                continue;
+            }
+            int ttl = reply[0];
+            if (ttl < 1 || ttl > maxHops || hops[ttl].address != null) {
+                continue;
+            }
+            Hop hop = hops[ttl];
+            hop.address = InetAddress.getByAddress(toBytes(reply[1]));
+            hop.rttNanos = received - sent[ttl];
+            if (reply[2] >= 0) {
+                if (reply[2] != CODE_PORT_UNREACHABLE) {
+                    hop.unreachableCode = reply[2];
+                }
+                if (ttl < destination) {
+                    destination = ttl;
+                    answered = 0;
+                    for (int i = 1; i < destination; i++) {
+                        if (hops[i].address != null) {
+                            answered++;
+                        }
+                    }
+                }
+            } else if (ttl < destination) {
+                answered++;
+            }
+            if (resolveNames) {
+                hop.name = DnsEngine.getInstance().reverseAsync(hop.address).toCompletableFuture();
+            }
+        }
+        return Arrays.copyOfRange(hops, 1, Math.min(destination, maxHops) + 1);
+    }
+
+    /**
+     * Трассировка системной утилитой. Адреса выводятся без имен (-n, -d), имена
+     * запрашиваются через DnsEngine, как и для собственных зондов. Вывод читается
+     * опросом, чтобы Ctrl+C прерывал ожидание и завершал процесс.
+     */
+    private Hop[] traceWithTool(InetAddress target) throws IOException, InterruptedException {
+        List<String> command = WINDOWS
+            ? Arrays.asList("tracert", "-d", "-h", String.valueOf(maxHops), "-w", String.valueOf(timeoutMs),
+                target.getHostAddress())
+            : Arrays.asList("traceroute", "-n", "-q", "1", "-m", String.valueOf(maxHops),
+                "-w", String.valueOf(Math.max(1, (timeoutMs + 999) / 1000)), target.getHostAddress());
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            throw new IOException("Не удалось запустить " + command.get(0) + ": " + e.getMessage(), e);
+        }
+        // tracert ждет три ответа на каждый TTL по очереди
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long) maxHops * timeoutMs * 3 + 5000);
+        Charset charset = WINDOWS ? Charset.forName("CP866") : StandardCharsets.UTF_8;
+        List<Hop> hops = new ArrayList<>();
+        String lastLine = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), charset))) {
+            while (System.nanoTime() < deadline) {
+                while (reader.ready()) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    if (!line.trim().isEmpty()) {
+                        lastLine = line.trim();
+                    }
+                    Hop hop = parseToolLine(line);
+                    if (hop != null && (hops.isEmpty() || hop.ttl > hops.get(hops.size() - 1).ttl)) {
+                        if (resolveNames && hop.address != null) {
+                            hop.name = DnsEngine.getInstance().reverseAsync(hop.address).toCompletableFuture();
+                        }
+                        hops.add(hop);
+                    }
+                }
+                if (!process.isAlive() && !reader.ready()) {
+                    break;
+                }
+                Thread.sleep(TOOL_POLL_MS);
+            }
+        } finally {
+            process.destroyForcibly();
+        }
+        if (hops.isEmpty()) {
+            throw new IOException(command.get(0) + " не вернул маршрут" + (lastLine != null ? ": " + lastLine : ""));
+        }
+        return hops.toArray(new Hop[0]);
+    }
+
+    /**
+     * Разбирает строку узла из вывода traceroute -n или tracert -d.
+     *
+     * @return узел или null, если строка не описывает узел
+     */
+    static Hop parseToolLine(String line) throws IOException {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 2 || !tokens[0].matches("\\d{1,3}")) {
+            return null;
+        }
+        Hop hop = new Hop(Integer.parseInt(tokens[0]));
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (hop.address == null && TOOL_ADDRESS.matcher(token).matches()) {
+                // Литерал адреса разбирается без запроса к DNS
+                hop.address = InetAddress.getByName(token);
+            } else if (hop.rttNanos < 0 && i + 1 < tokens.length && tokens[i + 1].equals("ms")) {
+                Matcher time = TOOL_TIME.matcher(token);
+                if (time.matches()) {
+                    hop.rttNanos = (long) (Double.parseDouble(time.group(1)) * 1_000_000);
+                }
+            } else if (token.startsWith("!") && token.length() > 1) {
+                hop.unreachableCode = unreachableCode(token.substring(1));
+            }
+        }
+        return hop;
+    }
+
+    /**
+     * Код ICMP Destination Unreachable по пометке traceroute (!N, !H, !P, !X, !<код>)
+     */
+    private static int unreachableCode(String mark) {
+        switch (mark) {
+            case "N": return 0;
+            case "H": return 1;
+            case "P": return 2;
+            case "F": return 4;
+            case "S": return 5;
+            case "X": return 13;
+            default:
+                return mark.matches("\\d+") ? Integer.parseInt(mark) : -1;
+        }
+    }
+
+    /**
+     * Заголовок канального уровня для зондов. Для Ethernet MAC следующего узла
+     * берется из перехваченного UDP-пакета к цели, отправленного через сокет.
+     */
+    private byte[] linkHeader(PcapHandle handle, DatagramSocket socket, Inet4Address target)
+            throws IOException, InterruptedException, NotOpenException {
+        DataLinkType type = handle.getDlt();
+        if (DataLinkType.RAW.equals(type)) {
+            return new byte[0];
+        }
+        if (!DataLinkType.EN10MB.equals(type)) {
+            throw new IOException("Неподдерживаемый тип канала: " + type.valueAsString());
+        }
+        socket.send(new DatagramPacket(new byte[PROBE_PAYLOAD], PROBE_PAYLOAD));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (System.nanoTime() < deadline) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            byte[] frame = handle.getNextRawPacket();
+            if (frame != null && frame.length >= ETHERNET_HEADER + IP_HEADER + UDP_HEADER
+                    && readShort(frame, 12) == ETHERTYPE_IPV4
+                    && (frame[ETHERNET_HEADER + 9] & 0xff) == PROTOCOL_UDP
+                    && readInt(frame, ETHERNET_HEADER + 16) == readInt(target.getAddress(), 0)) {
+                int ipLength = (frame[ETHERNET_HEADER] & 0x0f) * 4;
+                if (readShort(frame, ETHERNET_HEADER + ipLength) == socket.getLocalPort()) {
+                    // Назначение и источник исходного кадра, тип IPv4
+                    return Arrays.copyOf(frame, ETHERNET_HEADER);
+                }
+            }
+        }
+        throw new IOException("Не удалось определить MAC-адрес следующего узла");
+    }
+
+    /**
+     * Записывает IPv4/UDP-зонд с заданным TTL после заголовка канала длины offset
+     */
+    static void writeProbe(byte[] packet, int offset, Inet4Address source, Inet4Address target,
+            int sourcePort, int ttl) {
+        int length = IP_HEADER + UDP_HEADER + PROBE_PAYLOAD;
+        Arrays.fill(packet, offset, offset + length, (byte) 0);
+        packet[offset] = 0x45;
+        writeShort(packet, offset + 2, length);
+        writeShort(packet, offset + 4, sourcePort + ttl);
+        packet[offset + 8] = (byte) ttl;
+        packet[offset + 9] = PROTOCOL_UDP;
+        System.arraycopy(source.getAddress(), 0, packet, offset + 12, 4);
+        System.arraycopy(target.getAddress(), 0, packet, offset + 16, 4);
+        writeShort(packet, offset + 10, checksum(packet, offset, IP_HEADER));
+        int udp = offset + IP_HEADER;
+        writeShort(packet, udp, sourcePort);
+        writeShort(packet, udp + 2, BASE_PORT + ttl);
+        writeShort(packet, udp + 4, UDP_HEADER + PROBE_PAYLOAD);
+        // Контрольная сумма UDP в IPv4 необязательна
+    }
+
+    /**
+     * Разбирает ICMP-ответ на зонд этой трассировки.
+     * В reply записываются TTL зонда, адрес ответившего узла и код
+     * Destination Unreachable (-1 для Time Exceeded).
+     *
+     * @return false, если кадр не является ответом на зонд
+     */
+    static boolean parseReply(byte[] frame, int offset, Inet4Address target, int sourcePort, int[] reply) {
+        if (offset == ETHERNET_HEADER) {
+            if (frame.length < ETHERNET_HEADER) {
+                return false;
+            }
+            int etherType = readShort(frame, 12);
+            if (etherType == ETHERTYPE_VLAN && frame.length >= ETHERNET_HEADER + 4) {
+                offset += 4;
+                etherType = readShort(frame, 16);
+            }
+            if (etherType != ETHERTYPE_IPV4) {
+                return false;
+            }
+        }
+        if (frame.length < offset + IP_HEADER || (frame[offset] & 0xf0) != 0x40
+                || (frame[offset + 9] & 0xff) != PROTOCOL_ICMP) {
+            return false;
+        }
+        int icmp = offset + (frame[offset] & 0x0f) * 4;
+        int quoted = icmp + 8;
+        if (frame.length < quoted + IP_HEADER) {
+            return false;
+        }
+        int type = frame[icmp] & 0xff;
+        if (type != ICMP_TIME_EXCEEDED && type != ICMP_UNREACHABLE) {
+            return false;
+        }
+        int udp = quoted + (frame[quoted] & 0x0f) * 4;
+        if (frame.length < udp + 4 || (frame[quoted + 9] & 0xff) != PROTOCOL_UDP
+                || readInt(frame, quoted + 16) != readInt(target.getAddress(), 0)
+                || readShort(frame, udp) != sourcePort) {
+            return false;
+        }
+        reply[0] = readShort(frame, udp + 2) - BASE_PORT;
+        reply[1] = readInt(frame, offset + 12);
+        reply[2] = type == ICMP_UNREACHABLE ? frame[icmp + 1] & 0xff : -1;
+        return true;
+    }
+
+    private static int checksum(byte[] data, int offset, int length) {
+        int sum = 0;
+        for (int i = offset; i < offset + length; i += 2) {
+            sum += readShort(data, i);
+        }
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xffff) + (sum >>> 16);
+        }
+        return ~sum & 0xffff;
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xff) << 8 | (data[offset + 1] & 0xff);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return readShort(data, offset) << 16 | readShort(data, offset + 2);
+    }
+
+    private static void writeShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    private static byte[] toBytes(int address) {
+        return new byte[]{(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+    }
+}
@@ -0,0 +1,361 @@
+package com.terminal.sdk.output;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Буферизованный приемник вывода терминала.
+ * Принимает фрагменты текста со стилем из любого потока, складывает их в кольцевой буфер
+ * и переносит в документ пачками по таймеру кадров в EDT. Соседние фрагменты с одинаковым
+ * стилем склеиваются в одну вставку. Если интерфейс не успевает, пишущие потоки ждут
+ * освобождения места в буфере.
+ */
+public class BufferedOutputSink {
+    private static final Map<Document, BufferedOutputSink> SINKS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final int FRAME_DELAY = 16;
+    private static final int RING_CAPACITY = 4096;
+    private static final int MAX_RUN_LENGTH = 16 * 1024;
+    private static final int MAX_PENDING_CHARS = 1024 * 1024;
+    private static final int MAX_CHARS_PER_FRAME = 256 * 1024;
+    private static final long BACKPRESSURE_WAIT_MS = 50;
+
+    private final StyledDocument doc;
+    private final StringBuilder[] texts = new StringBuilder[RING_CAPACITY];
+    private final AttributeSet[] styles = new AttributeSet[RING_CAPACITY];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Timer frameTimer;
+    private final Set<Thread> suppressedThreads = ConcurrentHashMap.newKeySet();
+
+    private int head;
+    private int size;
+    private int pendingChars;
+    private int trailerLength;
+    private volatile boolean disposed;
+    private volatile boolean workersSuppressed;
+
+    private BufferedOutputSink(StyledDocument doc) {
+        this.doc = doc;
+        this.frameTimer = new Timer(FRAME_DELAY, e -> drain(MAX_CHARS_PER_FRAME));
+        this.frameTimer.setCoalesce(true);
+    }
+
+    /**
+     * Создает приемник для документа и запускает таймер сброса.
+     * Повторный вызов для того же документа возвращает уже созданный приемник.
+     */
+    public static BufferedOutputSink install(StyledDocument doc) {
+        synchronized (SINKS) {
+            BufferedOutputSink sink = SINKS.get(doc);
+            if (sink == null) {
+                sink = new BufferedOutputSink(doc);
+                SINKS.put(doc, sink);
+                BufferedOutputSink started = sink;
+                runOnEdt(() -> started.frameTimer.start());
+            }
+            return sink;
+        }
+    }
+
+    /**
+     * Возвращает приемник документа или null, если он не установлен
+     */
+    public static BufferedOutputSink forDocument(Document doc) {
+        return doc != null ? SINKS.get(doc) : null;
+    }
+
+    /**
+     * Записывает текст в документ через его приемник.
+     * Для документов без приемника сохраняется прежняя прямая вставка.
+     */
+    public static void write(StyledDocument doc, String text, AttributeSet style) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        BufferedOutputSink sink = forDocument(doc);
+        if (sink != null) {
+            sink.append(text, style);
+            return;
+        }
+        try {
+            doc.insertString(doc.getLength(), text, style);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Добавляет фрагмент текста в очередь вывода
+     */
+    public void append(String text, AttributeSet style) {
+        if (text == null || text.isEmpty() || disposed) {
+            return;
+        }
+        if (isSuppressed(Thread.currentThread())) {
+            return;
+        }
+        boolean onEdt = SwingUtilities.isEventDispatchThread();
+        lock.lock();
+        try {
+            while (isFull(text.length(), style)) {
+                if (onEdt) {
+                    lock.unlock();
+                    try {
+                        drain(Integer.MAX_VALUE);
+                    } finally {
+                        lock.lock();
+                    }
+                    continue;
+                }
+                if (disposed || Thread.currentThread().isInterrupted() || isSuppressed(Thread.currentThread())) {
+                    // Прерванная команда не ждет интерфейс: ее вывод отбрасывается
+                    return;
+                }
+                try {
+                    notFull.await(BACKPRESSURE_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            enqueue(text, style);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Переносит весь накопленный вывод в документ.
+     * В EDT выполняется сразу, в остальных потоках ожидает завершения переноса.
+     */
+    public void flush() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            drain(Integer.MAX_VALUE);
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(() -> drain(Integer.MAX_VALUE));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    /**
+     * Отбрасывает накопленный вывод и очищает документ
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            discardPending();
+        } finally {
+            lock.unlock();
+        }
+        runOnEdt(() -> {
+            try {
+                trailerLength = 0;
+                doc.remove(0, doc.getLength());
+            } catch (BadLocationException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Отбрасывает дальнейший вывод указанного потока (например, прерванной команды)
+     */
+    public void suppressThread(Thread thread) {
+        if (thread != null) {
+            suppressedThreads.add(thread);
+        }
+    }
+
+    /**
+     * Снова разрешает вывод потока
+     */
+    public void releaseThread(Thread thread) {
+        if (thread != null) {
+            suppressedThreads.remove(thread);
+        }
+    }
+
+    /**
+     * Отбрасывает вывод потоков fork/join пулов: подзадачи прерванной команды
+     * выполняются не в ее потоке и не видят прерывания
+     */
+    public void suppressWorkers() {
+        workersSuppressed = true;
+    }
+
+    /**
+     * Снова разрешает вывод потоков fork/join пулов
+     */
+    public void releaseWorkers() {
+        workersSuppressed = false;
+    }
+
+    private boolean isSuppressed(Thread thread) {
+        if (workersSuppressed && thread instanceof ForkJoinWorkerThread) {
+            return true;
+        }
+        return !suppressedThreads.isEmpty() && suppressedThreads.contains(thread);
+    }
+
+    /**
+     * Задает длину служебного текста в конце документа (например, кадра анимации).
+     * Новый вывод вставляется перед ним. Вызывается только из EDT.
+     */
+    public void setTrailerLength(int length) {
+        this.trailerLength = Math.max(0, length);
+    }
+
+    /**
+     * Количество символов, ожидающих переноса в документ
+     */
+    public int getPendingChars() {
+        lock.lock();
+        try {
+            return pendingChars;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Останавливает таймер и отвязывает приемник от документа
+     */
+    public void dispose() {
+        disposed = true;
+        SINKS.remove(doc);
+        lock.lock();
+        try {
+            discardPending();
+        } finally {
+            lock.unlock();
+        }
+        runOnEdt(frameTimer::stop);
+    }
+
+    private boolean isFull(int incoming, AttributeSet style) {
+        if (size == 0) {
+            return false;
+        }
+        if (pendingChars + incoming > MAX_PENDING_CHARS) {
+            return true;
+        }
+        return size == RING_CAPACITY && !canCoalesce(style);
+    }
+
+    private boolean canCoalesce(AttributeSet style) {
+        if (size == 0) {
+            return false;
+        }
+        int last = (head + size - 1) % RING_CAPACITY;
+        return styles[last] == style && texts[last].length() < MAX_RUN_LENGTH;
+    }
+
+    private void enqueue(String text, AttributeSet style) {
+        if (canCoalesce(style)) {
+            texts[(head + size - 1) % RING_CAPACITY].append(text);
+        } else {
+            int tail = (head + size) % RING_CAPACITY;
+            texts[tail] = new StringBuilder(text);
+            styles[tail] = style;
+            size++;
+        }
+        pendingChars += text.length();
+    }
+
+    private void discardPending() {
+        while (size > 0) {
+            texts[head] = null;
+            styles[head] = null;
+            head = (head + 1) % RING_CAPACITY;
+            size--;
+        }
+        pendingChars = 0;
+        notFull.signalAll();
+    }
+
+    /**
+     * Извлекает из буфера не более limit символов и вставляет их в документ.
+     * Подряд идущие фрагменты одного стиля объединяются в одну вставку.
+     */
+    private void drain(int limit) {
+        if (disposed) {
+            return;
+        }
+        StringBuilder batch = null;
+        AttributeSet batchStyle = null;
+        int taken = 0;
+
+        while (taken < limit) {
+            StringBuilder run;
+            AttributeSet runStyle;
+            lock.lock();
+            try {
+                if (size == 0) {
+                    break;
+                }
+                run = texts[head];
+                runStyle = styles[head];
+                texts[head] = null;
+                styles[head] = null;
+                head = (head + 1) % RING_CAPACITY;
+                size--;
+                pendingChars -= run.length();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            taken += run.length();
+            if (batch != null && batchStyle == runStyle) {
+                batch.append(run);
+            } else {
+                insertBatch(batch, batchStyle);
+                batch = run;
+                batchStyle = runStyle;
+            }
+        }
+        insertBatch(batch, batchStyle);
+    }
+
+    private void insertBatch(StringBuilder batch, AttributeSet batchStyle) {
+        if (batch == null || batch.length() == 0) {
+            return;
+        }
+        try {
+            int offset = Math.max(0, doc.getLength() - trailerLength);
+            doc.insertString(offset, batch.toString(), batchStyle);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void runOnEdt(Runnable action) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            action.run();
+        } else {
+            SwingUtilities.invokeLater(action);
+        }
+    }
+}
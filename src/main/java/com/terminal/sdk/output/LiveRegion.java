@@ -0,0 +1,97 @@
+package com.terminal.sdk.output;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+
+import com.terminal.sdk.formatting.DefaultBeautifulFormatter;
+import com.terminal.sdk.system.Logger;
+
+/**
+ * Обновляемый на месте блок текста в конце документа (живая таблица).
+ * Блок держится хвостом документа через {@link BufferedOutputSink#setTrailerLength(int)},
+ * поэтому обычный вывод команды вставляется перед ним. Обновления из рабочего
+ * потока склеиваются: в EDT применяется только последнее. При перехвате вывода
+ * (конвейер команд) блок не рисуется, а итоговый текст попадает в перехват при закрытии;
+ * перехват принадлежит потоку команды, поэтому update и close вызываются из него.
+ */
+public class LiveRegion {
+    private static final String CLASS_NAME = LiveRegion.class.getSimpleName();
+    private final StyledDocument doc;
+    private final AttributeSet style;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile String pending = "";
+    /** Длина блока в документе; меняется только в EDT */
+    private int length;
+
+    public LiveRegion(StyledDocument doc, AttributeSet style) {
+        this.doc = doc;
+        this.style = style;
+    }
+
+    /**
+     * Заменяет содержимое блока
+     */
+    public void update(String text) {
+        pending = text;
+        if (!DefaultBeautifulFormatter.isCapturingOutput() && scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::apply);
+        }
+    }
+
+    /**
+     * Оставляет последнее содержимое в документе обычным текстом.
+     * Вызывающий поток ждет применения, чтобы следующий вывод оказался после блока.
+     */
+    public void close() {
+        if (DefaultBeautifulFormatter.isCapturingOutput()) {
+            DefaultBeautifulFormatter.getOutputBuffer().append(pending);
+            return;
+        }
+        Runnable finish = () -> {
+            apply();
+            BufferedOutputSink sink = BufferedOutputSink.forDocument(doc);
+            if (sink != null) {
+                sink.setTrailerLength(0);
+            }
+            length = 0;
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            finish.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(finish);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            SwingUtilities.invokeLater(finish);
+        } catch (InvocationTargetException e) {
+            Logger.error(CLASS_NAME, "Ошибка при закрытии живого блока: " + e.getCause());
+        }
+    }
+
+    private void apply() {
+        scheduled.set(false);
+        String text = pending;
+        BufferedOutputSink sink = BufferedOutputSink.forDocument(doc);
+        if (sink != null) {
+            // Накопленный вывод команды должен оказаться перед блоком
+            sink.flush();
+        }
+        try {
+            int offset = Math.max(0, doc.getLength() - length);
+            doc.remove(offset, doc.getLength() - offset);
+            doc.insertString(offset, text, style);
+            length = text.length();
+            if (sink != null) {
+                sink.setTrailerLength(length);
+            }
+        } catch (BadLocationException e) {
+            Logger.error(CLASS_NAME, "Ошибка обновления живого блока: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.terminal.sdk.output;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+
+/**
+ * Документ терминала с ограниченной историей прокрутки.
+ * После вставки, превысившей лимит строк, из начала документа целиком удаляются
+ * старые строки. Удаление выполняется пачками (с запасом EVICTION_SLACK от лимита),
+ * поэтому перенос буфера документа окупается на множестве строк и стоимость
+ * вытеснения одной строки в среднем постоянна.
+ */
+public class ScrollbackDocument extends DefaultStyledDocument {
+    private static final long serialVersionUID = 1L;
+    private static final int MIN_EVICTION_BATCH = 64;
+
+    private final int maxLines;
+    private final int evictionSlack;
+    private final transient ScrollbackSpill spill;
+    private final transient List<IntConsumer> evictionListeners = new CopyOnWriteArrayList<>();
+    private boolean evicting;
+
+    /**
+     * @param maxLines максимальное число хранимых строк, 0 - без ограничения
+     * @param spill приемник вытесненных строк или null
+     */
+    public ScrollbackDocument(int maxLines, ScrollbackSpill spill) {
+        this.maxLines = Math.max(0, maxLines);
+        this.evictionSlack = Math.max(MIN_EVICTION_BATCH, this.maxLines / 10);
+        this.spill = spill;
+    }
+
+    /**
+     * Добавляет слушателя, получающего число символов, удаленных из начала документа
+     */
+    public void addEvictionListener(IntConsumer listener) {
+        evictionListeners.add(listener);
+    }
+
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    public int getLineCount() {
+        return getDefaultRootElement().getElementCount();
+    }
+
+    @Override
+    public void insertString(int offset, String str, AttributeSet a) throws BadLocationException {
+        super.insertString(offset, str, a);
+        if (maxLines > 0 && !evicting && getLineCount() > maxLines + evictionSlack) {
+            evictHead();
+        }
+    }
+
+    /**
+     * Закрывает сегменты прокрутки на диске
+     */
+    public void close() {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private void evictHead() throws BadLocationException {
+        Element root = getDefaultRootElement();
+        int excess = root.getElementCount() - maxLines;
+        if (excess <= 0) {
+            return;
+        }
+        int end = root.getElement(excess - 1).getEndOffset();
+        evicting = true;
+        try {
+            if (spill != null) {
+                spill.write(getText(0, end));
+            }
+            remove(0, end);
+        } finally {
+            evicting = false;
+        }
+        for (IntConsumer listener : evictionListeners) {
+            listener.accept(end);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.terminal.sdk.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import com.terminal.sdk.system.Logger;
+
+/**
+ * Сброс вытесненных строк прокрутки на диск.
+ * Строки дописываются в сжатые gzip-сегменты в фоновом потоке; при превышении
+ * размера сегмента открывается новый, самые старые сегменты удаляются.
+ */
+public class ScrollbackSpill {
+    private static final String CLASS_NAME = ScrollbackSpill.class.getSimpleName();
+    private static final long SEGMENT_CHARS = 4L * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final File directory;
+    private final String prefix;
+    private final Deque<File> segments = new ArrayDeque<>();
+    private final ExecutorService writerThread;
+    private Writer writer;
+    private long segmentChars;
+    private int segmentIndex;
+
+    public ScrollbackSpill(File directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.writerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "scrollback-spill-" + prefix);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Ставит фрагмент текста в очередь на запись
+     */
+    public void write(String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        writerThread.execute(() -> {
+            try {
+                if (writer == null || segmentChars >= SEGMENT_CHARS) {
+                    openSegment();
+                }
+                writer.write(text);
+                segmentChars += text.length();
+            } catch (IOException e) {
+                Logger.error(CLASS_NAME, "Ошибка записи сегмента прокрутки: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Дописывает и закрывает текущий сегмент
+     */
+    public void close() {
+        writerThread.execute(this::closeSegment);
+        writerThread.shutdown();
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Не удалось создать директорию " + directory);
+        }
+        File segment = new File(directory, String.format("%s-%04d.log.gz", prefix, segmentIndex++));
+        writer = new OutputStreamWriter(
+            new GZIPOutputStream(new FileOutputStream(segment), 64 * 1024), StandardCharsets.UTF_8);
+        segmentChars = 0;
+        segments.addLast(segment);
+        while (segments.size() > MAX_SEGMENTS) {
+            File oldest = segments.removeFirst();
+            if (!oldest.delete()) {
+                Logger.warning(CLASS_NAME, "Не удалось удалить сегмент " + oldest);
+            }
+        }
+    }
+
+    private void closeSegment() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Logger.error(CLASS_NAME, "Ошибка закрытия сегмента прокрутки: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
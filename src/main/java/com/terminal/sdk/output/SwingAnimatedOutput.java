@@ -50,12 +50,20 @@ public class SwingAnimatedOutput implements IAnimatedOutput {
                 this.frames[i] = frames[i] + "\n";
             }
             
+            BufferedOutputSink sink = BufferedOutputSink.forDocument(doc);
+            if (sink != null) {
+                sink.flush();
+            }
+            
             contentPosition = doc.getLength();
             currentFrame = 0;
             isAnimating = true;
             
             try {
                 doc.insertString(contentPosition, this.frames[0], style);
+                if (sink != null) {
+                    sink.setTrailerLength(this.frames[0].length());
+                }
             } catch (BadLocationException ex) {
                 ex.printStackTrace();
             }
@@ -63,17 +71,18 @@ public class SwingAnimatedOutput implements IAnimatedOutput {
             animationTimer = new Timer(delay, e -> {
                 if (!isAnimating) {
                     ((Timer)e.getSource()).stop();
-                    try {
-                        doc.remove(contentPosition, this.frames[currentFrame].length());
-                    } catch (BadLocationException ex) {
-                    }
+                    removeFrame();
                     return;
                 }
                 
                 try {
+                    contentPosition = doc.getLength() - this.frames[currentFrame].length();
                     doc.remove(contentPosition, this.frames[currentFrame].length());
                     currentFrame = (currentFrame + 1) % this.frames.length;
                     doc.insertString(contentPosition, this.frames[currentFrame], style);
+                    if (sink != null) {
+                        sink.setTrailerLength(this.frames[currentFrame].length());
+                    }
                 } catch (BadLocationException ex) {
                     ex.printStackTrace();
                 }
@@ -83,19 +92,24 @@ public class SwingAnimatedOutput implements IAnimatedOutput {
         });
     }
     
+    /**
+     * Добавляет текст перед кадром анимации.
+     * При наличии приемника вывода текст уходит в него и переносится в документ пачкой.
+     */
     @Override
     public void appendText(String text) {
+        BufferedOutputSink sink = BufferedOutputSink.forDocument(doc);
+        if (sink != null) {
+            sink.append(text, style);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 if (isAnimating) {
-                    doc.remove(contentPosition, frames[currentFrame].length());
-                }
-                
-                doc.insertString(doc.getLength(), text, style);
-                
-                if (isAnimating) {
-                    contentPosition = doc.getLength();
-                    doc.insertString(contentPosition, frames[currentFrame], style);
+                    contentPosition = doc.getLength() - frames[currentFrame].length();
+                    doc.insertString(contentPosition, text, style);
+                } else {
+                    doc.insertString(doc.getLength(), text, style);
                 }
             } catch (BadLocationException e) {
                 e.printStackTrace();
@@ -126,12 +140,24 @@ public class SwingAnimatedOutput implements IAnimatedOutput {
             isAnimating = false;
             if (animationTimer != null) {
                 animationTimer.stop();
-                try {
-                    doc.remove(contentPosition, frames[currentFrame].length());
-                } catch (BadLocationException ex) {
-                }
+                removeFrame();
                 animationTimer = null;
             }
         });
     }
-} 
\ No newline at end of file
+    
+    private void removeFrame() {
+        BufferedOutputSink sink = BufferedOutputSink.forDocument(doc);
+        if (sink != null) {
+            sink.setTrailerLength(0);
+        }
+        try {
+            int length = frames[currentFrame].length();
+            contentPosition = doc.getLength() - length;
+            if (contentPosition >= 0 && frames[currentFrame].equals(doc.getText(contentPosition, length))) {
+                doc.remove(contentPosition, length);
+            }
+        } catch (BadLocationException ex) {
+        }
+    }
+}
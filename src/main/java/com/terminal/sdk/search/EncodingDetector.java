@@ -0,0 +1,141 @@
+package com.terminal.sdk.search;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Определение кодировки текста по BOM и выборке первых байт.
+ * Файл читается один раз: детектор смотрит только на начало уже прочитанного
+ * или отображенного в память буфера.
+ */
+public final class EncodingDetector {
+    public static final int SAMPLE_SIZE = 64 * 1024;
+    private static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    /**
+     * Результат определения кодировки
+     */
+    public static final class Result {
+        private final Charset charset;
+        private final int bomLength;
+        private final boolean binary;
+
+        Result(Charset charset, int bomLength, boolean binary) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+            this.binary = binary;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        /**
+         * Длина метки порядка байт, которую нужно пропустить
+         */
+        public int getBomLength() {
+            return bomLength;
+        }
+
+        /**
+         * Признак двоичного файла (нулевые байты вне UTF-16)
+         */
+        public boolean isBinary() {
+            return binary;
+        }
+
+        /**
+         * Размер кодовой единицы символа перевода строки в байтах
+         */
+        public int getUnitSize() {
+            return isUtf16() ? 2 : 1;
+        }
+
+        public boolean isBigEndian() {
+            return StandardCharsets.UTF_16BE.equals(charset);
+        }
+
+        private boolean isUtf16() {
+            return StandardCharsets.UTF_16LE.equals(charset) || StandardCharsets.UTF_16BE.equals(charset);
+        }
+    }
+
+    private EncodingDetector() {
+    }
+
+    /**
+     * Определяет кодировку по началу буфера, не изменяя его позицию
+     */
+    public static Result detect(ByteBuffer buffer) {
+        ByteBuffer sample = buffer.duplicate();
+        int length = Math.min(sample.remaining(), SAMPLE_SIZE);
+        sample.limit(sample.position() + length);
+
+        int b0 = length > 0 ? sample.get(sample.position()) & 0xFF : -1;
+        int b1 = length > 1 ? sample.get(sample.position() + 1) & 0xFF : -1;
+        int b2 = length > 2 ? sample.get(sample.position() + 2) & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return new Result(StandardCharsets.UTF_8, 3, false);
+        }
+        if (b0 == 0xFF && b1 == 0xFE) {
+            return new Result(StandardCharsets.UTF_16LE, 2, false);
+        }
+        if (b0 == 0xFE && b1 == 0xFF) {
+            return new Result(StandardCharsets.UTF_16BE, 2, false);
+        }
+
+        int evenZeros = 0;
+        int oddZeros = 0;
+        boolean highBytes = false;
+        for (int i = 0; i < length; i++) {
+            int b = sample.get(sample.position() + i) & 0xFF;
+            if (b == 0) {
+                if ((i & 1) == 0) {
+                    evenZeros++;
+                } else {
+                    oddZeros++;
+                }
+            } else if (b >= 0x80) {
+                highBytes = true;
+            }
+        }
+        int pairs = Math.max(1, length / 2);
+        if (oddZeros > pairs * 3 / 10 && evenZeros < pairs / 20) {
+            return new Result(StandardCharsets.UTF_16LE, 0, false);
+        }
+        if (evenZeros > pairs * 3 / 10 && oddZeros < pairs / 20) {
+            return new Result(StandardCharsets.UTF_16BE, 0, false);
+        }
+        if (evenZeros + oddZeros > 0) {
+            return new Result(StandardCharsets.ISO_8859_1, 0, true);
+        }
+        if (!highBytes || isValidUtf8(sample, length == buffer.remaining())) {
+            return new Result(StandardCharsets.UTF_8, 0, false);
+        }
+        return new Result(WINDOWS_1251, 0, false);
+    }
+
+    private static boolean isValidUtf8(ByteBuffer sample, boolean complete) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(4096);
+        ByteBuffer in = sample.duplicate();
+        while (true) {
+            CoderResult result = decoder.decode(in, out, complete);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isUnderflow()) {
+                // Обрезанный на границе выборки многобайтовый символ не считается ошибкой
+                return true;
+            }
+            out.clear();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.terminal.sdk.search;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Параллельный обход дерева директорий.
+ * Каждая директория читается одним DirectoryStream, атрибуты записи читаются
+ * один раз; поддиректории обрабатываются отдельными задачами {@link SearchPool}
+ * с перехватом работы. Найденные записи через ограниченную очередь передаются
+ * потоку, вызвавшему {@link #walk}, по мере обнаружения.
+ */
+public class FileWalker {
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final long POLL_MILLIS = 50;
+
+    private final int maxDepth;
+    private final long limit;
+    private final BiPredicate<Path, BasicFileAttributes> filter;
+
+    /**
+     * Найденная запись
+     */
+    public static final class Entry {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+        private final int depth;
+
+        Entry(Path path, BasicFileAttributes attributes, int depth) {
+            this.path = path;
+            this.attributes = attributes;
+            this.depth = depth;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public BasicFileAttributes getAttributes() {
+            return attributes;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    /**
+     * @param maxDepth максимальная глубина (1 - только содержимое корня), 0 или меньше - без ограничения
+     * @param limit максимальное число результатов, 0 или меньше - без ограничения
+     * @param filter условие отбора записей
+     */
+    public FileWalker(int maxDepth, long limit, BiPredicate<Path, BasicFileAttributes> filter) {
+        this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+        this.limit = limit > 0 ? limit : Long.MAX_VALUE;
+        this.filter = filter;
+    }
+
+    /**
+     * Обходит дерево и передает найденные записи получателю в вызывающем потоке
+     *
+     * @return число найденных записей
+     * @throws InterruptedException если вызывающий поток был прерван
+     */
+    public long walk(Path root, Consumer<Entry> consumer) throws InterruptedException {
+        BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicLong accepted = new AtomicLong();
+        ForkJoinTask<Void> task = SearchPool.get().submit(new DirectoryTask(root, 1, queue, stopped, accepted));
+
+        long delivered = 0;
+        try {
+            while (true) {
+                Entry entry = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    consumer.accept(entry);
+                    delivered++;
+                } else if (task.isDone()) {
+                    Entry rest;
+                    while ((rest = queue.poll()) != null) {
+                        consumer.accept(rest);
+                        delivered++;
+                    }
+                    break;
+                }
+            }
+        } finally {
+            stopped.set(true);
+            task.cancel(false);
+        }
+        return delivered;
+    }
+
+    /**
+     * Ожидание места в очереди результатов, о котором знает fork/join пул
+     */
+    private static final class QueueOffer implements ForkJoinPool.ManagedBlocker {
+        private final BlockingQueue<Entry> queue;
+        private final Entry entry;
+        private final AtomicBoolean stopped;
+        private boolean offered;
+
+        QueueOffer(BlockingQueue<Entry> queue, Entry entry, AtomicBoolean stopped) {
+            this.queue = queue;
+            this.entry = entry;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            while (!offered && !stopped.get()) {
+                offered = queue.offer(entry, POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!offered) {
+                offered = queue.offer(entry);
+            }
+            return offered || stopped.get();
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final int depth;
+        private final BlockingQueue<Entry> queue;
+        private final AtomicBoolean stopped;
+        private final AtomicLong accepted;
+
+        DirectoryTask(Path directory, int depth, BlockingQueue<Entry> queue, AtomicBoolean stopped, AtomicLong accepted) {
+            this.directory = directory;
+            this.depth = depth;
+            this.queue = queue;
+            this.stopped = stopped;
+            this.accepted = accepted;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    if (stopped.get()) {
+                        return;
+                    }
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (filter.test(path, attributes) && !offer(new Entry(path, attributes, depth))) {
+                        return;
+                    }
+                    if (attributes.isDirectory() && depth < maxDepth) {
+                        DirectoryTask subtask = new DirectoryTask(path, depth + 1, queue, stopped, accepted);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                }
+            } catch (IOException e) {
+                // Недоступные директории пропускаются, как и в find
+            }
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+        /**
+         * Ставит запись в очередь; при достижении лимита останавливает обход.
+         * Ожидание места в очереди идет через {@link ForkJoinPool#managedBlock},
+         * чтобы пул поиска на это время добавлял потоки вместо заблокированных.
+         */
+        private boolean offer(Entry entry) {
+            if (accepted.incrementAndGet() > limit) {
+                stopped.set(true);
+                return false;
+            }
+            QueueOffer offer = new QueueOffer(queue, entry, stopped);
+            try {
+                ForkJoinPool.managedBlock(offer);
+            } catch (InterruptedException e) {
+                stopped.set(true);
+                return false;
+            }
+            if (!offer.offered) {
+                return false;
+            }
+            if (accepted.get() >= limit) {
+                stopped.set(true);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.terminal.sdk.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Движок поиска строк в файлах.
+ * Файл читается один раз: небольшие файлы целиком в память, большие отображаются
+ * через mmap. Кодировка определяется по началу файла, затем содержимое делится на
+ * блоки по границам строк, которые проверяются параллельно в {@link SearchPool}
+ * ограниченным окном задач. Результаты блоков передаются слушателю строго в
+ * порядке следования в файле, по мере готовности первого блока окна.
+ */
+public class GrepEngine {
+    private static final int MAP_THRESHOLD = 1024 * 1024;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int SEGMENT_SIZE = 1024 * 1024 * 1024;
+
+    private final LineMatcher matcher;
+    private final boolean invert;
+    private final boolean countOnly;
+
+    /**
+     * Получатель результатов поиска. Вызывается в потоке, запустившем поиск.
+     */
+    public interface Listener {
+        void onMatch(Path file, long lineNumber, String line);
+
+        void onFileComplete(Path file, long matches, boolean binary);
+    }
+
+    private static final class ChunkResult {
+        long lines;
+        long matchCount;
+        final List<Long> lineNumbers = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+    }
+
+    public GrepEngine(LineMatcher matcher, boolean invert, boolean countOnly) {
+        this.matcher = matcher;
+        this.invert = invert;
+        this.countOnly = countOnly;
+    }
+
+    /**
+     * Ищет совпадения в файле
+     *
+     * @return число совпавших строк
+     * @throws InterruptedException если поток команды был прерван
+     */
+    public long search(Path file, Listener listener) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                listener.onFileComplete(file, 0, false);
+                return 0;
+            }
+            ByteBuffer segment = size <= MAP_THRESHOLD
+                ? readFully(channel, (int) size)
+                : channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SEGMENT_SIZE));
+            EncodingDetector.Result encoding = EncodingDetector.detect(segment);
+            boolean collect = !countOnly && !encoding.isBinary();
+
+            long segmentStart = 0;
+            long lineOffset = 0;
+            long matches = 0;
+            int from = encoding.getBomLength();
+            while (true) {
+                boolean lastSegment = segmentStart + segment.limit() >= size;
+                int usable = segment.limit();
+                if (!lastSegment) {
+                    int lineStart = lastLineStart(segment, from, usable, encoding);
+                    if (lineStart > from) {
+                        usable = lineStart;
+                    }
+                }
+                long[] counters = searchSegment(file, segment, from, usable, encoding, lineOffset, collect, listener);
+                lineOffset = counters[0];
+                matches += counters[1];
+                if (lastSegment) {
+                    break;
+                }
+                segmentStart += usable;
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                    Math.min(size - segmentStart, SEGMENT_SIZE));
+                from = 0;
+            }
+            listener.onFileComplete(file, matches, encoding.isBinary());
+            return matches;
+        }
+    }
+
+    private long[] searchSegment(Path file, ByteBuffer segment, int from, int to, EncodingDetector.Result encoding,
+                                 long lineOffset, boolean collect, Listener listener) throws InterruptedException {
+        List<int[]> chunks = new ArrayList<>();
+        int start = from;
+        while (start < to) {
+            int end = to;
+            if (to - start > CHUNK_SIZE) {
+                end = nextLineStart(segment, start + CHUNK_SIZE - (CHUNK_SIZE % encoding.getUnitSize()), to, encoding);
+            }
+            chunks.add(new int[] {start, end});
+            start = end;
+        }
+
+        // Окно задач ограничено: совпадения держатся в памяти только для блоков в работе
+        boolean parallel = chunks.size() > 1;
+        int window = Math.max(2, SearchPool.get().getParallelism() * 2);
+        Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>(window);
+        int next = 0;
+        long lines = lineOffset;
+        long matches = 0;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                while (parallel && next < chunks.size() && inFlight.size() < window) {
+                    int[] chunk = chunks.get(next++);
+                    LineMatcher local = matcher.copy();
+                    inFlight.addLast(SearchPool.get().submit(
+                        () -> searchChunk(segment, chunk[0], chunk[1], encoding, local, collect)));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                ChunkResult result = parallel
+                    ? inFlight.removeFirst().join()
+                    : searchChunk(segment, chunks.get(i)[0], chunks.get(i)[1], encoding, matcher, collect);
+                for (int m = 0; m < result.texts.size(); m++) {
+                    listener.onMatch(file, lines + result.lineNumbers.get(m), result.texts.get(m));
+                }
+                lines += result.lines;
+                matches += result.matchCount;
+            }
+        } finally {
+            for (ForkJoinTask<ChunkResult> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+        return new long[] {lines, matches};
+    }
+
+    private ChunkResult searchChunk(ByteBuffer segment, int start, int end, EncodingDetector.Result encoding,
+                                    LineMatcher lineMatcher, boolean collect) {
+        ByteBuffer bytes = segment.duplicate();
+        bytes.limit(end);
+        bytes.position(start);
+        CharsetDecoder decoder = encoding.getCharset().newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer decoded;
+        try {
+            decoded = decoder.decode(bytes);
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] text = decoded.array();
+        int length = decoded.limit();
+
+        ChunkResult result = new ChunkResult();
+        if (!invert && lineMatcher.supportsBulkSearch()) {
+            searchBulk(text, length, lineMatcher, collect, result);
+        } else {
+            searchLines(text, length, lineMatcher, collect, result);
+        }
+        return result;
+    }
+
+    /**
+     * Быстрый путь для подстроки: поиск по всему блоку, строки выделяются только вокруг совпадений
+     */
+    private void searchBulk(char[] text, int length, LineMatcher lineMatcher, boolean collect, ChunkResult result) {
+        int pos = 0;
+        int counted = 0;
+        long line = 0;
+        while (pos < length) {
+            int hit = lineMatcher.indexOf(text, pos, length);
+            if (hit < 0) {
+                break;
+            }
+            int lineStart = hit;
+            while (lineStart > pos && text[lineStart - 1] != '\n') {
+                lineStart--;
+            }
+            int lineEnd = indexOfNewline(text, hit, length);
+            line += countNewlines(text, counted, lineStart);
+            counted = lineStart;
+            result.matchCount++;
+            if (collect) {
+                addMatch(result, line + 1, text, lineStart, lineEnd);
+            }
+            pos = lineEnd + 1;
+        }
+        line += countNewlines(text, counted, length);
+        result.lines = line + (length > 0 && text[length - 1] != '\n' ? 1 : 0);
+    }
+
+    private void searchLines(char[] text, int length, LineMatcher lineMatcher, boolean collect, ChunkResult result) {
+        int lineStart = 0;
+        long line = 0;
+        while (lineStart < length) {
+            int lineEnd = indexOfNewline(text, lineStart, length);
+            int contentEnd = lineEnd > lineStart && text[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            line++;
+            if (lineMatcher.matches(text, lineStart, contentEnd) != invert) {
+                result.matchCount++;
+                if (collect) {
+                    addMatch(result, line, text, lineStart, lineEnd);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        result.lines = line;
+    }
+
+    private static void addMatch(ChunkResult result, long line, char[] text, int start, int end) {
+        if (end > start && text[end - 1] == '\r') {
+            end--;
+        }
+        result.lineNumbers.add(line);
+        result.texts.add(new String(text, start, end - start));
+    }
+
+    private static int indexOfNewline(char[] text, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (text[i] == '\n') {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static int countNewlines(char[] text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Возвращает позицию после первого перевода строки, начиная с from, или limit
+     */
+    private static int nextLineStart(ByteBuffer buffer, int from, int limit, EncodingDetector.Result encoding) {
+        int unit = encoding.getUnitSize();
+        for (int i = from; i + unit <= limit; i += unit) {
+            if (isNewline(buffer, i, encoding)) {
+                return i + unit;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Возвращает начало последней полной строки в диапазоне или from, если перевода строки нет
+     */
+    private static int lastLineStart(ByteBuffer buffer, int from, int limit, EncodingDetector.Result encoding) {
+        int unit = encoding.getUnitSize();
+        int i = limit - unit - ((limit - from) % unit);
+        for (; i >= from; i -= unit) {
+            if (isNewline(buffer, i, encoding)) {
+                return i + unit;
+            }
+        }
+        return from;
+    }
+
+    private static boolean isNewline(ByteBuffer buffer, int index, EncodingDetector.Result encoding) {
+        if (encoding.getUnitSize() == 1) {
+            return buffer.get(index) == '\n';
+        }
+        if (encoding.isBigEndian()) {
+            return buffer.get(index) == 0 && buffer.get(index + 1) == '\n';
+        }
+        return buffer.get(index) == '\n' && buffer.get(index + 1) == 0;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // читаем до конца файла
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
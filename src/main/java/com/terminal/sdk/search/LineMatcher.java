@@ -0,0 +1,66 @@
+package com.terminal.sdk.search;
+
+import java.util.regex.Pattern;
+
+/**
+ * Проверка строк на соответствие шаблону поиска.
+ * Строка задается диапазоном в массиве символов, поэтому при поиске
+ * не создаются промежуточные объекты String.
+ * Реализации не потокобезопасны: каждая задача поиска получает свою копию через {@link #copy()}.
+ */
+public abstract class LineMatcher {
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    /**
+     * Создает сопоставитель: для шаблонов без метасимволов используется
+     * поиск подстроки, иначе регулярное выражение
+     *
+     * @throws java.util.regex.PatternSyntaxException если выражение некорректно
+     */
+    public static LineMatcher compile(String pattern, boolean ignoreCase) {
+        if (isLiteral(pattern)) {
+            return new LiteralMatcher(pattern, ignoreCase);
+        }
+        int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        return new RegexMatcher(Pattern.compile(pattern, flags));
+    }
+
+    public static boolean isLiteral(String pattern) {
+        if (pattern.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (REGEX_METACHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, содержит ли строка text[start, end) совпадение
+     */
+    public abstract boolean matches(char[] text, int start, int end);
+
+    /**
+     * Ищет первое совпадение в диапазоне, который может содержать много строк.
+     * Поддерживается только сопоставителями, для которых {@link #supportsBulkSearch()} истинно.
+     *
+     * @return индекс начала совпадения или -1
+     */
+    public int indexOf(char[] text, int from, int to) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Может ли сопоставитель искать сразу по многострочному блоку
+     */
+    public boolean supportsBulkSearch() {
+        return false;
+    }
+
+    /**
+     * Возвращает независимую копию для использования в другом потоке
+     */
+    public abstract LineMatcher copy();
+}
@@ -0,0 +1,78 @@
+package com.terminal.sdk.search;
+
+import java.util.Arrays;
+
+/**
+ * Поиск подстроки алгоритмом Бойера-Мура-Хорспула.
+ * Таблица сдвигов индексируется младшим байтом символа; символы с одинаковым
+ * младшим байтом получают наименьший из сдвигов, что сохраняет корректность
+ * и для кириллицы.
+ */
+final class LiteralMatcher extends LineMatcher {
+    private final char[] needle;
+    private final boolean ignoreCase;
+    private final int[] shift = new int[256];
+
+    LiteralMatcher(String pattern, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.needle = pattern.toCharArray();
+        if (ignoreCase) {
+            for (int i = 0; i < needle.length; i++) {
+                needle[i] = Character.toLowerCase(needle[i]);
+            }
+        }
+        int last = needle.length - 1;
+        Arrays.fill(shift, needle.length);
+        for (int i = 0; i < last; i++) {
+            int slot = needle[i] & 0xFF;
+            shift[slot] = Math.min(shift[slot], last - i);
+        }
+    }
+
+    private LiteralMatcher(LiteralMatcher other) {
+        this.needle = other.needle;
+        this.ignoreCase = other.ignoreCase;
+        System.arraycopy(other.shift, 0, this.shift, 0, shift.length);
+    }
+
+    @Override
+    public boolean matches(char[] text, int start, int end) {
+        return indexOf(text, start, end) >= 0;
+    }
+
+    @Override
+    public int indexOf(char[] text, int from, int to) {
+        int last = needle.length - 1;
+        int i = from;
+        while (i + last < to) {
+            int j = last;
+            while (j >= 0 && fold(text[i + j]) == needle[j]) {
+                j--;
+            }
+            if (j < 0) {
+                return i;
+            }
+            i += shift[fold(text[i + last]) & 0xFF];
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean supportsBulkSearch() {
+        for (char c : needle) {
+            if (c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public LineMatcher copy() {
+        return new LiteralMatcher(this);
+    }
+
+    private char fold(char c) {
+        return ignoreCase ? Character.toLowerCase(c) : c;
+    }
+}
@@ -0,0 +1,34 @@
+package com.terminal.sdk.search;
+
+import java.nio.CharBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сопоставление строк с регулярным выражением.
+ * Matcher переиспользуется между строками, строка передается как регион буфера.
+ */
+final class RegexMatcher extends LineMatcher {
+    private final Pattern pattern;
+    private char[] boundText;
+    private Matcher matcher;
+
+    RegexMatcher(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    @Override
+    public boolean matches(char[] text, int start, int end) {
+        if (text != boundText) {
+            boundText = text;
+            matcher = pattern.matcher(CharBuffer.wrap(text));
+        }
+        matcher.region(start, end);
+        return matcher.find();
+    }
+
+    @Override
+    public LineMatcher copy() {
+        return new RegexMatcher(pattern);
+    }
+}
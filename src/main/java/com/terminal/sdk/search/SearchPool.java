@@ -0,0 +1,20 @@
+package com.terminal.sdk.search;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.terminal.sdk.core.WorkerPools;
+
+/**
+ * Общий fork/join пул для поиска по файлам.
+ * Отделен от ForkJoinPool.commonPool, чтобы параллельный поиск не мешал
+ * параллельным потокам данных и другим командам.
+ */
+public final class SearchPool {
+
+    private SearchPool() {
+    }
+
+    public static ForkJoinPool get() {
+        return WorkerPools.get("search");
+    }
+}
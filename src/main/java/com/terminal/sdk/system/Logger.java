@@ -1,94 +1,372 @@
 package com.terminal.sdk.system;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Централизованная система логирования Terminal.
+ * Вызывающий поток только проверяет уровень и кладет запись в неблокирующую очередь;
+ * форматирование, запись на диск и ротация logs/terminal.log выполняются
+ * единственным фоновым потоком.
  */
 public class Logger {
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARNING,
+        ERROR
+    }
+
     private static final String LOG_DIR = "logs";
     private static final String LOG_FILE = "terminal.log";
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-    
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter ROLL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HHmmss");
+    private static final int MAX_QUEUED_RECORDS = 65536;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
     private static Logger instance;
-    private PrintWriter writer;
-    private boolean isEnabled = true;
-    private File logFile;
-    private SimpleDateFormat dateFormat;
-    
-    private Logger() {
-        try {
-            File logDir = new File("logs");
-            if (!logDir.exists()) {
-                logDir.mkdirs();
-            }
-            
-            logFile = new File(logDir, "terminal.log");
-            if (!logFile.exists()) {
-                logFile.createNewFile();
-            }
-            
-            writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(logFile, true), 
-                "UTF-8"
-            ));
-            
-            dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        } catch (Exception e) {
-            System.err.println("Ошибка инициализации логгера: " + e.getMessage());
+    private static volatile Level minLevel = Level.DEBUG;
+    private static volatile boolean isEnabled = true;
+
+    private final Queue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private final File logDir;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+
+    private Writer writer;
+    private long fileBytes;
+    private LocalDate fileDate;
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    private static final class Record {
+        final long millis;
+        final Level level;
+        final String tag;
+        final String message;
+        final Object[] args;
+
+        Record(Level level, String tag, String message, Object[] args) {
+            this.millis = System.currentTimeMillis();
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.args = args;
         }
     }
-    
-    public static Logger getInstance() {
+
+    private Logger() {
+        UserSettings settings = UserSettings.getInstance();
+        this.logDir = new File(LOG_DIR);
+        this.maxFileBytes = Math.max(64 * 1024, settings.getLong("log-max-bytes", 10L * 1024 * 1024));
+        this.maxFiles = Math.max(1, settings.getInt("log-max-files", 10));
+        // Как и раньше, по умолчанию пишутся все уровни; log-level в content/user.json сужает вывод
+        minLevel = parseLevel(settings.getString("log-level", "DEBUG"));
+
+        this.writerThread = new Thread(this::drainLoop, "terminal-logger");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "terminal-logger-shutdown"));
+    }
+
+    public static synchronized Logger getInstance() {
         if (instance == null) {
             instance = new Logger();
         }
         return instance;
     }
-    
+
+    /**
+     * Проверяет, будет ли записано сообщение указанного уровня.
+     * Используется, чтобы не собирать дорогие строки для отключенных уровней.
+     */
+    public static boolean isLoggable(Level level) {
+        return isEnabled && level.ordinal() >= minLevel.ordinal();
+    }
+
     public static void info(String tag, String message) {
-        log("INFO", tag, message);
+        log(Level.INFO, tag, message, (Object[]) null);
     }
-    
+
     public static void warning(String tag, String message) {
-        log("WARNING", tag, message);
+        log(Level.WARNING, tag, message, (Object[]) null);
     }
-    
+
     public static void error(String tag, String message) {
-        log("ERROR", tag, message);
+        log(Level.ERROR, tag, message, (Object[]) null);
     }
-    
+
     public static void debug(String tag, String message) {
-        log("DEBUG", tag, message);
+        log(Level.DEBUG, tag, message, (Object[]) null);
     }
-    
-    private static void log(String level, String tag, String message) {
-        if (!getInstance().isEnabled) {
+
+    /**
+     * Записывает сообщение с отложенным форматированием: String.format
+     * выполняется в потоке логгера и только для включенного уровня.
+     */
+    public static void log(Level level, String tag, String format, Object... args) {
+        if (!isLoggable(level)) {
             return;
         }
-        
-        String timestamp = DATE_FORMAT.format(new Date());
-        String logMessage = String.format("[%s] %s/%s: %s", timestamp, level, tag, message);
-        
+        getInstance().enqueue(new Record(level, tag, format, args));
+    }
+
+    public static void setLevel(Level level) {
+        minLevel = level;
+    }
+
+    public static Level getLevel() {
+        return minLevel;
+    }
+
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    /**
+     * Возвращает число записей, отброшенных из-за переполнения очереди
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Дописывает накопленные записи и останавливает поток логгера
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
         try {
-            getInstance().writer.println(logMessage);
-        } catch (Exception e) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Record record) {
+        if (closed) {
+            return;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED_RECORDS) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(record);
+        if (writerIdle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            Record record = queue.poll();
+            if (record == null) {
+                flushWriter();
+                if (closed) {
+                    break;
+                }
+                writerIdle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerIdle = false;
+                continue;
+            }
+            queued.decrementAndGet();
+            line.setLength(0);
+            formatRecord(record, line);
+            writeLine(record.millis, line);
+        }
+        closeWriter();
+    }
+
+    private void formatRecord(Record record, StringBuilder line) {
+        long second = record.millis / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = SECOND_FORMAT.format(
+                LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault()));
+        }
+        String message = record.message;
+        if (record.args != null && record.args.length > 0) {
+            try {
+                message = String.format(Locale.ROOT, record.message, record.args);
+            } catch (Exception e) {
+                message = record.message + " " + Arrays.toString(record.args);
+            }
+        }
+        line.append('[').append(cachedTimestamp).append("] ")
+            .append(record.level).append('/').append(record.tag).append(": ");
+        appendEscaped(line, message);
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            line.append(System.lineSeparator())
+                .append('[').append(cachedTimestamp).append("] WARNING/Logger: пропущено записей: ").append(lost);
+        }
+        line.append(System.lineSeparator());
+    }
+
+    /**
+     * Экранирует управляющие символы, чтобы двоичные данные не ломали файл журнала
+     */
+    private static void appendEscaped(StringBuilder line, String message) {
+        if (message == null) {
+            line.append("null");
+            return;
+        }
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c >= 0x20 || c == '\t' || c == '\n') {
+                line.append(c);
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else {
+                line.append("\\x").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+    }
+
+    private void writeLine(long millis, StringBuilder line) {
+        try {
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+            if (writer == null) {
+                openWriter(date);
+            } else if (fileBytes >= maxFileBytes || !date.equals(fileDate)) {
+                rollFile(date);
+            }
+            writer.append(line);
+            fileBytes += utf8Length(line);
+        } catch (IOException e) {
             System.err.println("Ошибка записи в лог: " + e.getMessage());
         }
     }
-    
-    public void setEnabled(boolean enabled) {
-        this.isEnabled = enabled;
+
+    /**
+     * Длина строки в байтах UTF-8, в котором пишется журнал
+     */
+    private static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат кодировщик заменяет на '?'
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
     }
-    
-    public void close() {
+
+    private void openWriter(LocalDate date) throws IOException {
+        if (!logDir.exists() && !logDir.mkdirs()) {
+            throw new IOException("Не удалось создать директорию " + logDir);
+        }
+        File logFile = new File(logDir, LOG_FILE);
+        fileBytes = logFile.length();
+        fileDate = logFile.exists() && logFile.length() > 0
+            ? Instant.ofEpochMilli(logFile.lastModified()).atZone(ZoneId.systemDefault()).toLocalDate()
+            : date;
+        writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(logFile, true), StandardCharsets.UTF_8), 64 * 1024);
+        if (!date.equals(fileDate) || fileBytes >= maxFileBytes) {
+            rollFile(date);
+        }
+    }
+
+    private void rollFile(LocalDate date) throws IOException {
+        closeWriter();
+        File logFile = new File(logDir, LOG_FILE);
+        String stamp = ROLL_FORMAT.format(LocalDateTime.now());
+        File rolled = new File(logDir, "terminal-" + stamp + ".log");
+        for (int i = 1; rolled.exists(); i++) {
+            rolled = new File(logDir, "terminal-" + stamp + "-" + i + ".log");
+        }
+        if (logFile.exists() && !logFile.renameTo(rolled)) {
+            System.err.println("Не удалось переименовать журнал в " + rolled.getName());
+        }
+        pruneRolledFiles();
+        writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(logFile, true), StandardCharsets.UTF_8), 64 * 1024);
+        fileBytes = 0;
+        fileDate = date;
+    }
+
+    private void pruneRolledFiles() {
+        File[] rolled = logDir.listFiles((dir, name) -> name.startsWith("terminal-") && name.endsWith(".log"));
+        if (rolled == null || rolled.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(rolled, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < rolled.length - maxFiles; i++) {
+            if (!rolled[i].delete()) {
+                System.err.println("Не удалось удалить старый журнал " + rolled[i].getName());
+            }
+        }
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                System.err.println("Ошибка записи в лог: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeWriter() {
         if (writer != null) {
-            writer.close();
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка закрытия лога: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception e) {
+            return Level.DEBUG;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.terminal.sdk.system;
+
+import java.io.File;
+import java.io.FileReader;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Доступ к пользовательским настройкам из content/user.json.
+ * Файл читается один раз; отсутствующие ключи заменяются значениями по умолчанию.
+ */
+public class UserSettings {
+    private static final String USER_CONFIG_PATH = "content/user.json";
+
+    private static UserSettings instance;
+    private final JsonObject config;
+
+    private UserSettings() {
+        JsonObject loaded = new JsonObject();
+        File file = new File(USER_CONFIG_PATH);
+        if (file.exists()) {
+            try (FileReader reader = new FileReader(file)) {
+                loaded = JsonParser.parseReader(reader).getAsJsonObject();
+            } catch (Exception e) {
+                System.err.println("Ошибка чтения настроек пользователя: " + e.getMessage());
+            }
+        }
+        this.config = loaded;
+    }
+
+    public static synchronized UserSettings getInstance() {
+        if (instance == null) {
+            instance = new UserSettings();
+        }
+        return instance;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        try {
+            JsonElement value = config.get(key);
+            return value != null ? value.getAsInt() : defaultValue;
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        try {
+            JsonElement value = config.get(key);
+            return value != null ? value.getAsLong() : defaultValue;
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        try {
+            JsonElement value = config.get(key);
+            return value != null ? value.getAsBoolean() : defaultValue;
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        try {
+            JsonElement value = config.get(key);
+            return value != null ? value.getAsString() : defaultValue;
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+}
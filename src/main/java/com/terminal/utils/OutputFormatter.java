@@ -1,11 +1,11 @@
 package com.terminal.utils;
 
-import javax.swing.text.BadLocationException;
 import javax.swing.text.Style;
 import javax.swing.text.StyledDocument;
 
 import com.terminal.sdk.formatting.BoxCharacters;
 import com.terminal.sdk.formatting.DefaultBeautifulFormatter;
+import com.terminal.sdk.output.BufferedOutputSink;
 
 /**
  * Фасад для форматированного вывода в терминал.
@@ -35,10 +35,7 @@ public class OutputFormatter {
         if (DefaultBeautifulFormatter.isCapturingOutput()) {
             DefaultBeautifulFormatter.getOutputBuffer().append(text);
         } else {
-            try {
-                doc.insertString(doc.getLength(), text, style);
-            } catch (BadLocationException ex) {
-            }
+            BufferedOutputSink.write(doc, text, style);
         }
     }
 
@@ -79,11 +79,11 @@ public class PluginManager implements IPluginManager {
     private void loadPlugin(File jarFile) throws Exception {
         try (JarFile jar = new JarFile(jarFile)) {
             URL[] urls = { new URL("jar:file:" + jarFile.getPath() + "!/") };
-            Logger.debug(getClass().getSimpleName(), "URL плагина: " + urls[0]);
+            Logger.log(Logger.Level.DEBUG, getClass().getSimpleName(), "URL плагина: %s", urls[0]);
             
             try (URLClassLoader loader = new URLClassLoader(urls, getClass().getClassLoader())) {
                 String mainClass = jar.getManifest().getMainAttributes().getValue("Plugin-Class");
-                Logger.debug(getClass().getSimpleName(), "Основной класс плагина: " + mainClass);
+                Logger.log(Logger.Level.DEBUG, getClass().getSimpleName(), "Основной класс плагина: %s", mainClass);
                 
                 if (mainClass == null) {
                     throw new Exception("Plugin-Class не указан в манифесте");
@@ -96,10 +96,10 @@ public class PluginManager implements IPluginManager {
                 }
 
                 Class<?> pluginClass = Class.forName(mainClass, true, loader);
-                Logger.debug(getClass().getSimpleName(), "Класс плагина загружен: " + pluginClass.getName());
+                Logger.log(Logger.Level.DEBUG, getClass().getSimpleName(), "Класс плагина загружен: %s", pluginClass.getName());
                 
                 TerminalPlugin plugin = (TerminalPlugin) pluginClass.getDeclaredConstructor().newInstance();
-                Logger.debug(getClass().getSimpleName(), "Экземпляр плагина создан: " + plugin.getName());
+                Logger.log(Logger.Level.DEBUG, getClass().getSimpleName(), "Экземпляр плагина создан: %s", plugin.getName());
                 
                 try {
                     registerPlugin(plugin);
@@ -302,7 +302,12 @@ public class ThemeManager implements IThemeManager {
         try {
             currentTheme = themes.get(themeName);
 
-            JsonObject userConfig = new JsonObject();
+            JsonObject userConfig;
+            try (FileReader reader = new FileReader(userConfigPath)) {
+                userConfig = JsonParser.parseReader(reader).getAsJsonObject();
+            } catch (Exception e) {
+                userConfig = new JsonObject();
+            }
             userConfig.addProperty("current-theme", themeName);
             
             try (FileWriter writer = new FileWriter(userConfigPath)) {